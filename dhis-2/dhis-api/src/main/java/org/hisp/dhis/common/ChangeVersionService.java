@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.common;
+
+/**
+ * Keeps an in-memory change version per object class. The version of a class
+ * is incremented whenever an object of the class is inserted, updated or
+ * deleted through Hibernate in this instance. Versions are used to answer
+ * conditional requests for object lists without loading the objects.
+ *
+ * @see org.hisp.dhis.external.conf.ConfigurationKey#METADATA_ETAG_ENABLED
+ */
+public interface ChangeVersionService
+{
+    /**
+     * Indicates whether change versions are tracked. Versions are not tracked
+     * when running in a cluster, as changes made by other instances would not
+     * be seen.
+     */
+    boolean isEnabled();
+
+    /**
+     * Increments the version of the given class and of its super classes.
+     *
+     * @param klass the class.
+     */
+    void incrementVersion( Class<?> klass );
+
+    /**
+     * Increments the version of the given class once the current transaction
+     * has been committed, or immediately if no transaction is active. Used by
+     * bulk writes through HQL or JDBC, which bypass the Hibernate event
+     * listeners.
+     *
+     * @param klass the class.
+     */
+    void incrementVersionAfterCommit( Class<?> klass );
+
+    /**
+     * Returns the version of the given class.
+     *
+     * @param klass the class.
+     * @return the version, 0 if no object of the class has changed.
+     */
+    long getVersion( Class<?> klass );
+
+    /**
+     * Returns a tag which changes whenever an object of the given class, or of
+     * any class which can be reached through the properties of the class, has
+     * changed. Tags are unique across restarts of the instance.
+     *
+     * @param klass the class.
+     * @return the tag, or null if change versions are not tracked.
+     */
+    String getVersionTag( Class<?> klass );
+}
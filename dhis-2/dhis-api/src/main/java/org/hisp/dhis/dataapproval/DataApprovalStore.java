@@ -58,6 +58,14 @@ public interface DataApprovalStore
      */
     void addDataApproval( DataApproval dataApproval );
 
+    /**
+     * Adds a list of DataApprovals in order to approve data. The inserts are
+     * sent to the database in JDBC batches.
+     *
+     * @param dataApprovals the DataApprovals to add.
+     */
+    void addDataApprovals( List<DataApproval> dataApprovals );
+
     /**
      * Updates a DataApproval.
      *
@@ -141,7 +149,8 @@ public interface DataApprovalStore
      * look to a level 3 user only as if it was approved at level 3.
      *
      * If a list of organisation units is specified, they must all be at the
-     * same hierarchy level.
+     * same hierarchy level. Organisation units which the user may not see are
+     * left out of the result.
      *
      * @param workflow Data approval workflow to check
      * @param period Period to look within
@@ -84,4 +84,21 @@ public interface MapGenerationService
 
     BufferedImage generateMapImageForUser( Map map, Date date, OrganisationUnit unit, Integer width, Integer height,
         User user );
+
+    /**
+     * Generate a PNG image that represents this map. Images are rendered on a
+     * bounded render pool and cached on their content, so that repeated
+     * requests for a map with unchanged data are served without rendering.
+     *
+     * @param map the map that will be rendered.
+     * @param date the date for relative periods.
+     * @param unit the organisation unit.
+     * @param width the maximum width of the map image.
+     * @param height the maximum height of the map image.
+     * @param user the user to generate the map for.
+     * @return the PNG encoded map image or null if there is no data for the
+     *         map.
+     */
+    byte[] generateMapPngForUser( Map map, Date date, OrganisationUnit unit, Integer width, Integer height,
+        User user );
 }
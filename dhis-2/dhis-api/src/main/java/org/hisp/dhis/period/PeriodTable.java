@@ -0,0 +1,424 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.period;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.hisp.dhis.calendar.Calendar;
+import org.hisp.dhis.calendar.DateTimeUnit;
+import org.joda.time.DateTimeZone;
+
+/**
+ * Precomputed periods of one period type in one calendar, from the period
+ * which contains the first day of {@link #EPOCH_YEAR} up to the first day of
+ * {@link #END_YEAR}. Periods are addressed by their index from the epoch, so
+ * that next, previous and rollup lookups are array operations instead of
+ * calendar arithmetic.
+ * <p>
+ * A compact period identifier combines the position of the period type in
+ * {@link PeriodType#PERIOD_TYPES} with the index of the period, and refers to
+ * the periods of the system calendar. Periods outside of the table have no
+ * identifier, and callers fall back to the calendar arithmetic of the period
+ * type for them.
+ * <p>
+ * Tables are built on first use and kept for the lifetime of the JVM.
+ *
+ * @see PeriodType#getNextPeriod(Period, int)
+ * @see PeriodType#getPreviousPeriod(Period, int)
+ */
+public final class PeriodTable
+{
+    public static final int EPOCH_YEAR = 1970;
+
+    public static final int END_YEAR = 2080;
+
+    private static final int INDEX_BITS = 24;
+
+    private static final int INDEX_MASK = (1 << INDEX_BITS) - 1;
+
+    private static final Map<String, PeriodTable> TABLES = new ConcurrentHashMap<>();
+
+    private static final Map<String, Integer> TYPE_ORDINALS = new HashMap<>();
+
+    static
+    {
+        for ( int i = 0; i < PeriodType.PERIOD_TYPES.size(); i++ )
+        {
+            TYPE_ORDINALS.put( PeriodType.PERIOD_TYPES.get( i ).getName(), i );
+        }
+    }
+
+    private final String key;
+
+    private final PeriodType periodType;
+
+    private final int typeOrdinal;
+
+    private final long[] startTimes;
+
+    private final long[] endTimes;
+
+    private final String[] isoPeriods;
+
+    /**
+     * Indicates whether stepping back from a period of the table always gives
+     * the period before it in the table.
+     */
+    private final boolean reversible;
+
+    /**
+     * Index of the containing period of another table for each period of this
+     * table, by the key of the other table.
+     */
+    private final Map<String, int[]> rollups = new ConcurrentHashMap<>();
+
+    private PeriodTable( String key, PeriodType periodType, Calendar calendar )
+    {
+        this.key = key;
+        this.periodType = periodType;
+        this.typeOrdinal = TYPE_ORDINALS.getOrDefault( periodType.getName(), -1 );
+
+        long endTime = new DateTimeUnit( END_YEAR, 1, 1, true ).toJdkDate().getTime();
+
+        List<Period> periods = new ArrayList<>();
+
+        try
+        {
+            Period period = periodType.createPeriod( calendar.fromIso( new DateTimeUnit( EPOCH_YEAR, 1, 1, true ) ),
+                calendar );
+
+            while ( period.getStartDate().getTime() < endTime && periods.size() < INDEX_MASK )
+            {
+                periods.add( period );
+
+                Period next = periodType.getOffsetPeriod( period, 1, calendar );
+
+                if ( !next.getStartDate().after( period.getStartDate() ) )
+                {
+                    break;
+                }
+
+                period = next;
+            }
+        }
+        catch ( RuntimeException ex )
+        {
+            // Calendars such as the Nepali calendar only support a limited
+            // range of years, the table then ends with the last valid period
+        }
+
+        int size = periods.size();
+
+        startTimes = new long[size];
+        endTimes = new long[size];
+        isoPeriods = new String[size];
+
+        for ( int i = 0; i < size; i++ )
+        {
+            Period period = periods.get( i );
+            startTimes[i] = period.getStartDate().getTime();
+            endTimes[i] = period.getEndDate().getTime();
+            isoPeriods[i] = period.getIsoDate();
+        }
+
+        reversible = isReversible( periods, calendar );
+    }
+
+    private boolean isReversible( List<Period> periods, Calendar calendar )
+    {
+        try
+        {
+            for ( int i = 1; i < periods.size(); i++ )
+            {
+                Period previous = periodType.getOffsetPeriod( periods.get( i ), -1, calendar );
+
+                if ( previous.getStartDate().getTime() != startTimes[i - 1] )
+                {
+                    return false;
+                }
+            }
+        }
+        catch ( RuntimeException ex )
+        {
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Returns the table of the given period type in the given calendar.
+     *
+     * @param periodType the period type.
+     * @param calendar the calendar.
+     * @return the {@link PeriodTable}.
+     */
+    public static PeriodTable of( PeriodType periodType, Calendar calendar )
+    {
+        // Period dates depend on the default time zone
+
+        String key = calendar.name() + "-" + DateTimeZone.getDefault().getID() + "-" + periodType.getName();
+
+        return TABLES.computeIfAbsent( key, k -> new PeriodTable( k, periodType, calendar ) );
+    }
+
+    /**
+     * Returns the table of the given period type in the system calendar.
+     *
+     * @param periodType the period type.
+     * @return the {@link PeriodTable}.
+     */
+    public static PeriodTable of( PeriodType periodType )
+    {
+        return of( periodType, PeriodType.getCalendar() );
+    }
+
+    // -------------------------------------------------------------------------
+    // Compact period identifiers
+    // -------------------------------------------------------------------------
+
+    /**
+     * Returns the compact identifier of the given period in the system
+     * calendar.
+     *
+     * @param period the period.
+     * @return the compact identifier, or -1 if the period is not in a table.
+     */
+    public static int getId( Period period )
+    {
+        if ( period == null || period.getPeriodType() == null )
+        {
+            return -1;
+        }
+
+        PeriodTable table = of( period.getPeriodType() );
+
+        return table.getId( table.indexOf( period ) );
+    }
+
+    /**
+     * Returns the period of the given compact identifier in the system
+     * calendar.
+     *
+     * @param id the compact identifier.
+     * @return the period, or null if the identifier is invalid.
+     */
+    public static Period getPeriod( int id )
+    {
+        PeriodTable table = getTable( id );
+
+        return table != null && (id & INDEX_MASK) < table.size() ? table.getPeriod( id & INDEX_MASK ) : null;
+    }
+
+    /**
+     * Returns the compact identifier of the period which is the given number of
+     * periods after the period of the given compact identifier. A negative
+     * number of periods gives an earlier period.
+     *
+     * @param id the compact identifier.
+     * @param periods the number of periods to move.
+     * @return the compact identifier, or -1 if the period is not in the table.
+     */
+    public static int getOffsetId( int id, int periods )
+    {
+        PeriodTable table = getTable( id );
+
+        if ( table == null || (periods < 0 && !table.reversible) )
+        {
+            return -1;
+        }
+
+        return table.getId( (id & INDEX_MASK) + periods );
+    }
+
+    /**
+     * Returns the compact identifier of the period of the given period type
+     * which contains the period of the given compact identifier.
+     *
+     * @param id the compact identifier.
+     * @param periodType the period type to roll up to.
+     * @return the compact identifier, or -1 if no period of the period type
+     *         contains the period.
+     */
+    public static int rollup( int id, PeriodType periodType )
+    {
+        PeriodTable table = getTable( id );
+
+        if ( table == null || (id & INDEX_MASK) >= table.size() )
+        {
+            return -1;
+        }
+
+        PeriodTable target = of( periodType );
+
+        return target.getId( table.rollup( id & INDEX_MASK, target ) );
+    }
+
+    /**
+     * Indicates whether the period of the given compact identifier contains
+     * the period of the other compact identifier.
+     *
+     * @param id the compact identifier of the containing period.
+     * @param otherId the compact identifier of the contained period.
+     * @return true if the period contains the other period.
+     */
+    public static boolean contains( int id, int otherId )
+    {
+        PeriodTable table = getTable( id );
+
+        return table != null && rollup( otherId, table.periodType ) == id;
+    }
+
+    private static PeriodTable getTable( int id )
+    {
+        int ordinal = id >>> INDEX_BITS;
+
+        return id >= 0 && ordinal < PeriodType.PERIOD_TYPES.size() ? of( PeriodType.PERIOD_TYPES.get( ordinal ) )
+            : null;
+    }
+
+    private int getId( int index )
+    {
+        return typeOrdinal >= 0 && index >= 0 && index < size() ? (typeOrdinal << INDEX_BITS) | index : -1;
+    }
+
+    // -------------------------------------------------------------------------
+    // Indexes
+    // -------------------------------------------------------------------------
+
+    /**
+     * Returns the number of periods in the table.
+     */
+    public int size()
+    {
+        return startTimes.length;
+    }
+
+    /**
+     * Returns the index of the period of the table which starts on the start
+     * date of the given period.
+     *
+     * @param period the period.
+     * @return the index, or -1 if no period of the table starts on the date.
+     */
+    public int indexOf( Period period )
+    {
+        if ( period == null || period.getStartDate() == null )
+        {
+            return -1;
+        }
+
+        int index = Arrays.binarySearch( startTimes, period.getStartDate().getTime() );
+
+        return index >= 0 ? index : -1;
+    }
+
+    /**
+     * Returns the period of the table at the given index. A new period is
+     * returned on every call, as periods are mutable.
+     *
+     * @param index the index.
+     * @return the period.
+     */
+    public Period getPeriod( int index )
+    {
+        return getPeriod( index, periodType );
+    }
+
+    Period getPeriod( int index, PeriodType type )
+    {
+        return new Period( type, new Date( startTimes[index] ), new Date( endTimes[index] ),
+            isoPeriods[index] );
+    }
+
+    /**
+     * Returns the period which is the given number of periods after the given
+     * period, as computed by the calendar arithmetic of the period type. A
+     * negative number of periods gives an earlier period.
+     *
+     * @param period the period.
+     * @param periods the number of periods to move.
+     * @param type the period type of the returned period.
+     * @return the period, or null if either period is not in the table.
+     */
+    Period getOffsetPeriod( Period period, int periods, PeriodType type )
+    {
+        if ( periods < 0 && !reversible )
+        {
+            return null;
+        }
+
+        int index = indexOf( period );
+
+        if ( index < 0 || index + periods < 0 || index + periods >= size() )
+        {
+            return null;
+        }
+
+        return getPeriod( index + periods, type );
+    }
+
+    /**
+     * Returns the index of the period of the given table which contains the
+     * period of this table at the given index. The indexes are computed once
+     * for each pair of tables.
+     *
+     * @param index the index of the period in this table.
+     * @param target the table to roll up to.
+     * @return the index in the given table, or -1 if no period of the given
+     *         table contains the period.
+     */
+    public int rollup( int index, PeriodTable target )
+    {
+        return rollups.computeIfAbsent( target.key, k -> computeRollup( target ) )[index];
+    }
+
+    private int[] computeRollup( PeriodTable target )
+    {
+        int[] indexes = new int[size()];
+
+        for ( int i = 0; i < size(); i++ )
+        {
+            int index = Arrays.binarySearch( target.startTimes, startTimes[i] );
+
+            // The containing period is the last one starting before the period
+
+            index = index >= 0 ? index : -(index + 1) - 1;
+
+            indexes[i] = index >= 0 && target.endTimes[index] >= endTimes[i] ? index : -1;
+        }
+
+        return indexes;
+    }
+}
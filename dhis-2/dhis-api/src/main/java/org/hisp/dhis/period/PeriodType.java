@@ -631,9 +631,18 @@ public abstract class PeriodType
         {
             org.hisp.dhis.calendar.Calendar calendar = getCalendar();
 
+            nextPeriod = PeriodTable.of( this, calendar ).getOffsetPeriod( period, periods, this );
+
+            if ( nextPeriod != null )
+            {
+                return nextPeriod;
+            }
+
+            nextPeriod = period;
+
             for ( int i = 0; i < periods; i++ )
             {
-                nextPeriod = getNextPeriod( nextPeriod, calendar );
+                nextPeriod = getOffsetPeriod( nextPeriod, 1, calendar );
             }
         }
 
@@ -652,10 +661,9 @@ public abstract class PeriodType
      */
     public Period getNextPeriod( Period period, org.hisp.dhis.calendar.Calendar calendar )
     {
-        DateTimeUnit dateWithOffset = getDateWithOffset( createLocalDateUnitInstance( period.getStartDate(), calendar ),
-            1, calendar );
+        Period nextPeriod = PeriodTable.of( this, calendar ).getOffsetPeriod( period, 1, this );
 
-        return createPeriod( dateWithOffset, calendar );
+        return nextPeriod != null ? nextPeriod : getOffsetPeriod( period, 1, calendar );
     }
 
     /**
@@ -687,9 +695,18 @@ public abstract class PeriodType
         {
             org.hisp.dhis.calendar.Calendar calendar = getCalendar();
 
+            previousPeriod = PeriodTable.of( this, calendar ).getOffsetPeriod( period, -periods, this );
+
+            if ( previousPeriod != null )
+            {
+                return previousPeriod;
+            }
+
+            previousPeriod = period;
+
             for ( int i = 0; i < periods; i++ )
             {
-                previousPeriod = getPreviousPeriod( previousPeriod, calendar );
+                previousPeriod = getOffsetPeriod( previousPeriod, -1, calendar );
             }
         }
 
@@ -706,9 +723,27 @@ public abstract class PeriodType
      * @return a Period which is the previous of the given Period.
      */
     public Period getPreviousPeriod( Period period, org.hisp.dhis.calendar.Calendar calendar )
+    {
+        Period previousPeriod = PeriodTable.of( this, calendar ).getOffsetPeriod( period, -1, this );
+
+        return previousPeriod != null ? previousPeriod : getOffsetPeriod( period, -1, calendar );
+    }
+
+    /**
+     * Returns the period which is the given number of periods after the period
+     * containing the start date of the given period, using the calendar
+     * arithmetic of this period type. A negative offset gives an earlier
+     * period. {@link PeriodTable} is built with this method.
+     *
+     * @param period the Period to base the offset on.
+     * @param offset the number of periods to move.
+     * @param calendar the Calendar to use.
+     * @return the offset Period.
+     */
+    Period getOffsetPeriod( Period period, int offset, org.hisp.dhis.calendar.Calendar calendar )
     {
         DateTimeUnit dateWithOffset = getDateWithOffset( createLocalDateUnitInstance( period.getStartDate(), calendar ),
-            -1, calendar );
+            offset, calendar );
 
         return createPeriod( dateWithOffset, calendar );
     }
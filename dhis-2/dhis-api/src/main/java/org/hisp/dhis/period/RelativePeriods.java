@@ -588,19 +588,19 @@ public class RelativePeriods
 
         if ( isLast3Months() )
         {
-            periods.addAll( getRollingRelativePeriodList( new MonthlyPeriodType(), MONTHS_LAST_12,
-                new DateTime( date ).minusMonths( 1 ).toDate(), dynamicNames, format ).subList( 9, 12 ) );
+            periods.addAll( getLastRollingRelativePeriods( new MonthlyPeriodType(), MONTHS_LAST_12, 3,
+                new DateTime( date ).minusMonths( 1 ).toDate(), dynamicNames, format ) );
         }
 
         if ( isLast6Months() )
         {
-            periods.addAll( getRollingRelativePeriodList( new MonthlyPeriodType(), MONTHS_LAST_12,
-                new DateTime( date ).minusMonths( 1 ).toDate(), dynamicNames, format ).subList( 6, 12 ) );
+            periods.addAll( getLastRollingRelativePeriods( new MonthlyPeriodType(), MONTHS_LAST_12, 6,
+                new DateTime( date ).minusMonths( 1 ).toDate(), dynamicNames, format ) );
         }
 
         if ( isLast12Months() )
         {
-            periods.addAll( getRollingRelativePeriodList( new MonthlyPeriodType(), MONTHS_LAST_12,
+            periods.addAll( getLastRollingRelativePeriods( new MonthlyPeriodType(), MONTHS_LAST_12, 12,
                 new DateTime( date ).minusMonths( 1 ).toDate(), dynamicNames, format ) );
         }
 
@@ -624,8 +624,8 @@ public class RelativePeriods
 
         if ( isLast4Weeks() )
         {
-            periods.addAll( getRollingRelativePeriodList( new WeeklyPeriodType(), WEEKS_LAST_52,
-                new DateTime( date ).minusWeeks( 1 ).toDate(), dynamicNames, format ).subList( 48, 52 ) );
+            periods.addAll( getLastRollingRelativePeriods( new WeeklyPeriodType(), WEEKS_LAST_52, 4,
+                new DateTime( date ).minusWeeks( 1 ).toDate(), dynamicNames, format ) );
         }
 
         if ( isLast4BiWeeks() )
@@ -636,13 +636,13 @@ public class RelativePeriods
 
         if ( isLast12Weeks() )
         {
-            periods.addAll( getRollingRelativePeriodList( new WeeklyPeriodType(), WEEKS_LAST_52,
-                new DateTime( date ).minusWeeks( 1 ).toDate(), dynamicNames, format ).subList( 40, 52 ) );
+            periods.addAll( getLastRollingRelativePeriods( new WeeklyPeriodType(), WEEKS_LAST_52, 12,
+                new DateTime( date ).minusWeeks( 1 ).toDate(), dynamicNames, format ) );
         }
 
         if ( isLast52Weeks() )
         {
-            periods.addAll( getRollingRelativePeriodList( new WeeklyPeriodType(), WEEKS_LAST_52,
+            periods.addAll( getLastRollingRelativePeriods( new WeeklyPeriodType(), WEEKS_LAST_52, 52,
                 new DateTime( date ).minusWeeks( 1 ).toDate(), dynamicNames, format ) );
         }
 
@@ -766,6 +766,46 @@ public class RelativePeriods
         return getRelativePeriodList( periodType.generateRollingPeriods( date ), periodNames, dynamicNames, format );
     }
 
+    /**
+     * Returns the given number of last periods of a list of rolling relative
+     * periods, ending with the period which contains the given date. The
+     * periods are taken from the {@link PeriodTable} of the period type, which
+     * avoids generating the whole rolling list.
+     *
+     * @param periodType the period type.
+     * @param periodNames the array of period names of the whole rolling list.
+     * @param count the number of periods.
+     * @param date the current date.
+     * @param dynamicNames indication of whether dynamic names should be used.
+     * @param format the I18nFormat.
+     * @return a list of periods.
+     */
+    private List<Period> getLastRollingRelativePeriods( CalendarPeriodType periodType, String[] periodNames,
+        int count, Date date, boolean dynamicNames, I18nFormat format )
+    {
+        int first = periodNames.length - count;
+
+        PeriodTable table = PeriodTable.of( periodType );
+
+        int last = table.indexOf( periodType.createPeriod( date ) );
+
+        if ( last < count - 1 )
+        {
+            return getRollingRelativePeriodList( periodType, periodNames, date, dynamicNames, format )
+                .subList( first, periodNames.length );
+        }
+
+        List<Period> periods = new ArrayList<>();
+
+        for ( int i = 0; i < count; i++ )
+        {
+            periods.add( setName( table.getPeriod( last - count + 1 + i, periodType ), periodNames[first + i],
+                dynamicNames, format ) );
+        }
+
+        return periods;
+    }
+
     /**
      * Returns a list of relative periods. The name will be dynamic depending on
      * the dynamicNames argument. The short name will always be dynamic.
@@ -61,6 +61,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 
 import org.apache.commons.lang3.StringUtils;
 import org.hisp.dhis.category.Category;
@@ -126,6 +127,12 @@ public class Preheat
      */
     private Map<Class<?>, Map<String, Map<String, String>>> uniqueAttributeValues = new HashMap<>();
 
+    /**
+     * Milliseconds spent loading the objects of each class type, mapped by
+     * class name.
+     */
+    private final Map<String, Long> loadTimes = new TreeMap<>();
+
     public Preheat()
     {
     }
@@ -542,6 +549,16 @@ public class Preheat
         this.uniqueAttributeValues = uniqueAttributeValues;
     }
 
+    public Map<String, Long> getLoadTimes()
+    {
+        return loadTimes;
+    }
+
+    public void addLoadTime( Class<?> klass, long millis )
+    {
+        loadTimes.merge( klass.getSimpleName(), millis, Long::sum );
+    }
+
     @SuppressWarnings( { "rawtypes" } )
     public static boolean isDefaultClass( Class klass )
     {
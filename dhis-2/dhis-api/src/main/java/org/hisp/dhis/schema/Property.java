@@ -30,6 +30,7 @@ package org.hisp.dhis.schema;
 import java.lang.reflect.Method;
 import java.util.List;
 import java.util.Objects;
+import java.util.function.Function;
 
 import org.hisp.dhis.common.DxfNamespaces;
 import org.hisp.dhis.common.EmbeddedObject;
@@ -77,6 +78,12 @@ public class Property implements Ordered, Klass
      */
     private Method getterMethod;
 
+    /**
+     * Compiled accessor for the getter of this property, avoids reflective
+     * invocation of the getter method.
+     */
+    private transient Function<Object, Object> getter;
+
     /**
      * Direct link to setter for this property.
      */
@@ -371,6 +378,17 @@ public class Property implements Ordered, Klass
     public void setGetterMethod( Method getterMethod )
     {
         this.getterMethod = getterMethod;
+        this.getter = null;
+    }
+
+    public Function<Object, Object> getGetter()
+    {
+        return getter;
+    }
+
+    public void setGetter( Function<Object, Object> getter )
+    {
+        this.getter = getter;
     }
 
     public Method getSetterMethod()
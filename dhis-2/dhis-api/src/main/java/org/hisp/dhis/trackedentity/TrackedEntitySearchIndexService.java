@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.trackedentity;
+
+/**
+ * Maintains the denormalised tracked entity attribute search table which
+ * is used to resolve attribute filters of tracked entity instance queries
+ * without joining {@code trackedentityattributevalue} once per filter. While
+ * the search index is enabled the table is kept in sync by database triggers,
+ * which cover every write path including deletes.
+ */
+public interface TrackedEntitySearchIndexService
+{
+    /**
+     * Indicates whether the search index is enabled in dhis.conf.
+     *
+     * @return true if the search index is enabled.
+     */
+    boolean isEnabled();
+
+    /**
+     * Indicates whether the triggers maintaining the search index are
+     * installed and the search index was populated completely.
+     *
+     * @return true if the search index is maintained.
+     */
+    boolean isMaintained();
+
+    /**
+     * Drops all rows of the search index and installs the triggers
+     * maintaining the search index in one transaction, then populates the
+     * search index from the current attribute values in separate batches.
+     */
+    void rebuildSearchIndex();
+
+    /**
+     * Removes the triggers maintaining the search index and all rows of the
+     * search index.
+     */
+    void clearSearchIndex();
+}
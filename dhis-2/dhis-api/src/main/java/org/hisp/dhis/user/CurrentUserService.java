@@ -93,10 +93,28 @@ public interface CurrentUserService
     CurrentUserGroupInfo getCurrentUserGroupsInfo();
 
     /**
-     * Invalidate UserGroupInfo Cache for given username Ignore if username
-     * doesn't exist
+     * Invalidates the {@link UserAccessContext} of the given username. Ignored
+     * if the username doesn't exist.
      */
-    void invalidateUserGroupCache( String username );
+    void invalidateUserAccessContext( String username );
+
+    /**
+     * Invalidates the {@link UserAccessContext} of all users, typically after
+     * a change to a user role.
+     */
+    void invalidateAllUserAccessContexts();
+
+    /**
+     * @return the {@link UserAccessContext} of the currently logged in user,
+     *         null if no user is logged in.
+     */
+    UserAccessContext getCurrentUserAccessContext();
+
+    /**
+     * @return the {@link UserAccessContext} of the given user, null if the user
+     *         is null.
+     */
+    UserAccessContext getUserAccessContext( User user );
 
     /**
      * Get {@link CurrentUserGroupInfo} by given {@link UserInfo}
@@ -0,0 +1,237 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.user;
+
+import static com.google.common.collect.ImmutableSet.toImmutableSet;
+
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+import org.hisp.dhis.common.IdentifiableObject;
+import org.hisp.dhis.organisationunit.OrganisationUnit;
+
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * Immutable snapshot of what a user has access to: authorities, user group
+ * memberships and the roots of the data capture, data view and search
+ * organisation unit hierarchies. Snapshots are created once per user and
+ * shared across requests until the user, its user groups or its user roles
+ * change.
+ * <p>
+ * Organisation units are matched against the hierarchy roots by their path,
+ * so moving organisation units within the hierarchy does not make a snapshot
+ * stale.
+ */
+public final class UserAccessContext
+    implements Serializable
+{
+    private final long userId;
+
+    private final String userUid;
+
+    private final String username;
+
+    private final long version;
+
+    private final boolean superUser;
+
+    private final Set<String> authorities;
+
+    private final Set<String> userGroupUids;
+
+    private final Set<String> captureOrgUnitUids;
+
+    private final Set<String> dataViewOrgUnitUids;
+
+    private final Set<String> searchOrgUnitUids;
+
+    private UserAccessContext( User user, long version )
+    {
+        UserCredentials credentials = user.getUserCredentials();
+
+        this.userId = user.getId();
+        this.userUid = user.getUid();
+        this.username = user.getUsername();
+        this.version = version;
+        this.superUser = credentials != null && credentials.isSuper();
+        this.authorities = credentials != null ? ImmutableSet.copyOf( credentials.getAllAuthorities() )
+            : ImmutableSet.of();
+        this.userGroupUids = uids( user.getGroups() );
+        this.captureOrgUnitUids = uids( user.getOrganisationUnits() );
+        this.dataViewOrgUnitUids = uids( user.getDataViewOrganisationUnitsWithFallback() );
+        this.searchOrgUnitUids = uids( user.getTeiSearchOrganisationUnitsWithFallback() );
+    }
+
+    /**
+     * Creates a snapshot of the current state of the given user. The user
+     * groups, user roles and organisation units of the user must be loadable.
+     *
+     * @param user the user.
+     * @param version the version of the snapshot.
+     * @return a {@link UserAccessContext}, or null if the user is null.
+     */
+    public static UserAccessContext of( User user, long version )
+    {
+        return user != null ? new UserAccessContext( user, version ) : null;
+    }
+
+    // -------------------------------------------------------------------------
+    // Logic
+    // -------------------------------------------------------------------------
+
+    /**
+     * Indicates whether the user has been granted the given authority, either
+     * directly or through the ALL authority.
+     */
+    public boolean isAuthorized( String auth )
+    {
+        return auth != null && (authorities.contains( UserAuthorityGroup.AUTHORITY_ALL )
+            || authorities.contains( auth ));
+    }
+
+    /**
+     * Indicates whether the given organisation unit is in the data capture
+     * hierarchy of the user.
+     */
+    public boolean isInCaptureHierarchy( OrganisationUnit organisationUnit )
+    {
+        return isDescendant( organisationUnit, captureOrgUnitUids );
+    }
+
+    /**
+     * Indicates whether the given organisation unit is in the data view
+     * hierarchy of the user, falling back to the data capture hierarchy.
+     */
+    public boolean isInDataViewHierarchy( OrganisationUnit organisationUnit )
+    {
+        return isDescendant( organisationUnit, dataViewOrgUnitUids );
+    }
+
+    /**
+     * Indicates whether the given organisation unit is in the tracked entity
+     * search hierarchy of the user, falling back to the data capture
+     * hierarchy.
+     */
+    public boolean isInSearchHierarchy( OrganisationUnit organisationUnit )
+    {
+        return isDescendant( organisationUnit, searchOrgUnitUids );
+    }
+
+    public CurrentUserGroupInfo toCurrentUserGroupInfo()
+    {
+        return new CurrentUserGroupInfo( userUid, userGroupUids );
+    }
+
+    private static boolean isDescendant( OrganisationUnit organisationUnit, Set<String> rootUids )
+    {
+        if ( organisationUnit == null || rootUids.isEmpty() )
+        {
+            return false;
+        }
+
+        if ( rootUids.contains( organisationUnit.getUid() ) )
+        {
+            return true;
+        }
+
+        List<String> ancestorUids = organisationUnit.getAncestorUids( null );
+
+        if ( ancestorUids.isEmpty() )
+        {
+            // Path is not available for transient organisation units
+
+            return isDescendant( organisationUnit.getParent(), rootUids );
+        }
+
+        return ancestorUids.stream().anyMatch( rootUids::contains );
+    }
+
+    private static Set<String> uids( Collection<? extends IdentifiableObject> objects )
+    {
+        return objects != null
+            ? objects.stream().map( IdentifiableObject::getUid ).collect( toImmutableSet() )
+            : ImmutableSet.of();
+    }
+
+    // -------------------------------------------------------------------------
+    // Get methods
+    // -------------------------------------------------------------------------
+
+    public long getUserId()
+    {
+        return userId;
+    }
+
+    public String getUserUid()
+    {
+        return userUid;
+    }
+
+    public String getUsername()
+    {
+        return username;
+    }
+
+    public long getVersion()
+    {
+        return version;
+    }
+
+    public boolean isSuper()
+    {
+        return superUser;
+    }
+
+    public Set<String> getAuthorities()
+    {
+        return authorities;
+    }
+
+    public Set<String> getUserGroupUids()
+    {
+        return userGroupUids;
+    }
+
+    public Set<String> getCaptureOrgUnitUids()
+    {
+        return captureOrgUnitUids;
+    }
+
+    public Set<String> getDataViewOrgUnitUids()
+    {
+        return dataViewOrgUnitUids;
+    }
+
+    public Set<String> getSearchOrgUnitUids()
+    {
+        return searchOrgUnitUids;
+    }
+}
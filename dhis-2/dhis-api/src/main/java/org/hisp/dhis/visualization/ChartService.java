@@ -59,6 +59,25 @@ public interface ChartService
     JFreeChart getJFreeChart( PlotData plotData, Date date, OrganisationUnit organisationUnit, I18nFormat format,
         User currentUser );
 
+    /**
+     * Generates a PNG image of the chart. Images are rendered on a bounded
+     * render pool and cached on their content, so that repeated requests for
+     * a chart with unchanged data are served without rendering.
+     *
+     * @param plotData the plot data to use as basis for the chart.
+     * @param date the date to use as basis for relative periods, can be null.
+     * @param organisationUnit the org unit to use as basis for relative units,
+     *        will override the current user org unit if set, can be null.
+     * @param format the i18n format.
+     * @param currentUser the user to generate the chart for, the current user
+     *        is used if null.
+     * @param width the image width.
+     * @param height the image height.
+     * @return the PNG encoded image.
+     */
+    byte[] getChartImage( PlotData plotData, Date date, OrganisationUnit organisationUnit, I18nFormat format,
+        User currentUser, int width, int height );
+
     JFreeChart getJFreePeriodChart( Indicator indicator, OrganisationUnit organisationUnit, boolean title,
         I18nFormat format );
 
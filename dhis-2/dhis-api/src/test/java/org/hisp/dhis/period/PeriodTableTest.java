@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.period;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.hisp.dhis.calendar.Calendar;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link PeriodTable}.
+ */
+public class PeriodTableTest
+{
+    @Test
+    public void testOffsetsMatchCalendarArithmetic()
+    {
+        Calendar calendar = PeriodType.getCalendar();
+
+        for ( PeriodType periodType : PeriodType.PERIOD_TYPES )
+        {
+            PeriodTable table = PeriodTable.of( periodType, calendar );
+
+            Period period = periodType.createPeriod( new Cal( 2019, 12, 28, true ).time(), calendar );
+
+            Period next = period;
+            Period previous = period;
+
+            for ( int i = 1; i <= 60; i++ )
+            {
+                next = periodType.getOffsetPeriod( next, 1, calendar );
+                previous = periodType.getOffsetPeriod( previous, -1, calendar );
+
+                assertEquals( periodType.getName(), next, table.getOffsetPeriod( period, i, periodType ) );
+                assertEquals( periodType.getName(), next.getIsoDate(),
+                    table.getOffsetPeriod( period, i, periodType ).getIsoDate() );
+                assertEquals( periodType.getName(), next, periodType.getNextPeriod( period, i ) );
+                assertEquals( periodType.getName(), previous, periodType.getPreviousPeriod( period, i ) );
+            }
+        }
+    }
+
+    @Test
+    public void testCompactId()
+    {
+        Period period = PeriodType.getPeriodFromIsoString( "202003" );
+
+        int id = PeriodTable.getId( period );
+
+        assertNotEquals( -1, id );
+        assertEquals( period, PeriodTable.getPeriod( id ) );
+        assertEquals( "202003", PeriodTable.getPeriod( id ).getIsoDate() );
+        assertEquals( PeriodType.getPeriodFromIsoString( "202004" ),
+            PeriodTable.getPeriod( PeriodTable.getOffsetId( id, 1 ) ) );
+        assertEquals( PeriodType.getPeriodFromIsoString( "201912" ),
+            PeriodTable.getPeriod( PeriodTable.getOffsetId( id, -3 ) ) );
+        assertNotEquals( id, PeriodTable.getId( PeriodType.getPeriodFromIsoString( "20200301" ) ) );
+    }
+
+    @Test
+    public void testRollup()
+    {
+        int march = PeriodTable.getId( PeriodType.getPeriodFromIsoString( "202003" ) );
+        int q1 = PeriodTable.getId( PeriodType.getPeriodFromIsoString( "2020Q1" ) );
+        int q2 = PeriodTable.getId( PeriodType.getPeriodFromIsoString( "2020Q2" ) );
+        int year = PeriodTable.getId( PeriodType.getPeriodFromIsoString( "2020" ) );
+
+        assertEquals( q1, PeriodTable.rollup( march, new QuarterlyPeriodType() ) );
+        assertEquals( year, PeriodTable.rollup( march, new YearlyPeriodType() ) );
+        assertEquals( year, PeriodTable.rollup( q2, new YearlyPeriodType() ) );
+        assertEquals( -1, PeriodTable.rollup( year, new QuarterlyPeriodType() ) );
+
+        assertTrue( PeriodTable.contains( q1, march ) );
+        assertTrue( PeriodTable.contains( year, march ) );
+        assertFalse( PeriodTable.contains( q2, march ) );
+        assertFalse( PeriodTable.contains( march, year ) );
+
+        // 2020W14 starts in March and ends in April
+
+        int week = PeriodTable.getId( PeriodType.getPeriodFromIsoString( "2020W14" ) );
+
+        assertEquals( -1, PeriodTable.rollup( week, new MonthlyPeriodType() ) );
+        assertEquals( -1, PeriodTable.rollup( week, new QuarterlyPeriodType() ) );
+        assertEquals( year, PeriodTable.rollup( week, new YearlyPeriodType() ) );
+    }
+
+    @Test
+    public void testOutsideTable()
+    {
+        Period period = PeriodType.getPeriodFromIsoString( "195001" );
+
+        assertEquals( -1, PeriodTable.getId( period ) );
+        assertEquals( PeriodType.getPeriodFromIsoString( "195003" ),
+            new MonthlyPeriodType().getNextPeriod( period, 2 ) );
+        assertEquals( PeriodType.getPeriodFromIsoString( "194911" ),
+            new MonthlyPeriodType().getPreviousPeriod( period, 2 ) );
+    }
+}
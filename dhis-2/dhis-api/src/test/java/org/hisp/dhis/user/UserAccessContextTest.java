@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.user;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.hamcrest.Matchers;
+import org.hisp.dhis.organisationunit.OrganisationUnit;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.Sets;
+
+/**
+ * Unit tests for {@link UserAccessContext}.
+ */
+public class UserAccessContextTest
+{
+    private OrganisationUnit ouA;
+
+    private OrganisationUnit ouB;
+
+    private OrganisationUnit ouC;
+
+    private OrganisationUnit ouD;
+
+    private User user;
+
+    @Before
+    public void setUp()
+    {
+        ouA = new OrganisationUnit( "A" );
+        ouB = new OrganisationUnit( "B" );
+        ouB.setParent( ouA );
+        ouC = new OrganisationUnit( "C" );
+        ouC.setParent( ouB );
+        ouD = new OrganisationUnit( "D" );
+
+        UserAuthorityGroup userRole = new UserAuthorityGroup();
+        userRole.setAuthorities( Sets.newHashSet( "F_A", "F_B" ) );
+
+        UserCredentials credentials = new UserCredentials();
+        credentials.setUsername( "userA" );
+        credentials.setUserAuthorityGroups( Sets.newHashSet( userRole ) );
+
+        UserGroup userGroup = new UserGroup();
+        userGroup.setUid( "userGroupA" );
+
+        user = new User();
+        user.setUid( "userA" );
+        user.setUserCredentials( credentials );
+        user.setGroups( Sets.newHashSet( userGroup ) );
+        user.setOrganisationUnits( Sets.newHashSet( ouB ) );
+        user.setDataViewOrganisationUnits( Sets.newHashSet( ouA ) );
+    }
+
+    @Test
+    public void testAuthorities()
+    {
+        UserAccessContext context = UserAccessContext.of( user, 3 );
+
+        assertEquals( 3, context.getVersion() );
+        assertEquals( "userA", context.getUsername() );
+        assertFalse( context.isSuper() );
+        assertTrue( context.isAuthorized( "F_A" ) );
+        assertFalse( context.isAuthorized( "F_C" ) );
+        assertFalse( context.isAuthorized( null ) );
+    }
+
+    @Test
+    public void testUserGroups()
+    {
+        CurrentUserGroupInfo groupInfo = UserAccessContext.of( user, 0 ).toCurrentUserGroupInfo();
+
+        assertEquals( "userA", groupInfo.getUserUID() );
+        assertThat( groupInfo.getUserGroupUIDs(), Matchers.contains( "userGroupA" ) );
+    }
+
+    @Test
+    public void testHierarchyWithPath()
+    {
+        // Populates the persisted path
+        ouC.getPath();
+
+        UserAccessContext context = UserAccessContext.of( user, 0 );
+
+        assertTrue( context.isInCaptureHierarchy( ouB ) );
+        assertTrue( context.isInCaptureHierarchy( ouC ) );
+        assertFalse( context.isInCaptureHierarchy( ouA ) );
+        assertFalse( context.isInCaptureHierarchy( ouD ) );
+        assertTrue( context.isInDataViewHierarchy( ouA ) );
+        assertTrue( context.isInDataViewHierarchy( ouC ) );
+        assertFalse( context.isInDataViewHierarchy( ouD ) );
+    }
+
+    @Test
+    public void testHierarchyWithoutPath()
+    {
+        UserAccessContext context = UserAccessContext.of( user, 0 );
+
+        assertTrue( context.isInCaptureHierarchy( ouC ) );
+        assertFalse( context.isInCaptureHierarchy( ouA ) );
+    }
+
+    @Test
+    public void testSearchHierarchyFallsBackToCapture()
+    {
+        UserAccessContext context = UserAccessContext.of( user, 0 );
+
+        assertTrue( context.isInSearchHierarchy( ouC ) );
+        assertFalse( context.isInSearchHierarchy( ouA ) );
+
+        user.setTeiSearchOrganisationUnits( Sets.newHashSet( ouA ) );
+
+        assertTrue( UserAccessContext.of( user, 0 ).isInSearchHierarchy( ouA ) );
+    }
+}
@@ -106,6 +106,13 @@ public interface AnalyticsTableManager
      */
     Future<?> createIndexesAsync( ConcurrentLinkedQueue<AnalyticsIndex> indexes );
 
+    /**
+     * Creates the given index in the calling thread.
+     *
+     * @param index the analytics index.
+     */
+    void createIndex( AnalyticsIndex index );
+
     /**
      * Attempts to drop the analytics table with partitions and rename the
      * temporary table with partitions as replacement.
@@ -130,6 +137,15 @@ public interface AnalyticsTableManager
     Future<?> populateTablesAsync( AnalyticsTableUpdateParams params,
         ConcurrentLinkedQueue<AnalyticsTablePartition> tablePartitions );
 
+    /**
+     * Copies and denormalizes rows into the given analytics table partition in
+     * the calling thread.
+     *
+     * @param params the {@link AnalyticsTableUpdateParams}.
+     * @param partition the analytics table partition.
+     */
+    void populateTablePartition( AnalyticsTableUpdateParams params, AnalyticsTablePartition partition );
+
     /**
      * Invokes analytics table SQL hooks for the table type.
      *
@@ -137,6 +153,15 @@ public interface AnalyticsTableManager
      */
     int invokeAnalyticsTableSqlHooks();
 
+    /**
+     * Indicates whether analytics table SQL hooks exist for the table type.
+     * The hooks operate on complete tables, so they must run after all
+     * partitions have been populated.
+     *
+     * @return true if analytics table SQL hooks exist.
+     */
+    boolean hasAnalyticsTableSqlHooks();
+
     /**
      * Drops the given {@link AnalyticsTable}.
      *
@@ -179,6 +204,18 @@ public interface AnalyticsTableManager
     Future<?> applyAggregationLevels( ConcurrentLinkedQueue<AnalyticsTablePartition> partitions,
         Collection<String> dataElements, int aggregationLevel );
 
+    /**
+     * Applies aggregation level logic to the given analytics table partition
+     * in the calling thread.
+     *
+     * @param partition the analytics table partition.
+     * @param dataElements the data element identifiers to apply aggregation
+     *        levels for.
+     * @param aggregationLevel the aggregation level.
+     */
+    void applyPartitionAggregationLevels( AnalyticsTablePartition partition, Collection<String> dataElements,
+        int aggregationLevel );
+
     /**
      * Performs vacuum or optimization of the given table. The type of operation
      * performed is dependent on the underlying DBMS.
@@ -188,6 +225,14 @@ public interface AnalyticsTableManager
      */
     Future<?> vacuumTablesAsync( ConcurrentLinkedQueue<AnalyticsTablePartition> partitions );
 
+    /**
+     * Performs vacuum or optimization of the given analytics table partition
+     * in the calling thread.
+     *
+     * @param partition the analytics table partition.
+     */
+    void vacuumTablePartition( AnalyticsTablePartition partition );
+
     /**
      * Returns a list of non-dynamic {@link AnalyticsTableColumn}.
      *
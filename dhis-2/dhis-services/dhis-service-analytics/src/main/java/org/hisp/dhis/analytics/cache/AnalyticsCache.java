@@ -31,11 +31,17 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import static org.apache.commons.logging.LogFactory.getLog;
 
 import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Optional;
 import java.util.function.Function;
+import java.util.function.Supplier;
 
+import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.logging.Log;
 import org.hisp.dhis.analytics.DataQueryParams;
+import org.hisp.dhis.analytics.QueryKey;
 import org.hisp.dhis.cache.Cache;
 import org.hisp.dhis.cache.CacheProvider;
 import org.hisp.dhis.common.Grid;
@@ -52,6 +58,19 @@ public class AnalyticsCache
 
     private final Cache<Grid> queryCache;
 
+    private final Cache<Map<String, Object>> fragmentCache;
+
+    /**
+     * Version of each analytics table and partition. The version is part of
+     * the fragment cache keys, so that changing it on table swap makes the
+     * fragments of the table unreachable. The versions are kept in a cache of
+     * the same kind as the fragment cache, so that they are shared between
+     * nodes whenever the fragments are. A missing version is initialized with
+     * the current time, so that a version which has been evicted never leads
+     * back to fragments cached under an earlier version.
+     */
+    private final Cache<Long> tableVersionCache;
+
     private final AnalyticsCacheSettings analyticsCacheSettings;
 
     /**
@@ -68,6 +87,9 @@ public class AnalyticsCache
         long initialExpirationTime = analyticsCacheSettings.fixedExpirationTimeOrDefault();
         this.queryCache = cacheProvider.createAnalyticsResponseCache(
             Duration.ofSeconds( initialExpirationTime ) );
+        this.fragmentCache = cacheProvider.createAnalyticsQueryFragmentCache(
+            Duration.ofSeconds( initialExpirationTime ) );
+        this.tableVersionCache = cacheProvider.createAnalyticsTableVersionCache();
 
         log.info( String.format( "Analytics server-side cache is enabled with expiration time: %d s",
             initialExpirationTime ) );
@@ -110,6 +132,78 @@ public class AnalyticsCache
         }
     }
 
+    /**
+     * Retrieves the result of a single analytics sub-query from the cache, or
+     * fetches it through the given supplier and caches it. The fragment is
+     * keyed by the normalised SQL and the current version of the tables the
+     * SQL reads from, so that sub-queries shared between requests are only
+     * executed once until one of the tables is swapped. A copy of the cached
+     * map is returned, as callers modify it.
+     *
+     * @param params the DataQueryParams of the sub-query.
+     * @param sql the SQL of the sub-query.
+     * @param tables the names of the tables and partitions the SQL reads from.
+     * @param supplier the supplier which executes the sub-query.
+     * @return a copy of the cached or fetched key-value map.
+     */
+    public Map<String, Object> getOrFetchFragment( final DataQueryParams params, final String sql,
+        final Collection<String> tables, final Supplier<Map<String, Object>> supplier )
+    {
+        final String key = getFragmentKey( sql, tables );
+
+        final Optional<Map<String, Object>> cachedFragment = fragmentCache.get( key );
+
+        if ( cachedFragment.isPresent() )
+        {
+            return new HashMap<>( cachedFragment.get() );
+        }
+
+        final Map<String, Object> fragment = supplier.get();
+
+        fragmentCache.put( key, new HashMap<>( fragment ), getExpirationTime( params ) );
+
+        return fragment;
+    }
+
+    /**
+     * Makes all cached fragments which read from the given analytics table or
+     * partition unreachable. Fragments of the other partitions of the same
+     * table remain cached.
+     *
+     * @param tableName the name of the table or partition.
+     */
+    public void invalidateTable( final String tableName )
+    {
+        long version = getTableVersion( tableName );
+
+        tableVersionCache.put( tableName, Math.max( System.currentTimeMillis(), version + 1 ) );
+
+        log.debug( String.format( "Analytics cache fragments invalidated for table: '%s'", tableName ) );
+    }
+
+    private String getFragmentKey( final String sql, final Collection<String> tables )
+    {
+        QueryKey key = new QueryKey()
+            .add( "sql", StringUtils.normalizeSpace( sql ) );
+
+        tables.stream().sorted().forEach( table -> key.add( "table",
+            table + ":" + getTableVersion( table ) ) );
+
+        return key.build();
+    }
+
+    private long getTableVersion( final String tableName )
+    {
+        return tableVersionCache.get( tableName, table -> System.currentTimeMillis() ).orElse( 0L );
+    }
+
+    private long getExpirationTime( final DataQueryParams params )
+    {
+        return analyticsCacheSettings.isProgressiveCachingEnabled()
+            ? analyticsCacheSettings.progressiveExpirationTimeOrDefault( params.getLatestEndDate() )
+            : analyticsCacheSettings.fixedExpirationTimeOrDefault();
+    }
+
     /**
      * This method will cache the given Grid associated with the given
      * DataQueryParams.
@@ -154,6 +248,7 @@ public class AnalyticsCache
     public void invalidateAll()
     {
         queryCache.invalidateAll();
+        fragmentCache.invalidateAll();
 
         log.info( "Analytics cache cleared" );
     }
@@ -70,6 +70,7 @@ import org.hisp.dhis.analytics.DataQueryParams;
 import org.hisp.dhis.analytics.DataType;
 import org.hisp.dhis.analytics.MeasureFilter;
 import org.hisp.dhis.analytics.QueryPlanner;
+import org.hisp.dhis.analytics.cache.AnalyticsCache;
 import org.hisp.dhis.analytics.table.PartitionUtils;
 import org.hisp.dhis.analytics.util.AnalyticsSqlUtils;
 import org.hisp.dhis.analytics.util.AnalyticsUtils;
@@ -127,14 +128,18 @@ public class JdbcAnalyticsManager
 
     private final JdbcTemplate jdbcTemplate;
 
+    private final AnalyticsCache analyticsCache;
+
     public JdbcAnalyticsManager( QueryPlanner queryPlanner,
-        @Qualifier( "readOnlyJdbcTemplate" ) JdbcTemplate jdbcTemplate )
+        @Qualifier( "readOnlyJdbcTemplate" ) JdbcTemplate jdbcTemplate, AnalyticsCache analyticsCache )
     {
         checkNotNull( queryPlanner );
         checkNotNull( jdbcTemplate );
+        checkNotNull( analyticsCache );
 
         this.queryPlanner = queryPlanner;
         this.jdbcTemplate = jdbcTemplate;
+        this.analyticsCache = analyticsCache;
     }
 
     // -------------------------------------------------------------------------
@@ -181,7 +186,7 @@ public class JdbcAnalyticsManager
 
             try
             {
-                map = getKeyValueMap( params, sql, maxLimit );
+                map = getCachedKeyValueMap( params, sql, maxLimit );
             }
             catch ( BadSqlGrammarException ex )
             {
@@ -402,6 +407,24 @@ public class JdbcAnalyticsManager
         }
     }
 
+    /**
+     * Returns the names of the tables and partitions which the query from
+     * source clause reads from.
+     */
+    private List<String> getFromSourceTables( DataQueryParams params )
+    {
+        if ( !params.isSkipPartitioning() && params.hasPartitions() )
+        {
+            return params.getPartitions().getPartitions().stream()
+                .map( partition -> PartitionUtils.getPartitionName( params.getTableName(), partition ) )
+                .collect( Collectors.toList() );
+        }
+        else
+        {
+            return Lists.newArrayList( params.getTableName() );
+        }
+    }
+
     /**
      * Generates the where clause of the query SQL.
      */
@@ -667,6 +690,30 @@ public class JdbcAnalyticsManager
         return sql;
     }
 
+    /**
+     * Retrieves the key-value map of the given query through the analytics
+     * query fragment cache, if the cache is enabled. Fragments are shared
+     * between overlapping requests, so the max limit is verified against the
+     * size of a cached fragment as well.
+     */
+    private Map<String, Object> getCachedKeyValueMap( DataQueryParams params, String sql, int maxLimit )
+    {
+        if ( !analyticsCache.isEnabled() )
+        {
+            return getKeyValueMap( params, sql, maxLimit );
+        }
+
+        Map<String, Object> map = analyticsCache.getOrFetchFragment( params, sql, getFromSourceTables( params ),
+            () -> getKeyValueMap( params, sql, maxLimit ) );
+
+        if ( maxLimit > 0 && map.size() > maxLimit )
+        {
+            throwIllegalQueryEx( ErrorCode.E7128, maxLimit );
+        }
+
+        return map;
+    }
+
     /**
      * Retrieves data from the database based on the given query and SQL and
      * puts into a value key and value mapping.
@@ -27,7 +27,10 @@
  */
 package org.hisp.dhis.analytics.event;
 
+import java.util.concurrent.Future;
+
 import org.hisp.dhis.common.Grid;
+import org.springframework.jdbc.support.rowset.SqlRowSet;
 
 /**
  * @author Markus Bekken
@@ -44,6 +47,36 @@ public interface EnrollmentAnalyticsManager
      */
     Grid getAggregatedEventData( EventQueryParams params, Grid grid, int maxLimit );
 
+    /**
+     * Returns the SQL retrieving aggregated data based on enrollments. Must be
+     * invoked on the request thread.
+     *
+     * @param params the query to retrieve aggregated data for.
+     * @param maxLimit the max number of records to retrieve.
+     * @return the SQL.
+     */
+    String getAggregatedEventDataSql( EventQueryParams params, int maxLimit );
+
+    /**
+     * Executes the given SQL asynchronously. Does not access the query, so
+     * that no persistent objects are used outside the request thread.
+     *
+     * @param sql the SQL returned by {@link #getAggregatedEventDataSql}.
+     * @return a future holding the rows, or null if the analytics table does
+     *         not exist.
+     */
+    Future<SqlRowSet> getAggregatedEventRowsAsync( String sql );
+
+    /**
+     * Adds the rows of aggregated data based on enrollments to the given grid.
+     * Must be invoked on the request thread.
+     *
+     * @param params the query the rows were retrieved for.
+     * @param grid the grid to insert data into.
+     * @param rowSet the rows.
+     */
+    void addAggregatedEventData( EventQueryParams params, Grid grid, SqlRowSet rowSet );
+
     /**
      * Retrieves aggregated data based on enrollments.
      *
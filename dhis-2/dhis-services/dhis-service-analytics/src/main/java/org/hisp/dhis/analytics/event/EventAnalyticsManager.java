@@ -27,8 +27,11 @@
  */
 package org.hisp.dhis.analytics.event;
 
+import java.util.concurrent.Future;
+
 import org.hisp.dhis.analytics.Rectangle;
 import org.hisp.dhis.common.Grid;
+import org.springframework.jdbc.support.rowset.SqlRowSet;
 
 /**
  * @author Lars Helge Overland
@@ -37,6 +40,12 @@ public interface EventAnalyticsManager
 {
     Grid getAggregatedEventData( EventQueryParams params, Grid grid, int maxLimit );
 
+    String getAggregatedEventDataSql( EventQueryParams params, int maxLimit );
+
+    Future<SqlRowSet> getAggregatedEventRowsAsync( String sql );
+
+    void addAggregatedEventData( EventQueryParams params, Grid grid, SqlRowSet rowSet );
+
     Grid getEvents( EventQueryParams params, Grid grid, int maxLimit );
 
     Grid getEventClusters( EventQueryParams params, Grid grid, int maxLimit );
@@ -41,6 +41,7 @@ import static org.hisp.dhis.system.util.MathUtils.getRounded;
 
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.Future;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -73,6 +74,8 @@ import org.springframework.dao.DataAccessResourceFailureException;
 import org.springframework.jdbc.BadSqlGrammarException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.support.rowset.SqlRowSet;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.AsyncResult;
 import org.springframework.util.Assert;
 
 import com.google.common.collect.Lists;
@@ -301,6 +304,61 @@ public abstract class AbstractJdbcEventAnalyticsManager
     }
 
     public Grid getAggregatedEventData( EventQueryParams params, Grid grid, int maxLimit )
+    {
+        String sql = getAggregatedEventDataSql( params, maxLimit );
+
+        // ---------------------------------------------------------------------
+        // Grid
+        // ---------------------------------------------------------------------
+
+        try
+        {
+            addAggregatedEventData( params, grid, queryForRowSet( sql ) );
+        }
+        catch ( BadSqlGrammarException ex )
+        {
+            log.info( AnalyticsUtils.ERR_MSG_TABLE_NOT_EXISTING, ex );
+        }
+        catch ( DataAccessResourceFailureException ex )
+        {
+            log.warn( ErrorCode.E7131.getMessage(), ex );
+            throw new QueryRuntimeException( ErrorCode.E7131, ex );
+        }
+
+        return grid;
+    }
+
+    /**
+     * Executes the given SQL asynchronously, so that the sub queries of an
+     * aggregate query, typically one for each partition and organisation unit
+     * level, can be executed in parallel. The SQL is built and the rows are
+     * added to the grid on the request thread, as both access persistent
+     * objects of the query.
+     *
+     * @param sql the SQL.
+     * @return a future holding the rows, or null if the table does not exist.
+     */
+    @Async
+    public Future<SqlRowSet> getAggregatedEventRowsAsync( String sql )
+    {
+        try
+        {
+            return new AsyncResult<>( queryForRowSet( sql ) );
+        }
+        catch ( BadSqlGrammarException ex )
+        {
+            log.info( AnalyticsUtils.ERR_MSG_TABLE_NOT_EXISTING, ex );
+        }
+        catch ( DataAccessResourceFailureException ex )
+        {
+            log.warn( ErrorCode.E7131.getMessage(), ex );
+            throw new QueryRuntimeException( ErrorCode.E7131, ex );
+        }
+
+        return new AsyncResult<>( null );
+    }
+
+    public String getAggregatedEventDataSql( EventQueryParams params, int maxLimit )
     {
         String countClause = getAggregateClause( params );
 
@@ -348,33 +406,18 @@ public abstract class AbstractJdbcEventAnalyticsManager
             sql += "limit " + (maxLimit + 1);
         }
 
-        // ---------------------------------------------------------------------
-        // Grid
-        // ---------------------------------------------------------------------
-
-        try
-        {
-            getAggregatedEventData( grid, params, sql );
-        }
-        catch ( BadSqlGrammarException ex )
-        {
-            log.info( AnalyticsUtils.ERR_MSG_TABLE_NOT_EXISTING, ex );
-        }
-        catch ( DataAccessResourceFailureException ex )
-        {
-            log.warn( ErrorCode.E7131.getMessage(), ex );
-            throw new QueryRuntimeException( ErrorCode.E7131, ex );
-        }
-
-        return grid;
+        return sql;
     }
 
-    private void getAggregatedEventData( Grid grid, EventQueryParams params, String sql )
+    private SqlRowSet queryForRowSet( String sql )
     {
         log.debug( "Analytics enrollment aggregate SQL: " + sql );
 
-        SqlRowSet rowSet = jdbcTemplate.queryForRowSet( sql );
+        return jdbcTemplate.queryForRowSet( sql );
+    }
 
+    public void addAggregatedEventData( EventQueryParams params, Grid grid, SqlRowSet rowSet )
+    {
         while ( rowSet.next() )
         {
             grid.addRow();
@@ -57,6 +57,8 @@ import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import org.apache.commons.lang3.StringUtils;
 import org.hisp.dhis.analytics.AnalyticsSecurityManager;
@@ -94,6 +96,7 @@ import org.hisp.dhis.system.database.DatabaseInfo;
 import org.hisp.dhis.system.grid.ListGrid;
 import org.hisp.dhis.trackedentity.TrackedEntityAttributeService;
 import org.hisp.dhis.util.Timer;
+import org.springframework.jdbc.support.rowset.SqlRowSet;
 import org.springframework.stereotype.Service;
 
 import com.google.common.base.Preconditions;
@@ -553,20 +556,29 @@ public class DefaultEventAnalyticsService
 
             timer.getSplitTime( "Planned event query, got partitions: " + params.getPartitions() );
 
+            // SQL is built and rows are added on the request thread, only the
+            // queries are executed in parallel
+
+            List<Future<SqlRowSet>> futures = new ArrayList<>();
+
             for ( EventQueryParams query : queries )
             {
                 // Each query might be either an enrollment or event indicator
 
                 if ( query.hasEnrollmentProgramIndicatorDimension() )
                 {
-                    enrollmentAnalyticsManager.getAggregatedEventData( query, grid, maxLimit );
+                    futures.add( enrollmentAnalyticsManager.getAggregatedEventRowsAsync(
+                        enrollmentAnalyticsManager.getAggregatedEventDataSql( query, maxLimit ) ) );
                 }
                 else
                 {
-                    eventAnalyticsManager.getAggregatedEventData( query, grid, maxLimit );
+                    futures.add( eventAnalyticsManager.getAggregatedEventRowsAsync(
+                        eventAnalyticsManager.getAggregatedEventDataSql( query, maxLimit ) ) );
                 }
             }
 
+            addRows( grid, queries, futures );
+
             timer.getTime( "Got aggregated events" );
 
             if ( maxLimit > 0 && grid.getHeight() > maxLimit )
@@ -598,6 +610,58 @@ public class DefaultEventAnalyticsService
         return grid;
     }
 
+    /**
+     * Waits for the given sub query results and adds their rows to the grid in
+     * the order of the sub queries.
+     *
+     * @param grid the grid.
+     * @param queries the list of sub queries.
+     * @param futures the list of sub query results.
+     */
+    private void addRows( Grid grid, List<EventQueryParams> queries, List<Future<SqlRowSet>> futures )
+    {
+        for ( int i = 0; i < queries.size(); i++ )
+        {
+            EventQueryParams query = queries.get( i );
+
+            try
+            {
+                SqlRowSet rowSet = futures.get( i ).get();
+
+                if ( rowSet == null )
+                {
+                    continue;
+                }
+
+                if ( query.hasEnrollmentProgramIndicatorDimension() )
+                {
+                    enrollmentAnalyticsManager.addAggregatedEventData( query, grid, rowSet );
+                }
+                else
+                {
+                    eventAnalyticsManager.addAggregatedEventData( query, grid, rowSet );
+                }
+            }
+            catch ( ExecutionException ex )
+            {
+                if ( ex.getCause() instanceof RuntimeException )
+                {
+                    // Throw the real exception
+
+                    throw (RuntimeException) ex.getCause();
+                }
+
+                throw new RuntimeException( "Error during execution of event aggregation query task", ex );
+            }
+            catch ( InterruptedException ex )
+            {
+                Thread.currentThread().interrupt();
+
+                throw new RuntimeException( "Event aggregation query task was interrupted", ex );
+            }
+        }
+    }
+
     /**
      * Substitutes the meta data of the grid with the identifier scheme meta
      * data property indicated in the query. This happens only when a custom ID
@@ -30,7 +30,9 @@ package org.hisp.dhis.analytics.event.data;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.function.Function;
 
 import org.hisp.dhis.analytics.AggregationType;
@@ -93,6 +95,7 @@ public class DefaultEventQueryPlanner
             .add( q -> groupByOrgUnitLevel( q ) )
             .add( q -> groupByPeriodType( q ) )
             .add( q -> groupByPeriod( q ) )
+            .add( q -> groupByPartition( q ) )
             .build();
 
         for ( Function<EventQueryParams, List<EventQueryParams>> grouper : groupers )
@@ -296,4 +299,49 @@ public class DefaultEventQueryPlanner
 
         return queries;
     }
+
+    /**
+     * Groups the given query in sub queries for each set of partitions which
+     * the dimension periods fall within, so that each sub query reads from
+     * the smallest number of partitions and the sub queries can be executed in
+     * parallel. The periods of the sub queries are disjoint, which means that
+     * their results can be combined without further aggregation. Queries with
+     * periods as filter or with start and end dates are not grouped, neither
+     * are enrollment queries as the enrollment analytics tables are not
+     * partitioned.
+     *
+     * @param params the event query parameters.
+     * @return a list of {@link EventQueryParams}.
+     */
+    private List<EventQueryParams> groupByPartition( EventQueryParams params )
+    {
+        List<EventQueryParams> queries = new ArrayList<>();
+
+        Map<Partitions, List<DimensionalItemObject>> partitionPeriodMap = new LinkedHashMap<>();
+
+        if ( !params.hasStartEndDate() && !params.hasEnrollmentProgramIndicatorDimension() )
+        {
+            params.getPeriods().forEach( period -> partitionPeriodMap.computeIfAbsent(
+                PartitionUtils.getPartitions( (Period) period ), p -> new ArrayList<>() ).add( period ) );
+        }
+
+        if ( partitionPeriodMap.size() > 1 )
+        {
+            for ( List<DimensionalItemObject> periods : partitionPeriodMap.values() )
+            {
+                String periodType = ((Period) periods.get( 0 )).getPeriodType().getName().toLowerCase();
+
+                EventQueryParams query = new EventQueryParams.Builder( params )
+                    .withPeriods( periods, periodType ).build();
+
+                queries.add( query );
+            }
+        }
+        else
+        {
+            queries.add( params );
+        }
+
+        return queries;
+    }
 }
@@ -59,6 +59,7 @@ import org.hisp.dhis.security.acl.AclService;
 import org.hisp.dhis.setting.SystemSettingManager;
 import org.hisp.dhis.user.CurrentUserService;
 import org.hisp.dhis.user.User;
+import org.hisp.dhis.user.UserAccessContext;
 import org.springframework.stereotype.Component;
 
 /**
@@ -128,13 +129,13 @@ public class DefaultAnalyticsSecurityManager
             return; // Allow if no
         }
 
-        Set<OrganisationUnit> viewOrgUnits = user.getDataViewOrganisationUnits();
+        UserAccessContext accessContext = currentUserService.getUserAccessContext( user );
 
         Integer maxOrgUnitLevel = user.getDataViewMaxOrganisationUnitLevel();
 
         for ( OrganisationUnit queryOrgUnit : queryOrgUnits )
         {
-            boolean notDescendant = !queryOrgUnit.isDescendant( viewOrgUnits );
+            boolean notDescendant = !accessContext.isInDataViewHierarchy( queryOrgUnit );
 
             if ( notDescendant )
             {
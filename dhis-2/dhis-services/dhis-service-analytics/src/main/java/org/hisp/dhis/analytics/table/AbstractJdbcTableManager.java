@@ -33,6 +33,7 @@ import static org.hisp.dhis.analytics.ColumnDataType.TEXT;
 import static org.hisp.dhis.analytics.util.AnalyticsSqlUtils.quote;
 import static org.hisp.dhis.util.DateUtils.getLongDateString;
 
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
 import java.util.List;
@@ -217,21 +218,27 @@ public abstract class AbstractJdbcTableManager
                 break;
             }
 
-            final String indexName = inx.getIndexName( getAnalyticsTableType() );
-            final String indexColumns = StringUtils.join( inx.getColumns(), "," );
+            createIndex( inx );
+        }
 
-            final String sql = "create index " + indexName + " " +
-                "on " + inx.getTable() + " " +
-                "using " + inx.getType().keyword() + " (" + indexColumns + ");";
+        return null;
+    }
 
-            log.debug( "Create index: '{}' with SQL: '{}'", indexName, sql );
+    @Override
+    public void createIndex( AnalyticsIndex index )
+    {
+        final String indexName = index.getIndexName( getAnalyticsTableType() );
+        final String indexColumns = StringUtils.join( index.getColumns(), "," );
 
-            jdbcTemplate.execute( sql );
+        final String sql = "create index " + indexName + " " +
+            "on " + index.getTable() + " " +
+            "using " + index.getType().keyword() + " (" + indexColumns + ");";
 
-            log.debug( "Created index: '{}'", indexName );
-        }
+        log.debug( "Create index: '{}' with SQL: '{}'", indexName, sql );
 
-        return null;
+        jdbcTemplate.execute( sql );
+
+        log.debug( "Created index: '{}'", indexName );
     }
 
     @Override
@@ -298,6 +305,31 @@ public abstract class AbstractJdbcTableManager
         return null;
     }
 
+    @Override
+    public void populateTablePartition( AnalyticsTableUpdateParams params, AnalyticsTablePartition partition )
+    {
+        populateTable( params, partition );
+    }
+
+    /**
+     * Does nothing, as aggregation levels apply to aggregate data only.
+     * Override to apply aggregation levels to the partition.
+     */
+    @Override
+    public void applyPartitionAggregationLevels( AnalyticsTablePartition partition, Collection<String> dataElements,
+        int aggregationLevel )
+    {
+    }
+
+    /**
+     * Does nothing, as vacuum is only required after aggregation levels are
+     * applied. Override to vacuum the partition.
+     */
+    @Override
+    public void vacuumTablePartition( AnalyticsTablePartition partition )
+    {
+    }
+
     @Override
     public int invokeAnalyticsTableSqlHooks()
     {
@@ -308,6 +340,13 @@ public abstract class AbstractJdbcTableManager
         return hooks.size();
     }
 
+    @Override
+    public boolean hasAnalyticsTableSqlHooks()
+    {
+        return !tableHookService.getByPhaseAndAnalyticsTableType( AnalyticsTablePhase.ANALYTICS_TABLE_POPULATED,
+            getAnalyticsTableType() ).isEmpty();
+    }
+
     // -------------------------------------------------------------------------
     // Abstract methods
     // -------------------------------------------------------------------------
@@ -32,10 +32,17 @@ import static org.hisp.dhis.util.DateUtils.getLongDateString;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -47,6 +54,7 @@ import org.hisp.dhis.analytics.AnalyticsTablePartition;
 import org.hisp.dhis.analytics.AnalyticsTableService;
 import org.hisp.dhis.analytics.AnalyticsTableType;
 import org.hisp.dhis.analytics.AnalyticsTableUpdateParams;
+import org.hisp.dhis.analytics.cache.AnalyticsCache;
 import org.hisp.dhis.common.IdentifiableObjectUtils;
 import org.hisp.dhis.commons.util.ConcurrentUtils;
 import org.hisp.dhis.commons.util.SystemUtils;
@@ -80,9 +88,12 @@ public class DefaultAnalyticsTableService
 
     private SystemSettingManager systemSettingManager;
 
+    private AnalyticsCache analyticsCache;
+
     public DefaultAnalyticsTableService( AnalyticsTableManager tableManager,
         OrganisationUnitService organisationUnitService, DataElementService dataElementService,
-        ResourceTableService resourceTableService, Notifier notifier, SystemSettingManager systemSettingManager )
+        ResourceTableService resourceTableService, Notifier notifier, SystemSettingManager systemSettingManager,
+        AnalyticsCache analyticsCache )
     {
         checkNotNull( tableManager );
         checkNotNull( organisationUnitService );
@@ -90,6 +101,7 @@ public class DefaultAnalyticsTableService
         checkNotNull( resourceTableService );
         checkNotNull( notifier );
         checkNotNull( systemSettingManager );
+        checkNotNull( analyticsCache );
 
         this.tableManager = tableManager;
         this.organisationUnitService = organisationUnitService;
@@ -97,6 +109,7 @@ public class DefaultAnalyticsTableService
         this.resourceTableService = resourceTableService;
         this.notifier = notifier;
         this.systemSettingManager = systemSettingManager;
+        this.analyticsCache = analyticsCache;
     }
 
     // -------------------------------------------------------------------------
@@ -162,6 +175,29 @@ public class DefaultAnalyticsTableService
         createTables( tables );
 
         clock.logTime( "Created analytics tables" );
+
+        if ( isPipelinedUpdate() )
+        {
+            notifier.notify( jobId, "Populating, indexing and analyzing analytics table partitions" );
+
+            updatePartitionsPipelined( params, tables );
+
+            clock.logTime( "Populated, indexed and analyzed analytics table partitions" );
+            notifier.notify( jobId, "Removing updated and deleted data" );
+
+            tableManager.removeUpdatedData( params, tables );
+
+            clock.logTime( "Removed updated and deleted data" );
+            notifier.notify( jobId, "Swapping analytics tables" );
+
+            swapTables( params, tables );
+
+            clock.logTime( "Table update done: " + tableType.getTableName() );
+            notifier.notify( jobId, "Table update done" );
+
+            return;
+        }
+
         notifier.notify( jobId, "Populating analytics tables" );
 
         populateTables( params, tables );
@@ -277,6 +313,150 @@ public class DefaultAnalyticsTableService
         ConcurrentUtils.waitForCompletion( futures );
     }
 
+    /**
+     * Indicates whether partitions should move through population, aggregation
+     * levels, indexing and analyze individually. Analytics table SQL hooks
+     * operate on complete tables, so the pipeline is not used when hooks
+     * exist.
+     */
+    private boolean isPipelinedUpdate()
+    {
+        if ( !systemSettingManager.getBoolSetting( SettingKey.ANALYTICS_TABLE_PIPELINED_UPDATE ) )
+        {
+            return false;
+        }
+
+        if ( tableManager.hasAnalyticsTableSqlHooks() )
+        {
+            log.info( "Analytics table SQL hooks exist, pipelined table update is not used" );
+
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Populates, applies aggregation levels to, indexes and analyzes each
+     * partition of the given analytics tables. A partition moves to its next
+     * step as soon as its previous step is done, and the steps of all
+     * partitions share one worker pool. The step timings of each partition
+     * are reported through the {@link Notifier}.
+     *
+     * @param params the {@link AnalyticsTableUpdateParams}.
+     * @param tables the list of {@link AnalyticsTable}.
+     */
+    private void updatePartitionsPipelined( AnalyticsTableUpdateParams params, List<AnalyticsTable> tables )
+    {
+        List<AnalyticsTablePartition> partitions = PartitionUtils.getTablePartitions( tables );
+
+        Map<Integer, Collection<String>> aggregationLevels = getAggregationLevels();
+
+        int workerNo = getProcessNo();
+
+        log.info( String.format( "Pipelined update of %d partitions with %d workers", partitions.size(),
+            workerNo ) );
+
+        AtomicInteger threadCount = new AtomicInteger();
+
+        ExecutorService executor = Executors.newFixedThreadPool( workerNo, runnable -> {
+            Thread thread = new Thread( runnable, "analytics-table-pipeline-" + threadCount.incrementAndGet() );
+            thread.setDaemon( true );
+            return thread;
+        } );
+
+        try
+        {
+            CompletableFuture.allOf( partitions.stream()
+                .map( partition -> updatePartition( params, partition, aggregationLevels, executor ) )
+                .toArray( CompletableFuture[]::new ) )
+                .join();
+        }
+        catch ( CompletionException ex )
+        {
+            throw new RuntimeException( "Exception during execution", ex.getCause() );
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Chains the update steps of the given partition on the given executor.
+     * The steps call the table manager synchronously, so that all work is
+     * bounded by the worker pool rather than handed to the asynchronous task
+     * executor. The indexes of the partition are created in parallel.
+     */
+    private CompletableFuture<Void> updatePartition( AnalyticsTableUpdateParams params,
+        AnalyticsTablePartition partition, Map<Integer, Collection<String>> aggregationLevels,
+        ExecutorService executor )
+    {
+        JobConfiguration jobId = params.getJobId();
+
+        String table = partition.getTempTableName();
+
+        Clock clock = new Clock( log );
+
+        List<String> timings = new ArrayList<>();
+
+        return CompletableFuture.runAsync( () -> {
+            clock.startClock();
+
+            tableManager.populateTablePartition( params, partition );
+
+            timings.add( "populated: " + clock.time() );
+
+            if ( !aggregationLevels.isEmpty() )
+            {
+                aggregationLevels.forEach( ( level, dataElements ) -> tableManager
+                    .applyPartitionAggregationLevels( partition, dataElements, level ) );
+
+                tableManager.vacuumTablePartition( partition );
+
+                timings.add( "aggregation levels applied: " + clock.time() );
+            }
+        }, executor )
+            .thenComposeAsync( v -> CompletableFuture.allOf( getIndexes( partition ).stream()
+                .map( index -> CompletableFuture.runAsync( () -> tableManager.createIndex( index ), executor ) )
+                .toArray( CompletableFuture[]::new ) ), executor )
+            .thenRunAsync( () -> {
+                timings.add( "indexed: " + clock.time() );
+
+                tableManager.analyzeTable( table );
+
+                timings.add( "analyzed: " + clock.time() );
+
+                clock.logTime( String.format( "Partition '%s' updated", table ) );
+                notifier.notify( jobId, String.format( "Partition '%s' %s", table,
+                    String.join( ", ", timings ) ) );
+            }, executor );
+    }
+
+    /**
+     * Returns the data elements of each aggregation level, from the highest
+     * level to the lowest. Levels without data elements are omitted.
+     */
+    private Map<Integer, Collection<String>> getAggregationLevels()
+    {
+        int maxLevels = organisationUnitService.getNumberOfOrganisationalLevels();
+
+        Map<Integer, Collection<String>> aggregationLevels = new LinkedHashMap<>();
+
+        for ( int level = maxLevels; level > 0; level-- )
+        {
+            Collection<String> dataElements = IdentifiableObjectUtils.getUids(
+                dataElementService.getDataElementsByAggregationLevel( level ) );
+
+            if ( !dataElements.isEmpty() )
+            {
+                aggregationLevels.put( level, dataElements );
+            }
+        }
+
+        return aggregationLevels;
+    }
+
     /**
      * Applies aggregation levels to the given analytics tables.
      *
@@ -376,17 +556,32 @@ public class DefaultAnalyticsTableService
 
         for ( AnalyticsTablePartition partition : partitions )
         {
-            List<AnalyticsTableColumn> columns = partition.getMasterTable().getDimensionColumns();
+            indexes.addAll( getIndexes( partition ) );
+        }
 
-            for ( AnalyticsTableColumn col : columns )
+        return indexes;
+    }
+
+    /**
+     * Returns the indexes of the given analytics table partition.
+     *
+     * @param partition the {@link AnalyticsTablePartition}.
+     * @return a list of indexes.
+     */
+    private List<AnalyticsIndex> getIndexes( AnalyticsTablePartition partition )
+    {
+        List<AnalyticsIndex> indexes = new ArrayList<>();
+
+        List<AnalyticsTableColumn> columns = partition.getMasterTable().getDimensionColumns();
+
+        for ( AnalyticsTableColumn col : columns )
+        {
+            if ( !col.isSkipIndex() )
             {
-                if ( !col.isSkipIndex() )
-                {
-                    List<String> indexColumns = col.hasIndexColumns() ? col.getIndexColumns()
-                        : Lists.newArrayList( col.getName() );
+                List<String> indexColumns = col.hasIndexColumns() ? col.getIndexColumns()
+                    : Lists.newArrayList( col.getName() );
 
-                    indexes.add( new AnalyticsIndex( partition.getTempTableName(), indexColumns, col.getIndexType() ) );
-                }
+                indexes.add( new AnalyticsIndex( partition.getTempTableName(), indexColumns, col.getIndexType() ) );
             }
         }
 
@@ -406,7 +601,8 @@ public class DefaultAnalyticsTableService
     }
 
     /**
-     * Swaps the given analytics tables.
+     * Swaps the given analytics tables. Cached query fragments of the swapped
+     * tables and partitions are invalidated.
      *
      * @param params the {@link AnalyticsTableUpdateParams}.
      * @param tables the list of {@link AnalyticsTable}.
@@ -417,6 +613,11 @@ public class DefaultAnalyticsTableService
 
         tables.forEach( table -> tableManager.swapTable( params, table ) );
 
+        tables.forEach( table -> analyticsCache.invalidateTable( table.getTableName() ) );
+
+        PartitionUtils.getTablePartitions( tables )
+            .forEach( partition -> analyticsCache.invalidateTable( partition.getTableName() ) );
+
         resourceTableService.createAllSqlViews();
     }
 
@@ -514,25 +514,7 @@ public class JdbcAnalyticsTableManager
                 break taskLoop;
             }
 
-            StringBuilder sql = new StringBuilder( "update " + partition.getTempTableName() + " set " );
-
-            for ( int i = 0; i < aggregationLevel; i++ )
-            {
-                int level = i + 1;
-
-                String column = quote( DataQueryParams.LEVEL_PREFIX + level );
-
-                sql.append( column + " = null," );
-            }
-
-            sql.deleteCharAt( sql.length() - ",".length() );
-
-            sql.append( " where level > " + aggregationLevel );
-            sql.append( " and dx in (" + getQuotedCommaDelimitedString( dataElements ) + ")" );
-
-            log.debug( "Aggregation level SQL: " + sql.toString() );
-
-            jdbcTemplate.execute( sql.toString() );
+            applyPartitionAggregationLevels( partition, dataElements, aggregationLevel );
         }
 
         return ConcurrentUtils.getImmediateFuture();
@@ -551,14 +533,45 @@ public class JdbcAnalyticsTableManager
                 break taskLoop;
             }
 
-            final String sql = statementBuilder.getVacuum( partition.getTempTableName() );
+            vacuumTablePartition( partition );
+        }
+
+        return ConcurrentUtils.getImmediateFuture();
+    }
+
+    @Override
+    public void applyPartitionAggregationLevels( AnalyticsTablePartition partition, Collection<String> dataElements,
+        int aggregationLevel )
+    {
+        StringBuilder sql = new StringBuilder( "update " + partition.getTempTableName() + " set " );
+
+        for ( int i = 0; i < aggregationLevel; i++ )
+        {
+            int level = i + 1;
 
-            log.debug( "Vacuum SQL: " + sql );
+            String column = quote( DataQueryParams.LEVEL_PREFIX + level );
 
-            jdbcTemplate.execute( sql );
+            sql.append( column + " = null," );
         }
 
-        return ConcurrentUtils.getImmediateFuture();
+        sql.deleteCharAt( sql.length() - ",".length() );
+
+        sql.append( " where level > " + aggregationLevel );
+        sql.append( " and dx in (" + getQuotedCommaDelimitedString( dataElements ) + ")" );
+
+        log.debug( "Aggregation level SQL: " + sql.toString() );
+
+        jdbcTemplate.execute( sql.toString() );
+    }
+
+    @Override
+    public void vacuumTablePartition( AnalyticsTablePartition partition )
+    {
+        final String sql = statementBuilder.getVacuum( partition.getTempTableName() );
+
+        log.debug( "Vacuum SQL: " + sql );
+
+        jdbcTemplate.execute( sql );
     }
 
     @Override
@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.analytics.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.hisp.dhis.analytics.DataQueryParams;
+import org.hisp.dhis.cache.CacheProvider;
+import org.hisp.dhis.cache.SimpleCacheBuilder;
+import org.hisp.dhis.cache.TestCache;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+
+import com.google.common.collect.ImmutableMap;
+
+public class AnalyticsCacheTest
+{
+    @Rule
+    public MockitoRule mockitoRule = MockitoJUnit.rule();
+
+    @Mock
+    private CacheProvider cacheProvider;
+
+    @Mock
+    private AnalyticsCacheSettings analyticsCacheSettings;
+
+    private final AtomicInteger fetchCount = new AtomicInteger();
+
+    private final DataQueryParams params = DataQueryParams.newBuilder().build();
+
+    private final List<String> tables = Arrays.asList( "analytics_2019", "analytics_2020" );
+
+    private AnalyticsCache analyticsCache;
+
+    @Before
+    public void setUp()
+    {
+        when( analyticsCacheSettings.fixedExpirationTimeOrDefault() ).thenReturn( 60L );
+        when( cacheProvider.createAnalyticsResponseCache( any() ) ).thenReturn( new TestCache<>() );
+        when( cacheProvider.createAnalyticsQueryFragmentCache( any() ) ).thenReturn( new TestCache<>() );
+        when( cacheProvider.createAnalyticsTableVersionCache() )
+            .thenReturn( new SimpleCacheBuilder<Long>().withMaximumSize( 10 ).build() );
+
+        analyticsCache = new AnalyticsCache( cacheProvider, analyticsCacheSettings );
+    }
+
+    @Test
+    public void verifyFragmentIsReusedForEquivalentSql()
+    {
+        fetch( "select sum(value) from analytics_2019 as ax" );
+        Map<String, Object> fragment = fetch( "select  sum(value)\n from analytics_2019   as ax " );
+
+        assertEquals( 1, fetchCount.get() );
+        assertEquals( 12d, fragment.get( "a-b" ) );
+    }
+
+    @Test
+    public void verifyFragmentIsFetchedAgainWhenPartitionIsInvalidated()
+    {
+        fetch( "select sum(value) from analytics_2019 as ax" );
+
+        analyticsCache.invalidateTable( "analytics_2021" );
+        fetch( "select sum(value) from analytics_2019 as ax" );
+
+        assertEquals( 1, fetchCount.get() );
+
+        analyticsCache.invalidateTable( "analytics_2020" );
+        fetch( "select sum(value) from analytics_2019 as ax" );
+
+        assertEquals( 2, fetchCount.get() );
+    }
+
+    @Test
+    public void verifyCachedFragmentIsCopied()
+    {
+        fetch( "select sum(value) from analytics_2019 as ax" ).clear();
+
+        assertEquals( 1, fetch( "select sum(value) from analytics_2019 as ax" ).size() );
+    }
+
+    private Map<String, Object> fetch( String sql )
+    {
+        return analyticsCache.getOrFetchFragment( params, sql, tables, () -> {
+            fetchCount.incrementAndGet();
+            return new HashMap<>( ImmutableMap.of( "a-b", 12d ) );
+        } );
+    }
+}
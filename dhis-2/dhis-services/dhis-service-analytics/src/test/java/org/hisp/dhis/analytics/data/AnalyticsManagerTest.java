@@ -45,6 +45,7 @@ import org.hisp.dhis.analytics.AnalyticsManager;
 import org.hisp.dhis.analytics.DataQueryParams;
 import org.hisp.dhis.analytics.DataType;
 import org.hisp.dhis.analytics.QueryPlanner;
+import org.hisp.dhis.analytics.cache.AnalyticsCache;
 import org.hisp.dhis.common.DimensionalItemObject;
 import org.hisp.dhis.common.ListMap;
 import org.hisp.dhis.period.Period;
@@ -78,6 +79,9 @@ public class AnalyticsManagerTest
         @Mock
         private JdbcTemplate jdbcTemplate;
 
+        @Mock
+        private AnalyticsCache analyticsCache;
+
         @Rule
         public MockitoRule mockitoRule = MockitoJUnit.rule();
 
@@ -98,7 +102,7 @@ public class AnalyticsManagerTest
         @Before
         public void setUp()
         {
-            analyticsManager = new JdbcAnalyticsManager( queryPlanner, jdbcTemplate );
+            analyticsManager = new JdbcAnalyticsManager( queryPlanner, jdbcTemplate, analyticsCache );
         }
 
         @Test
@@ -142,13 +146,16 @@ public class AnalyticsManagerTest
         @Mock
         private JdbcTemplate jdbcTemplate;
 
+        @Mock
+        private AnalyticsCache analyticsCache;
+
         @Rule
         public MockitoRule mockitoRule = MockitoJUnit.rule();
 
         @Test
         public void testReplaceDataPeriodsWithAggregationPeriods()
         {
-            AnalyticsManager analyticsManager = new JdbcAnalyticsManager( queryPlanner, jdbcTemplate );
+            AnalyticsManager analyticsManager = new JdbcAnalyticsManager( queryPlanner, jdbcTemplate, analyticsCache );
             Period y2012 = createPeriod( "2012" );
 
             AnalyticsAggregationType aggregationType = new AnalyticsAggregationType(
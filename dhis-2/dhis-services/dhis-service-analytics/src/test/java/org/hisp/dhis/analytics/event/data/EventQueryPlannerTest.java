@@ -53,8 +53,10 @@ import org.hisp.dhis.option.OptionSet;
 import org.hisp.dhis.organisationunit.OrganisationUnit;
 import org.hisp.dhis.organisationunit.OrganisationUnitService;
 import org.hisp.dhis.period.MonthlyPeriodType;
+import org.hisp.dhis.program.AnalyticsType;
 import org.hisp.dhis.program.Program;
 import org.hisp.dhis.program.ProgramDataElementDimensionItem;
+import org.hisp.dhis.program.ProgramIndicator;
 import org.hisp.dhis.program.ProgramTrackedEntityAttributeDimensionItem;
 import org.hisp.dhis.trackedentity.TrackedEntityAttribute;
 import org.joda.time.DateTime;
@@ -364,6 +366,55 @@ public class EventQueryPlannerTest
         }
     }
 
+    @Test
+    public void testPlanAggregateDataQueryPeriodsInMultiplePartitions()
+    {
+        DataQueryParams dataQueryParams = DataQueryParams.newBuilder()
+            .withProgramDataElements( getList( pdeA ) )
+            .withOrganisationUnits( getList( ouA ) )
+            .withPeriods( getList( createPeriod( "200101" ), createPeriod( "200103" ), createPeriod( "200201" ),
+                createPeriod( "200301" ) ) )
+            .build();
+
+        EventQueryParams params = EventQueryParams.fromDataQueryParams( dataQueryParams );
+
+        List<EventQueryParams> queries = queryPlanner.planAggregateQuery( params );
+
+        assertEquals( 3, queries.size() );
+
+        assertEquals( 2, queries.get( 0 ).getPeriods().size() );
+        assertEquals( new Partitions( Sets.newHashSet( 2001 ) ), queries.get( 0 ).getPartitions() );
+        assertEquals( 1, queries.get( 1 ).getPeriods().size() );
+        assertEquals( new Partitions( Sets.newHashSet( 2002 ) ), queries.get( 1 ).getPartitions() );
+        assertEquals( 1, queries.get( 2 ).getPeriods().size() );
+        assertEquals( new Partitions( Sets.newHashSet( 2003 ) ), queries.get( 2 ).getPartitions() );
+
+        for ( EventQueryParams query : queries )
+        {
+            assertEquals( MonthlyPeriodType.NAME.toLowerCase(),
+                query.getDimension( PERIOD_DIM_ID ).getDimensionName() );
+        }
+    }
+
+    @Test
+    public void testPlanAggregateEnrollmentQueryPeriodsInMultiplePartitions()
+    {
+        ProgramIndicator piA = createProgramIndicator( 'A', AnalyticsType.ENROLLMENT, prA, "1", null );
+
+        EventQueryParams params = new EventQueryParams.Builder()
+            .withProgram( prA )
+            .withProgramIndicator( piA )
+            .withOrganisationUnits( getList( ouA ) )
+            .withPeriods( getList( createPeriod( "200101" ), createPeriod( "200201" ) ),
+                MonthlyPeriodType.NAME.toLowerCase() )
+            .build();
+
+        List<EventQueryParams> queries = queryPlanner.planAggregateQuery( params );
+
+        assertEquals( 1, queries.size() );
+        assertEquals( 2, queries.get( 0 ).getPeriods().size() );
+    }
+
     @Test
     public void testPlanAggregateDataQueryFirstValue()
     {
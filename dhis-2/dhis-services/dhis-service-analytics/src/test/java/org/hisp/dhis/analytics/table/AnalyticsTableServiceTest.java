@@ -0,0 +1,203 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.analytics.table;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Date;
+import java.util.List;
+
+import org.hisp.dhis.analytics.AnalyticsTable;
+import org.hisp.dhis.analytics.AnalyticsTableColumn;
+import org.hisp.dhis.analytics.AnalyticsTableManager;
+import org.hisp.dhis.analytics.AnalyticsTablePartition;
+import org.hisp.dhis.analytics.AnalyticsTableService;
+import org.hisp.dhis.analytics.AnalyticsTableType;
+import org.hisp.dhis.analytics.AnalyticsTableUpdateParams;
+import org.hisp.dhis.analytics.ColumnDataType;
+import org.hisp.dhis.analytics.cache.AnalyticsCache;
+import org.hisp.dhis.commons.util.ConcurrentUtils;
+import org.hisp.dhis.dataelement.DataElement;
+import org.hisp.dhis.dataelement.DataElementService;
+import org.hisp.dhis.organisationunit.OrganisationUnitService;
+import org.hisp.dhis.resourcetable.ResourceTableService;
+import org.hisp.dhis.scheduling.JobConfiguration;
+import org.hisp.dhis.setting.SettingKey;
+import org.hisp.dhis.setting.SystemSettingManager;
+import org.hisp.dhis.system.notification.Notifier;
+import org.joda.time.DateTime;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+
+import com.google.common.collect.Lists;
+
+public class AnalyticsTableServiceTest
+{
+    @Mock
+    private AnalyticsTableManager tableManager;
+
+    @Mock
+    private OrganisationUnitService organisationUnitService;
+
+    @Mock
+    private DataElementService dataElementService;
+
+    @Mock
+    private ResourceTableService resourceTableService;
+
+    @Mock
+    private Notifier notifier;
+
+    @Mock
+    private SystemSettingManager systemSettingManager;
+
+    @Mock
+    private AnalyticsCache analyticsCache;
+
+    @Rule
+    public MockitoRule mockitoRule = MockitoJUnit.rule();
+
+    private AnalyticsTableService subject;
+
+    private AnalyticsTableUpdateParams params;
+
+    private AnalyticsTablePartition partitionA;
+
+    private AnalyticsTablePartition partitionB;
+
+    private DataElement dataElement;
+
+    @Before
+    public void setUp()
+    {
+        subject = new DefaultAnalyticsTableService( tableManager, organisationUnitService, dataElementService,
+            resourceTableService, notifier, systemSettingManager, analyticsCache );
+
+        params = AnalyticsTableUpdateParams.newBuilder()
+            .withJobId( new JobConfiguration() )
+            .withStartTime( new Date() )
+            .build();
+
+        AnalyticsTable table = new AnalyticsTable( AnalyticsTableType.DATA_VALUE,
+            Lists.newArrayList( new AnalyticsTableColumn( "\"dx\"", ColumnDataType.CHARACTER_11, "dx" ) ),
+            Lists.newArrayList() );
+
+        table.addPartitionTable( 2019, new DateTime( 2019, 1, 1, 0, 0 ).toDate(),
+            new DateTime( 2019, 12, 31, 0, 0 ).toDate() );
+        table.addPartitionTable( 2020, new DateTime( 2020, 1, 1, 0, 0 ).toDate(),
+            new DateTime( 2020, 12, 31, 0, 0 ).toDate() );
+
+        partitionA = table.getTablePartitions().get( 0 );
+        partitionB = table.getTablePartitions().get( 1 );
+
+        dataElement = new DataElement( "DataElementA" );
+        dataElement.setUid( "deabcdefghA" );
+
+        when( tableManager.getAnalyticsTableType() ).thenReturn( AnalyticsTableType.DATA_VALUE );
+        when( tableManager.getAnalyticsTables( params ) ).thenReturn( Lists.newArrayList( table ) );
+        when( systemSettingManager.getIntegerSetting( SettingKey.DATABASE_SERVER_CPUS ) ).thenReturn( 2 );
+        when( systemSettingManager.getBoolSetting( SettingKey.ANALYTICS_TABLE_PIPELINED_UPDATE ) ).thenReturn( true );
+        when( organisationUnitService.getNumberOfOrganisationalLevels() ).thenReturn( 2 );
+        when( dataElementService.getDataElementsByAggregationLevel( 2 ) )
+            .thenReturn( Lists.newArrayList( dataElement ) );
+    }
+
+    @Test
+    public void testPipelinedUpdateCallsTableManagerSynchronously()
+    {
+        subject.update( params );
+
+        List<String> dataElements = Lists.newArrayList( dataElement.getUid() );
+
+        for ( AnalyticsTablePartition partition : Lists.newArrayList( partitionA, partitionB ) )
+        {
+            InOrder inOrder = inOrder( tableManager );
+
+            inOrder.verify( tableManager ).populateTablePartition( params, partition );
+            inOrder.verify( tableManager ).applyPartitionAggregationLevels( partition, dataElements, 2 );
+            inOrder.verify( tableManager ).vacuumTablePartition( partition );
+            inOrder.verify( tableManager ).createIndex(
+                argThat( index -> index.getTable().equals( partition.getTempTableName() ) ) );
+            inOrder.verify( tableManager ).analyzeTable( partition.getTempTableName() );
+        }
+
+        verify( tableManager, never() ).populateTablesAsync( any(), any() );
+        verify( tableManager, never() ).applyAggregationLevels( any(), any(), anyInt() );
+        verify( tableManager, never() ).vacuumTablesAsync( any() );
+        verify( tableManager, never() ).createIndexesAsync( any() );
+        verify( tableManager, never() ).invokeAnalyticsTableSqlHooks();
+        verify( tableManager ).removeUpdatedData( eq( params ), any() );
+        verify( tableManager ).swapTable( eq( params ), any() );
+    }
+
+    @Test
+    public void testPipelinedUpdateNotifiesPerPartition()
+    {
+        subject.update( params );
+
+        for ( AnalyticsTablePartition partition : Lists.newArrayList( partitionA, partitionB ) )
+        {
+            verify( notifier ).notify( eq( params.getJobId() ),
+                startsWith( String.format( "Partition '%s' populated: ", partition.getTempTableName() ) ) );
+        }
+    }
+
+    @Test
+    public void testSqlHooksDisablePipelinedUpdate()
+    {
+        when( tableManager.hasAnalyticsTableSqlHooks() ).thenReturn( true );
+        when( tableManager.populateTablesAsync( any(), any() ) ).thenReturn( ConcurrentUtils.getImmediateFuture() );
+        when( tableManager.applyAggregationLevels( any(), any(), anyInt() ) )
+            .thenReturn( ConcurrentUtils.getImmediateFuture() );
+        when( tableManager.createIndexesAsync( any() ) ).thenReturn( ConcurrentUtils.getImmediateFuture() );
+
+        subject.update( params );
+
+        verify( tableManager, times( 2 ) ).populateTablesAsync( eq( params ), any() );
+        verify( tableManager ).invokeAnalyticsTableSqlHooks();
+        verify( tableManager, never() ).populateTablePartition( any(), any() );
+        verify( tableManager, never() ).applyPartitionAggregationLevels( any(), any(), anyInt() );
+        verify( tableManager, never() ).vacuumTablePartition( any() );
+        verify( tableManager, never() ).createIndex( any() );
+        verify( notifier, never() ).notify( any(), startsWith( "Partition '" ) );
+    }
+}
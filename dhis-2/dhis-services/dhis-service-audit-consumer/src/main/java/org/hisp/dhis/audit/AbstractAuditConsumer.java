@@ -50,30 +50,35 @@ public abstract class AbstractAuditConsumer
 
     protected boolean isAuditDatabaseEnabled;
 
+    /**
+     * Persists audits in batches when set and enabled, otherwise every audit is
+     * persisted as it is consumed.
+     */
+    protected AuditBatchProcessor auditBatchProcessor;
+
     protected void _consume( TextMessage message )
     {
         try
         {
-            org.hisp.dhis.artemis.audit.Audit auditMessage = objectMapper.readValue( message.getText(),
-                org.hisp.dhis.artemis.audit.Audit.class );
-
-            if ( auditMessage.getData() != null && !(auditMessage.getData() instanceof String) )
+            if ( isAuditDatabaseEnabled && auditBatchProcessor != null && auditBatchProcessor.isEnabled() )
             {
-                auditMessage.setData( objectMapper.writeValueAsString( auditMessage.getData() ) );
-            }
+                String text = message.getText();
 
-            org.hisp.dhis.audit.Audit audit = auditMessage.toAudit();
-
-            if ( isAuditLogEnabled )
-            {
-                log.info( objectMapper.writeValueAsString( audit ) );
+                auditBatchProcessor.submit( () -> toAudit( text ), message, message.getJMSTimestamp() );
+                return;
             }
 
+            org.hisp.dhis.audit.Audit audit = toAudit( message.getText() );
+
             if ( isAuditDatabaseEnabled )
             {
                 auditService.addAudit( audit );
             }
         }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+        }
         catch ( IOException e )
         {
             log.error(
@@ -85,4 +90,25 @@ public abstract class AbstractAuditConsumer
             log.error( "An error occurred persisting an Audit message of type 'TRACKER'", e );
         }
     }
+
+    private org.hisp.dhis.audit.Audit toAudit( String text )
+        throws IOException
+    {
+        org.hisp.dhis.artemis.audit.Audit auditMessage = objectMapper.readValue( text,
+            org.hisp.dhis.artemis.audit.Audit.class );
+
+        if ( auditMessage.getData() != null && !(auditMessage.getData() instanceof String) )
+        {
+            auditMessage.setData( objectMapper.writeValueAsString( auditMessage.getData() ) );
+        }
+
+        org.hisp.dhis.audit.Audit audit = auditMessage.toAudit();
+
+        if ( isAuditLogEnabled )
+        {
+            log.info( objectMapper.writeValueAsString( audit ) );
+        }
+
+        return audit;
+    }
 }
@@ -0,0 +1,388 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.audit;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PreDestroy;
+import javax.jms.JMSException;
+import javax.jms.Message;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.hisp.dhis.artemis.config.ArtemisConfig;
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Collects audits received by the audit consumers and persists them in
+ * batches. Messages are converted on a pool of worker threads while the JMS
+ * listener moves on to the next message, and the converted audits are written
+ * with a single batch insert whenever the configured batch size is reached or
+ * the flush interval has elapsed, whichever comes first.
+ * <p>
+ * Batching is enabled with {@code audit.consumer.batch.enabled} when
+ * {@code audit.database} is enabled as well. Messages are acknowledged
+ * individually by the flush once their audit has been persisted. A batch
+ * which fails is retried, then persisted audit by audit; messages of audits
+ * which still fail are left unacknowledged. The audit topic subscriptions are
+ * not durable, so audits which have been received but not yet persisted are
+ * lost when the node stops.
+ * <p>
+ * The number of received but not yet persisted messages is bounded by
+ * {@code audit.consumer.batch.max_pending}. When the bound is reached the
+ * listener blocks in {@link #submit} until a flush has completed.
+ *
+ * @see org.hisp.dhis.artemis.config.ArtemisConfig
+ */
+@Slf4j
+@Component
+public class AuditBatchProcessor
+{
+    private static final int MAX_ATTEMPTS = 3;
+
+    private static final long RETRY_DELAY_MILLIS = 200;
+
+    private final AuditService auditService;
+
+    private final boolean enabled;
+
+    private final int batchSize;
+
+    private final ExecutorService workers;
+
+    private final ScheduledExecutorService flusher;
+
+    private final Semaphore capacity;
+
+    private final Queue<PendingAudit> pending = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger pendingCount = new AtomicInteger();
+
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+    private final Object flushLock = new Object();
+
+    public AuditBatchProcessor( AuditService auditService, DhisConfigurationProvider dhisConfig,
+        MeterRegistry meterRegistry )
+    {
+        this.auditService = auditService;
+        this.enabled = ArtemisConfig.isAuditBatchEnabled( dhisConfig );
+        this.batchSize = Math.max( 1,
+            Integer.parseInt( dhisConfig.getProperty( ConfigurationKey.AUDIT_CONSUMER_BATCH_SIZE ) ) );
+
+        if ( !enabled )
+        {
+            this.workers = null;
+            this.flusher = null;
+            this.capacity = null;
+            return;
+        }
+
+        long flushInterval = Math.max( 100,
+            Long.parseLong( dhisConfig.getProperty( ConfigurationKey.AUDIT_CONSUMER_BATCH_FLUSH_INTERVAL ) ) );
+        int workerCount = Math.max( 1,
+            Integer.parseInt( dhisConfig.getProperty( ConfigurationKey.AUDIT_CONSUMER_BATCH_WORKERS ) ) );
+        int maxPending = Math.max( batchSize,
+            Integer.parseInt( dhisConfig.getProperty( ConfigurationKey.AUDIT_CONSUMER_BATCH_MAX_PENDING ) ) );
+
+        this.capacity = new Semaphore( maxPending );
+        this.workers = Executors.newFixedThreadPool( workerCount, runnable -> newThread( runnable, "audit-convert" ) );
+        this.flusher = Executors.newSingleThreadScheduledExecutor( runnable -> newThread( runnable, "audit-flush" ) );
+        this.flusher.scheduleWithFixedDelay( this::flush, flushInterval, flushInterval, TimeUnit.MILLISECONDS );
+
+        Gauge.builder( "audit_consumer_pending", pendingCount, AtomicInteger::get )
+            .description( "Number of received audit messages which are not yet persisted" )
+            .register( meterRegistry );
+
+        Gauge.builder( "audit_consumer_lag_seconds", this, AuditBatchProcessor::getLagSeconds )
+            .description( "Age of the oldest received audit message which is not yet persisted" )
+            .register( meterRegistry );
+
+        log.info( String.format(
+            "Audit consumer batching enabled with batch size: %d, flush interval: %d ms, max pending: %d",
+            batchSize, flushInterval, maxPending ) );
+    }
+
+    public boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    /**
+     * Queues an audit for batched persistence. The conversion is executed on
+     * the worker pool; a conversion which fails or returns null is skipped and
+     * its message acknowledged, as it can never succeed. Blocks while the
+     * maximum number of pending audits is reached.
+     *
+     * @param conversion the task converting the message into an audit.
+     * @param message the received message, acknowledged once persisted.
+     * @param timestamp the time the message was sent, in milliseconds.
+     * @throws InterruptedException if interrupted while waiting for capacity,
+     *         in which case the message is left unacknowledged.
+     */
+    public void submit( Callable<Audit> conversion, Message message, long timestamp )
+        throws InterruptedException
+    {
+        capacity.acquire();
+
+        pending.add( new PendingAudit( workers.submit( conversion ), message, timestamp ) );
+
+        if ( pendingCount.incrementAndGet() >= batchSize && flushScheduled.compareAndSet( false, true ) )
+        {
+            flusher.execute( this::flush );
+        }
+    }
+
+    /**
+     * Persists all pending audits in batches of the configured size.
+     */
+    public void flush()
+    {
+        flushScheduled.set( false );
+
+        synchronized ( flushLock )
+        {
+            List<PendingAudit> batch = new ArrayList<>( batchSize );
+
+            PendingAudit next;
+
+            while ( (next = pending.poll()) != null )
+            {
+                if ( next.convert() )
+                {
+                    batch.add( next );
+                }
+                else if ( Thread.currentThread().isInterrupted() )
+                {
+                    release();
+                }
+                else
+                {
+                    complete( next );
+                }
+
+                if ( batch.size() >= batchSize )
+                {
+                    persist( batch );
+                    batch = new ArrayList<>( batchSize );
+                }
+            }
+
+            persist( batch );
+        }
+    }
+
+    @PreDestroy
+    public void shutdown()
+    {
+        if ( !enabled )
+        {
+            return;
+        }
+
+        flusher.shutdown();
+        workers.shutdown();
+
+        try
+        {
+            workers.awaitTermination( 10, TimeUnit.SECONDS );
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+        }
+
+        flush();
+    }
+
+    private void persist( List<PendingAudit> batch )
+    {
+        if ( batch.isEmpty() )
+        {
+            return;
+        }
+
+        List<Audit> audits = new ArrayList<>( batch.size() );
+        batch.forEach( audit -> audits.add( audit.audit ) );
+
+        for ( int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++ )
+        {
+            try
+            {
+                auditService.addAudits( audits );
+                batch.forEach( this::complete );
+                return;
+            }
+            catch ( Exception e )
+            {
+                log.warn( String.format( "Attempt %d of %d to persist a batch of %d Audit messages failed", attempt,
+                    MAX_ATTEMPTS, batch.size() ), e );
+            }
+
+            if ( attempt < MAX_ATTEMPTS && !sleep( RETRY_DELAY_MILLIS * attempt ) )
+            {
+                break;
+            }
+        }
+
+        persistIndividually( batch );
+    }
+
+    /**
+     * Isolates the audits of a failed batch. Audits which can not be persisted
+     * are not acknowledged.
+     */
+    private void persistIndividually( List<PendingAudit> batch )
+    {
+        for ( PendingAudit audit : batch )
+        {
+            try
+            {
+                auditService.addAudit( audit.audit );
+                complete( audit );
+            }
+            catch ( Exception e )
+            {
+                log.error( "An error occurred persisting an Audit message, it is left unacknowledged", e );
+                release();
+            }
+        }
+    }
+
+    /**
+     * Acknowledges the message of a persisted or discarded audit. The message
+     * is acknowledged individually, which the Artemis client allows from a
+     * thread other than the listener thread.
+     */
+    private void complete( PendingAudit audit )
+    {
+        try
+        {
+            audit.message.acknowledge();
+        }
+        catch ( JMSException e )
+        {
+            log.warn( "An error occurred acknowledging an Audit message", e );
+        }
+
+        release();
+    }
+
+    private void release()
+    {
+        pendingCount.decrementAndGet();
+        capacity.release();
+    }
+
+    private double getLagSeconds()
+    {
+        PendingAudit oldest = pending.peek();
+
+        return oldest != null ? Math.max( 0, System.currentTimeMillis() - oldest.timestamp ) / 1000d : 0d;
+    }
+
+    private static boolean sleep( long millis )
+    {
+        try
+        {
+            Thread.sleep( millis );
+            return true;
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static Thread newThread( Runnable runnable, String name )
+    {
+        Thread thread = new Thread( runnable, name );
+        thread.setDaemon( true );
+        return thread;
+    }
+
+    private static class PendingAudit
+    {
+        private final Future<Audit> conversion;
+
+        private final Message message;
+
+        private final long timestamp;
+
+        private Audit audit;
+
+        PendingAudit( Future<Audit> conversion, Message message, long timestamp )
+        {
+            this.conversion = conversion;
+            this.message = message;
+            this.timestamp = timestamp;
+        }
+
+        /**
+         * Waits for the conversion of the message.
+         *
+         * @return true if the message was converted into an audit.
+         */
+        boolean convert()
+        {
+            try
+            {
+                audit = conversion.get();
+            }
+            catch ( InterruptedException e )
+            {
+                Thread.currentThread().interrupt();
+            }
+            catch ( ExecutionException e )
+            {
+                log.error( "An error occurred converting an Audit message", e.getCause() );
+            }
+
+            return audit != null;
+        }
+    }
+}
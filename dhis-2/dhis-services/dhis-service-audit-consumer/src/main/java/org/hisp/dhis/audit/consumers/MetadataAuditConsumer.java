@@ -31,6 +31,7 @@ import javax.jms.TextMessage;
 
 import org.hisp.dhis.artemis.Topics;
 import org.hisp.dhis.audit.AbstractAuditConsumer;
+import org.hisp.dhis.audit.AuditBatchProcessor;
 import org.hisp.dhis.audit.AuditService;
 import org.hisp.dhis.external.conf.ConfigurationKey;
 import org.hisp.dhis.external.conf.DhisConfigurationProvider;
@@ -51,16 +52,18 @@ public class MetadataAuditConsumer
     public MetadataAuditConsumer(
         AuditService auditService,
         ObjectMapper objectMapper,
-        DhisConfigurationProvider dhisConfig )
+        DhisConfigurationProvider dhisConfig,
+        AuditBatchProcessor auditBatchProcessor )
     {
         this.auditService = auditService;
         this.objectMapper = objectMapper;
+        this.auditBatchProcessor = auditBatchProcessor;
 
         this.isAuditLogEnabled = dhisConfig.isEnabled( ConfigurationKey.AUDIT_LOGGER );
         this.isAuditDatabaseEnabled = dhisConfig.isEnabled( ConfigurationKey.AUDIT_DATABASE );
     }
 
-    @JmsListener( destination = Topics.METADATA_TOPIC_NAME )
+    @JmsListener( destination = Topics.METADATA_TOPIC_NAME, containerFactory = "jmsAuditListenerContainerFactory" )
     public void consume( TextMessage message )
     {
         _consume( message );
@@ -33,6 +33,7 @@ import javax.jms.TextMessage;
 
 import org.hisp.dhis.artemis.Topics;
 import org.hisp.dhis.audit.AbstractAuditConsumer;
+import org.hisp.dhis.audit.AuditBatchProcessor;
 import org.hisp.dhis.audit.AuditService;
 import org.hisp.dhis.external.conf.ConfigurationKey;
 import org.hisp.dhis.external.conf.DhisConfigurationProvider;
@@ -53,10 +54,12 @@ public class TrackerAuditConsumer
     public TrackerAuditConsumer(
         AuditService auditService,
         ObjectMapper objectMapper,
-        DhisConfigurationProvider dhisConfig )
+        DhisConfigurationProvider dhisConfig,
+        AuditBatchProcessor auditBatchProcessor )
     {
         this.auditService = auditService;
         this.objectMapper = objectMapper;
+        this.auditBatchProcessor = auditBatchProcessor;
 
         // for legacy reasons we are overriding the default here and using "off"
         // for tracking logger (we don't have a specific key for tracker logger)
@@ -65,7 +68,7 @@ public class TrackerAuditConsumer
         this.isAuditDatabaseEnabled = dhisConfig.isEnabled( ConfigurationKey.AUDIT_DATABASE );
     }
 
-    @JmsListener( destination = Topics.TRACKER_TOPIC_NAME )
+    @JmsListener( destination = Topics.TRACKER_TOPIC_NAME, containerFactory = "jmsAuditListenerContainerFactory" )
     public void consume( TextMessage message )
     {
         _consume( message );
@@ -0,0 +1,221 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.audit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.jms.Message;
+
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
+import org.junit.After;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Unit tests for the batching, flushing, acknowledgement and failure handling
+ * of {@link AuditBatchProcessor}.
+ */
+public class AuditBatchProcessorTest
+{
+    private final AuditService auditService = mock( AuditService.class );
+
+    private AuditBatchProcessor processor;
+
+    @After
+    public void tearDown()
+    {
+        processor.shutdown();
+    }
+
+    @Test
+    @SuppressWarnings( "unchecked" )
+    public void testFlushAtBatchSize()
+        throws Exception
+    {
+        processor = newProcessor( 2, 2 );
+
+        Message messageA = mock( Message.class );
+        Message messageB = mock( Message.class );
+
+        processor.submit( () -> audit( "a" ), messageA, System.currentTimeMillis() );
+        processor.submit( () -> audit( "b" ), messageB, System.currentTimeMillis() );
+
+        ArgumentCaptor<List<Audit>> batch = ArgumentCaptor.forClass( List.class );
+        verify( auditService, timeout( 5000 ) ).addAudits( batch.capture() );
+        assertEquals( 2, batch.getValue().size() );
+
+        // the flush acknowledges the messages without further submits
+        verify( messageA, timeout( 5000 ) ).acknowledge();
+        verify( messageB, timeout( 5000 ) ).acknowledge();
+    }
+
+    @Test
+    public void testFlushPendingAudits()
+        throws Exception
+    {
+        processor = newProcessor( 100, 100 );
+
+        Message messageA = mock( Message.class );
+
+        processor.submit( () -> audit( "a" ), messageA, System.currentTimeMillis() );
+
+        verify( auditService, never() ).addAudits( anyList() );
+
+        processor.flush();
+
+        verify( auditService ).addAudits( anyList() );
+        verify( messageA ).acknowledge();
+    }
+
+    @Test
+    public void testFailedBatchIsNotAcknowledged()
+        throws Exception
+    {
+        processor = newProcessor( 100, 100 );
+
+        Audit failing = audit( "a" );
+        Audit valid = audit( "b" );
+
+        doThrow( new RuntimeException( "Batch failed" ) ).when( auditService ).addAudits( anyList() );
+        when( auditService.addAudit( failing ) ).thenThrow( new RuntimeException( "Audit failed" ) );
+
+        Message failingMessage = mock( Message.class );
+        Message validMessage = mock( Message.class );
+
+        processor.submit( () -> failing, failingMessage, System.currentTimeMillis() );
+        processor.submit( () -> valid, validMessage, System.currentTimeMillis() );
+
+        processor.flush();
+
+        verify( auditService, times( 3 ) ).addAudits( anyList() );
+        verify( auditService ).addAudit( failing );
+        verify( auditService ).addAudit( valid );
+        verify( failingMessage, never() ).acknowledge();
+        verify( validMessage ).acknowledge();
+    }
+
+    @Test
+    public void testFailedConversionIsAcknowledged()
+        throws Exception
+    {
+        processor = newProcessor( 100, 100 );
+
+        Message message = mock( Message.class );
+
+        processor.submit( () -> {
+            throw new IllegalStateException( "Invalid payload" );
+        }, message, System.currentTimeMillis() );
+
+        processor.flush();
+
+        verify( auditService, never() ).addAudits( anyList() );
+        verify( auditService, never() ).addAudit( any( Audit.class ) );
+        verify( message ).acknowledge();
+    }
+
+    @Test
+    public void testSubmitBlocksAtMaxPending()
+        throws Exception
+    {
+        processor = newProcessor( 2, 2 );
+
+        CountDownLatch persisting = new CountDownLatch( 1 );
+        CountDownLatch release = new CountDownLatch( 1 );
+
+        doAnswer( invocation -> {
+            persisting.countDown();
+            release.await();
+            return null;
+        } ).when( auditService ).addAudits( anyList() );
+
+        processor.submit( () -> audit( "a" ), mock( Message.class ), System.currentTimeMillis() );
+        processor.submit( () -> audit( "b" ), mock( Message.class ), System.currentTimeMillis() );
+
+        assertTrue( persisting.await( 5, TimeUnit.SECONDS ) );
+
+        CompletableFuture<Void> blocked = CompletableFuture.runAsync( () -> {
+            try
+            {
+                processor.submit( () -> audit( "c" ), mock( Message.class ), System.currentTimeMillis() );
+            }
+            catch ( InterruptedException e )
+            {
+                Thread.currentThread().interrupt();
+            }
+        } );
+
+        Thread.sleep( 200 );
+        assertFalse( blocked.isDone() );
+
+        release.countDown();
+
+        blocked.get( 5, TimeUnit.SECONDS );
+        assertTrue( blocked.isDone() );
+    }
+
+    private AuditBatchProcessor newProcessor( int batchSize, int maxPending )
+    {
+        DhisConfigurationProvider config = mock( DhisConfigurationProvider.class );
+        when( config.isEnabled( ConfigurationKey.AUDIT_CONSUMER_BATCH_ENABLED ) ).thenReturn( true );
+        when( config.isEnabled( ConfigurationKey.AUDIT_DATABASE ) ).thenReturn( true );
+        when( config.getProperty( ConfigurationKey.AUDIT_CONSUMER_BATCH_SIZE ) )
+            .thenReturn( String.valueOf( batchSize ) );
+        when( config.getProperty( ConfigurationKey.AUDIT_CONSUMER_BATCH_FLUSH_INTERVAL ) ).thenReturn( "60000" );
+        when( config.getProperty( ConfigurationKey.AUDIT_CONSUMER_BATCH_WORKERS ) ).thenReturn( "2" );
+        when( config.getProperty( ConfigurationKey.AUDIT_CONSUMER_BATCH_MAX_PENDING ) )
+            .thenReturn( String.valueOf( maxPending ) );
+
+        return new AuditBatchProcessor( auditService, config, new SimpleMeterRegistry() );
+    }
+
+    private static Audit audit( String uid )
+    {
+        return Audit.builder().auditType( AuditType.CREATE ).auditScope( AuditScope.METADATA ).klass( "Klass" )
+            .uid( uid ).build();
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.common;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
+import org.hisp.dhis.schema.Property;
+import org.hisp.dhis.schema.Schema;
+import org.hisp.dhis.schema.SchemaService;
+import org.hisp.dhis.user.User;
+import org.hisp.dhis.user.UserAuthorityGroup;
+import org.hisp.dhis.user.UserCredentials;
+import org.hisp.dhis.user.UserGroup;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * @see org.hisp.dhis.common.hibernate.ChangeVersionEventListener
+ */
+@Service( "org.hisp.dhis.common.ChangeVersionService" )
+public class DefaultChangeVersionService
+    implements ChangeVersionService
+{
+    /**
+     * Classes which affect the objects visible to a user and are hence part of
+     * the version tag of any class. Authorities are granted through user roles
+     * assigned to user credentials, so both affect access as well.
+     */
+    private static final Set<Class<?>> SHARING_CLASSES = ImmutableSet.of( User.class, UserCredentials.class,
+        UserAuthorityGroup.class, UserGroup.class );
+
+    private final SchemaService schemaService;
+
+    private final boolean enabled;
+
+    /**
+     * Distinguishes version tags of different runs of this instance.
+     */
+    private final String instanceId = CodeGenerator.generateUid();
+
+    private final Map<Class<?>, AtomicLong> versions = new ConcurrentHashMap<>();
+
+    private final Map<Class<?>, Set<Class<?>>> reachableClasses = new ConcurrentHashMap<>();
+
+    public DefaultChangeVersionService( SchemaService schemaService, DhisConfigurationProvider config )
+    {
+        this.schemaService = schemaService;
+        this.enabled = config.isEnabled( ConfigurationKey.METADATA_ETAG_ENABLED ) && !config.isClusterEnabled()
+            && !config.isEnabled( ConfigurationKey.DEBEZIUM_ENABLED );
+    }
+
+    @Override
+    public boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    @Override
+    public void incrementVersion( Class<?> klass )
+    {
+        Class<?> type = klass;
+
+        while ( type != null && type != Object.class )
+        {
+            versions.computeIfAbsent( type, key -> new AtomicLong() ).incrementAndGet();
+            type = type.getSuperclass();
+        }
+    }
+
+    @Override
+    public void incrementVersionAfterCommit( Class<?> klass )
+    {
+        if ( !enabled )
+        {
+            return;
+        }
+
+        if ( !TransactionSynchronizationManager.isSynchronizationActive() )
+        {
+            incrementVersion( klass );
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization( new TransactionSynchronization()
+        {
+            @Override
+            public void afterCommit()
+            {
+                incrementVersion( klass );
+            }
+        } );
+    }
+
+    @Override
+    public long getVersion( Class<?> klass )
+    {
+        AtomicLong version = versions.get( klass );
+
+        return version != null ? version.get() : 0L;
+    }
+
+    @Override
+    public String getVersionTag( Class<?> klass )
+    {
+        if ( !enabled )
+        {
+            return null;
+        }
+
+        // versions only ever increase, so the sum changes whenever any of the
+        // versions changes
+
+        long sum = 0;
+
+        for ( Class<?> reachable : reachableClasses.computeIfAbsent( klass, this::getReachableClasses ) )
+        {
+            sum += getVersion( reachable );
+        }
+
+        return instanceId + "-" + sum;
+    }
+
+    /**
+     * Returns the given class and all classes with a schema which can be
+     * reached through its properties, as nested field selections can include
+     * objects of any of these classes.
+     */
+    private Set<Class<?>> getReachableClasses( Class<?> klass )
+    {
+        Set<Class<?>> classes = new HashSet<>( SHARING_CLASSES );
+        classes.add( klass );
+
+        Deque<Class<?>> queue = new ArrayDeque<>();
+        queue.add( klass );
+
+        while ( !queue.isEmpty() )
+        {
+            Schema schema = schemaService.getDynamicSchema( queue.poll() );
+
+            if ( schema == null )
+            {
+                continue;
+            }
+
+            for ( Property property : schema.getProperties() )
+            {
+                Class<?> propertyClass = property.isCollection() ? property.getItemKlass() : property.getKlass();
+
+                if ( propertyClass != null && schemaService.getSchema( propertyClass ) != null
+                    && classes.add( propertyClass ) )
+                {
+                    queue.add( propertyClass );
+                }
+            }
+        }
+
+        return ImmutableSet.copyOf( classes );
+    }
+}
@@ -103,6 +103,8 @@ public class DefaultIdentifiableObjectManager
 
     protected final SchemaService schemaService;
 
+    private final ChangeVersionService changeVersionService;
+
     private Map<Class<? extends IdentifiableObject>, IdentifiableObjectStore<? extends IdentifiableObject>> identifiableObjectStoreMap;
 
     private Map<Class<? extends DimensionalObject>, GenericDimensionalObjectStore<? extends DimensionalObject>> dimensionalObjectStoreMap;
@@ -111,7 +113,7 @@ public class DefaultIdentifiableObjectManager
         Set<IdentifiableObjectStore<? extends IdentifiableObject>> identifiableObjectStores,
         Set<GenericDimensionalObjectStore<? extends DimensionalObject>> dimensionalObjectStores,
         SessionFactory sessionFactory, CurrentUserService currentUserService, SchemaService schemaService,
-        CacheProvider cacheProvider )
+        CacheProvider cacheProvider, ChangeVersionService changeVersionService )
     {
         checkNotNull( identifiableObjectStores );
         checkNotNull( dimensionalObjectStores );
@@ -119,6 +121,7 @@ public class DefaultIdentifiableObjectManager
         checkNotNull( currentUserService );
         checkNotNull( schemaService );
         checkNotNull( cacheProvider );
+        checkNotNull( changeVersionService );
 
         this.identifiableObjectStores = identifiableObjectStores;
         this.dimensionalObjectStores = dimensionalObjectStores;
@@ -126,6 +129,7 @@ public class DefaultIdentifiableObjectManager
         this.currentUserService = currentUserService;
         this.schemaService = schemaService;
         this.defaultObjectCache = cacheProvider.createDefaultObjectCache();
+        this.changeVersionService = changeVersionService;
     }
 
     // --------------------------------------------------------------------------
@@ -1250,6 +1254,11 @@ public class DefaultIdentifiableObjectManager
 
         IdentifiableObjectStore<IdentifiableObject> store = getIdentifiableObjectStore( UserGroup.class );
         schemas.forEach( schema -> store.removeUserGroupFromSharing( userGroupUid, schema.getTableName() ) );
+
+        // sharing is updated through JDBC, which bypasses the change version
+        // event listener
+
+        schemas.forEach( schema -> changeVersionService.incrementVersionAfterCommit( schema.getKlass() ) );
     }
 
     @SuppressWarnings( "unchecked" )
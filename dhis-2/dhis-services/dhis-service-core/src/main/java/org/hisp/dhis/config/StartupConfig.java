@@ -48,11 +48,14 @@ import org.hisp.dhis.startup.I18nLocalePopulator;
 import org.hisp.dhis.startup.ModelUpgrader;
 import org.hisp.dhis.startup.SchedulerStart;
 import org.hisp.dhis.startup.SettingUpgrader;
+import org.hisp.dhis.startup.TrackedEntitySearchIndexPopulator;
 import org.hisp.dhis.startup.TwoFAPopulator;
+import org.hisp.dhis.trackedentity.TrackedEntitySearchIndexService;
 import org.hisp.dhis.user.CurrentUserService;
 import org.hisp.dhis.user.UserService;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
 
 /**
  * @author Luciano Fiandesio
@@ -156,4 +159,16 @@ public class StartupConfig
         schedulerStart.setSkipInTests( true );
         return schedulerStart;
     }
+
+    @Bean
+    public TrackedEntitySearchIndexPopulator trackedEntitySearchIndexPopulator(
+        TrackedEntitySearchIndexService trackedEntitySearchIndexService, JdbcTemplate jdbcTemplate )
+    {
+        TrackedEntitySearchIndexPopulator populator = new TrackedEntitySearchIndexPopulator(
+            trackedEntitySearchIndexService, jdbcTemplate );
+        populator.setName( "TrackedEntitySearchIndexPopulator" );
+        populator.setRunlevel( 16 );
+        populator.setSkipInTests( true );
+        return populator;
+    }
 }
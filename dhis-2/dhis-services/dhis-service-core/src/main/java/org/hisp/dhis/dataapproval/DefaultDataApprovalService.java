@@ -76,6 +76,12 @@ import com.google.common.collect.Sets;
 public class DefaultDataApprovalService
     implements DataApprovalService
 {
+    /**
+     * Maximum number of approvals for which statuses are fetched in a single
+     * database query.
+     */
+    private static final int STATUS_BATCH_SIZE = 1000;
+
     // -------------------------------------------------------------------------
     // Dependencies
     // -------------------------------------------------------------------------
@@ -290,10 +296,10 @@ public class DefaultDataApprovalService
             log.debug( "-> approving " + da );
 
             audit( da, currentUser, APPROVE );
-
-            dataApprovalStore.addDataApproval( da );
         }
 
+        dataApprovalStore.addDataApprovals( checkedList );
+
         log.info( "Approvals saved: " + checkedList.size() );
     }
 
@@ -500,19 +506,10 @@ public class DefaultDataApprovalService
     {
         Map<String, DataApprovalStatus> statusMap = getStatusMap( dataApprovalList );
 
-        DataApprovalPermissionsEvaluator permissionsEvaluator = makePermissionsEvaluator();
-
         Map<DataApproval, DataApprovalStatus> returnMap = new HashMap<>();
 
         for ( DataApproval da : dataApprovalList )
         {
-            DataApprovalStatus status = statusMap.get( daKey( da ) );
-
-            if ( status != null )
-            {
-                permissionsEvaluator.evaluatePermissions( status, da.getWorkflow() );
-            }
-
             returnMap.put( da, statusMap.get( daKey( da ) ) );
         }
 
@@ -676,6 +673,11 @@ public class DefaultDataApprovalService
     /**
      * Returns a mapping from data approval key to data approval status for the
      * given list of data approvals.
+     *
+     * Statuses are fetched in one call per distinct combination of
+     * organisation unit level, period and workflow, for all the organisation
+     * units and attribute option combos of that combination at once. User
+     * approval levels and the level map are looked up once for the whole list.
      */
     private Map<String, DataApprovalStatus> getStatusMap( List<DataApproval> dataApprovalList )
     {
@@ -683,29 +685,38 @@ public class DefaultDataApprovalService
 
         DataApprovalPermissionsEvaluator evaluator = makePermissionsEvaluator();
 
+        User currentUser = currentUserService.getCurrentUser();
+
+        Map<Integer, DataApprovalLevel> levelMap = dataApprovalLevelService.getDataApprovalLevelMap();
+
+        Map<DataApprovalWorkflow, List<DataApprovalLevel>> userLevelMap = new HashMap<>();
+
         ListMap<String, DataApproval> listMap = getIndexedListMap( dataApprovalList );
 
         for ( Map.Entry<String, List<DataApproval>> entry : listMap.entrySet() )
         {
-            List<DataApproval> dataApprovals = entry.getValue();
+            DataApproval da = entry.getValue().get( 0 );
 
-            Set<OrganisationUnit> orgUnits = dataApprovals.stream().map( DataApproval::getOrganisationUnit )
-                .collect( Collectors.toSet() );
+            List<DataApprovalLevel> userApprovalLevels = userLevelMap.computeIfAbsent( da.getWorkflow(),
+                workflow -> dataApprovalLevelService.getUserDataApprovalLevelsOrLowestLevel( currentUser,
+                    workflow ) );
 
-            DataApproval da = dataApprovals.get( 0 );
+            for ( List<DataApproval> dataApprovals : Lists.partition( entry.getValue(), STATUS_BATCH_SIZE ) )
+            {
+                Set<OrganisationUnit> orgUnits = dataApprovals.stream().map( DataApproval::getOrganisationUnit )
+                    .collect( Collectors.toSet() );
 
-            List<DataApprovalStatus> statuses = dataApprovalStore.getDataApprovalStatuses( da.getWorkflow(),
-                da.getPeriod(), orgUnits, da.getOrganisationUnit().getHierarchyLevel(), null,
-                getCategoryOptionCombos( dataApprovals ), dataApprovalLevelService
-                    .getUserDataApprovalLevelsOrLowestLevel( currentUserService.getCurrentUser(), da.getWorkflow() ),
-                dataApprovalLevelService.getDataApprovalLevelMap() );
+                List<DataApprovalStatus> statuses = dataApprovalStore.getDataApprovalStatuses( da.getWorkflow(),
+                    da.getPeriod(), orgUnits, da.getOrganisationUnit().getHierarchyLevel(), null,
+                    getCategoryOptionCombos( dataApprovals ), userApprovalLevels, levelMap );
 
-            for ( DataApprovalStatus status : statuses )
-            {
-                evaluator.evaluatePermissions( status, da.getWorkflow() );
+                for ( DataApprovalStatus status : statuses )
+                {
+                    evaluator.evaluatePermissions( status, da.getWorkflow() );
 
-                statusMap.put( daKey( da, status.getOrganisationUnitUid(), status.getAttributeOptionComboUid() ),
-                    status );
+                    statusMap.put( daKey( da, status.getOrganisationUnitUid(), status.getAttributeOptionComboUid() ),
+                        status );
+                }
             }
         }
 
@@ -716,9 +727,10 @@ public class DefaultDataApprovalService
      * Returns an indexed map where the key is based on each distinct
      * combination of organisation unit level, period, and workflow.
      *
-     * If multiple attributeOptionCombo values are needed for the same
-     * combination of organisation unit level, period, and workflow, then these
-     * are fetched at the same time time, for better performance.
+     * If multiple organisation unit or attributeOptionCombo values are needed
+     * for the same combination of organisation unit level, period, and
+     * workflow, then these are fetched at the same time, for better
+     * performance.
      */
     private ListMap<String, DataApproval> getIndexedListMap( List<DataApproval> dataApprovalList )
     {
@@ -733,14 +745,15 @@ public class DefaultDataApprovalService
     }
 
     /**
-     * Returns a key consisting of organisation unit, period, and workflow.
-     * Approval status with these three values in common can be fetched in one
-     * call for many values of attributeOptionCombo.
+     * Returns a key consisting of organisation unit level, period, and
+     * workflow. Approval status with these three values in common can be
+     * fetched in one call for many organisation units and values of
+     * attributeOptionCombo.
      */
     private String statusKey( DataApproval approval )
     {
         return approval == null ? null
-            : approval.getOrganisationUnit().getId() +
+            : approval.getOrganisationUnit().getHierarchyLevel() +
                 IdentifiableObjectUtils.SEPARATOR + approval.getPeriod().getId() +
                 IdentifiableObjectUtils.SEPARATOR + approval.getWorkflow().getId();
     }
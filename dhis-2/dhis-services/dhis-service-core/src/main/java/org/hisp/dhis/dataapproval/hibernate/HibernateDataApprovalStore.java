@@ -38,6 +38,7 @@ import static org.hisp.dhis.dataapproval.DataApprovalState.UNAPPROVED_WAITING;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -49,6 +50,7 @@ import lombok.extern.slf4j.Slf4j;
 
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.hibernate.Session;
 import org.hibernate.SessionFactory;
 import org.hisp.dhis.cache.Cache;
 import org.hisp.dhis.cache.CacheProvider;
@@ -90,6 +92,8 @@ public class HibernateDataApprovalStore
 {
     private static final int MAX_APPROVAL_LEVEL = 100000000;
 
+    private static final int JDBC_BATCH_SIZE = 500;
+
     private static final String SQL_CONCAT = "-";
 
     private static final String SQL_CAT = StatementBuilder.QUOTE + SQL_CONCAT + StatementBuilder.QUOTE;
@@ -156,6 +160,42 @@ public class HibernateDataApprovalStore
         save( dataApproval );
     }
 
+    @Override
+    public void addDataApprovals( List<DataApproval> dataApprovals )
+    {
+        if ( dataApprovals.isEmpty() )
+        {
+            return;
+        }
+
+        isApprovedCache.invalidateAll();
+
+        Map<Period, Period> storedPeriods = new HashMap<>();
+
+        Session session = getSession();
+
+        Integer jdbcBatchSize = session.getJdbcBatchSize();
+
+        session.setJdbcBatchSize( JDBC_BATCH_SIZE );
+
+        try
+        {
+            for ( DataApproval dataApproval : dataApprovals )
+            {
+                dataApproval.setPeriod( storedPeriods.computeIfAbsent( dataApproval.getPeriod(),
+                    periodService::reloadPeriod ) );
+
+                session.save( dataApproval );
+            }
+
+            session.flush();
+        }
+        finally
+        {
+            session.setJdbcBatchSize( jdbcBatchSize );
+        }
+    }
+
     @Override
     public void updateDataApproval( DataApproval dataApproval )
     {
@@ -414,7 +454,7 @@ public class HibernateDataApprovalStore
         {
             orgUnitIds = StringUtils.join( IdentifiableObjectUtils.getIdentifiers( orgUnits ), "," );
 
-            highestApprovedOrgUnitCompare = "da.organisationunitid in (" + orgUnitIds + ") ";
+            highestApprovedOrgUnitCompare = "da.organisationunitid = o.organisationunitid ";
         }
         else
         {
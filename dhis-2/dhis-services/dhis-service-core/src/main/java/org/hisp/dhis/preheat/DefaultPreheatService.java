@@ -30,6 +30,7 @@ package org.hisp.dhis.preheat;
 import static com.google.common.base.Preconditions.*;
 
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.*;
 
 import lombok.extern.slf4j.*;
@@ -65,6 +66,8 @@ import com.google.common.collect.*;
 @Scope( value = "prototype", proxyMode = ScopedProxyMode.INTERFACES )
 public class DefaultPreheatService implements PreheatService
 {
+    private static final int LOAD_CHUNK_SIZE = 20000;
+
     private final SchemaService schemaService;
 
     private final QueryService queryService;
@@ -139,74 +142,22 @@ public class DefaultPreheatService implements PreheatService
 
         if ( PreheatIdentifier.UID == params.getPreheatIdentifier() || hasOnlyUIDClasses )
         {
-            for ( Class<? extends IdentifiableObject> klass : uidMap.keySet() )
-            {
-                List<List<String>> identifiers = Lists.partition( Lists.newArrayList( uidMap.get( klass ) ),
-                    20000 );
-
-                if ( !identifiers.isEmpty() )
-                {
-                    for ( List<String> ids : identifiers )
-                    {
-                        Query query = Query.from( schemaService.getDynamicSchema( klass ) );
-                        query.setUser( preheat.getUser() );
-                        query.add( Restrictions.in( "id", ids ) );
-                        List<? extends IdentifiableObject> objects = queryService.query( query );
-                        preheat.put( PreheatIdentifier.UID, objects );
-                    }
-                }
-            }
+            uidMap.forEach( ( klass, ids ) -> load( preheat, PreheatIdentifier.UID, klass, ids ) );
         }
 
         if ( codeMap != null && (PreheatIdentifier.CODE == params.getPreheatIdentifier()) )
         {
-            for ( Class<? extends IdentifiableObject> klass : codeMap.keySet() )
-            {
-                List<List<String>> identifiers = Lists.partition( Lists.newArrayList( codeMap.get( klass ) ),
-                    20000 );
+            codeMap.forEach( ( klass, codes ) -> load( preheat, PreheatIdentifier.CODE, klass, codes ) );
 
-                if ( !identifiers.isEmpty() )
-                {
-                    for ( List<String> ids : identifiers )
-                    {
-                        Query query = Query.from( schemaService.getDynamicSchema( klass ) );
-                        query.setUser( preheat.getUser() );
-                        query.add( Restrictions.in( "code", ids ) );
-                        List<? extends IdentifiableObject> objects = queryService.query( query );
-                        preheat.put( PreheatIdentifier.CODE, objects );
-                    }
-                }
-            }
-
-            if ( uidMap.containsKey( User.class ) && !uidMap.get( User.class ).isEmpty() )
+            if ( uidMap.containsKey( User.class ) )
             {
-                List<List<String>> identifiers = Lists.partition( Lists.newArrayList( uidMap.get( User.class ) ),
-                    20000 );
-
-                for ( List<String> ids : identifiers )
-                {
-                    Query query = Query.from( schemaService.getDynamicSchema( User.class ) );
-                    query.setUser( preheat.getUser() );
-                    query.add( Restrictions.in( "id", ids ) );
-                    List<? extends IdentifiableObject> objects = queryService.query( query );
-                    preheat.put( PreheatIdentifier.UID, objects );
-                }
+                load( preheat, PreheatIdentifier.UID, User.class, uidMap.get( User.class ) );
             }
 
-            if ( uidMap.containsKey( UserAuthorityGroup.class )
-                && !uidMap.get( UserAuthorityGroup.class ).isEmpty() )
+            if ( uidMap.containsKey( UserAuthorityGroup.class ) )
             {
-                List<List<String>> identifiers = Lists
-                    .partition( Lists.newArrayList( uidMap.get( UserAuthorityGroup.class ) ), 20000 );
-
-                for ( List<String> ids : identifiers )
-                {
-                    Query query = Query.from( schemaService.getDynamicSchema( UserAuthorityGroup.class ) );
-                    query.setUser( preheat.getUser() );
-                    query.add( Restrictions.in( "id", ids ) );
-                    List<? extends IdentifiableObject> objects = queryService.query( query );
-                    preheat.put( PreheatIdentifier.UID, objects );
-                }
+                load( preheat, PreheatIdentifier.UID, UserAuthorityGroup.class,
+                    uidMap.get( UserAuthorityGroup.class ) );
             }
         }
 
@@ -279,6 +230,34 @@ public class DefaultPreheatService implements PreheatService
         return preheat;
     }
 
+    /**
+     * Loads the objects of the given class with the given identifiers into the
+     * preheat, using IN queries of at most {@link #LOAD_CHUNK_SIZE}
+     * identifiers, and records the time spent.
+     */
+    private void load( Preheat preheat, PreheatIdentifier identifier, Class<? extends IdentifiableObject> klass,
+        Set<String> keys )
+    {
+        if ( keys.isEmpty() )
+        {
+            return;
+        }
+
+        Timer timer = new SystemTimer().start();
+        Schema schema = schemaService.getDynamicSchema( klass );
+        String property = PreheatIdentifier.CODE == identifier ? "code" : "id";
+
+        for ( List<String> chunk : Lists.partition( Lists.newArrayList( keys ), LOAD_CHUNK_SIZE ) )
+        {
+            Query query = Query.from( schema );
+            query.setUser( preheat.getUser() );
+            query.add( Restrictions.in( property, chunk ) );
+            preheat.put( identifier, queryService.query( query ) );
+        }
+
+        preheat.addLoadTime( klass, TimeUnit.NANOSECONDS.toMillis( timer.duration() ) );
+    }
+
     private void handleSharing( PreheatParams params, Preheat preheat )
     {
         params.getObjects().forEach( ( klass, list ) -> list.forEach( object -> {
@@ -459,11 +438,7 @@ public class DefaultPreheatService implements PreheatService
         {
             Schema schema = schemaService.getDynamicSchema( klass );
 
-            List<Property> referenceProperties = schema.getProperties().stream()
-                .filter( p -> p.isPersisted() && p.isOwner()
-                    && (PropertyType.REFERENCE == p.getPropertyType()
-                        || PropertyType.REFERENCE == p.getItemPropertyType()) )
-                .collect( Collectors.toList() );
+            List<Property> referenceProperties = new ArrayList<>( schema.getOwnerReferenceProperties().values() );
 
             for ( Object object : targets.get( klass ) )
             {
@@ -494,7 +469,7 @@ public class DefaultPreheatService implements PreheatService
                         if ( !codeMap.containsKey( itemKlass ) )
                             codeMap.put( itemKlass, new HashSet<>() );
 
-                        Object reference = ReflectionUtils.invokeMethod( object, p.getGetterMethod() );
+                        Object reference = PropertyAccessors.getValue( object, p );
 
                         if ( reference != null )
                         {
@@ -504,8 +479,7 @@ public class DefaultPreheatService implements PreheatService
                     }
                     else
                     {
-                        Collection<IdentifiableObject> reference = ReflectionUtils.invokeMethod( object,
-                            p.getGetterMethod() );
+                        Collection<IdentifiableObject> reference = PropertyAccessors.getValue( object, p );
                         reference.forEach( identifiableObject -> addIdentifiers( map, identifiableObject ) );
 
                         if ( DataElementOperand.class.isAssignableFrom( p.getItemKlass() ) )
@@ -660,11 +634,7 @@ public class DefaultPreheatService implements PreheatService
                 continue;
             }
 
-            List<Property> properties = schema.getProperties().stream()
-                .filter( p -> p.isPersisted() && p.isOwner()
-                    && (PropertyType.REFERENCE == p.getPropertyType()
-                        || PropertyType.REFERENCE == p.getItemPropertyType()) )
-                .collect( Collectors.toList() );
+            List<Property> properties = new ArrayList<>( schema.getOwnerReferenceProperties().values() );
 
             List<IdentifiableObject> identifiableObjects = (List<IdentifiableObject>) targets.get( objectClass );
             Map<String, Map<String, Object>> refMap = new HashMap<>();
@@ -677,7 +647,7 @@ public class DefaultPreheatService implements PreheatService
                 properties.forEach( p -> {
                     if ( !p.isCollection() )
                     {
-                        IdentifiableObject reference = ReflectionUtils.invokeMethod( object, p.getGetterMethod() );
+                        IdentifiableObject reference = PropertyAccessors.getValue( object, p );
 
                         if ( reference != null )
                         {
@@ -696,8 +666,7 @@ public class DefaultPreheatService implements PreheatService
                     {
                         Collection<IdentifiableObject> refObjects = ReflectionUtils
                             .newCollectionInstance( p.getKlass() );
-                        Collection<IdentifiableObject> references = ReflectionUtils.invokeMethod( object,
-                            p.getGetterMethod() );
+                        Collection<IdentifiableObject> references = PropertyAccessors.getValue( object, p );
 
                         if ( references != null )
                         {
@@ -769,7 +738,7 @@ public class DefaultPreheatService implements PreheatService
                     }
 
                     objects
-                        .forEach( o -> list.addAll( ReflectionUtils.invokeMethod( o, property.getGetterMethod() ) ) );
+                        .forEach( o -> list.addAll( PropertyAccessors.getValue( o, property ) ) );
                     targets.put( property.getItemKlass(), list );
                 }
                 else
@@ -781,7 +750,7 @@ public class DefaultPreheatService implements PreheatService
                         list.addAll( targets.get( property.getKlass() ) );
                     }
 
-                    objects.forEach( o -> list.add( ReflectionUtils.invokeMethod( o, property.getGetterMethod() ) ) );
+                    objects.forEach( o -> list.add( PropertyAccessors.getValue( o, property ) ) );
                     targets.put( property.getKlass(), list );
                 }
             }
@@ -819,11 +788,7 @@ public class DefaultPreheatService implements PreheatService
 
         Schema schema = schemaService.getDynamicSchema( HibernateProxyUtils.getRealClass( object ) );
 
-        List<Property> properties = schema.getProperties().stream()
-            .filter( p -> p.isPersisted() && p.isOwner()
-                && (PropertyType.REFERENCE == p.getPropertyType()
-                    || PropertyType.REFERENCE == p.getItemPropertyType()) )
-            .collect( Collectors.toList() );
+        List<Property> properties = new ArrayList<>( schema.getOwnerReferenceProperties().values() );
 
         for ( Property property : properties )
         {
@@ -834,7 +799,7 @@ public class DefaultPreheatService implements PreheatService
 
             if ( !property.isCollection() )
             {
-                IdentifiableObject refObject = ReflectionUtils.invokeMethod( object, property.getGetterMethod() );
+                IdentifiableObject refObject = PropertyAccessors.getValue( object, property );
                 IdentifiableObject ref = getPersistedObject( preheat, identifier, refObject );
 
                 ref = connectDefaults( preheat, property, object, refObject, ref );
@@ -851,8 +816,7 @@ public class DefaultPreheatService implements PreheatService
             else
             {
                 Collection<IdentifiableObject> objects = ReflectionUtils.newCollectionInstance( property.getKlass() );
-                Collection<IdentifiableObject> refObjects = ReflectionUtils.invokeMethod( object,
-                    property.getGetterMethod() );
+                Collection<IdentifiableObject> refObjects = PropertyAccessors.getValue( object, property );
 
                 for ( IdentifiableObject refObject : refObjects )
                 {
@@ -949,7 +913,7 @@ public class DefaultPreheatService implements PreheatService
             uniqueProperties.forEach( property -> {
                 if ( !map.containsKey( property.getName() ) )
                     map.put( property.getName(), new HashMap<>() );
-                Object value = ReflectionUtils.invokeMethod( object, property.getGetterMethod() );
+                Object value = PropertyAccessors.getValue( object, property );
                 if ( value != null )
                     map.get( property.getName() ).put( value, identifier.getIdentifier( object ) );
             } );
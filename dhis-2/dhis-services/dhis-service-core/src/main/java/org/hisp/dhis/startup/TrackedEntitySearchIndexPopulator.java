@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.startup;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.hisp.dhis.system.startup.AbstractStartupRoutine;
+import org.hisp.dhis.trackedentity.TrackedEntitySearchIndexService;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Rebuilds the tracked entity search table when the search index is enabled
+ * and it is not maintained, which is the case when the search index has just
+ * been enabled or was never populated completely.
+ * Removes the triggers and clears the table when the search index is disabled
+ * so that no stale rows are left behind. A trigram index is added when the
+ * {@code pg_trgm} extension can be installed, which lets the database serve
+ * {@code like '%value%'} filters from the index.
+ */
+@Slf4j
+public class TrackedEntitySearchIndexPopulator
+    extends AbstractStartupRoutine
+{
+    private final TrackedEntitySearchIndexService searchIndexService;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public TrackedEntitySearchIndexPopulator( TrackedEntitySearchIndexService searchIndexService,
+        JdbcTemplate jdbcTemplate )
+    {
+        checkNotNull( searchIndexService );
+        checkNotNull( jdbcTemplate );
+        this.searchIndexService = searchIndexService;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void execute()
+        throws Exception
+    {
+        boolean maintained = searchIndexService.isMaintained();
+
+        if ( !searchIndexService.isEnabled() )
+        {
+            boolean populated = jdbcTemplate.queryForObject(
+                "select exists (select 1 from trackedentityattributesearch)", Boolean.class );
+
+            if ( maintained || populated )
+            {
+                searchIndexService.clearSearchIndex();
+
+                log.info( "Tracked entity search index disabled" );
+            }
+
+            return;
+        }
+
+        createTrigramIndex();
+
+        if ( !maintained )
+        {
+            log.info( "Populating tracked entity search index" );
+
+            searchIndexService.rebuildSearchIndex();
+        }
+    }
+
+    private void createTrigramIndex()
+    {
+        try
+        {
+            jdbcTemplate.execute( "create extension if not exists pg_trgm" );
+            jdbcTemplate.execute( "create index if not exists in_trackedentityattributesearch_lowervalue_trgm " +
+                "on trackedentityattributesearch using gin (lowervalue gin_trgm_ops)" );
+        }
+        catch ( DataAccessException ex )
+        {
+            log.warn( "Trigram index could not be created, substring searches will not be indexed: "
+                + ex.getMessage() );
+        }
+    }
+}
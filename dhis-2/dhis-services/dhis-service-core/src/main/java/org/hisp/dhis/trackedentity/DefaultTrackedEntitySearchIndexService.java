@@ -0,0 +1,178 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.trackedentity;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Search index backed by the {@code trackedentityattributesearch} table.
+ * Values of confidential attributes are stored encrypted and are never
+ * indexed, and values of soft deleted tracked entity instances are removed.
+ * <p>
+ * The table is maintained by triggers on {@code trackedentityattributevalue},
+ * {@code trackedentityinstance} and {@code trackedentityattribute} calling the
+ * functions created by the V2_38_12 migration. The triggers are committed
+ * before the table is populated in batches of tracked entity instances, so
+ * that writes of attribute values are not blocked while the table is
+ * populated. The table comment marks a completed population.
+ */
+@Slf4j
+@Service( "org.hisp.dhis.trackedentity.TrackedEntitySearchIndexService" )
+public class DefaultTrackedEntitySearchIndexService
+    implements TrackedEntitySearchIndexService
+{
+    private static final String VALUE_TRIGGER = "trg_trackedentityattributesearch_value";
+
+    private static final String INSTANCE_TRIGGER = "trg_trackedentityattributesearch_instance";
+
+    private static final String ATTRIBUTE_TRIGGER = "trg_trackedentityattributesearch_attribute";
+
+    private static final int BATCH_SIZE = 10_000;
+
+    private static final String POPULATED = "populated";
+
+    private static final String INSERT_SQL = "insert into trackedentityattributesearch " +
+        "(trackedentityinstanceid, trackedentitytypeid, trackedentityattributeid, value, lowervalue) " +
+        "select teav.trackedentityinstanceid, tei.trackedentitytypeid, teav.trackedentityattributeid, " +
+        "teav.value, lower(teav.value) " +
+        "from trackedentityattributevalue teav " +
+        "inner join trackedentityinstance tei on teav.trackedentityinstanceid = tei.trackedentityinstanceid " +
+        "inner join trackedentityattribute tea on teav.trackedentityattributeid = tea.trackedentityattributeid " +
+        "where teav.value is not null " +
+        "and tea.confidential is not true " +
+        "and tei.deleted is false " +
+        "and teav.trackedentityinstanceid > ? and teav.trackedentityinstanceid <= ? " +
+        "on conflict do nothing";
+
+    // -------------------------------------------------------------------------
+    // Dependencies
+    // -------------------------------------------------------------------------
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final boolean enabled;
+
+    public DefaultTrackedEntitySearchIndexService( JdbcTemplate jdbcTemplate,
+        TransactionTemplate transactionTemplate, DhisConfigurationProvider config )
+    {
+        checkNotNull( jdbcTemplate );
+        checkNotNull( transactionTemplate );
+        checkNotNull( config );
+
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = config.isEnabled( ConfigurationKey.TRACKER_SEARCH_INDEX_ENABLED );
+    }
+
+    // -------------------------------------------------------------------------
+    // TrackedEntitySearchIndexService implementation
+    // -------------------------------------------------------------------------
+
+    @Override
+    public boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    @Override
+    public boolean isMaintained()
+    {
+        return jdbcTemplate.queryForObject( "select count(*) from pg_trigger where tgname in ('" + VALUE_TRIGGER +
+            "', '" + INSTANCE_TRIGGER + "', '" + ATTRIBUTE_TRIGGER + "')", Integer.class ) == 3
+            && POPULATED.equals( jdbcTemplate.queryForObject(
+                "select obj_description('trackedentityattributesearch'::regclass, 'pg_class')", String.class ) );
+    }
+
+    @Override
+    public void rebuildSearchIndex()
+    {
+        transactionTemplate.execute( status -> {
+            clearSearchIndex();
+            installTriggers();
+            return null;
+        } );
+
+        // Values written by the triggers since the triggers were committed
+        // are newer than the values read by the batches and are kept
+
+        long maxId = jdbcTemplate.queryForObject(
+            "select coalesce(max(trackedentityinstanceid), 0) from trackedentityinstance", Long.class );
+
+        int rows = 0;
+
+        for ( long fromId = 0; fromId < maxId; fromId += BATCH_SIZE )
+        {
+            rows += jdbcTemplate.update( INSERT_SQL, fromId, fromId + BATCH_SIZE );
+        }
+
+        jdbcTemplate.execute( "comment on table trackedentityattributesearch is '" + POPULATED + "'" );
+
+        log.info( "Tracked entity search index populated with {} attribute values", rows );
+    }
+
+    @Override
+    @Transactional
+    public void clearSearchIndex()
+    {
+        jdbcTemplate.execute( "drop trigger if exists " + VALUE_TRIGGER + " on trackedentityattributevalue" );
+        jdbcTemplate.execute( "drop trigger if exists " + INSTANCE_TRIGGER + " on trackedentityinstance" );
+        jdbcTemplate.execute( "drop trigger if exists " + ATTRIBUTE_TRIGGER + " on trackedentityattribute" );
+        jdbcTemplate.execute( "comment on table trackedentityattributesearch is null" );
+        jdbcTemplate.execute( "truncate trackedentityattributesearch" );
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    private void installTriggers()
+    {
+        jdbcTemplate.execute( "create trigger " + VALUE_TRIGGER + " " +
+            "after insert or update or delete on trackedentityattributevalue " +
+            "for each row execute procedure refresh_trackedentityattributesearch()" );
+
+        jdbcTemplate.execute( "create trigger " + INSTANCE_TRIGGER + " " +
+            "after update of deleted, trackedentitytypeid on trackedentityinstance " +
+            "for each row execute procedure refresh_trackedentityattributesearch_instance()" );
+
+        jdbcTemplate.execute( "create trigger " + ATTRIBUTE_TRIGGER + " " +
+            "after update of confidential on trackedentityattribute " +
+            "for each row execute procedure refresh_trackedentityattributesearch_attribute()" );
+    }
+}
@@ -79,6 +79,8 @@ import org.hisp.dhis.common.hibernate.SoftDeleteHibernateObjectStore;
 import org.hisp.dhis.commons.util.SqlHelper;
 import org.hisp.dhis.dxf2.events.event.EventContext;
 import org.hisp.dhis.event.EventStatus;
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
 import org.hisp.dhis.jdbc.StatementBuilder;
 import org.hisp.dhis.organisationunit.OrganisationUnit;
 import org.hisp.dhis.organisationunit.OrganisationUnitStore;
@@ -91,6 +93,7 @@ import org.hisp.dhis.user.User;
 import org.hisp.dhis.util.DateUtils;
 import org.hisp.dhis.webapi.controller.event.mapper.OrderParam;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.support.rowset.SqlRowSet;
 import org.springframework.stereotype.Repository;
@@ -134,6 +137,8 @@ public class HibernateTrackedEntityInstanceStore
 
     private static final String GT_EQUAL = " >= ";
 
+    private static final String SEARCH_INDEX_TABLE = "trackedentityattributesearch";
+
     // -------------------------------------------------------------------------
     // Dependencies
     // -------------------------------------------------------------------------
@@ -142,20 +147,25 @@ public class HibernateTrackedEntityInstanceStore
 
     private final StatementBuilder statementBuilder;
 
+    private final boolean searchIndexEnabled;
+
     private final static String SELECT_TEI = "select tei from";
 
     public HibernateTrackedEntityInstanceStore( SessionFactory sessionFactory, JdbcTemplate jdbcTemplate,
         ApplicationEventPublisher publisher, CurrentUserService currentUserService,
-        AclService aclService, OrganisationUnitStore organisationUnitStore, StatementBuilder statementBuilder )
+        AclService aclService, OrganisationUnitStore organisationUnitStore, StatementBuilder statementBuilder,
+        DhisConfigurationProvider config )
     {
         super( sessionFactory, jdbcTemplate, publisher, TrackedEntityInstance.class, currentUserService, aclService,
             false );
 
         checkNotNull( statementBuilder );
         checkNotNull( organisationUnitStore );
+        checkNotNull( config );
 
         this.statementBuilder = statementBuilder;
         this.organisationUnitStore = organisationUnitStore;
+        this.searchIndexEnabled = config.isEnabled( ConfigurationKey.TRACKER_SEARCH_INDEX_ENABLED );
     }
 
     // -------------------------------------------------------------------------
@@ -199,6 +209,7 @@ public class HibernateTrackedEntityInstanceStore
     {
         String sql = getQuery( params, false );
         log.debug( "Tracked entity instance query SQL: " + sql );
+        logQueryPlan( sql );
         SqlRowSet rowSet = jdbcTemplate.queryForRowSet( sql );
 
         checkMaxTeiCountReached( params, rowSet );
@@ -419,6 +430,7 @@ public class HibernateTrackedEntityInstanceStore
     {
         String sql = getQuery( params, true );
         log.debug( "Tracked entity instance query SQL: " + sql );
+        logQueryPlan( sql );
 
         SqlRowSet rowSet = jdbcTemplate.queryForRowSet( sql );
 
@@ -836,7 +848,7 @@ public class HibernateTrackedEntityInstanceStore
         {
             if ( !params.isOrQuery() )
             {
-                joinAttributeValueWithoutQueryParameter( attributes, filterItems );
+                joinAttributeValueWithoutQueryParameter( params, attributes, filterItems );
             }
             else
             {
@@ -901,22 +913,29 @@ public class HibernateTrackedEntityInstanceStore
     /**
      * Generates a single INNER JOIN for each attribute we are searching on. We
      * can search by a range of operators. All searching is using lower() since
-     * attribute values are case insensitive.
+     * attribute values are case insensitive. When the search index is enabled
+     * the joins are made against the search table, which holds the lower-cased
+     * value and the tracked entity type of each attribute value and is indexed
+     * on them.
      *
+     * @param params
      * @param attributes
      * @param filterItems
      */
-    private void joinAttributeValueWithoutQueryParameter( StringBuilder attributes, List<QueryItem> filterItems )
+    private void joinAttributeValueWithoutQueryParameter( TrackedEntityInstanceQueryParams params,
+        StringBuilder attributes, List<QueryItem> filterItems )
     {
         for ( QueryItem queryItem : filterItems )
         {
             String col = statementBuilder.columnQuote( queryItem.getItemId() );
             String teaId = col + ".trackedentityattributeid";
-            String teav = "lower(" + col + ".value)";
+            String teav = searchIndexEnabled ? col + ".lowervalue" : "lower(" + col + ".value)";
             String teiid = col + ".trackedentityinstanceid";
 
             attributes
-                .append( " INNER JOIN trackedentityattributevalue " )
+                .append( " INNER JOIN " )
+                .append( searchIndexEnabled ? SEARCH_INDEX_TABLE : "trackedentityattributevalue" )
+                .append( SPACE )
                 .append( col )
                 .append( " ON " )
                 .append( teaId )
@@ -926,6 +945,15 @@ public class HibernateTrackedEntityInstanceStore
                 .append( teiid )
                 .append( " = TEI.trackedentityinstanceid " );
 
+            if ( searchIndexEnabled )
+            {
+                attributes
+                    .append( "AND " )
+                    .append( col )
+                    .append( ".trackedentitytypeid " )
+                    .append( getTrackedEntityTypeCondition( params ) );
+            }
+
             for ( QueryFilter filter : queryItem.getFilters() )
             {
                 String encodedFilter = statementBuilder.encode( filter.getFilter(), false );
@@ -941,6 +969,23 @@ public class HibernateTrackedEntityInstanceStore
         }
     }
 
+    /**
+     * Returns the condition restricting a tracked entity type column to the
+     * tracked entity types of the query.
+     *
+     * @param params
+     * @return a SQL condition without the column.
+     */
+    private String getTrackedEntityTypeCondition( TrackedEntityInstanceQueryParams params )
+    {
+        if ( params.hasTrackedEntityType() )
+        {
+            return EQUALS + params.getTrackedEntityType().getId() + SPACE;
+        }
+
+        return "IN (" + getCommaDelimitedString( getIdentifiers( params.getTrackedEntityTypes() ) ) + ") ";
+    }
+
     /**
      * Generates the LEFT JOINs used for attributes we are ordering by (If any).
      * We use LEFT JOIN to avoid removing any rows if there is no value for a
@@ -1809,6 +1854,29 @@ public class HibernateTrackedEntityInstanceStore
         return (trackedEntityInstance == null || trackedEntityInstance.isDeleted()) ? null : trackedEntityInstance;
     }
 
+    /**
+     * Writes the execution plan of the given query to the debug log.
+     *
+     * @param sql the query.
+     */
+    private void logQueryPlan( String sql )
+    {
+        if ( !log.isDebugEnabled() )
+        {
+            return;
+        }
+
+        try
+        {
+            List<String> plan = jdbcTemplate.queryForList( "explain " + sql, String.class );
+            log.debug( "Tracked entity instance query plan: \n" + String.join( "\n", plan ) );
+        }
+        catch ( DataAccessException ex )
+        {
+            log.debug( "Tracked entity instance query plan not available: " + ex.getMessage() );
+        }
+    }
+
     private boolean isOrgUnit( QueryItem item )
     {
         return item.getValueType().isOrganisationUnit();
@@ -31,6 +31,7 @@ import static com.google.common.base.Preconditions.checkNotNull;
 
 import java.util.HashSet;
 import java.util.Set;
+import java.util.function.Supplier;
 
 import org.hisp.dhis.cache.Cache;
 import org.hisp.dhis.cache.CacheProvider;
@@ -59,11 +60,26 @@ public class DefaultCurrentUserService
     private final Cache<Long> usernameIdCache;
 
     /**
-     * Cache contains Set of UserGroup UID for each user. Key is username. This
-     * will be used for ACL check in
+     * Cache for {@link UserAccessContext} snapshots. Key is username. This will
+     * be used for ACL check in
      * {@link org.hisp.dhis.common.hibernate.HibernateIdentifiableObjectStore}
+     * and for organisation unit hierarchy checks.
      */
-    private final Cache<CurrentUserGroupInfo> currentUserGroupInfoCache;
+    private final Cache<UserAccessContext> userAccessContextCache;
+
+    /**
+     * Versions of the {@link UserAccessContext} snapshots, one for all users
+     * and one per username. The version of a snapshot is the sum of both,
+     * which grows with every invalidation. Snapshots of another version are
+     * discarded on retrieval, which covers snapshots computed concurrently
+     * with the invalidation. The versions are kept in a cache so that they are
+     * shared between the nodes of a cluster.
+     */
+    private final Cache<Long> userAccessContextVersionCache;
+
+    private static final String ALL_USERS_VERSION_KEY = "all";
+
+    private static final String USER_VERSION_KEY_PREFIX = "user:";
 
     // -------------------------------------------------------------------------
     // Dependencies
@@ -79,7 +95,8 @@ public class DefaultCurrentUserService
 
         this.userStore = userStore;
         this.usernameIdCache = cacheProvider.createUserIdCache();
-        this.currentUserGroupInfoCache = cacheProvider.createCurrentUserGroupInfoCache();
+        this.userAccessContextCache = cacheProvider.createUserAccessContextCache();
+        this.userAccessContextVersionCache = cacheProvider.createUserAccessContextVersionCache();
     }
 
     // -------------------------------------------------------------------------
@@ -243,57 +260,114 @@ public class DefaultCurrentUserService
     @Transactional( readOnly = true )
     public CurrentUserGroupInfo getCurrentUserGroupsInfo()
     {
-        UserInfo currentUserInfo = getCurrentUserInfo();
+        UserAccessContext context = getCurrentUserAccessContext();
+
+        return context != null ? context.toCurrentUserGroupInfo() : null;
+    }
 
-        if ( currentUserInfo == null )
+    @Override
+    @Transactional( readOnly = true )
+    public CurrentUserGroupInfo getCurrentUserGroupsInfo( UserInfo userInfo )
+    {
+        if ( userInfo == null )
         {
             return null;
         }
 
-        return currentUserGroupInfoCache
-            .get( currentUserInfo.getUsername(), this::getCurrentUserGroupsInfo ).orElse( null );
+        UserAccessContext context = getUserAccessContext( userInfo.getUsername(),
+            () -> getUserByUsername( userInfo.getUsername() ) );
+
+        return context != null ? context.toCurrentUserGroupInfo() : null;
     }
 
     @Override
     @Transactional( readOnly = true )
-    public CurrentUserGroupInfo getCurrentUserGroupsInfo( UserInfo userInfo )
+    public UserAccessContext getCurrentUserAccessContext()
     {
-        if ( userInfo == null )
+        String username = getCurrentUsername();
+
+        if ( username == null )
         {
             return null;
         }
 
-        return currentUserGroupInfoCache
-            .get( userInfo.getUsername(), this::getCurrentUserGroupsInfo ).orElse( null );
+        return getUserAccessContext( username, this::getCurrentUser );
     }
 
     @Override
-    public void invalidateUserGroupCache( String username )
+    @Transactional( readOnly = true )
+    public UserAccessContext getUserAccessContext( User user )
     {
-        try
+        if ( user == null )
         {
-            currentUserGroupInfoCache.invalidate( username );
+            return null;
         }
-        catch ( NullPointerException exception )
+
+        if ( user.getUsername() == null )
         {
-            // Ignore if key doesn't exist
+            return UserAccessContext.of( user, 0 );
         }
+
+        return getUserAccessContext( user.getUsername(), () -> user );
     }
 
-    private CurrentUserGroupInfo getCurrentUserGroupsInfo( String username )
+    @Override
+    public void invalidateUserAccessContext( String username )
     {
-        if ( username == null )
+        if ( username != null )
         {
-            return null;
+            incrementVersion( USER_VERSION_KEY_PREFIX + username );
+            userAccessContextCache.invalidate( username );
         }
+    }
 
-        Long userId = usernameIdCache.get( username, this::getUserId ).orElse( null );
+    @Override
+    public void invalidateAllUserAccessContexts()
+    {
+        incrementVersion( ALL_USERS_VERSION_KEY );
+        userAccessContextCache.invalidateAll();
+    }
 
-        if ( userId == null )
+    /**
+     * Returns the cached {@link UserAccessContext} of the given username, or
+     * creates it from the user of the given supplier if it is absent or of an
+     * older version.
+     */
+    private UserAccessContext getUserAccessContext( String username, Supplier<User> userSupplier )
+    {
+        long version = getVersion( ALL_USERS_VERSION_KEY ) + getVersion( USER_VERSION_KEY_PREFIX + username );
+
+        UserAccessContext context = userAccessContextCache.getIfPresent( username ).orElse( null );
+
+        if ( context != null && context.getVersion() == version )
         {
-            return null;
+            return context;
+        }
+
+        context = UserAccessContext.of( userSupplier.get(), version );
+
+        if ( context != null )
+        {
+            userAccessContextCache.put( username, context );
         }
 
-        return userStore.getCurrentUserGroupInfo( getCurrentUserInfo().getId() );
+        return context;
+    }
+
+    private long getVersion( String key )
+    {
+        return userAccessContextVersionCache.get( key, k -> 0L ).orElse( 0L );
+    }
+
+    private void incrementVersion( String key )
+    {
+        userAccessContextVersionCache.put( key, getVersion( key ) + 1 );
+    }
+
+    private User getUserByUsername( String username )
+    {
+        UserCredentials credentials = userStore.getUserCredentialsByUsername( username );
+
+        return credentials != null ? credentials.getUserInfo() : null;
     }
 }
@@ -53,6 +53,7 @@ import org.hisp.dhis.cache.Cache;
 import org.hisp.dhis.cache.CacheProvider;
 import org.hisp.dhis.common.AuditLogUtil;
 import org.hisp.dhis.common.BaseIdentifiableObject;
+import org.hisp.dhis.common.ChangeVersionService;
 import org.hisp.dhis.commons.filter.FilterUtils;
 import org.hisp.dhis.dataset.DataSet;
 import org.hisp.dhis.feedback.ErrorCode;
@@ -103,13 +104,16 @@ public class DefaultUserService
 
     private final SessionRegistry sessionRegistry;
 
+    private final ChangeVersionService changeVersionService;
+
     private final Cache<String> userDisplayNameCache;
 
     public DefaultUserService( UserStore userStore, UserGroupService userGroupService,
         UserCredentialsStore userCredentialsStore, UserAuthorityGroupStore userAuthorityGroupStore,
         CurrentUserService currentUserService, SystemSettingManager systemSettingManager,
         CacheProvider cacheProvider,
-        @Lazy PasswordManager passwordManager, @Lazy SessionRegistry sessionRegistry )
+        @Lazy PasswordManager passwordManager, @Lazy SessionRegistry sessionRegistry,
+        ChangeVersionService changeVersionService )
     {
         checkNotNull( userStore );
         checkNotNull( userGroupService );
@@ -118,6 +122,7 @@ public class DefaultUserService
         checkNotNull( systemSettingManager );
         checkNotNull( passwordManager );
         checkNotNull( sessionRegistry );
+        checkNotNull( changeVersionService );
 
         this.userStore = userStore;
         this.userGroupService = userGroupService;
@@ -127,6 +132,7 @@ public class DefaultUserService
         this.systemSettingManager = systemSettingManager;
         this.passwordManager = passwordManager;
         this.sessionRegistry = sessionRegistry;
+        this.changeVersionService = changeVersionService;
         userDisplayNameCache = cacheProvider.createUserDisplayNameCache();
     }
 
@@ -820,7 +826,15 @@ public class DefaultUserService
             // we never disable users that have been active during last month
             return 0;
         }
-        return userStore.disableUsersInactiveSince( inactiveSince );
+
+        int disabledUserCount = userStore.disableUsersInactiveSince( inactiveSince );
+
+        if ( disabledUserCount > 0 )
+        {
+            changeVersionService.incrementVersionAfterCommit( UserCredentials.class );
+        }
+
+        return disabledUserCount;
     }
 
     @Override
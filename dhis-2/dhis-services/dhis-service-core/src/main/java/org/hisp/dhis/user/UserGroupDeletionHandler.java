@@ -83,6 +83,7 @@ public class UserGroupDeletionHandler
             idObjectManager.updateNoAcl( group );
         }
 
-        userGroup.getMembers().forEach( member -> currentUserService.invalidateUserGroupCache( member.getUsername() ) );
+        userGroup.getMembers()
+            .forEach( member -> currentUserService.invalidateUserAccessContext( member.getUsername() ) );
     }
 }
@@ -55,13 +55,14 @@ public class HibernateUserGroupStore extends HibernateIdentifiableObjectStore<Us
     public void save( UserGroup object, boolean clearSharing )
     {
         super.save( object, clearSharing );
-        object.getMembers().forEach( member -> currentUserService.invalidateUserGroupCache( member.getUsername() ) );
+        object.getMembers().forEach( member -> currentUserService.invalidateUserAccessContext( member.getUsername() ) );
     }
 
     @Override
     public void update( UserGroup object, User user )
     {
         super.update( object, user );
-        object.getMembers().forEach( member -> currentUserService.invalidateUserGroupCache( member.getUsername() ) );
+        // Members removed by the update are no longer reachable from the group
+        currentUserService.invalidateAllUserAccessContexts();
     }
 }
\ No newline at end of file
@@ -110,7 +110,7 @@ public class HibernateUserStore
     {
         super.save( user, clearSharing );
 
-        currentUserService.invalidateUserGroupCache( user.getUsername() );
+        currentUserService.invalidateUserAccessContext( user.getUsername() );
     }
 
     @Override
@@ -0,0 +1,196 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.common;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+import org.hisp.dhis.category.CategoryCombo;
+import org.hisp.dhis.dataelement.DataElement;
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
+import org.hisp.dhis.program.Program;
+import org.hisp.dhis.schema.Property;
+import org.hisp.dhis.schema.Schema;
+import org.hisp.dhis.schema.SchemaService;
+import org.hisp.dhis.user.UserAuthorityGroup;
+import org.hisp.dhis.user.UserCredentials;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+public class DefaultChangeVersionServiceTest
+{
+    @Rule
+    public MockitoRule mockitoRule = MockitoJUnit.rule();
+
+    @Mock
+    private SchemaService schemaService;
+
+    @Mock
+    private DhisConfigurationProvider config;
+
+    @Before
+    public void setUp()
+    {
+        Property categoryCombo = new Property( CategoryCombo.class );
+        categoryCombo.setName( "categoryCombo" );
+
+        Schema dataElementSchema = new Schema( DataElement.class, "dataElement", "dataElements" );
+        dataElementSchema.addProperty( categoryCombo );
+
+        when( schemaService.getDynamicSchema( any() ) ).thenReturn( null );
+        when( schemaService.getDynamicSchema( DataElement.class ) ).thenReturn( dataElementSchema );
+        when( schemaService.getSchema( CategoryCombo.class ) )
+            .thenReturn( new Schema( CategoryCombo.class, "categoryCombo", "categoryCombos" ) );
+    }
+
+    @Test
+    public void testIsDisabledByDefault()
+    {
+        ChangeVersionService service = new DefaultChangeVersionService( schemaService, config );
+
+        assertFalse( service.isEnabled() );
+        assertNull( service.getVersionTag( DataElement.class ) );
+    }
+
+    @Test
+    public void testIsDisabledInCluster()
+    {
+        when( config.isEnabled( ConfigurationKey.METADATA_ETAG_ENABLED ) ).thenReturn( true );
+        when( config.isClusterEnabled() ).thenReturn( true );
+
+        assertFalse( new DefaultChangeVersionService( schemaService, config ).isEnabled() );
+    }
+
+    @Test
+    public void testIncrementVersion()
+    {
+        ChangeVersionService service = new DefaultChangeVersionService( schemaService, config );
+
+        service.incrementVersion( DataElement.class );
+        service.incrementVersion( DataElement.class );
+
+        assertEquals( 2L, service.getVersion( DataElement.class ) );
+        assertEquals( 2L, service.getVersion( BaseIdentifiableObject.class ) );
+        assertEquals( 0L, service.getVersion( Program.class ) );
+    }
+
+    @Test
+    public void testVersionTagChangesWithReachableClasses()
+    {
+        when( config.isEnabled( ConfigurationKey.METADATA_ETAG_ENABLED ) ).thenReturn( true );
+
+        ChangeVersionService service = new DefaultChangeVersionService( schemaService, config );
+
+        assertTrue( service.isEnabled() );
+
+        String tag = service.getVersionTag( DataElement.class );
+
+        service.incrementVersion( Program.class );
+
+        assertEquals( tag, service.getVersionTag( DataElement.class ) );
+
+        service.incrementVersion( CategoryCombo.class );
+
+        assertNotEquals( tag, service.getVersionTag( DataElement.class ) );
+
+        tag = service.getVersionTag( DataElement.class );
+
+        service.incrementVersion( DataElement.class );
+
+        assertNotEquals( tag, service.getVersionTag( DataElement.class ) );
+    }
+
+    @Test
+    public void testVersionTagChangesWithUserAccess()
+    {
+        when( config.isEnabled( ConfigurationKey.METADATA_ETAG_ENABLED ) ).thenReturn( true );
+
+        ChangeVersionService service = new DefaultChangeVersionService( schemaService, config );
+
+        String tag = service.getVersionTag( DataElement.class );
+
+        service.incrementVersion( UserCredentials.class );
+
+        assertNotEquals( tag, service.getVersionTag( DataElement.class ) );
+
+        tag = service.getVersionTag( DataElement.class );
+
+        service.incrementVersion( UserAuthorityGroup.class );
+
+        assertNotEquals( tag, service.getVersionTag( DataElement.class ) );
+    }
+
+    @Test
+    public void testIncrementVersionAfterCommit()
+    {
+        when( config.isEnabled( ConfigurationKey.METADATA_ETAG_ENABLED ) ).thenReturn( true );
+
+        ChangeVersionService service = new DefaultChangeVersionService( schemaService, config );
+
+        TransactionSynchronizationManager.initSynchronization();
+
+        try
+        {
+            service.incrementVersionAfterCommit( DataElement.class );
+
+            assertEquals( 0L, service.getVersion( DataElement.class ) );
+
+            TransactionSynchronizationManager.getSynchronizations().forEach( TransactionSynchronization::afterCommit );
+
+            assertEquals( 1L, service.getVersion( DataElement.class ) );
+        }
+        finally
+        {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    public void testIncrementVersionAfterCommitWithoutTransaction()
+    {
+        when( config.isEnabled( ConfigurationKey.METADATA_ETAG_ENABLED ) ).thenReturn( true );
+
+        ChangeVersionService service = new DefaultChangeVersionService( schemaService, config );
+
+        service.incrementVersionAfterCommit( DataElement.class );
+
+        assertEquals( 1L, service.getVersion( DataElement.class ) );
+    }
+}
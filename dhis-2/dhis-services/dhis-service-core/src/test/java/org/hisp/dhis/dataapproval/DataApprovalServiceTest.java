@@ -1257,6 +1257,73 @@ public class DataApprovalServiceTest
             .getDataApprovalStatus( workflow1234, periodA, organisationUnitF, defaultOptionCombo ).getState() );
     }
 
+    @Test
+    public void testApproveDataForMultipleOrgUnitsAtSameLevel()
+    {
+        switchToApprovalUser( organisationUnitA, DataApproval.AUTH_APPROVE, DataApproval.AUTH_APPROVE_LOWER_LEVELS );
+
+        Date date = new Date();
+
+        dataApprovalService.approveData( newArrayList(
+            new DataApproval( level4, workflow1234, periodA, organisationUnitD, defaultOptionCombo, NOT_ACCEPTED,
+                date, userA ),
+            new DataApproval( level4, workflow1234, periodA, organisationUnitF, defaultOptionCombo, NOT_ACCEPTED,
+                date, userA ) ) );
+
+        assertEquals( DataApprovalState.UNAPPROVED_READY, dataApprovalService
+            .getDataApprovalStatus( workflow1234, periodA, organisationUnitC, defaultOptionCombo ).getState() );
+        assertEquals( DataApprovalState.APPROVED_HERE, dataApprovalService
+            .getDataApprovalStatus( workflow1234, periodA, organisationUnitD, defaultOptionCombo ).getState() );
+        assertEquals( DataApprovalState.UNAPPROVED_READY, dataApprovalService
+            .getDataApprovalStatus( workflow1234, periodA, organisationUnitE, defaultOptionCombo ).getState() );
+        assertEquals( DataApprovalState.APPROVED_HERE, dataApprovalService
+            .getDataApprovalStatus( workflow1234, periodA, organisationUnitF, defaultOptionCombo ).getState() );
+
+        dataApprovalService.approveData( newArrayList(
+            new DataApproval( level3, workflow1234, periodA, organisationUnitC, defaultOptionCombo, NOT_ACCEPTED,
+                date, userA ),
+            new DataApproval( level3, workflow1234, periodA, organisationUnitE, defaultOptionCombo, NOT_ACCEPTED,
+                date, userA ) ) );
+
+        Map<DataApproval, DataApprovalStatus> statuses = dataApprovalService.getDataApprovalStatuses( newArrayList(
+            new DataApproval( null, workflow1234, periodA, organisationUnitC, defaultOptionCombo ),
+            new DataApproval( null, workflow1234, periodA, organisationUnitE, defaultOptionCombo ),
+            new DataApproval( null, workflow1234, periodA, organisationUnitD, defaultOptionCombo ),
+            new DataApproval( null, workflow1234, periodA, organisationUnitF, defaultOptionCombo ) ) );
+
+        assertEquals( 4, statuses.size() );
+
+        for ( Map.Entry<DataApproval, DataApprovalStatus> entry : statuses.entrySet() )
+        {
+            int orgUnitLevel = entry.getKey().getOrganisationUnit().getHierarchyLevel();
+
+            assertEquals( orgUnitLevel == 3 ? DataApprovalState.APPROVED_HERE : DataApprovalState.APPROVED_ABOVE,
+                entry.getValue().getState() );
+        }
+    }
+
+    @Test
+    public void testGetDataApprovalStatusesWithOrgUnitNotVisibleToUser()
+    {
+        switchToApprovalUser( organisationUnitC, DataApproval.AUTH_APPROVE, DataApproval.AUTH_APPROVE_LOWER_LEVELS );
+
+        DataApproval approvalD = new DataApproval( null, workflow1234, periodA, organisationUnitD,
+            defaultOptionCombo );
+        DataApproval approvalF = new DataApproval( null, workflow1234, periodA, organisationUnitF,
+            defaultOptionCombo );
+
+        assertNotNull( dataApprovalService.getDataApprovalStatuses( newArrayList( approvalD ) ).get( approvalD ) );
+
+        // statuses of org units at the same level are fetched together, and
+        // an org unit the user can not see makes all of them unapprovable
+
+        Map<DataApproval, DataApprovalStatus> statuses = dataApprovalService
+            .getDataApprovalStatuses( newArrayList( approvalD, approvalF ) );
+
+        assertNull( statuses.get( approvalD ) );
+        assertNull( statuses.get( approvalF ) );
+    }
+
     @Test
     public void testGetDataApprovalStateOtherPeriodTypes()
     {
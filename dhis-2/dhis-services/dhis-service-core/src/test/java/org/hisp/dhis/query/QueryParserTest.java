@@ -34,6 +34,7 @@ import java.util.Arrays;
 
 import org.hisp.dhis.IntegrationTestBase;
 import org.hisp.dhis.cache.CacheProvider;
+import org.hisp.dhis.common.ChangeVersionService;
 import org.hisp.dhis.common.IdentifiableObjectManager;
 import org.hisp.dhis.configuration.ConfigurationService;
 import org.hisp.dhis.dataelement.DataElement;
@@ -87,6 +88,9 @@ public class QueryParserTest
     @Autowired
     private CacheProvider cacheProvider;
 
+    @Autowired
+    private ChangeVersionService changeVersionService;
+
     @Override
     public boolean emptyDatabaseAfterTest()
     {
@@ -102,7 +106,8 @@ public class QueryParserTest
         user.addOrganisationUnit( orgUnitA );
         CurrentUserService currentUserService = new MockCurrentUserService( user );
         this.organisationUnitService = new DefaultOrganisationUnitService( organisationUnitStore, dataSetService,
-            organisationUnitLevelStore, currentUserService, configurationService, userSettingService, cacheProvider );
+            organisationUnitLevelStore, currentUserService, configurationService, userSettingService, cacheProvider,
+            changeVersionService );
         organisationUnitService.addOrganisationUnit( orgUnitA );
         identifiableObjectManager.save( orgUnitA );
         queryParser = new DefaultJpaQueryParser( schemaService );
@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.trackedentity;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+public class TrackedEntitySearchIndexServiceTest
+{
+    @Rule
+    public MockitoRule mockitoRule = MockitoJUnit.rule();
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private DhisConfigurationProvider config;
+
+    @Test
+    @SuppressWarnings( "unchecked" )
+    public void verifyTriggersAreInstalledBeforeBatchedPopulation()
+    {
+        when( transactionTemplate.execute( any( TransactionCallback.class ) ) )
+            .thenAnswer( invocation -> ((TransactionCallback<?>) invocation.getArgument( 0 )).doInTransaction( null ) );
+        when( jdbcTemplate.queryForObject( anyString(), eq( Long.class ) ) ).thenReturn( 25_000L );
+
+        TrackedEntitySearchIndexService service = createService();
+
+        service.rebuildSearchIndex();
+
+        ArgumentCaptor<String> ddl = ArgumentCaptor.forClass( String.class );
+        verify( jdbcTemplate, times( 9 ) ).execute( ddl.capture() );
+
+        List<String> statements = ddl.getAllValues();
+
+        assertThat( statements.get( 4 ), containsString( "truncate trackedentityattributesearch" ) );
+        assertThat( statements.get( 5 ), containsString( "on trackedentityattributevalue" ) );
+        assertThat( statements.get( 6 ), containsString( "on trackedentityinstance" ) );
+        assertThat( statements.get( 7 ), containsString( "on trackedentityattribute " ) );
+        assertThat( statements.get( 8 ), containsString( "is 'populated'" ) );
+
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass( String.class );
+        verify( jdbcTemplate, times( 3 ) ).update( sql.capture(), anyLong(), anyLong() );
+
+        assertThat( sql.getValue(), containsString( "insert into trackedentityattributesearch" ) );
+        assertThat( sql.getValue(), containsString( "tea.confidential is not true" ) );
+        assertThat( sql.getValue(), containsString( "tei.deleted is false" ) );
+        assertThat( sql.getValue(), containsString( "on conflict do nothing" ) );
+
+        verify( jdbcTemplate ).update( anyString(), eq( 20_000L ), eq( 30_000L ) );
+
+        InOrder inOrder = inOrder( transactionTemplate, jdbcTemplate );
+        inOrder.verify( transactionTemplate ).execute( any( TransactionCallback.class ) );
+        inOrder.verify( jdbcTemplate, times( 3 ) ).update( anyString(), anyLong(), anyLong() );
+    }
+
+    @Test
+    public void verifyTriggersAreRemovedWhenCleared()
+    {
+        TrackedEntitySearchIndexService service = createService();
+
+        service.clearSearchIndex();
+
+        ArgumentCaptor<String> ddl = ArgumentCaptor.forClass( String.class );
+        verify( jdbcTemplate, times( 5 ) ).execute( ddl.capture() );
+
+        List<String> statements = ddl.getAllValues();
+
+        assertThat( statements.get( 0 ), containsString( "drop trigger if exists" ) );
+        assertThat( statements.get( 3 ), containsString( "is null" ) );
+        assertThat( statements.get( 4 ), containsString( "truncate trackedentityattributesearch" ) );
+        verify( jdbcTemplate, never() ).update( anyString() );
+    }
+
+    @Test
+    public void verifyMaintainedWhenAllTriggersAreInstalled()
+    {
+        when( jdbcTemplate.queryForObject( anyString(), eq( Integer.class ) ) ).thenReturn( 3, 2 );
+        when( jdbcTemplate.queryForObject( anyString(), eq( String.class ) ) ).thenReturn( "populated" );
+
+        TrackedEntitySearchIndexService service = createService();
+
+        assertTrue( service.isMaintained() );
+        assertFalse( service.isMaintained() );
+    }
+
+    @Test
+    public void verifyNotMaintainedWhenPopulationIsIncomplete()
+    {
+        when( jdbcTemplate.queryForObject( anyString(), eq( Integer.class ) ) ).thenReturn( 3 );
+        when( jdbcTemplate.queryForObject( anyString(), eq( String.class ) ) ).thenReturn( null );
+
+        TrackedEntitySearchIndexService service = createService();
+
+        assertFalse( service.isMaintained() );
+    }
+
+    private TrackedEntitySearchIndexService createService()
+    {
+        return new DefaultTrackedEntitySearchIndexService( jdbcTemplate, transactionTemplate, config );
+    }
+}
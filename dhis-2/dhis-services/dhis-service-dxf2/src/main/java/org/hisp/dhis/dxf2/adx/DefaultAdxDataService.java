@@ -36,32 +36,19 @@ import static org.hisp.dhis.util.ObjectUtils.firstNonNull;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.io.PipedOutputStream;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
 import java.util.stream.Collectors;
 
-import javax.xml.stream.XMLOutputFactory;
-import javax.xml.stream.XMLStreamException;
-import javax.xml.stream.XMLStreamWriter;
-
 import lombok.extern.slf4j.Slf4j;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.xerces.util.XMLChar;
-import org.hibernate.SessionFactory;
 import org.hisp.dhis.category.Category;
 import org.hisp.dhis.category.CategoryCombo;
 import org.hisp.dhis.category.CategoryComboMap;
@@ -74,12 +61,14 @@ import org.hisp.dhis.common.IdentifiableObjectManager;
 import org.hisp.dhis.commons.collection.CachingMap;
 import org.hisp.dhis.commons.util.DebugUtils;
 import org.hisp.dhis.commons.util.StreamUtils;
+import org.hisp.dhis.commons.util.TextUtils;
 import org.hisp.dhis.dataelement.DataElement;
 import org.hisp.dhis.dataset.DataSet;
 import org.hisp.dhis.datavalue.DataExportParams;
 import org.hisp.dhis.datavalue.DataValue;
 import org.hisp.dhis.datavalue.DataValueService;
 import org.hisp.dhis.dxf2.common.ImportOptions;
+import org.hisp.dhis.dxf2.datavalueset.DataValueSet;
 import org.hisp.dhis.dxf2.datavalueset.DataValueSetQueryParams;
 import org.hisp.dhis.dxf2.datavalueset.DataValueSetService;
 import org.hisp.dhis.dxf2.importsummary.ImportConflict;
@@ -112,8 +101,6 @@ import com.google.common.collect.Sets;
 public class DefaultAdxDataService
     implements AdxDataService
 {
-    private static final int TOTAL_MINUTES_TO_WAIT = 5;
-
     // -------------------------------------------------------------------------
     // Dependencies
     // -------------------------------------------------------------------------
@@ -130,9 +117,6 @@ public class DefaultAdxDataService
     @Autowired
     private IdentifiableObjectManager identifiableObjectManager;
 
-    @Autowired
-    private SessionFactory sessionFactory;
-
     @Autowired
     private Notifier notifier;
 
@@ -395,70 +379,38 @@ public class DefaultAdxDataService
 
         adxReader.moveToStartElement( AdxDataService.ROOT, AdxDataService.NAMESPACE );
 
-        ExecutorService executor = Executors.newSingleThreadExecutor();
-
         // For Async runs, give the DXF import a different notification task ID
         // so it doesn't conflict with notifications from this level.
         JobConfiguration dxfJobId = (id == null) ? null
             : new JobConfiguration( "dxfJob", JobType.DATAVALUE_IMPORT_INTERNAL, id.getUserUid(), true );
 
-        int groupCount = 0;
-
-        try ( PipedOutputStream pipeOut = new PipedOutputStream() )
-        {
-            Future<ImportSummary> futureImportSummary = executor.submit( new AdxPipedImporter(
-                dataValueSetService, adxImportOptions, dxfJobId, pipeOut, sessionFactory ) );
-            XMLOutputFactory factory = XMLOutputFactory.newInstance();
-            XMLStreamWriter dxfWriter = factory.createXMLStreamWriter( pipeOut );
-
-            List<ImportConflict> adxConflicts = new LinkedList<>();
-
-            dxfWriter.writeStartDocument( "1.0" );
-            dxfWriter.writeStartElement( "dataValueSet" );
-            dxfWriter.writeDefaultNamespace( "http://dhis2.org/schema/dxf/2.0" );
-
-            notifier.notify( id, "Starting to import ADX data groups." );
-
-            while ( adxReader.moveToStartElement( AdxDataService.GROUP, AdxDataService.NAMESPACE ) )
-            {
-                notifier.update( id, "Importing ADX data group: " + groupCount );
-
-                // note this returns conflicts which are detected at ADX level
-                adxConflicts.addAll( parseAdxGroupToDxf( adxReader, dxfWriter, adxImportOptions,
-                    dataSetMap, dataSetCallable, dataElementMap, dataElementCallable ) );
-                groupCount++;
-            }
+        notifier.notify( id, "Starting to import ADX data groups." );
 
-            dxfWriter.writeEndElement(); // end dataValueSet
-            dxfWriter.writeEndDocument();
+        AdxDataValueSet dataValueSet = new AdxDataValueSet( adxReader, adxImportOptions, id,
+            dataSetMap, dataSetCallable, dataElementMap, dataElementCallable );
 
-            pipeOut.flush();
+        importSummary = dataValueSetService.importDataValueSet( dataValueSet, adxImportOptions, dxfJobId );
 
-            importSummary = futureImportSummary.get( TOTAL_MINUTES_TO_WAIT, TimeUnit.MINUTES );
-            ImportSummary summary = importSummary;
-            adxConflicts.forEach( conflict -> summary.addConflict( conflict.getObject(), conflict.getValue() ) );
-            importSummary.getImportCount().incrementIgnored( adxConflicts.size() );
-        }
-        catch ( AdxException ex )
+        if ( dataValueSet.getGroupException() != null )
         {
+            AdxException ex = dataValueSet.getGroupException();
+
             importSummary = new ImportSummary();
             importSummary.setStatus( ImportStatus.ERROR );
-            importSummary.setDescription( "Data set import failed within group number: " + groupCount );
+            importSummary.setDescription(
+                "Data set import failed within group number: " + dataValueSet.getGroupCount() );
             importSummary.addConflict( ex.getObject(), ex.getMessage() );
             notifier.update( id, NotificationLevel.ERROR, "ADX data import done", true );
             log.warn( "Import failed: " + DebugUtils.getStackTrace( ex ) );
         }
-        catch ( IOException | XMLStreamException | InterruptedException | ExecutionException | TimeoutException ex )
+        else
         {
-            importSummary = new ImportSummary();
-            importSummary.setStatus( ImportStatus.ERROR );
-            importSummary.setDescription( "Data set import failed within group number: " + groupCount );
-            notifier.update( id, NotificationLevel.ERROR, "ADX data import done", true );
-            log.warn( "Import failed: " + DebugUtils.getStackTrace( ex ) );
+            ImportSummary summary = importSummary;
+            List<ImportConflict> adxConflicts = dataValueSet.getConflicts();
+            adxConflicts.forEach( conflict -> summary.addConflict( conflict.getObject(), conflict.getValue() ) );
+            importSummary.getImportCount().incrementIgnored( adxConflicts.size() );
         }
 
-        executor.shutdown();
-
         notifier.update( id, INFO, "ADX data import done", true ).addJobSummary( id, importSummary,
             ImportSummary.class );
 
@@ -473,15 +425,14 @@ public class DefaultAdxDataService
     // Utility methods
     // -------------------------------------------------------------------------
 
-    private List<ImportConflict> parseAdxGroupToDxf( XMLReader adxReader, XMLStreamWriter dxfWriter,
-        ImportOptions importOptions,
-        CachingMap<String, DataSet> dataSetMap, IdentifiableObjectCallable<DataSet> dataSetCallable,
-        CachingMap<String, DataElement> dataElementMap, IdentifiableObjectCallable<DataElement> dataElementCallable )
-        throws XMLStreamException,
-        AdxException
+    /**
+     * Reads the attributes of the ADX group at the current position of the
+     * reader and translates them to DXF data value attributes.
+     */
+    private Map<String, String> parseAdxGroup( XMLReader adxReader, ImportOptions importOptions,
+        CachingMap<String, DataSet> dataSetMap, IdentifiableObjectCallable<DataSet> dataSetCallable )
+        throws AdxException
     {
-        List<ImportConflict> adxConflicts = new LinkedList<>();
-
         Map<String, String> groupAttributes = adxReader.readAttributes();
 
         if ( !groupAttributes.containsKey( AdxDataService.PERIOD ) )
@@ -521,30 +472,18 @@ public class DefaultAdxDataService
                 importOptions.getIdSchemes() );
         }
 
-        // process the dataValues
-        while ( adxReader.moveToStartElement( AdxDataService.DATAVALUE, AdxDataService.GROUP ) )
-        {
-            try
-            {
-                parseAdxDataValueToDxf( adxReader, dxfWriter, groupAttributes, importOptions,
-                    dataElementMap, dataElementCallable );
-            }
-            catch ( AdxException ex )
-            {
-                adxConflicts.add( new ImportConflict( ex.getObject(), ex.getMessage() ) );
-
-                log.info( "ADX data value conflict: {} {}", ex.getObject(), ex.getMessage() );
-            }
-        }
-
-        return adxConflicts;
+        return groupAttributes;
     }
 
-    private void parseAdxDataValueToDxf( XMLReader adxReader, XMLStreamWriter dxfWriter,
+    /**
+     * Reads the ADX data value at the current position of the reader and
+     * translates it to a DXF data value, using the given translated attributes
+     * of its group.
+     */
+    private org.hisp.dhis.dxf2.datavalue.DataValue parseAdxDataValue( XMLReader adxReader,
         Map<String, String> groupAttributes, ImportOptions importOptions,
         CachingMap<String, DataElement> dataElementMap, IdentifiableObjectCallable<DataElement> dataElementCallable )
-        throws XMLStreamException,
-        AdxException
+        throws AdxException
     {
         Map<String, String> dvAttributes = adxReader.readAttributes();
 
@@ -603,33 +542,37 @@ public class DefaultAdxDataService
 
         log.debug( "Processing data value as DXF: " + dvAttributes );
 
-        dxfWriter.writeStartElement( "dataValue" );
+        // the data value attributes take precedence over the group attributes
+        Map<String, String> attributes = new HashMap<>( groupAttributes );
+        attributes.putAll( dvAttributes );
 
-        // write the group attributes through to DXF stream
-        for ( String attribute : groupAttributes.keySet() )
+        for ( Map.Entry<String, String> attribute : attributes.entrySet() )
         {
-            writeAttribute( dxfWriter, attribute, groupAttributes.get( attribute ) );
-        }
-
-        // pass through the remaining attributes to DXF
-        for ( String attribute : dvAttributes.keySet() )
-        {
-            writeAttribute( dxfWriter, attribute, dvAttributes.get( attribute ) );
+            if ( attribute.getValue() == null )
+            {
+                throw new AdxException( "Value for " + attribute.getKey() + " is null" );
+            }
         }
 
-        dxfWriter.writeEndElement(); // dataValue
+        return toDataValue( attributes );
     }
 
-    private void writeAttribute( XMLStreamWriter dxfWriter, String attribute, String value )
-        throws XMLStreamException,
-        AdxException
+    private org.hisp.dhis.dxf2.datavalue.DataValue toDataValue( Map<String, String> attributes )
     {
-        if ( value == null )
-        {
-            throw new AdxException( "Value for " + attribute + " is null" );
-        }
-
-        dxfWriter.writeAttribute( attribute, value );
+        org.hisp.dhis.dxf2.datavalue.DataValue dataValue = new org.hisp.dhis.dxf2.datavalue.DataValue();
+        dataValue.setDataElement( attributes.get( AdxDataService.DATAELEMENT ) );
+        dataValue.setPeriod( attributes.get( AdxDataService.PERIOD ) );
+        dataValue.setOrgUnit( attributes.get( AdxDataService.ORGUNIT ) );
+        dataValue.setCategoryOptionCombo( attributes.get( AdxDataService.CATOPTCOMBO ) );
+        dataValue.setAttributeOptionCombo( attributes.get( AdxDataService.ATTOPTCOMBO ) );
+        dataValue.setValue( attributes.get( AdxDataService.VALUE ) );
+        dataValue.setStoredBy( attributes.get( "storedBy" ) );
+        dataValue.setCreated( attributes.get( "created" ) );
+        dataValue.setLastUpdated( attributes.get( "lastUpdated" ) );
+        dataValue.setComment( attributes.get( "comment" ) );
+        dataValue.setFollowup( TextUtils.valueOf( attributes.get( "followUp" ) ) );
+        dataValue.setDeleted( TextUtils.valueOf( attributes.get( "deleted" ) ) );
+        return dataValue;
     }
 
     private Map<String, Category> getCodeCategoryMap( CategoryCombo categoryCombo, IdScheme catScheme )
@@ -739,4 +682,131 @@ public class DefaultAdxDataService
 
         log.debug( "DXF attributes: " + attributes );
     }
+
+    /**
+     * {@link DataValueSet} which parses ADX groups and data values on demand,
+     * so that the DXF data values are fed straight into the data value import.
+     * Conflicts of single data values are collected and skipped, while a
+     * conflict of a group ends the iteration.
+     */
+    private class AdxDataValueSet
+        extends DataValueSet
+    {
+        private final XMLReader adxReader;
+
+        private final ImportOptions importOptions;
+
+        private final JobConfiguration id;
+
+        private final CachingMap<String, DataSet> dataSetMap;
+
+        private final IdentifiableObjectCallable<DataSet> dataSetCallable;
+
+        private final CachingMap<String, DataElement> dataElementMap;
+
+        private final IdentifiableObjectCallable<DataElement> dataElementCallable;
+
+        private final List<ImportConflict> conflicts = new ArrayList<>();
+
+        private Map<String, String> groupAttributes;
+
+        private org.hisp.dhis.dxf2.datavalue.DataValue nextDataValue;
+
+        private int groupCount = 0;
+
+        private AdxException groupException;
+
+        AdxDataValueSet( XMLReader adxReader, ImportOptions importOptions, JobConfiguration id,
+            CachingMap<String, DataSet> dataSetMap, IdentifiableObjectCallable<DataSet> dataSetCallable,
+            CachingMap<String, DataElement> dataElementMap,
+            IdentifiableObjectCallable<DataElement> dataElementCallable )
+        {
+            this.adxReader = adxReader;
+            this.importOptions = importOptions;
+            this.id = id;
+            this.dataSetMap = dataSetMap;
+            this.dataSetCallable = dataSetCallable;
+            this.dataElementMap = dataElementMap;
+            this.dataElementCallable = dataElementCallable;
+        }
+
+        @Override
+        public boolean hasNextDataValue()
+        {
+            while ( nextDataValue == null && groupException == null )
+            {
+                if ( groupAttributes != null )
+                {
+                    if ( adxReader.moveToStartElement( AdxDataService.DATAVALUE, AdxDataService.GROUP ) )
+                    {
+                        nextDataValue = parseNextDataValue();
+                    }
+                    else
+                    {
+                        groupAttributes = null;
+                        groupCount++;
+                    }
+                }
+                else if ( adxReader.moveToStartElement( AdxDataService.GROUP, AdxDataService.NAMESPACE ) )
+                {
+                    notifier.update( id, "Importing ADX data group: " + groupCount );
+
+                    try
+                    {
+                        groupAttributes = parseAdxGroup( adxReader, importOptions, dataSetMap, dataSetCallable );
+                    }
+                    catch ( AdxException ex )
+                    {
+                        groupException = ex;
+                    }
+                }
+                else
+                {
+                    return false;
+                }
+            }
+
+            return nextDataValue != null;
+        }
+
+        @Override
+        public org.hisp.dhis.dxf2.datavalue.DataValue getNextDataValue()
+        {
+            org.hisp.dhis.dxf2.datavalue.DataValue dataValue = nextDataValue;
+            nextDataValue = null;
+            return dataValue;
+        }
+
+        private org.hisp.dhis.dxf2.datavalue.DataValue parseNextDataValue()
+        {
+            try
+            {
+                return parseAdxDataValue( adxReader, groupAttributes, importOptions, dataElementMap,
+                    dataElementCallable );
+            }
+            catch ( AdxException ex )
+            {
+                conflicts.add( new ImportConflict( ex.getObject(), ex.getMessage() ) );
+
+                log.info( "ADX data value conflict: {} {}", ex.getObject(), ex.getMessage() );
+
+                return null;
+            }
+        }
+
+        List<ImportConflict> getConflicts()
+        {
+            return conflicts;
+        }
+
+        int getGroupCount()
+        {
+            return groupCount;
+        }
+
+        AdxException getGroupException()
+        {
+            return groupException;
+        }
+    }
 }
@@ -36,6 +36,9 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import org.hisp.dhis.common.AsyncTaskExecutor;
+import org.hisp.dhis.dxf2.events.event.EventDataValueIndex;
+import org.hisp.dhis.dxf2.events.event.EventDataValueIndexPopulator;
 import org.hisp.dhis.dxf2.events.importer.Checker;
 import org.hisp.dhis.dxf2.events.importer.Processor;
 import org.hisp.dhis.dxf2.events.importer.delete.postprocess.EventDeleteAuditPostProcessor;
@@ -153,6 +156,18 @@ public class ServiceConfig
         return retryTemplate;
     }
 
+    @Bean
+    public EventDataValueIndexPopulator eventDataValueIndexPopulator( EventDataValueIndex eventDataValueIndex,
+        AsyncTaskExecutor taskExecutor )
+    {
+        EventDataValueIndexPopulator populator = new EventDataValueIndexPopulator( eventDataValueIndex,
+            taskExecutor );
+        populator.setName( "EventDataValueIndexPopulator" );
+        populator.setRunlevel( 16 );
+        populator.setSkipInTests( true );
+        return populator;
+    }
+
     private final static List<Class<? extends ValidationCheck>> CREATE_UPDATE_CHECKS = newArrayList(
         DuplicateIdsCheck.class,
         ValidationHooksCheck.class,
@@ -28,9 +28,13 @@
 package org.hisp.dhis.dxf2.dataset;
 
 import java.io.OutputStream;
+import java.util.Collection;
 import java.util.Date;
+import java.util.List;
+import java.util.Set;
 
 import org.hisp.dhis.common.IdSchemes;
+import org.hisp.dhis.dataset.CompleteDataSetRegistration;
 
 /**
  * @author Halvdan Hoem Grelland
@@ -38,7 +42,7 @@ import org.hisp.dhis.common.IdSchemes;
 public interface CompleteDataSetRegistrationExchangeStore
 {
     /**
-     * Query for {@link CompleteDataSetRegistration
+     * Query for {@link org.hisp.dhis.dxf2.dataset.CompleteDataSetRegistration
      * CompleteDataSetRegistrations} and write result as XML.
      *
      * @param params the export query parameters.
@@ -47,7 +51,7 @@ public interface CompleteDataSetRegistrationExchangeStore
     void writeCompleteDataSetRegistrationsXml( ExportParams params, OutputStream outputStream );
 
     /**
-     * Query for {@link CompleteDataSetRegistration
+     * Query for {@link org.hisp.dhis.dxf2.dataset.CompleteDataSetRegistration
      * CompleteDataSetRegistrations} and write result as JSON.
      *
      * @param params the export query parameters.
@@ -56,7 +60,7 @@ public interface CompleteDataSetRegistrationExchangeStore
     void writeCompleteDataSetRegistrationsJson( ExportParams params, OutputStream outputStream );
 
     /**
-     * Query for {@link CompleteDataSetRegistration
+     * Query for {@link org.hisp.dhis.dxf2.dataset.CompleteDataSetRegistration
      * CompleteDataSetRegistrations} and write result as JSON.
      *
      * @param lastUpdated specifies the date to filter complete data sets last
@@ -65,4 +69,29 @@ public interface CompleteDataSetRegistrationExchangeStore
      * @param idSchemes idSchemes
      */
     void writeCompleteDataSetRegistrationsJson( Date lastUpdated, OutputStream outputStream, IdSchemes idSchemes );
+
+    /**
+     * Returns the given registrations which are already stored, looked up
+     * with a single query on data set, period, organisation unit and
+     * attribute option combo.
+     *
+     * @param registrations the registrations to look up.
+     * @return the subset of registrations which exist.
+     */
+    Set<CompleteDataSetRegistration> getExistingCompleteDataSetRegistrations(
+        Collection<CompleteDataSetRegistration> registrations );
+
+    /**
+     * Inserts or updates the given registrations in a single JDBC batch.
+     *
+     * @param registrations the registrations to save.
+     */
+    void saveCompleteDataSetRegistrations( List<CompleteDataSetRegistration> registrations );
+
+    /**
+     * Deletes the given registrations in a single JDBC batch.
+     *
+     * @param registrations the registrations to delete.
+     */
+    void deleteCompleteDataSetRegistrations( List<CompleteDataSetRegistration> registrations );
 }
@@ -32,9 +32,15 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import javax.annotation.Nonnull;
 
@@ -71,7 +77,6 @@ import org.hisp.dhis.feedback.ErrorMessage;
 import org.hisp.dhis.i18n.I18n;
 import org.hisp.dhis.i18n.I18nManager;
 import org.hisp.dhis.importexport.ImportStrategy;
-import org.hisp.dhis.jdbc.batchhandler.CompleteDataSetRegistrationBatchHandler;
 import org.hisp.dhis.message.MessageService;
 import org.hisp.dhis.organisationunit.OrganisationUnit;
 import org.hisp.dhis.organisationunit.OrganisationUnitGroup;
@@ -88,8 +93,6 @@ import org.hisp.dhis.system.util.ValidationUtils;
 import org.hisp.dhis.user.CurrentUserService;
 import org.hisp.dhis.user.User;
 import org.hisp.dhis.util.DateUtils;
-import org.hisp.quick.BatchHandler;
-import org.hisp.quick.BatchHandlerFactory;
 import org.hisp.staxwax.factory.XMLFactory;
 import org.springframework.stereotype.Service;
 
@@ -106,6 +109,11 @@ public class DefaultCompleteDataSetRegistrationExchangeService
 {
     private static final int CACHE_MISS_THRESHOLD = 500;
 
+    /**
+     * Number of registrations which are looked up and written together.
+     */
+    private static final int IMPORT_CHUNK_SIZE = 1000;
+
     private static final Set<IdScheme> EXPORT_ID_SCHEMES = ImmutableSet.of( IdScheme.UID, IdScheme.NAME,
         IdScheme.CODE );
 
@@ -123,8 +131,6 @@ public class DefaultCompleteDataSetRegistrationExchangeService
 
     private final I18nManager i18nManager;
 
-    private final BatchHandlerFactory batchHandlerFactory;
-
     private final SystemSettingManager systemSettingManager;
 
     private final CategoryService categoryService;
@@ -151,7 +157,6 @@ public class DefaultCompleteDataSetRegistrationExchangeService
         OrganisationUnitService orgUnitService,
         Notifier notifier,
         I18nManager i18nManager,
-        BatchHandlerFactory batchHandlerFactory,
         SystemSettingManager systemSettingManager,
         CategoryService categoryService,
         PeriodService periodService,
@@ -168,7 +173,6 @@ public class DefaultCompleteDataSetRegistrationExchangeService
         checkNotNull( orgUnitService );
         checkNotNull( notifier );
         checkNotNull( i18nManager );
-        checkNotNull( batchHandlerFactory );
         checkNotNull( systemSettingManager );
         checkNotNull( systemSettingManager );
         checkNotNull( categoryService );
@@ -186,7 +190,6 @@ public class DefaultCompleteDataSetRegistrationExchangeService
         this.orgUnitService = orgUnitService;
         this.notifier = notifier;
         this.i18nManager = i18nManager;
-        this.batchHandlerFactory = batchHandlerFactory;
         this.systemSettingManager = systemSettingManager;
         this.categoryService = categoryService;
         this.periodService = periodService;
@@ -508,207 +511,276 @@ public class DefaultCompleteDataSetRegistrationExchangeService
         final Set<OrganisationUnit> userOrgUnits = currentUserService.getCurrentUserOrganisationUnits();
         final I18n i18n = i18nManager.getI18n();
 
-        BatchHandler<CompleteDataSetRegistration> batchHandler = batchHandlerFactory
-            .createBatchHandler( CompleteDataSetRegistrationBatchHandler.class ).init();
+        ImportCount count = new ImportCount();
 
-        int importCount = 0, updateCount = 0, deleteCount = 0, totalCount = 0;
+        int totalCount = 0, chunkNumber = 0;
 
         Date now = new Date();
 
-        while ( completeRegistrations.hasNextCompleteDataSetRegistration() )
-        {
-            org.hisp.dhis.dxf2.dataset.CompleteDataSetRegistration cdsr = completeRegistrations
-                .getNextCompleteDataSetRegistration();
-            totalCount++;
-
-            // ---------------------------------------------------------------------
-            // Init meta-data properties against meta-data cache
-            // ---------------------------------------------------------------------
+        long startTime = System.currentTimeMillis();
 
-            MetadataProperties mdProps = initMetaDataProperties( cdsr, mdCallables, mdCaches );
+        List<CompleteDataSetRegistration> chunk = new ArrayList<>( IMPORT_CHUNK_SIZE );
 
-            heatCaches( mdCaches, config );
+        Future<List<CompleteDataSetRegistration>> pendingWrite = null;
 
-            // ---------------------------------------------------------------------
-            // Meta-data validation
-            // ---------------------------------------------------------------------
+        // Registrations are resolved and validated on this thread, since the
+        // meta-data objects are Hibernate managed, while the previous chunk is
+        // written on the write executor
 
-            String storedBy;
-            String lastUpdatedBy;
-            Boolean isCompleted;
+        ExecutorService writeExecutor = Executors.newSingleThreadExecutor( runnable -> {
+            Thread thread = new Thread( runnable, "complete-registration-import-write" );
+            thread.setDaemon( true );
+            return thread;
+        } );
 
-            try
+        try
+        {
+            while ( completeRegistrations.hasNextCompleteDataSetRegistration() )
             {
-                // Validate CDSR meta-data properties
+                org.hisp.dhis.dxf2.dataset.CompleteDataSetRegistration cdsr = completeRegistrations
+                    .getNextCompleteDataSetRegistration();
+                totalCount++;
 
-                mdProps.validate( cdsr, config );
-                validateOrgUnitInUserHierarchy( mdCaches, mdProps, userOrgUnits, currentUserName );
+                // -------------------------------------------------------------
+                // Init meta-data properties against meta-data cache
+                // -------------------------------------------------------------
 
-                // Constraints validation
+                MetadataProperties mdProps = initMetaDataProperties( cdsr, mdCallables, mdCaches );
 
-                if ( config.isStrictAttrOptionCombos() )
-                {
-                    validateAocMatchesDataSetCc( mdProps );
-                }
+                heatCaches( mdCaches, config );
 
-                validateAttrOptCombo( mdProps, mdCaches, config );
+                // -------------------------------------------------------------
+                // Meta-data validation
+                // -------------------------------------------------------------
 
-                if ( config.isStrictPeriods() )
-                {
-                    validateHasMatchingPeriodTypes( mdProps );
-                }
+                String storedBy;
+                String lastUpdatedBy;
+                Boolean isCompleted;
 
-                if ( config.isStrictOrgUnits() )
+                try
                 {
-                    validateDataSetIsAssignedToOrgUnit( mdProps );
-                }
+                    // Validate CDSR meta-data properties
 
-                storedBy = cdsr.getStoredBy();
-                validateStoredBy( storedBy, i18n );
-                storedBy = StringUtils.isBlank( storedBy ) ? currentUserName : storedBy;
+                    mdProps.validate( cdsr, config );
+                    validateOrgUnitInUserHierarchy( mdCaches, mdProps, userOrgUnits, currentUserName );
 
-                lastUpdatedBy = cdsr.getLastUpdatedBy();
-                validateStoredBy( lastUpdatedBy, i18n );
-                lastUpdatedBy = StringUtils.isBlank( lastUpdatedBy ) ? currentUserName : lastUpdatedBy;
+                    // Constraints validation
 
-                cdsr.setLastUpdatedBy( lastUpdatedBy );
+                    if ( config.isStrictAttrOptionCombos() )
+                    {
+                        validateAocMatchesDataSetCc( mdProps );
+                    }
 
-                boolean DEFAULT_COMPLETENESS_STATUS = true;
-                isCompleted = cdsr.getCompleted();
-                isCompleted = (isCompleted == null) ? DEFAULT_COMPLETENESS_STATUS : isCompleted;
-                cdsr.setCompleted( isCompleted );
+                    validateAttrOptCombo( mdProps, mdCaches, config );
 
-                // TODO Check if Period is within range of data set?
-            }
-            catch ( ImportConflictException ic )
-            {
-                summary.addConflict( ic.getImportConflict().getObject(), ic.getImportConflict().getValue() );
-                continue;
-            }
+                    if ( config.isStrictPeriods() )
+                    {
+                        validateHasMatchingPeriodTypes( mdProps );
+                    }
+
+                    if ( config.isStrictOrgUnits() )
+                    {
+                        validateDataSetIsAssignedToOrgUnit( mdProps );
+                    }
 
-            // ---------------------------------------------------------------------
-            // Compulsory fields validation
-            // ---------------------------------------------------------------------
+                    storedBy = cdsr.getStoredBy();
+                    validateStoredBy( storedBy, i18n );
+                    storedBy = StringUtils.isBlank( storedBy ) ? currentUserName : storedBy;
 
-            List<DataElementOperand> missingDataElementOperands = registrationService.getMissingCompulsoryFields(
-                mdProps.dataSet, mdProps.period,
-                mdProps.orgUnit, mdProps.attrOptCombo );
+                    lastUpdatedBy = cdsr.getLastUpdatedBy();
+                    validateStoredBy( lastUpdatedBy, i18n );
+                    lastUpdatedBy = StringUtils.isBlank( lastUpdatedBy ) ? currentUserName : lastUpdatedBy;
 
-            if ( !missingDataElementOperands.isEmpty() )
-            {
-                for ( DataElementOperand dataElementOperand : missingDataElementOperands )
+                    cdsr.setLastUpdatedBy( lastUpdatedBy );
+
+                    boolean DEFAULT_COMPLETENESS_STATUS = true;
+                    isCompleted = cdsr.getCompleted();
+                    isCompleted = (isCompleted == null) ? DEFAULT_COMPLETENESS_STATUS : isCompleted;
+                    cdsr.setCompleted( isCompleted );
+
+                    // TODO Check if Period is within range of data set?
+                }
+                catch ( ImportConflictException ic )
                 {
-                    summary.addConflict( "dataElementOperand",
-                        dataElementOperand.getDisplayName() + " needs to be filled. It is compulsory." );
+                    summary.addConflict( ic.getImportConflict().getObject(), ic.getImportConflict().getValue() );
+                    continue;
                 }
 
-                if ( mdProps.dataSet.isCompulsoryFieldsCompleteOnly() )
+                // -------------------------------------------------------------
+                // Compulsory fields validation
+                // -------------------------------------------------------------
+
+                List<DataElementOperand> missingDataElementOperands = registrationService.getMissingCompulsoryFields(
+                    mdProps.dataSet, mdProps.period,
+                    mdProps.orgUnit, mdProps.attrOptCombo );
+
+                if ( !missingDataElementOperands.isEmpty() )
                 {
+                    for ( DataElementOperand dataElementOperand : missingDataElementOperands )
+                    {
+                        summary.addConflict( "dataElementOperand",
+                            dataElementOperand.getDisplayName() + " needs to be filled. It is compulsory." );
+                    }
+
+                    if ( mdProps.dataSet.isCompulsoryFieldsCompleteOnly() )
+                    {
+                        continue;
+                    }
+                }
+
+                // -------------------------------------------------------------
+                // Data Sharing check
+                // -------------------------------------------------------------
+
+                List<String> errors = validateDataAccess( currentUser, mdProps );
+                if ( !errors.isEmpty() )
+                {
+                    errors.forEach( error -> summary.addConflict( "dataSet", error ) );
                     continue;
                 }
-            }
 
-            // ---------------------------------------------------------------------
-            // Data Sharing check
-            // ---------------------------------------------------------------------
+                // -------------------------------------------------------------
+                // Create complete data set registration
+                // -------------------------------------------------------------
+
+                chunk.add( createCompleteDataSetRegistration( cdsr, mdProps, now, storedBy ) );
+
+                if ( chunk.size() >= IMPORT_CHUNK_SIZE )
+                {
+                    pendingWrite = importChunk( chunk, ++chunkNumber, config, count, pendingWrite, writeExecutor );
+                    chunk = new ArrayList<>( IMPORT_CHUNK_SIZE );
+                }
+            }
 
-            List<String> errors = validateDataAccess( currentUser, mdProps );
-            if ( !errors.isEmpty() )
+            if ( !chunk.isEmpty() )
             {
-                errors.forEach( error -> summary.addConflict( "dataSet", error ) );
-                continue;
+                pendingWrite = importChunk( chunk, ++chunkNumber, config, count, pendingWrite, writeExecutor );
             }
 
-            // -----------------------------------------------------------------
-            // Create complete data set registration
-            // -----------------------------------------------------------------
+            awaitWrite( pendingWrite, config );
+        }
+        finally
+        {
+            writeExecutor.shutdownNow();
+        }
+
+        long millis = Math.max( System.currentTimeMillis() - startTime, 1 );
 
-            CompleteDataSetRegistration internalCdsr = createCompleteDataSetRegistration( cdsr, mdProps, now,
-                storedBy );
+        log.info( String.format( "Processed %d complete data set registrations in %d chunks in %d ms, %.1f per second",
+            totalCount, chunkNumber, millis, totalCount * 1000d / millis ) );
 
-            CompleteDataSetRegistration existingCdsr = config.isSkipExistingCheck() ? null
-                : batchHandler.findObject( internalCdsr );
+        finalizeSummary( summary, totalCount, count.getImported(), count.getUpdated(), count.getDeleted() );
 
-            ImportStrategy strategy = config.getStrategy();
+        return totalCount;
+    }
 
-            boolean isDryRun = config.isDryRun();
+    /**
+     * Looks up which registrations of the chunk already exist with a single
+     * query and hands the resulting inserts, updates and deletes to the write
+     * executor as one JDBC batch. The previous chunk is awaited first so that
+     * its writes are visible to the lookup.
+     *
+     * @return the pending write of the chunk, or null for dry runs.
+     */
+    private Future<List<CompleteDataSetRegistration>> importChunk( List<CompleteDataSetRegistration> chunk,
+        int chunkNumber, ImportConfig config, ImportCount count, Future<List<CompleteDataSetRegistration>> previous,
+        ExecutorService writeExecutor )
+    {
+        awaitWrite( previous, config );
 
-            if ( !config.isSkipExistingCheck() && existingCdsr != null )
-            {
-                // CDSR already exists
+        Set<CompleteDataSetRegistration> existing = config.isSkipExistingCheck() ? Collections.emptySet()
+            : cdsrStore.getExistingCompleteDataSetRegistrations( chunk );
 
-                if ( strategy.isCreateAndUpdate() || strategy.isUpdate() )
-                {
-                    // Update existing CDSR
+        ImportStrategy strategy = config.getStrategy();
 
-                    updateCount++;
+        List<CompleteDataSetRegistration> saves = new ArrayList<>();
+        List<CompleteDataSetRegistration> deletes = new ArrayList<>();
+        List<CompleteDataSetRegistration> added = new ArrayList<>();
+        Set<CompleteDataSetRegistration> addedKeys = new HashSet<>();
 
-                    if ( !isDryRun )
-                    {
-                        batchHandler.updateObject( internalCdsr );
-                    }
+        for ( CompleteDataSetRegistration registration : chunk )
+        {
+            if ( existing.contains( registration ) )
+            {
+                if ( strategy.isCreateAndUpdate() || strategy.isUpdate() )
+                {
+                    count.incrementUpdated();
+                    saves.add( registration );
                 }
                 else if ( strategy.isDelete() )
                 {
-                    // TODO Does 'delete' even make sense for CDSR?
+                    count.incrementDeleted();
+                    deletes.add( registration );
+                }
+            }
+            else if ( strategy.isCreateAndUpdate() || strategy.isCreate() )
+            {
+                // Repeated registrations within the chunk are ignored
 
-                    // Replace existing CDSR
+                boolean isNew = addedKeys.add( registration );
 
-                    deleteCount++;
+                if ( config.isDryRun() || isNew )
+                {
+                    count.incrementImported();
+                }
 
-                    if ( !isDryRun )
-                    {
-                        batchHandler.deleteObject( internalCdsr );
-                    }
+                if ( isNew )
+                {
+                    saves.add( registration );
+                    added.add( registration );
                 }
             }
-            else
-            {
-                // CDSR does not already exist
+        }
 
-                if ( strategy.isCreateAndUpdate() || strategy.isCreate() )
-                {
-                    if ( existingCdsr != null )
-                    {
-                        // Already exists -> update
+        if ( config.isDryRun() )
+        {
+            return null;
+        }
 
-                        importCount++;
+        return writeExecutor.submit( () -> {
+            long startTime = System.currentTimeMillis();
 
-                        if ( !isDryRun )
-                        {
-                            batchHandler.updateObject( internalCdsr );
-                        }
-                    }
-                    else
-                    {
-                        // Does not exist -> add new CDSR
+            cdsrStore.saveCompleteDataSetRegistrations( saves );
+            cdsrStore.deleteCompleteDataSetRegistrations( deletes );
 
-                        boolean added = false;
+            long millis = Math.max( System.currentTimeMillis() - startTime, 1 );
 
-                        if ( !isDryRun )
-                        {
-                            added = batchHandler.addObject( internalCdsr );
+            log.debug( String.format( "Wrote chunk %d with %d saves and %d deletes in %d ms, %.1f per second",
+                chunkNumber, saves.size(), deletes.size(), millis, (saves.size() + deletes.size()) * 1000d / millis ) );
 
-                            if ( added )
-                            {
-                                sendNotifications( config, internalCdsr );
-                            }
-                        }
+            return added;
+        } );
+    }
 
-                        if ( isDryRun || added )
-                        {
-                            importCount++;
-                        }
-                    }
-                }
-            }
+    /**
+     * Waits for the given chunk write and sends notifications for the
+     * registrations it added.
+     */
+    private void awaitWrite( Future<List<CompleteDataSetRegistration>> write, ImportConfig config )
+    {
+        if ( write == null )
+        {
+            return;
         }
 
-        batchHandler.flush();
+        List<CompleteDataSetRegistration> added;
 
-        finalizeSummary( summary, totalCount, importCount, updateCount, deleteCount );
+        try
+        {
+            added = write.get();
+        }
+        catch ( InterruptedException ex )
+        {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException( "Complete data set registration import was interrupted", ex );
+        }
+        catch ( ExecutionException ex )
+        {
+            throw new IllegalStateException( "Writing complete data set registrations failed: "
+                + ex.getCause().getMessage(), ex.getCause() );
+        }
 
-        return totalCount;
+        added.forEach( registration -> sendNotifications( config, registration ) );
     }
 
     private static void finalizeSummary( ImportSummary summary, int totalCount, int importCount, int updateCount,
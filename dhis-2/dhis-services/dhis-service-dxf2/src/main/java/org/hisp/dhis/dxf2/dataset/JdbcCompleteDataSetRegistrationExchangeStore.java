@@ -30,8 +30,12 @@ package org.hisp.dhis.dxf2.dataset;
 import java.io.OutputStream;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Timestamp;
 import java.util.Collection;
 import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import lombok.extern.slf4j.Slf4j;
@@ -93,6 +97,21 @@ public class JdbcCompleteDataSetRegistrationExchangeStore
 
     private static final String P_COMPLETED = "completed";
 
+    // --------------------------------------------------------------------------
+    // Import statements
+    // --------------------------------------------------------------------------
+
+    private static final String UPSERT_SQL = "insert into completedatasetregistration "
+        + "(datasetid, periodid, sourceid, attributeoptioncomboid, date, storedby, lastupdatedby, lastupdated, "
+        + "completed) "
+        + "values (?, ?, ?, ?, ?, ?, ?, ?, ?) "
+        + "on conflict (datasetid, periodid, sourceid, attributeoptioncomboid) do update set "
+        + "date = excluded.date, storedby = excluded.storedby, lastupdatedby = excluded.lastupdatedby, "
+        + "lastupdated = excluded.lastupdated, completed = excluded.completed";
+
+    private static final String DELETE_SQL = "delete from completedatasetregistration "
+        + "where datasetid = ? and periodid = ? and sourceid = ? and attributeoptioncomboid = ?";
+
     // --------------------------------------------------------------------------
     // Dependencies
     // --------------------------------------------------------------------------
@@ -147,6 +166,85 @@ public class JdbcCompleteDataSetRegistrationExchangeStore
         writeCompleteness( completenessSql, completeDataSetRegistrations );
     }
 
+    @Override
+    public Set<org.hisp.dhis.dataset.CompleteDataSetRegistration> getExistingCompleteDataSetRegistrations(
+        Collection<org.hisp.dhis.dataset.CompleteDataSetRegistration> registrations )
+    {
+        Set<org.hisp.dhis.dataset.CompleteDataSetRegistration> existing = new HashSet<>();
+
+        if ( registrations.isEmpty() )
+        {
+            return existing;
+        }
+
+        String keys = registrations.stream()
+            .map( r -> "(" + getKey( r, "," ) + ")" )
+            .distinct()
+            .collect( Collectors.joining( "," ) );
+
+        final String sql = "select datasetid, periodid, sourceid, attributeoptioncomboid "
+            + "from completedatasetregistration "
+            + "where (datasetid, periodid, sourceid, attributeoptioncomboid) in (" + keys + ")";
+
+        Set<String> existingKeys = new HashSet<>();
+
+        jdbcTemplate.query( sql, rs -> {
+            existingKeys.add( rs.getLong( "datasetid" ) + "-" + rs.getLong( "periodid" ) + "-"
+                + rs.getLong( "sourceid" ) + "-" + rs.getLong( "attributeoptioncomboid" ) );
+        } );
+
+        for ( org.hisp.dhis.dataset.CompleteDataSetRegistration registration : registrations )
+        {
+            if ( existingKeys.contains( getKey( registration, "-" ) ) )
+            {
+                existing.add( registration );
+            }
+        }
+
+        return existing;
+    }
+
+    @Override
+    public void saveCompleteDataSetRegistrations(
+        List<org.hisp.dhis.dataset.CompleteDataSetRegistration> registrations )
+    {
+        if ( registrations.isEmpty() )
+        {
+            return;
+        }
+
+        jdbcTemplate.batchUpdate( UPSERT_SQL, registrations.stream()
+            .map( r -> new Object[] {
+                r.getDataSet().getId(),
+                r.getPeriod().getId(),
+                r.getSource().getId(),
+                r.getAttributeOptionCombo().getId(),
+                toTimestamp( r.getDate() ),
+                r.getStoredBy(),
+                r.getLastUpdatedBy(),
+                toTimestamp( r.getLastUpdated() ),
+                r.getCompleted() } )
+            .collect( Collectors.toList() ) );
+    }
+
+    @Override
+    public void deleteCompleteDataSetRegistrations(
+        List<org.hisp.dhis.dataset.CompleteDataSetRegistration> registrations )
+    {
+        if ( registrations.isEmpty() )
+        {
+            return;
+        }
+
+        jdbcTemplate.batchUpdate( DELETE_SQL, registrations.stream()
+            .map( r -> new Object[] {
+                r.getDataSet().getId(),
+                r.getPeriod().getId(),
+                r.getSource().getId(),
+                r.getAttributeOptionCombo().getId() } )
+            .collect( Collectors.toList() ) );
+    }
+
     // --------------------------------------------------------------------------
     // Supportive methods
     // --------------------------------------------------------------------------
@@ -354,6 +452,18 @@ public class JdbcCompleteDataSetRegistrationExchangeStore
         return "";
     }
 
+    private static String getKey( org.hisp.dhis.dataset.CompleteDataSetRegistration registration,
+        String separator )
+    {
+        return registration.getDataSet().getId() + separator + registration.getPeriod().getId() + separator
+            + registration.getSource().getId() + separator + registration.getAttributeOptionCombo().getId();
+    }
+
+    private static Timestamp toTimestamp( Date date )
+    {
+        return date != null ? new Timestamp( date.getTime() ) : null;
+    }
+
     private static String commaDelimitedIds( Collection<? extends IdentifiableObject> idObjects )
     {
         return TextUtils.getCommaDelimitedString( IdentifiableObjectUtils.getIdentifiers( idObjects ) );
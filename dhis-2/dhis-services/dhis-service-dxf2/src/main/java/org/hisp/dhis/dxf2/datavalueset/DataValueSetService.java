@@ -83,6 +83,25 @@ public interface DataValueSetService
     void writeDataValueSetJson( Date lastUpdated, OutputStream outputStream, IdSchemes idSchemes, int pageSize,
         int page );
 
+    /**
+     * Query for the page of {@link DataValueSet DataValueSets} last updated
+     * after the given date and ordered after the given cursor, and write the
+     * result as JSON. Data values are ordered on last updated time and primary
+     * key, so that paging with the returned cursor is stable while data
+     * values change and does not degrade with the page number.
+     *
+     * @param lastUpdated specifies the date to filter data values last updated
+     *        after
+     * @param after the cursor to continue after, null for the first page
+     * @param outputStream the stream to write to
+     * @param idSchemes idSchemes
+     * @param pageSize pageSize
+     * @return the cursor of the last written data value, or null if the page
+     *         is empty
+     */
+    DataValueCursor writeDataValueSetJson( Date lastUpdated, DataValueCursor after, OutputStream outputStream,
+        IdSchemes idSchemes, int pageSize );
+
     void writeDataValueSetCsv( DataExportParams params, Writer writer );
 
     RootNode getDataValueSetTemplate( DataSet dataSet, Period period, List<String> orgUnits, boolean writeComments,
@@ -107,4 +126,16 @@ public interface DataValueSetService
     ImportSummary saveDataValueSetCsv( InputStream in, ImportOptions importOptions, JobConfiguration id );
 
     ImportSummary saveDataValueSetPdf( InputStream in, ImportOptions importOptions, JobConfiguration id );
+
+    /**
+     * Imports the data values of the given data value set. The data value set
+     * may provide its data values as a stream, as the data values are consumed
+     * one by one.
+     *
+     * @param dataValueSet the data value set.
+     * @param importOptions the import options.
+     * @param id the job configuration, may be null.
+     * @return the import summary.
+     */
+    ImportSummary importDataValueSet( DataValueSet dataValueSet, ImportOptions importOptions, JobConfiguration id );
 }
@@ -408,6 +408,14 @@ public class DefaultDataValueSetService implements DataValueSetService
         dataValueSetStore.writeDataValueSetJson( lastUpdated, outputStream, idSchemes, pageSize, page );
     }
 
+    @Override
+    @Transactional( readOnly = true )
+    public DataValueCursor writeDataValueSetJson( Date lastUpdated, DataValueCursor after,
+        OutputStream outputStream, IdSchemes idSchemes, int pageSize )
+    {
+        return dataValueSetStore.writeDataValueSetJson( lastUpdated, after, outputStream, idSchemes, pageSize );
+    }
+
     @Override
     @Transactional
     public void writeDataValueSetCsv( DataExportParams params, Writer writer )
@@ -669,6 +677,23 @@ public class DefaultDataValueSetService implements DataValueSetService
         return saveDataValueSetPdf( in, importOptions, null );
     }
 
+    @Override
+    @Transactional
+    public ImportSummary importDataValueSet( DataValueSet dataValueSet, ImportOptions importOptions,
+        JobConfiguration id )
+    {
+        try
+        {
+            return saveDataValueSet( importOptions, id, dataValueSet );
+        }
+        catch ( RuntimeException ex )
+        {
+            log.error( DebugUtils.getStackTrace( ex ) );
+            notifier.clear( id ).notify( id, ERROR, "Process failed: " + ex.getMessage(), true );
+            return new ImportSummary( ImportStatus.ERROR, "The import process failed: " + ex.getMessage() );
+        }
+    }
+
     /**
      * There are specific id schemes for data elements and organisation units
      * and a generic id scheme for all objects. The specific id schemes will
@@ -37,7 +37,9 @@ import java.io.OutputStream;
 import java.io.Writer;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -148,6 +150,42 @@ public class SpringDataValueSetStore
         writeDataValueSet( sql, new DataExportParams(), null, dataValueSet );
     }
 
+    @Override
+    public DataValueCursor writeDataValueSetJson( Date lastUpdated, DataValueCursor after, OutputStream outputStream,
+        IdSchemes idSchemes, int pageSize )
+    {
+        DataValueSet dataValueSet = new StreamingJsonDataValueSet( outputStream );
+
+        String sql = buildDataValueSql( lastUpdated, idSchemes );
+        List<Object> args = new ArrayList<>();
+
+        if ( after != null )
+        {
+            sql += "and dv.lastupdated >= ? and (dv.lastupdated, dv.dataelementid, dv.periodid, dv.sourceid, " +
+                "dv.categoryoptioncomboid, dv.attributeoptioncomboid) > (?, ?, ?, ?, ?, ?) ";
+
+            args.add( after.getLastUpdated() );
+            args.add( after.getLastUpdated() );
+            args.add( after.getDataElementId() );
+            args.add( after.getPeriodId() );
+            args.add( after.getSourceId() );
+            args.add( after.getCategoryOptionComboId() );
+            args.add( after.getAttributeOptionComboId() );
+        }
+
+        sql += "order by dv.lastupdated, dv.dataelementid, dv.periodid, dv.sourceid, dv.categoryoptioncomboid, " +
+            "dv.attributeoptioncomboid limit " + pageSize;
+
+        final DataValueCursor[] last = new DataValueCursor[1];
+
+        writeDataValueSet( sql, args.toArray(), new DataExportParams(), null, dataValueSet,
+            rs -> last[0] = new DataValueCursor( rs.getTimestamp( "lastupdated" ), rs.getLong( "dataelementid" ),
+                rs.getLong( "periodid" ), rs.getLong( "sourceid" ), rs.getLong( "categoryoptioncomboid" ),
+                rs.getLong( "attributeoptioncomboid" ) ) );
+
+        return last[0];
+    }
+
     private String buildDataValueSql( Date lastUpdated, IdSchemes idSchemes )
     {
         String deScheme = idSchemes.getDataElementIdScheme().getIdentifiableString().toLowerCase();
@@ -158,7 +196,8 @@ public class SpringDataValueSetStore
         final String sql = "select de." + deScheme + " as deid, pe.startdate as pestart, pt.name as ptname, ou."
             + ouScheme + " as ouid, " +
             "coc." + ocScheme + " as cocid, aoc." + aocScheme + " as aocid, " +
-            "dv.value, dv.storedby, dv.created, dv.lastupdated, dv.comment, dv.followup, dv.deleted " +
+            "dv.value, dv.storedby, dv.created, dv.lastupdated, dv.comment, dv.followup, dv.deleted, " +
+            "dv.dataelementid, dv.periodid, dv.sourceid, dv.categoryoptioncomboid, dv.attributeoptioncomboid " +
             "from datavalue dv " +
             "join dataelement de on (dv.dataelementid=de.dataelementid) " +
             "join period pe on (dv.periodid=pe.periodid) " +
@@ -173,6 +212,18 @@ public class SpringDataValueSetStore
 
     private void writeDataValueSet( String sql, DataExportParams params, Date completeDate,
         final DataValueSet dataValueSet )
+    {
+        writeDataValueSet( sql, null, params, completeDate, dataValueSet, null );
+    }
+
+    /**
+     * Writes the data values returned by the given SQL to the data value set.
+     *
+     * @param args the SQL arguments, can be null.
+     * @param rowHandler handler invoked for each written row, can be null.
+     */
+    private void writeDataValueSet( String sql, Object[] args, DataExportParams params, Date completeDate,
+        final DataValueSet dataValueSet, RowCallbackHandler rowHandler )
     {
         if ( params.isSingleDataValueSet() )
         {
@@ -188,7 +239,7 @@ public class SpringDataValueSetStore
 
         final Calendar calendar = PeriodType.getCalendar();
 
-        jdbcTemplate.query( sql, new RowCallbackHandler()
+        RowCallbackHandler callbackHandler = new RowCallbackHandler()
         {
             @Override
             public void processRow( ResultSet rs )
@@ -216,8 +267,22 @@ public class SpringDataValueSetStore
                 }
 
                 dataValue.close();
+
+                if ( rowHandler != null )
+                {
+                    rowHandler.processRow( rs );
+                }
             }
-        } );
+        };
+
+        if ( args != null )
+        {
+            jdbcTemplate.query( sql, callbackHandler, args );
+        }
+        else
+        {
+            jdbcTemplate.query( sql, callbackHandler );
+        }
 
         dataValueSet.close();
     }
@@ -0,0 +1,201 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.dxf2.events.event;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Manages the typed event data value table {@code programstageinstancedatavalue}
+ * which is kept in sync with {@code programstageinstance.eventdatavalues} by a
+ * trigger. The trigger is committed before the table is backfilled in batches
+ * of events, so that writes to the events are not blocked while the table is
+ * backfilled. The table comment marks a completed backfill. Queries only use
+ * the table once it is known to be complete.
+ */
+@Slf4j
+@Component
+public class EventDataValueIndex
+{
+    private static final String TRIGGER_NAME = "trg_programstageinstancedatavalue";
+
+    private static final String POPULATED = "populated";
+
+    private static final int BATCH_SIZE = 10_000;
+
+    private static final String INSERT_SQL = "insert into programstageinstancedatavalue " +
+        "(programstageinstanceid, dataelementuid, textvalue, numericvalue, datevalue) " +
+        "select psi.programstageinstanceid, dv.key, lower(dv.value ->> 'value'), " +
+        "eventdatavalue_to_numeric(dv.value ->> 'value'), " +
+        "eventdatavalue_to_timestamp(dv.value ->> 'value') " +
+        "from programstageinstance psi, jsonb_each(psi.eventdatavalues) dv " +
+        "where psi.eventdatavalues is not null and char_length(dv.key) = 11 " +
+        "and psi.programstageinstanceid > ? and psi.programstageinstanceid <= ? " +
+        "on conflict do nothing";
+
+    /**
+     * Serializes the installation of the trigger between the nodes of a
+     * cluster.
+     */
+    private static final long INSTALL_LOCK = 7_389_211_905L;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final boolean enabled;
+
+    private volatile boolean available;
+
+    public EventDataValueIndex( JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+        DhisConfigurationProvider config )
+    {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = config.isEnabled( ConfigurationKey.TRACKER_EVENT_DATAVALUE_INDEX_ENABLED );
+    }
+
+    /**
+     * Indicates whether the index is enabled in dhis.conf.
+     */
+    public boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    /**
+     * Indicates whether the index is enabled and populated, and can hence be
+     * used by queries.
+     */
+    public boolean isAvailable()
+    {
+        return available;
+    }
+
+    /**
+     * Indicates whether the trigger maintaining the table is installed.
+     */
+    public boolean isInstalled()
+    {
+        return jdbcTemplate.queryForObject(
+            "select exists (select 1 from pg_trigger where tgname = '" + TRIGGER_NAME + "')", Boolean.class );
+    }
+
+    /**
+     * Indicates whether the trigger is installed and the backfill of the
+     * table has completed.
+     */
+    public boolean isPopulated()
+    {
+        return isInstalled() && POPULATED.equals( jdbcTemplate.queryForObject(
+            "select obj_description('programstageinstancedatavalue'::regclass, 'pg_class')", String.class ) );
+    }
+
+    /**
+     * Marks the index as available if it is enabled and populated.
+     *
+     * @return true if the index is available.
+     */
+    public boolean refresh()
+    {
+        available = enabled && isPopulated();
+        return available;
+    }
+
+    /**
+     * Truncates the table and installs the trigger in one transaction, unless
+     * the trigger is already installed, then backfills the table in separate
+     * transactions per batch of events. The batches skip rows which were
+     * already written by the trigger or by a previous backfill, so a backfill
+     * which was interrupted is completed on the next startup.
+     */
+    public void install()
+    {
+        transactionTemplate.executeWithoutResult( status -> {
+            jdbcTemplate.execute( "select pg_advisory_xact_lock(" + INSTALL_LOCK + ")" );
+
+            if ( isInstalled() )
+            {
+                return;
+            }
+
+            jdbcTemplate.execute( "truncate programstageinstancedatavalue" );
+
+            jdbcTemplate.execute( "comment on table programstageinstancedatavalue is null" );
+
+            jdbcTemplate.execute( "create trigger " + TRIGGER_NAME + " " +
+                "after insert or update of eventdatavalues on programstageinstance " +
+                "for each row execute procedure refresh_programstageinstancedatavalue()" );
+        } );
+
+        if ( isPopulated() )
+        {
+            refresh();
+            return;
+        }
+
+        log.info( "Populating event data value index table" );
+
+        long maxId = jdbcTemplate.queryForObject(
+            "select coalesce(max(programstageinstanceid), 0) from programstageinstance", Long.class );
+
+        for ( long fromId = 0; fromId < maxId; fromId += BATCH_SIZE )
+        {
+            jdbcTemplate.update( INSERT_SQL, fromId, fromId + BATCH_SIZE );
+        }
+
+        jdbcTemplate.execute( "comment on table programstageinstancedatavalue is '" + POPULATED + "'" );
+
+        refresh();
+
+        log.info( "Event data value index table populated" );
+    }
+
+    /**
+     * Removes the trigger and truncates the table.
+     */
+    public void uninstall()
+    {
+        available = false;
+
+        transactionTemplate.executeWithoutResult( status -> {
+            jdbcTemplate.execute( "drop trigger if exists " + TRIGGER_NAME + " on programstageinstance" );
+
+            jdbcTemplate.execute( "comment on table programstageinstancedatavalue is null" );
+
+            jdbcTemplate.execute( "truncate programstageinstancedatavalue" );
+        } );
+
+        log.info( "Event data value index table disabled" );
+    }
+}
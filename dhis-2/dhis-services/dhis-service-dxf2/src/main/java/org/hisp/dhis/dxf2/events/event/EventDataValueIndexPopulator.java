@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.dxf2.events.event;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.hisp.dhis.common.AsyncTaskExecutor;
+import org.hisp.dhis.system.startup.AbstractStartupRoutine;
+
+/**
+ * Installs or removes the trigger which keeps the typed event data value
+ * table {@code programstageinstancedatavalue} in sync with
+ * {@code programstageinstance.eventdatavalues}. When the table is not yet
+ * populated it is populated by the asynchronous task executor, so that
+ * startup is not blocked. Event queries keep using the JSON column until the population
+ * has completed.
+ *
+ * @see EventDataValueIndex
+ */
+@Slf4j
+public class EventDataValueIndexPopulator
+    extends AbstractStartupRoutine
+{
+    private final EventDataValueIndex eventDataValueIndex;
+
+    private final AsyncTaskExecutor taskExecutor;
+
+    public EventDataValueIndexPopulator( EventDataValueIndex eventDataValueIndex, AsyncTaskExecutor taskExecutor )
+    {
+        this.eventDataValueIndex = eventDataValueIndex;
+        this.taskExecutor = taskExecutor;
+    }
+
+    // -------------------------------------------------------------------------
+    // StartupRoutine implementation
+    // -------------------------------------------------------------------------
+
+    @Override
+    public void execute()
+    {
+        if ( eventDataValueIndex.isEnabled() && eventDataValueIndex.isPopulated() )
+        {
+            eventDataValueIndex.refresh();
+        }
+        else if ( eventDataValueIndex.isEnabled() )
+        {
+            taskExecutor.executeTask( this::install );
+        }
+        else if ( eventDataValueIndex.isInstalled() )
+        {
+            eventDataValueIndex.uninstall();
+        }
+    }
+
+    private void install()
+    {
+        try
+        {
+            eventDataValueIndex.install();
+        }
+        catch ( RuntimeException ex )
+        {
+            log.error( "Event data value index table could not be populated", ex );
+        }
+    }
+}
@@ -27,22 +27,27 @@
  */
 package org.hisp.dhis.dxf2.events.event;
 
+import static java.util.stream.Collectors.joining;
 import static java.util.stream.Collectors.toList;
 
 import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.hisp.dhis.jdbc.BatchPreparedStatementSetterWithKeyHolder;
+import org.hisp.dhis.jdbc.JdbcUtils;
 import org.hisp.dhis.program.ProgramStageInstance;
 import org.hisp.dhis.trackedentitycomment.TrackedEntityComment;
 import org.springframework.dao.DataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.jdbc.support.GeneratedKeyHolder;
-import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
 
 /**
@@ -69,7 +74,8 @@ public class JdbcEventCommentStore implements EventCommentStore
 
     /**
      * Save all the comments ({@see TrackedEntityComment} for the list of
-     * {@see ProgramStageInstance}
+     * {@see ProgramStageInstance}. The comments and the links to their events
+     * are each inserted with a single JDBC batch.
      *
      * @param batch a List of {@see ProgramStageInstance}
      */
@@ -86,20 +92,36 @@ public class JdbcEventCommentStore implements EventCommentStore
                 .filter( this::hasComments )
                 .collect( toList() );
 
+            if ( programStageInstances.isEmpty() )
+            {
+                return;
+            }
+
+            Map<Long, Integer> sortOrders = getInitialSortOrders( programStageInstances );
+
+            List<TrackedEntityComment> comments = programStageInstances.stream()
+                .flatMap( psi -> psi.getComments().stream() )
+                .collect( toList() );
+
+            saveComments( comments );
+
+            List<Object[]> links = new ArrayList<>();
+
             for ( ProgramStageInstance psi : programStageInstances )
             {
-                Integer sortOrder = getInitialSortOrder( psi );
+                int sortOrder = sortOrders.getOrDefault( psi.getId(), 1 );
 
                 for ( TrackedEntityComment comment : psi.getComments() )
                 {
-                    Long commentId = saveComment( comment );
-                    if ( commentId != null && commentId != 0 )
+                    if ( comment.getId() != 0 )
                     {
-                        saveCommentToEvent( psi.getId(), commentId, sortOrder );
+                        links.add( new Object[] { psi.getId(), sortOrder, comment.getId() } );
                         sortOrder++;
                     }
                 }
             }
+
+            saveCommentsToEvents( links );
         }
         catch ( DataAccessException dae )
         {
@@ -113,19 +135,34 @@ public class JdbcEventCommentStore implements EventCommentStore
         return CollectionUtils.isNotEmpty( programStageInstance.getComments() );
     }
 
-    Integer getInitialSortOrder( ProgramStageInstance psi )
+    /**
+     * Fetches the next sort order of the notes of all given PSI which are
+     * already in the db with a single query, to avoid conflicts with existing
+     * notes. PSI without existing notes are not part of the returned map.
+     */
+    Map<Long, Integer> getInitialSortOrders( List<ProgramStageInstance> programStageInstances )
     {
-        if ( psi.getId() > 0 )
+        Map<Long, Integer> sortOrders = new HashMap<>();
+
+        String ids = programStageInstances.stream()
+            .filter( psi -> psi.getId() > 0 )
+            .map( psi -> String.valueOf( psi.getId() ) )
+            .distinct()
+            .collect( joining( "," ) );
+
+        if ( ids.isEmpty() )
         {
-            // if the PSI is already in the db, fetch the latest sort order for
-            // the
-            // notes, to avoid conflicts
-            return jdbcTemplate.queryForObject(
-                "select coalesce(max(sort_order) + 1, 1) from programstageinstancecomments where programstageinstanceid = "
-                    + psi.getId(),
-                Integer.class );
+            return sortOrders;
         }
-        return 1;
+
+        jdbcTemplate.query( "select programstageinstanceid, max(sort_order) + 1 as sortorder "
+            + "from programstageinstancecomments where programstageinstanceid in (" + ids + ") "
+            + "group by programstageinstanceid",
+            rs -> {
+                sortOrders.put( rs.getLong( "programstageinstanceid" ), rs.getInt( "sortorder" ) );
+            } );
+
+        return sortOrders;
     }
 
     private ProgramStageInstance withoutEmptyComments( ProgramStageInstance programStageInstance )
@@ -146,53 +183,54 @@ public class JdbcEventCommentStore implements EventCommentStore
         return StringUtils.isNotEmpty( trackedEntityComment.getCommentText() );
     }
 
-    Long saveComment( TrackedEntityComment comment )
+    /**
+     * Inserts the given comments in a single JDBC batch and assigns the
+     * generated primary keys to them.
+     */
+    void saveComments( List<TrackedEntityComment> comments )
     {
-        KeyHolder keyHolder = new GeneratedKeyHolder();
-
-        try
-        {
-            jdbcTemplate.update( connection -> {
-                PreparedStatement ps = connection.prepareStatement( INSERT_EVENT_NOTE_SQL,
-                    new String[] { "trackedentitycommentid" } );
-
-                ps.setString( 1, comment.getUid() );
-                ps.setString( 2, comment.getCommentText() );
-                ps.setTimestamp( 3, JdbcEventSupport.toTimestamp( comment.getCreated() ) );
-                ps.setString( 4, comment.getCreator() );
-                ps.setTimestamp( 5, JdbcEventSupport.toTimestamp( comment.getLastUpdated() ) );
-
-                return ps;
-            }, keyHolder );
-        }
-        catch ( DataAccessException e )
-        {
-            log.error( "An error occurred saving a TrackedEntityComment", e );
-            return null;
-        }
+        JdbcUtils.batchUpdateWithKeyHolder( jdbcTemplate, INSERT_EVENT_NOTE_SQL,
+            new BatchPreparedStatementSetterWithKeyHolder<TrackedEntityComment>( comments )
+            {
+                @Override
+                protected void setValues( PreparedStatement ps, TrackedEntityComment comment )
+                    throws SQLException
+                {
+                    ps.setString( 1, comment.getUid() );
+                    ps.setString( 2, comment.getCommentText() );
+                    ps.setTimestamp( 3, JdbcEventSupport.toTimestamp( comment.getCreated() ) );
+                    ps.setString( 4, comment.getCreator() );
+                    ps.setTimestamp( 5, JdbcEventSupport.toTimestamp( comment.getLastUpdated() ) );
+                }
 
-        return (Long) keyHolder.getKey();
+                @Override
+                protected void setPrimaryKey( Map<String, Object> primaryKey, TrackedEntityComment comment )
+                {
+                    comment.setId( (Long) primaryKey.get( "trackedentitycommentid" ) );
+                }
+            } );
     }
 
-    void saveCommentToEvent( Long programStageInstanceId, Long commentId, int sortOrder )
+    /**
+     * Inserts the links between comments and events in a single JDBC batch.
+     *
+     * @param links rows of program stage instance id, sort order and comment
+     *        id
+     */
+    void saveCommentsToEvents( List<Object[]> links )
     {
-        try
+        if ( links.isEmpty() )
         {
-            jdbcTemplate.update( connection -> {
-                PreparedStatement ps = connection.prepareStatement( INSERT_EVENT_COMMENT_LINK );
-
-                ps.setLong( 1, programStageInstanceId );
-                ps.setInt( 2, sortOrder );
-                ps.setLong( 3, commentId );
+            return;
+        }
 
-                return ps;
-            } );
+        try
+        {
+            jdbcTemplate.batchUpdate( INSERT_EVENT_COMMENT_LINK, links );
         }
         catch ( DataAccessException e )
         {
-            log.error(
-                "An error occurred saving a link between a TrackedEntityComment and a ProgramStageInstance with primary key: "
-                    + programStageInstanceId,
+            log.error( "An error occurred saving the links between TrackedEntityComments and ProgramStageInstances",
                 e );
             throw e;
         }
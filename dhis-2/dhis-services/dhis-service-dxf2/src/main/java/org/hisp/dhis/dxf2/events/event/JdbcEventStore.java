@@ -138,6 +138,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.ObjectReader;
 import com.google.common.base.Joiner;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Multimap;
 import com.google.gson.Gson;
@@ -177,6 +178,11 @@ public class JdbcEventStore implements EventStore
 
     private static final String DOT_NAME = ".name)";
 
+    private static final String DATA_VALUE_INDEX_ALIAS = "dv_";
+
+    private static final Set<QueryOperator> DATE_VALUE_OPERATORS = ImmutableSet.of( QueryOperator.GT,
+        QueryOperator.GE, QueryOperator.LT, QueryOperator.LE );
+
     private static final Map<String, String> QUERY_PARAM_COL_MAP = ImmutableMap.<String, String> builder()
         .put( "event", "psi_uid" ).put( "program", "p_uid" ).put( "programStage", "ps_uid" )
         .put( "enrollment", "pi_uid" ).put( "enrollmentStatus", "pi_status" ).put( "orgUnit", "ou_uid" )
@@ -281,10 +287,17 @@ public class JdbcEventStore implements EventStore
 
     private final org.hisp.dhis.dxf2.events.trackedentity.store.EventStore eventStore;
 
+    /**
+     * Decides whether filters and ordering on data values use the typed
+     * {@code programstageinstancedatavalue} table instead of the
+     * {@code eventdatavalues} JSON column.
+     */
+    private final EventDataValueIndex dataValueIndex;
+
     public JdbcEventStore( StatementBuilder statementBuilder, JdbcTemplate jdbcTemplate,
         @Qualifier( "dataValueJsonMapper" ) ObjectMapper jsonMapper,
         CurrentUserService currentUserService, IdentifiableObjectManager identifiableObjectManager, Environment env,
-        org.hisp.dhis.dxf2.events.trackedentity.store.EventStore eventStore )
+        org.hisp.dhis.dxf2.events.trackedentity.store.EventStore eventStore, EventDataValueIndex dataValueIndex )
     {
         checkNotNull( statementBuilder );
         checkNotNull( jdbcTemplate );
@@ -293,6 +306,7 @@ public class JdbcEventStore implements EventStore
         checkNotNull( jsonMapper );
         checkNotNull( env );
         checkNotNull( eventStore );
+        checkNotNull( dataValueIndex );
 
         this.statementBuilder = statementBuilder;
         this.jdbcTemplate = jdbcTemplate;
@@ -301,7 +315,7 @@ public class JdbcEventStore implements EventStore
         this.jsonMapper = jsonMapper;
         this.env = env;
         this.eventStore = eventStore;
-
+        this.dataValueIndex = dataValueIndex;
     }
 
     // -------------------------------------------------------------------------
@@ -849,6 +863,10 @@ public class JdbcEventStore implements EventStore
     {
         SqlHelper hlp = new SqlHelper();
 
+        // read once, as the index may become available while building the query
+
+        final boolean dataValueIndexEnabled = dataValueIndex.isAvailable();
+
         // ---------------------------------------------------------------------
         // Select clause
         // ---------------------------------------------------------------------
@@ -887,13 +905,13 @@ public class JdbcEventStore implements EventStore
         // From and where clause
         // ---------------------------------------------------------------------
 
-        sqlBuilder.append( getFromWhereClause( params, hlp, organisationUnits ) );
+        sqlBuilder.append( getFromWhereClause( params, hlp, organisationUnits, dataValueIndexEnabled ) );
 
         // ---------------------------------------------------------------------
         // Order clause
         // ---------------------------------------------------------------------
 
-        sqlBuilder.append( getGridOrderQuery( params ) );
+        sqlBuilder.append( getGridOrderQuery( params, dataValueIndexEnabled ) );
 
         // ---------------------------------------------------------------------
         // Paging clause
@@ -948,6 +966,10 @@ public class JdbcEventStore implements EventStore
 
         SqlHelper hlp = new SqlHelper();
 
+        // read once, as the index may become available while building the query
+
+        final boolean dataValueIndexEnabled = dataValueIndex.isAvailable();
+
         StringBuilder sqlBuilder = new StringBuilder().append( "select "
             + getEventSelectIdentifiersByIdScheme( params.getIdSchemes() )
             + " psi.uid as psi_uid, "
@@ -971,7 +993,8 @@ public class JdbcEventStore implements EventStore
             final String col = item.getItemId();
             final String dataValueValueSql = "psi.eventdatavalues #>> '{" + col + ", value}'";
 
-            String queryCol = " " + (item.isNumeric() ? castToNumber( dataValueValueSql ) : lower( dataValueValueSql ));
+            String queryCol = " " + (dataValueIndexEnabled ? getIndexedValueSql( item, null )
+                : item.isNumeric() ? castToNumber( dataValueValueSql ) : lower( dataValueValueSql ));
             queryCol += " as " + col + ", ";
 
             sqlBuilder.append( queryCol );
@@ -993,6 +1016,8 @@ public class JdbcEventStore implements EventStore
             + "left join users auc on (psi.assigneduserid=auc.userid) "
             + "left join userinfo au on (auc.userid=au.userinfoid) " );
 
+        sqlBuilder.append( getDataValueIndexJoins( params.getDataElementsAndFilters(), dataValueIndexEnabled ) );
+
         Set<String> joinedColumns = new HashSet<>();
 
         String eventDataValuesWhereSql = "";
@@ -1007,9 +1032,9 @@ public class JdbcEventStore implements EventStore
             {
                 if ( item.hasOptionSet() && item.hasFilter() )
                 {
-                    sqlBuilder.append( "inner join optionvalue as " + optCol + " on lower(" + optCol + ".code) = " +
-                        "lower(" + dataValueValueSql + ") and " + optCol + ".optionsetid = "
-                        + item.getOptionSet().getId() + " " );
+                    sqlBuilder.append( "inner join optionvalue as " + optCol + " on lower(" + optCol + ".code) = "
+                        + getOptionCodeValueSql( item, dataValueValueSql, dataValueIndexEnabled ) + " and " + optCol
+                        + ".optionsetid = " + item.getOptionSet().getId() + " " );
                 }
 
                 joinedColumns.add( col );
@@ -1021,8 +1046,9 @@ public class JdbcEventStore implements EventStore
                 {
                     final String encodedFilter = statementBuilder.encode( filter.getFilter(), false );
 
-                    final String queryCol = item.isNumeric() ? " CAST( " + dataValueValueSql + " AS NUMERIC)"
-                        : "lower( " + dataValueValueSql + " )";
+                    final String queryCol = dataValueIndexEnabled ? getIndexedValueSql( item, filter )
+                        : item.isNumeric() ? " CAST( " + dataValueValueSql + " AS NUMERIC)"
+                            : "lower( " + dataValueValueSql + " )";
 
                     if ( !item.hasOptionSet() )
                     {
@@ -1225,7 +1251,7 @@ public class JdbcEventStore implements EventStore
      * in inner join. For query params, restriction is set in where clause.
      */
     private String getFromWhereClause( EventSearchParams params, SqlHelper hlp,
-        List<OrganisationUnit> organisationUnits )
+        List<OrganisationUnit> organisationUnits, boolean dataValueIndexEnabled )
     {
         StringBuilder sqlBuilder = new StringBuilder().append( "from programstageinstance psi "
             + "inner join programinstance pi on pi.programinstanceid = psi.programinstanceid "
@@ -1236,6 +1262,8 @@ public class JdbcEventStore implements EventStore
             + "left join users auc on (psi.assigneduserid=auc.userid) "
             + "left join userinfo au on (auc.userid=au.userinfoid) " );
 
+        sqlBuilder.append( getDataValueIndexJoins( params.getDataElementsAndFilters(), dataValueIndexEnabled ) );
+
         Set<String> joinedColumns = new HashSet<>();
 
         String eventDataValuesWhereSql = "";
@@ -1250,9 +1278,9 @@ public class JdbcEventStore implements EventStore
             {
                 if ( item.hasOptionSet() && item.hasFilter() )
                 {
-                    sqlBuilder.append( "inner join optionvalue as " + optCol + " on lower(" + optCol + ".code) = " +
-                        "lower(" + dataValueValueSql + ") and " + optCol + ".optionsetid = "
-                        + item.getOptionSet().getId() + " " );
+                    sqlBuilder.append( "inner join optionvalue as " + optCol + " on lower(" + optCol + ".code) = "
+                        + getOptionCodeValueSql( item, dataValueValueSql, dataValueIndexEnabled ) + " and " + optCol
+                        + ".optionsetid = " + item.getOptionSet().getId() + " " );
                 }
 
                 joinedColumns.add( col );
@@ -1264,8 +1292,8 @@ public class JdbcEventStore implements EventStore
                 {
                     final String encodedFilter = statementBuilder.encode( filter.getFilter(), false );
 
-                    final String queryCol = " " + (item.isNumeric() ? castToNumber( dataValueValueSql )
-                        : lower( dataValueValueSql ));
+                    final String queryCol = " " + (dataValueIndexEnabled ? getIndexedValueSql( item, filter )
+                        : item.isNumeric() ? castToNumber( dataValueValueSql ) : lower( dataValueValueSql ));
 
                     if ( !item.hasOptionSet() )
                     {
@@ -1477,7 +1505,7 @@ public class JdbcEventStore implements EventStore
         return sqlBuilder.toString();
     }
 
-    private String getGridOrderQuery( EventSearchParams params )
+    private String getGridOrderQuery( EventSearchParams params, boolean dataValueIndexEnabled )
     {
 
         if ( params.getGridOrders() != null && params.getDataElements() != null && !params.getDataElements().isEmpty()
@@ -1499,7 +1527,10 @@ public class JdbcEventStore implements EventStore
                     {
                         if ( order.getField().equals( item.getItemId() ) )
                         {
-                            orderFields.add( order.getField() + " " + order.getDirection() );
+                            String orderField = dataValueIndexEnabled ? getIndexedValueSql( item, null )
+                                : order.getField();
+
+                            orderFields.add( orderField + " " + order.getDirection() );
                             break;
                         }
                     }
@@ -1560,6 +1591,83 @@ public class JdbcEventStore implements EventStore
         }
     }
 
+    /**
+     * Returns left joins against the typed event data value table, one per
+     * distinct data element item, or an empty string if the data value index
+     * is not available.
+     */
+    private String getDataValueIndexJoins( Collection<QueryItem> items, boolean dataValueIndexEnabled )
+    {
+        if ( !dataValueIndexEnabled )
+        {
+            return "";
+        }
+
+        StringBuilder sqlBuilder = new StringBuilder();
+
+        Set<String> joinedColumns = new HashSet<>();
+
+        for ( QueryItem item : items )
+        {
+            final String col = item.getItemId();
+
+            if ( joinedColumns.add( col ) )
+            {
+                final String alias = getDataValueIndexAlias( col );
+
+                sqlBuilder.append( "left join programstageinstancedatavalue " ).append( alias )
+                    .append( " on " ).append( alias ).append( ".programstageinstanceid = psi.programstageinstanceid" )
+                    .append( " and " ).append( alias ).append( ".dataelementuid = '" ).append( col ).append( "' " );
+            }
+        }
+
+        return sqlBuilder.toString();
+    }
+
+    /**
+     * Returns the typed column of the event data value table to use for the
+     * given item. Numeric items use the numeric column, date items use the date
+     * column when ordering or for range filters, all other cases use the
+     * lower-cased text column.
+     *
+     * @param item the data element item.
+     * @param filter the filter to apply, or null if the column is used for
+     *        ordering.
+     */
+    private String getIndexedValueSql( QueryItem item, QueryFilter filter )
+    {
+        final String alias = getDataValueIndexAlias( item.getItemId() );
+
+        if ( item.isNumeric() )
+        {
+            return alias + ".numericvalue";
+        }
+        else if ( item.getValueType() != null && item.getValueType().isDate()
+            && (filter == null || DATE_VALUE_OPERATORS.contains( filter.getOperator() )) )
+        {
+            return alias + ".datevalue";
+        }
+
+        return alias + ".textvalue";
+    }
+
+    private String getOptionCodeValueSql( QueryItem item, String dataValueValueSql,
+        boolean dataValueIndexEnabled )
+    {
+        return dataValueIndexEnabled ? getDataValueIndexAlias( item.getItemId() ) + ".textvalue"
+            : "lower(" + dataValueValueSql + ")";
+    }
+
+    /**
+     * Returns the quoted alias of the event data value table join of the given
+     * data element. The alias is quoted as identifiers are case folded, and
+     * uids differing only in case would otherwise share an alias.
+     */
+    private String getDataValueIndexAlias( String dataElementUid )
+    {
+        return statementBuilder.columnQuote( DATA_VALUE_INDEX_ALIAS + dataElementUid );
+    }
+
     private String getAttributeValueQuery()
     {
         return "select pav.trackedentityinstanceid as pav_id, pav.created as pav_created, pav.lastupdated as pav_lastupdated, "
@@ -29,6 +29,7 @@ package org.hisp.dhis.dxf2.events.importer;
 
 import static org.apache.commons.logging.LogFactory.getLog;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import org.apache.commons.logging.Log;
@@ -60,21 +61,32 @@ public interface EventProcessing
 
         public void run( final List<Class<? extends Processor>> processors )
         {
+            final List<Processor> instances = new ArrayList<>();
+
+            for ( Class<? extends Processor> processor : processors )
+            {
+                try
+                {
+                    instances.add( processor.newInstance() );
+                }
+                catch ( InstantiationException | IllegalAccessException e )
+                {
+                    log.error( "An error occurred during Event import processing", e );
+                }
+            }
+
             for ( final Event event : events )
             {
-                for ( Class<? extends Processor> processor : processors )
+                for ( Processor processor : instances )
                 {
-                    try
-                    {
-                        final Processor pre = processor.newInstance();
-                        pre.process( event, workContext );
-                    }
-                    catch ( InstantiationException | IllegalAccessException e )
-                    {
-                        log.error( "An error occurred during Event import processing", e );
-                    }
+                    processor.process( event, workContext );
                 }
             }
+
+            for ( Processor processor : instances )
+            {
+                processor.complete( workContext );
+            }
         }
     }
 }
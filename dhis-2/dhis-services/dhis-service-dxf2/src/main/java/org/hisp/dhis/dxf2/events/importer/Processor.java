@@ -46,4 +46,15 @@ public interface Processor
      * @param workContext an instance of {@see WorkContext}
      */
     void process( Event event, WorkContext workContext );
+
+    /**
+     * Called once after all Events of a batch have been processed by this
+     * instance, so that work collected during {@link #process} can be handled
+     * for the whole batch.
+     *
+     * @param workContext an instance of {@see WorkContext}
+     */
+    default void complete( WorkContext workContext )
+    {
+    }
 }
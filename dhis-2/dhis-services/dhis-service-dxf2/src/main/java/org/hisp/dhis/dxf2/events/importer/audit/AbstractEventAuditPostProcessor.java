@@ -28,6 +28,8 @@
 package org.hisp.dhis.dxf2.events.importer.audit;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.hisp.dhis.artemis.audit.Audit;
 import org.hisp.dhis.artemis.audit.AuditManager;
@@ -44,23 +46,24 @@ import org.hisp.dhis.program.ProgramStageInstance;
 /**
  * This is the base implementation for AuditProcessor. Insert, Update and Delete
  * EventAuditProcessors (which are implementation of this class) will provide a
- * value for AuditType and will inherit shared process logic.
+ * value for AuditType and will inherit shared process logic. The audits of a
+ * batch are collected and sent together once all events are processed.
  *
  * @author Giuseppe Nespolino <g.nespolino@gmail.com>
  */
 public abstract class AbstractEventAuditPostProcessor implements Processor
 {
+    private final List<Audit> audits = new ArrayList<>();
 
     @Override
     public void process( final Event event, final WorkContext ctx )
     {
-        final AuditManager auditManager = ctx.getServiceDelegator().getAuditManager();
         final EventImporterUserService eventImporterUserService = ctx.getServiceDelegator()
             .getEventImporterUserService();
         final ProgramStageInstanceMapper programStageInstanceMapper = new ProgramStageInstanceMapper( ctx );
         final ProgramStageInstance programStageInstance = programStageInstanceMapper.map( event );
 
-        auditManager.send( Audit.builder()
+        audits.add( Audit.builder()
             .auditType( getAuditType() )
             .auditScope( AuditScope.TRACKER )
             .createdAt( LocalDateTime.now() )
@@ -70,6 +73,17 @@ public abstract class AbstractEventAuditPostProcessor implements Processor
             .build() );
     }
 
+    @Override
+    public void complete( final WorkContext ctx )
+    {
+        if ( !audits.isEmpty() )
+        {
+            final AuditManager auditManager = ctx.getServiceDelegator().getAuditManager();
+
+            auditManager.send( audits );
+        }
+    }
+
     protected abstract AuditType getAuditType();
 
 }
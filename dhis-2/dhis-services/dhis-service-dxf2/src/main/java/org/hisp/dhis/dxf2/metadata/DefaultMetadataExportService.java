@@ -27,13 +27,28 @@
  */
 package org.hisp.dhis.dxf2.metadata;
 
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.annotation.Nonnull;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -43,9 +58,11 @@ import org.hisp.dhis.category.Category;
 import org.hisp.dhis.category.CategoryCombo;
 import org.hisp.dhis.category.CategoryOption;
 import org.hisp.dhis.category.CategoryOptionCombo;
+import org.hisp.dhis.common.DxfNamespaces;
 import org.hisp.dhis.common.IdentifiableObject;
 import org.hisp.dhis.common.InterpretableObject;
 import org.hisp.dhis.common.SetMap;
+import org.hisp.dhis.common.UserContext;
 import org.hisp.dhis.commons.timer.SystemTimer;
 import org.hisp.dhis.commons.timer.Timer;
 import org.hisp.dhis.dashboard.Dashboard;
@@ -61,6 +78,8 @@ import org.hisp.dhis.document.Document;
 import org.hisp.dhis.dxf2.common.OrderParams;
 import org.hisp.dhis.eventchart.EventChart;
 import org.hisp.dhis.eventreport.EventReport;
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
 import org.hisp.dhis.fieldfilter.Defaults;
 import org.hisp.dhis.fieldfilter.FieldFilterParams;
 import org.hisp.dhis.fieldfilter.FieldFilterService;
@@ -70,12 +89,14 @@ import org.hisp.dhis.interpretation.Interpretation;
 import org.hisp.dhis.legend.Legend;
 import org.hisp.dhis.legend.LegendSet;
 import org.hisp.dhis.mapping.MapView;
+import org.hisp.dhis.node.Node;
 import org.hisp.dhis.node.NodeUtils;
 import org.hisp.dhis.node.config.InclusionStrategy;
 import org.hisp.dhis.node.types.CollectionNode;
 import org.hisp.dhis.node.types.ComplexNode;
 import org.hisp.dhis.node.types.RootNode;
 import org.hisp.dhis.node.types.SimpleNode;
+import org.hisp.dhis.node.types.StreamingRootNode;
 import org.hisp.dhis.option.Option;
 import org.hisp.dhis.option.OptionSet;
 import org.hisp.dhis.program.Program;
@@ -102,9 +123,17 @@ import org.hisp.dhis.trackedentity.TrackedEntityAttribute;
 import org.hisp.dhis.trackedentity.TrackedEntityType;
 import org.hisp.dhis.user.CurrentUserService;
 import org.hisp.dhis.user.User;
+import org.hisp.dhis.user.UserService;
+import org.hisp.dhis.user.UserSettingKey;
 import org.hisp.dhis.visualization.Visualization;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.google.common.base.Enums;
 import com.google.common.collect.Lists;
@@ -141,54 +170,78 @@ public class DefaultMetadataExportService implements MetadataExportService
     @Autowired
     private AttributeService attributeService;
 
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private DhisConfigurationProvider dhisConfig;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Executes the sections of streaming exports in parallel, null if parallel
+     * export is disabled.
+     */
+    private ExecutorService exportExecutor;
+
+    private TransactionTemplate readOnlyTransaction;
+
+    private int exportWindow;
+
+    @PostConstruct
+    public void init()
+    {
+        if ( dhisConfig.isEnabled( ConfigurationKey.METADATA_EXPORT_PARALLEL_ENABLED ) )
+        {
+            int workers = Math.max( 1,
+                Integer.parseInt( dhisConfig.getProperty( ConfigurationKey.METADATA_EXPORT_PARALLEL_WORKERS ) ) );
+
+            AtomicInteger threadCount = new AtomicInteger();
+
+            exportExecutor = Executors.newFixedThreadPool( workers, runnable -> {
+                Thread thread = new Thread( runnable, "metadata-export-" + threadCount.incrementAndGet() );
+                thread.setDaemon( true );
+                return thread;
+            } );
+
+            exportWindow = workers;
+
+            readOnlyTransaction = new TransactionTemplate( transactionManager );
+            readOnlyTransaction.setReadOnly( true );
+            readOnlyTransaction.setIsolationLevel( TransactionDefinition.ISOLATION_REPEATABLE_READ );
+        }
+    }
+
+    @PreDestroy
+    public void shutdown()
+    {
+        if ( exportExecutor != null )
+        {
+            exportExecutor.shutdownNow();
+        }
+    }
+
     @Override
-    @SuppressWarnings( "unchecked" )
     public Map<Class<? extends IdentifiableObject>, List<? extends IdentifiableObject>> getMetadata(
         MetadataExportParams params )
     {
         Timer timer = new SystemTimer().start();
         Map<Class<? extends IdentifiableObject>, List<? extends IdentifiableObject>> metadata = new HashMap<>();
 
-        if ( params.getUser() == null )
-        {
-            params.setUser( currentUserService.getCurrentUser() );
-        }
-
-        if ( params.getClasses().isEmpty() )
-        {
-            schemaService.getMetadataSchemas().stream()
-                .filter( schema -> schema.isIdentifiableObject() && schema.isPersisted() )
-                .filter( s -> !s.isSecondaryMetadata() )
-                .forEach(
-                    schema -> params.getClasses().add( (Class<? extends IdentifiableObject>) schema.getKlass() ) );
-        }
+        prepare( params );
 
         log.info( "(" + params.getUsername() + ") Export:Start" );
 
         for ( Class<? extends IdentifiableObject> klass : params.getClasses() )
         {
-            Query query;
-
-            if ( params.getQuery( klass ) != null )
-            {
-                query = params.getQuery( klass );
-            }
-            else
-            {
-                OrderParams orderParams = new OrderParams( Sets.newHashSet( params.getDefaultOrder() ) );
-                query = queryService.getQueryFromUrl( klass, params.getDefaultFilter(),
-                    orderParams.getOrders( schemaService.getDynamicSchema( klass ) ) );
-            }
-
-            if ( query.getUser() == null )
-            {
-                query.setUser( params.getUser() );
-            }
-
-            query.setDefaultOrder();
-            query.setDefaults( params.getDefaults() );
-
-            List<? extends IdentifiableObject> objects = queryService.query( query );
+            List<? extends IdentifiableObject> objects = getObjects( params, klass, params.getUser() );
 
             if ( !objects.isEmpty() )
             {
@@ -206,7 +259,11 @@ public class DefaultMetadataExportService implements MetadataExportService
     @Override
     public RootNode getMetadataAsNode( MetadataExportParams params )
     {
-        RootNode rootNode = NodeUtils.createMetadata();
+        boolean parallel = params.isStreaming() && exportExecutor != null;
+
+        RootNode rootNode = parallel ? new StreamingRootNode( "metadata" ) : new RootNode( "metadata" );
+        rootNode.setDefaultNamespace( DxfNamespaces.DXF_2_0 );
+        rootNode.setNamespace( DxfNamespaces.DXF_2_0 );
         rootNode.getConfig().setInclusionStrategy( params.getInclusionStrategy() );
 
         SystemInfo systemInfo = systemService.getSystemInfo();
@@ -217,15 +274,36 @@ public class DefaultMetadataExportService implements MetadataExportService
         system.addChild( new SimpleNode( "version", systemInfo.getVersion() ) );
         system.addChild( new SimpleNode( "date", systemInfo.getServerDate() ) );
 
+        if ( parallel )
+        {
+            prepare( params );
+
+            ParallelExport export = new ParallelExport( params );
+
+            for ( int i = 0; i < export.classes.size(); i++ )
+            {
+                int index = i;
+                ((StreamingRootNode) rootNode).addChildSupplier( () -> export.getSection( index ) );
+            }
+
+            // cancels pending sections when the client disconnects or the
+            // serialization fails
+
+            ((StreamingRootNode) rootNode).addCloseListener( export::close );
+
+            return rootNode;
+        }
+
         Map<Class<? extends IdentifiableObject>, List<? extends IdentifiableObject>> metadata = getMetadata( params );
 
         for ( Class<? extends IdentifiableObject> klass : metadata.keySet() )
         {
-            FieldFilterParams fieldFilterParams = new FieldFilterParams( metadata.get( klass ),
-                params.getFields( klass ), params.getDefaults(), params.getSkipSharing() );
-            fieldFilterParams.setUser( params.getUser() );
+            FieldFilterParams fieldFilterParams = getFieldFilterParams( params, klass, metadata.get( klass ),
+                params.getUser() );
 
-            CollectionNode collectionNode = fieldFilterService.toCollectionNode( klass, fieldFilterParams );
+            CollectionNode collectionNode = params.isStreaming()
+                ? fieldFilterService.toStreamingCollectionNode( klass, fieldFilterParams )
+                : fieldFilterService.toCollectionNode( klass, fieldFilterParams );
 
             if ( !collectionNode.getChildren().isEmpty() )
             {
@@ -431,6 +509,369 @@ public class DefaultMetadataExportService implements MetadataExportService
     // Utility Methods
     // -----------------------------------------------------------------------------------
 
+    @SuppressWarnings( "unchecked" )
+    private void prepare( MetadataExportParams params )
+    {
+        if ( params.getUser() == null )
+        {
+            params.setUser( currentUserService.getCurrentUser() );
+        }
+
+        if ( params.getClasses().isEmpty() )
+        {
+            schemaService.getMetadataSchemas().stream()
+                .filter( schema -> schema.isIdentifiableObject() && schema.isPersisted() )
+                .filter( s -> !s.isSecondaryMetadata() )
+                .forEach(
+                    schema -> params.getClasses().add( (Class<? extends IdentifiableObject>) schema.getKlass() ) );
+        }
+    }
+
+    private List<? extends IdentifiableObject> getObjects( MetadataExportParams params,
+        Class<? extends IdentifiableObject> klass, User user )
+    {
+        Query query;
+
+        if ( params.getQuery( klass ) != null )
+        {
+            query = params.getQuery( klass );
+        }
+        else
+        {
+            OrderParams orderParams = new OrderParams( Sets.newHashSet( params.getDefaultOrder() ) );
+            query = queryService.getQueryFromUrl( klass, params.getDefaultFilter(),
+                orderParams.getOrders( schemaService.getDynamicSchema( klass ) ) );
+        }
+
+        if ( query.getUser() == null )
+        {
+            query.setUser( user );
+        }
+
+        query.setDefaultOrder();
+        query.setDefaults( params.getDefaults() );
+
+        return queryService.query( query );
+    }
+
+    private FieldFilterParams getFieldFilterParams( MetadataExportParams params,
+        Class<? extends IdentifiableObject> klass, List<? extends IdentifiableObject> objects, User user )
+    {
+        FieldFilterParams fieldFilterParams = new FieldFilterParams( objects, params.getFields( klass ),
+            params.getDefaults(), params.getSkipSharing() );
+        fieldFilterParams.setUser( user );
+
+        return fieldFilterParams;
+    }
+
+    /**
+     * Fetches the sections of a streaming export on the export threads, each
+     * in its own read-only transaction. The transactions all import the same
+     * {@link ExportedSnapshot}, so the sections are consistent with each other
+     * as in a sequential export. The nodes of a section are built while the
+     * serializer writes it, so the transaction of a section stays open until
+     * the serializer requests the next section or the export is closed.
+     * Sections are requested in order by the serializer and at most
+     * {@link #exportWindow} sections beyond the requested one are fetched
+     * ahead. The sections follow the iteration order of the requested classes,
+     * which like the order of a sequential export is not defined.
+     */
+    private class ParallelExport
+    {
+        private final MetadataExportParams params;
+
+        private final List<Class<? extends IdentifiableObject>> classes;
+
+        private final Map<Integer, ExportSection> sections = new HashMap<>();
+
+        private final SecurityContext securityContext = SecurityContextHolder.getContext();
+
+        private final User contextUser = UserContext.getUser();
+
+        private final Locale dbLocale = UserContext.getUserSetting( UserSettingKey.DB_LOCALE );
+
+        private int submitted;
+
+        private ExportSection current;
+
+        private ExportedSnapshot snapshot;
+
+        private ParallelExport( MetadataExportParams params )
+        {
+            this.params = params;
+            this.classes = new ArrayList<>( params.getClasses() );
+        }
+
+        private synchronized Node getSection( int index )
+        {
+            // the previous section has been written once the next one is
+            // requested
+
+            releaseCurrent();
+
+            if ( snapshot == null && submitted < classes.size() )
+            {
+                snapshot = new ExportedSnapshot( classes.size() );
+            }
+
+            while ( submitted < classes.size() && submitted <= index + exportWindow )
+            {
+                Class<? extends IdentifiableObject> klass = classes.get( submitted );
+                ExportSection section = new ExportSection();
+                section.task = exportExecutor.submit( () -> exportSection( klass, section ) );
+                sections.put( submitted++, section );
+            }
+
+            current = sections.remove( index );
+
+            if ( current == null )
+            {
+                return null;
+            }
+
+            try
+            {
+                return current.node.get();
+            }
+            catch ( InterruptedException ex )
+            {
+                Thread.currentThread().interrupt();
+                cancel();
+                throw new MetadataExportException( "Metadata export was interrupted" );
+            }
+            catch ( ExecutionException ex )
+            {
+                cancel();
+                log.error( "Metadata export of " + classes.get( index ).getSimpleName() + " failed", ex.getCause() );
+                throw new MetadataExportException( "Metadata export of " + classes.get( index ).getSimpleName()
+                    + " failed: " + ex.getCause().getMessage() );
+            }
+        }
+
+        private synchronized void close()
+        {
+            releaseCurrent();
+            cancel();
+        }
+
+        private void releaseCurrent()
+        {
+            if ( current != null )
+            {
+                current.written.countDown();
+                current = null;
+            }
+        }
+
+        private void cancel()
+        {
+            if ( current != null )
+            {
+                current.cancel();
+                current = null;
+            }
+
+            sections.values().forEach( ExportSection::cancel );
+            sections.clear();
+            submitted = classes.size();
+
+            if ( snapshot != null )
+            {
+                snapshot.release();
+            }
+        }
+
+        private void exportSection( Class<? extends IdentifiableObject> klass, ExportSection section )
+        {
+            SecurityContextHolder.setContext( securityContext );
+            UserContext.setUser( contextUser );
+            UserContext.setUserSetting( UserSettingKey.DB_LOCALE, dbLocale );
+
+            try
+            {
+                readOnlyTransaction.execute( status -> {
+                    snapshot.importSnapshot();
+
+                    // the export user is loaded again as entities can not be
+                    // shared between sessions
+
+                    User user = params.getUser() != null ? userService.getUser( params.getUser().getUid() ) : null;
+
+                    List<? extends IdentifiableObject> objects = getObjects( params, klass, user );
+
+                    if ( objects.isEmpty() )
+                    {
+                        section.node.complete( null );
+                        return null;
+                    }
+
+                    log.info( "(" + params.getUsername() + ") Exported " + objects.size() + " objects of type "
+                        + klass.getSimpleName() );
+
+                    CollectionNode collectionNode = fieldFilterService.toStreamingCollectionNode( klass,
+                        getFieldFilterParams( params, klass, objects, user ) );
+
+                    // checking for objects which are not skipped builds the
+                    // first node within this transaction
+
+                    if ( collectionNode.getChildren().isEmpty() )
+                    {
+                        section.node.complete( null );
+                        return null;
+                    }
+
+                    section.node.complete( collectionNode );
+
+                    // the remaining nodes are built by the serializer, which
+                    // needs the session of this transaction to load them
+
+                    section.awaitWritten();
+
+                    return null;
+                } );
+            }
+            catch ( RuntimeException ex )
+            {
+                section.node.completeExceptionally( ex );
+            }
+            finally
+            {
+                UserContext.reset();
+                SecurityContextHolder.clearContext();
+            }
+        }
+    }
+
+    /**
+     * Section of a parallel export, completed with its collection node or null
+     * if it has no objects to export.
+     */
+    private static class ExportSection
+    {
+        private final CompletableFuture<CollectionNode> node = new CompletableFuture<>();
+
+        private final CountDownLatch written = new CountDownLatch( 1 );
+
+        private Future<?> task;
+
+        private void awaitWritten()
+        {
+            try
+            {
+                written.await();
+            }
+            catch ( InterruptedException ex )
+            {
+                Thread.currentThread().interrupt();
+                throw new MetadataExportException( "Metadata export was interrupted" );
+            }
+        }
+
+        private void cancel()
+        {
+            task.cancel( true );
+            written.countDown();
+        }
+    }
+
+    /**
+     * Snapshot exported by a transaction which is kept open until each of the
+     * section transactions of a parallel export has imported it, or the export
+     * is cancelled.
+     */
+    private class ExportedSnapshot
+    {
+        private final Connection connection;
+
+        private final String snapshotId;
+
+        private int pendingImports;
+
+        private boolean released;
+
+        private ExportedSnapshot( int imports )
+        {
+            this.pendingImports = imports;
+
+            try
+            {
+                connection = dataSource.getConnection();
+            }
+            catch ( SQLException ex )
+            {
+                throw new MetadataExportException(
+                    "Metadata export snapshot could not be obtained: " + ex.getMessage() );
+            }
+
+            try ( Statement statement = connection.createStatement() )
+            {
+                connection.setAutoCommit( false );
+                connection.setReadOnly( true );
+                connection.setTransactionIsolation( Connection.TRANSACTION_REPEATABLE_READ );
+
+                try ( ResultSet resultSet = statement.executeQuery( "select pg_export_snapshot()" ) )
+                {
+                    resultSet.next();
+                    snapshotId = resultSet.getString( 1 );
+                }
+            }
+            catch ( SQLException ex )
+            {
+                release();
+                throw new MetadataExportException(
+                    "Metadata export snapshot could not be obtained: " + ex.getMessage() );
+            }
+        }
+
+        /**
+         * Imports the snapshot into the current transaction, which must not
+         * have executed any query yet.
+         */
+        private void importSnapshot()
+        {
+            jdbcTemplate.execute( "set transaction snapshot '" + snapshotId + "'" );
+
+            synchronized ( this )
+            {
+                if ( --pendingImports == 0 )
+                {
+                    release();
+                }
+            }
+        }
+
+        private synchronized void release()
+        {
+            if ( released )
+            {
+                return;
+            }
+
+            released = true;
+
+            try
+            {
+                connection.rollback();
+                connection.setAutoCommit( true );
+                connection.setReadOnly( false );
+                connection.setTransactionIsolation( Connection.TRANSACTION_READ_COMMITTED );
+            }
+            catch ( SQLException ex )
+            {
+                log.warn( "Metadata export snapshot could not be rolled back", ex );
+            }
+
+            try
+            {
+                connection.close();
+            }
+            catch ( SQLException ex )
+            {
+                log.warn( "Metadata export snapshot connection could not be closed", ex );
+            }
+        }
+    }
+
     private boolean isSelectedClass( @Nonnull List<String> values )
     {
         if ( values.stream().anyMatch( "false"::equalsIgnoreCase ) )
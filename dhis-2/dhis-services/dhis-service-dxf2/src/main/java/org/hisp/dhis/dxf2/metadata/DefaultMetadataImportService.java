@@ -123,6 +123,7 @@ public class DefaultMetadataImportService implements MetadataImportService
 
         ObjectBundleParams bundleParams = params.toObjectBundleParams();
         ObjectBundle bundle = objectBundleService.create( bundleParams );
+        importReport.setPreheatTimes( bundle.getPreheat().getLoadTimes() );
 
         postCreateBundle( bundle, bundleParams );
 
@@ -104,6 +104,13 @@ public class MetadataExportParams
      */
     private boolean skipSharing;
 
+    /**
+     * Indicates whether object nodes should be built while the metadata node
+     * is serialized instead of up front. The metadata node must then be
+     * serialized while the exported objects are still loadable.
+     */
+    private boolean streaming;
+
     public MetadataExportParams()
     {
     }
@@ -246,4 +253,14 @@ public class MetadataExportParams
     {
         return this.skipSharing;
     }
-}
\ No newline at end of file
+
+    public boolean isStreaming()
+    {
+        return streaming;
+    }
+
+    public void setStreaming( boolean streaming )
+    {
+        this.streaming = streaming;
+    }
+}
@@ -35,6 +35,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
 
@@ -49,6 +50,7 @@ import org.hisp.dhis.feedback.Status;
 import org.hisp.dhis.feedback.TypeReport;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.dataformat.xml.annotation.JacksonXmlElementWrapper;
 import com.fasterxml.jackson.dataformat.xml.annotation.JacksonXmlProperty;
@@ -67,6 +69,8 @@ public class ImportReport implements ErrorReportContainer
 
     private final Map<Class<?>, TypeReport> typeReportMap = new HashMap<>();
 
+    private Map<String, Long> preheatTimes = new TreeMap<>();
+
     // -----------------------------------------------------------------------------------
     // Utility Methods
     // -----------------------------------------------------------------------------------
@@ -149,6 +153,23 @@ public class ImportReport implements ErrorReportContainer
         this.status = status;
     }
 
+    /**
+     * @return milliseconds spent loading referenced objects into the preheat,
+     *         by type name
+     */
+    @JsonProperty
+    @JsonInclude( JsonInclude.Include.NON_EMPTY )
+    @JacksonXmlProperty( namespace = DxfNamespaces.DXF_2_0 )
+    public Map<String, Long> getPreheatTimes()
+    {
+        return preheatTimes;
+    }
+
+    public void setPreheatTimes( Map<String, Long> preheatTimes )
+    {
+        this.preheatTimes = preheatTimes;
+    }
+
     @JsonProperty
     @JacksonXmlProperty( namespace = DxfNamespaces.DXF_2_0 )
     public Stats getStats()
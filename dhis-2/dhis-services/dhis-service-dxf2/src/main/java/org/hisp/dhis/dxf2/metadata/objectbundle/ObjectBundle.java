@@ -316,7 +316,7 @@ public class ObjectBundle implements ObjectIndexProvider
 
     @Nonnull
     @Override
-    public Integer mergeObjectIndex( @Nonnull IdentifiableObject object )
+    public synchronized Integer mergeObjectIndex( @Nonnull IdentifiableObject object )
     {
         return typedIndexedObjectContainer.mergeObjectIndex( object );
     }
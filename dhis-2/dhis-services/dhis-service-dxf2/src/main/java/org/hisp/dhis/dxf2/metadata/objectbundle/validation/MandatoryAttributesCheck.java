@@ -49,7 +49,7 @@ import org.hisp.dhis.schema.Schema;
 /**
  * @author Luciano Fiandesio
  */
-public class MandatoryAttributesCheck implements ObjectValidationCheck
+public class MandatoryAttributesCheck implements ObjectValidationCheck, ChunkableValidationCheck
 {
     @Override
     public <T extends IdentifiableObject> void check( ObjectBundle bundle, Class<T> klass,
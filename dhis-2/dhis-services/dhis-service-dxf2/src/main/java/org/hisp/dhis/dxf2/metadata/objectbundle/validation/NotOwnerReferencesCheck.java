@@ -53,7 +53,7 @@ import org.hisp.dhis.system.util.ReflectionUtils;
 /**
  * @author Morten Olav Hansen
  */
-public class NotOwnerReferencesCheck implements ValidationCheck
+public class NotOwnerReferencesCheck implements ChunkableValidationCheck
 {
     @Override
     public <T extends IdentifiableObject> TypeReport check( ObjectBundle bundle, Class<T> klass,
@@ -88,6 +88,24 @@ public class NotOwnerReferencesCheck implements ValidationCheck
         return typeReport;
     }
 
+    @Override
+    public <T extends IdentifiableObject> TypeReport mergeChunkReports( ObjectBundle bundle, Class<T> klass,
+        List<TypeReport> chunkReports )
+    {
+        // the ignored count is not the sum of the chunks, so only the object
+        // reports are merged
+
+        TypeReport typeReport = new TypeReport( klass );
+        chunkReports.forEach( chunkReport -> chunkReport.forEachObjectReport( typeReport::addObjectReport ) );
+
+        if ( typeReport.hasErrorReports() && AtomicMode.ALL == bundle.getAtomicMode() )
+        {
+            typeReport.getStats().incIgnored();
+        }
+
+        return typeReport;
+    }
+
     private List<PreheatErrorReport> checkReferences( IdentifiableObject object, PreheatIdentifier identifier,
         ValidationContext ctx )
     {
@@ -59,7 +59,7 @@ import org.hisp.dhis.user.sharing.Sharing;
 /**
  * @author Luciano Fiandesio
  */
-public class ReferencesCheck implements ValidationCheck
+public class ReferencesCheck implements ChunkableValidationCheck
 {
     @Override
     public <T extends IdentifiableObject> TypeReport check( ObjectBundle bundle, Class<T> klass,
@@ -94,6 +94,24 @@ public class ReferencesCheck implements ValidationCheck
         return typeReport;
     }
 
+    @Override
+    public <T extends IdentifiableObject> TypeReport mergeChunkReports( ObjectBundle bundle, Class<T> klass,
+        List<TypeReport> chunkReports )
+    {
+        // the ignored count is not the sum of the chunks, so only the object
+        // reports are merged
+
+        TypeReport typeReport = new TypeReport( klass );
+        chunkReports.forEach( chunkReport -> chunkReport.forEachObjectReport( typeReport::addObjectReport ) );
+
+        if ( typeReport.hasErrorReports() && AtomicMode.ALL == bundle.getAtomicMode() )
+        {
+            typeReport.getStats().incIgnored();
+        }
+
+        return typeReport;
+    }
+
     private List<PreheatErrorReport> checkReferences( IdentifiableObject object, Preheat preheat,
         PreheatIdentifier identifier, boolean skipSharing, ValidationContext ctx )
     {
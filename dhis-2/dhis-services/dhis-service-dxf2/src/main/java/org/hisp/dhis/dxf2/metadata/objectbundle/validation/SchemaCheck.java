@@ -41,7 +41,7 @@ import org.hisp.dhis.importexport.ImportStrategy;
 /**
  * @author Luciano Fiandesio
  */
-public class SchemaCheck implements ObjectValidationCheck
+public class SchemaCheck implements ObjectValidationCheck, ChunkableValidationCheck
 {
     @Override
     public <T extends IdentifiableObject> void check( ObjectBundle bundle, Class<T> klass,
@@ -82,12 +82,12 @@ public class ValidationContext
         return schemaService;
     }
 
-    public void markForRemoval( IdentifiableObject object )
+    public synchronized void markForRemoval( IdentifiableObject object )
     {
         this.markedForRemoval.add( object );
     }
 
-    public List<? extends IdentifiableObject> getMarkedForRemoval()
+    public synchronized List<? extends IdentifiableObject> getMarkedForRemoval()
     {
         return markedForRemoval;
     }
@@ -27,15 +27,26 @@
  */
 package org.hisp.dhis.dxf2.metadata.objectbundle.validation;
 
+import static java.util.Collections.emptyList;
+
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PreDestroy;
 
-import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 import org.hisp.dhis.common.IdentifiableObject;
 import org.hisp.dhis.dxf2.metadata.objectbundle.ObjectBundle;
 import org.hisp.dhis.dxf2.metadata.objectbundle.ObjectBundleHooks;
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
 import org.hisp.dhis.feedback.TypeReport;
 import org.hisp.dhis.importexport.ImportStrategy;
 import org.hisp.dhis.schema.SchemaService;
@@ -44,12 +55,13 @@ import org.hisp.dhis.security.acl.AclService;
 import org.hisp.dhis.user.UserService;
 import org.springframework.stereotype.Component;
 
+import com.google.common.collect.Lists;
+
 /**
  * @author Luciano Fiandesio
  */
 @Component
 @Slf4j
-@AllArgsConstructor
 public class ValidationFactory
 {
     private final SchemaValidator schemaValidator;
@@ -64,6 +76,56 @@ public class ValidationFactory
 
     private final Map<ImportStrategy, List<Class<? extends ValidationCheck>>> validatorMap;
 
+    /**
+     * Validates chunks of objects for {@link ChunkableValidationCheck}s, null
+     * if parallel validation is disabled.
+     */
+    private final ExecutorService chunkExecutor;
+
+    private final int chunkSize;
+
+    public ValidationFactory( SchemaValidator schemaValidator, SchemaService schemaService, AclService aclService,
+        UserService userService, ObjectBundleHooks objectBundleHooks,
+        Map<ImportStrategy, List<Class<? extends ValidationCheck>>> validatorMap,
+        DhisConfigurationProvider dhisConfig )
+    {
+        this.schemaValidator = schemaValidator;
+        this.schemaService = schemaService;
+        this.aclService = aclService;
+        this.userService = userService;
+        this.objectBundleHooks = objectBundleHooks;
+        this.validatorMap = validatorMap;
+        this.chunkSize = Math.max( 1,
+            Integer.parseInt( dhisConfig.getProperty( ConfigurationKey.METADATA_IMPORT_VALIDATION_CHUNK_SIZE ) ) );
+
+        if ( dhisConfig.isEnabled( ConfigurationKey.METADATA_IMPORT_VALIDATION_PARALLEL_ENABLED ) )
+        {
+            int workers = Math.max( 1, Integer.parseInt(
+                dhisConfig.getProperty( ConfigurationKey.METADATA_IMPORT_VALIDATION_PARALLEL_WORKERS ) ) );
+
+            AtomicInteger threadCount = new AtomicInteger();
+
+            this.chunkExecutor = Executors.newFixedThreadPool( workers, runnable -> {
+                Thread thread = new Thread( runnable, "metadata-validation-" + threadCount.incrementAndGet() );
+                thread.setDaemon( true );
+                return thread;
+            } );
+        }
+        else
+        {
+            this.chunkExecutor = null;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown()
+    {
+        if ( chunkExecutor != null )
+        {
+            chunkExecutor.shutdownNow();
+        }
+    }
+
     /**
      * Run the validation checks against the bundle
      *
@@ -78,8 +140,8 @@ public class ValidationFactory
         List<T> persistedObjects, List<T> nonPersistedObjects )
     {
         ValidationContext ctx = getContext();
-        TypeReport typeReport = new ValidationRunner( validatorMap.get( bundle.getImportMode() ) )
-            .executeValidationChain( bundle, klass, persistedObjects, nonPersistedObjects, ctx );
+        TypeReport typeReport = new ValidationRunner( validatorMap.get( bundle.getImportMode() ), chunkExecutor,
+            chunkSize ).executeValidationChain( bundle, klass, persistedObjects, nonPersistedObjects, ctx );
 
         // Remove invalid objects from the bundle
         removeFromBundle( klass, ctx, bundle );
@@ -140,9 +202,16 @@ public class ValidationFactory
     {
         private List<Class<? extends ValidationCheck>> validators;
 
-        public ValidationRunner( List<Class<? extends ValidationCheck>> validators )
+        private final ExecutorService chunkExecutor;
+
+        private final int chunkSize;
+
+        public ValidationRunner( List<Class<? extends ValidationCheck>> validators, ExecutorService chunkExecutor,
+            int chunkSize )
         {
             this.validators = validators;
+            this.chunkExecutor = chunkExecutor;
+            this.chunkSize = chunkSize;
         }
 
         public <T extends IdentifiableObject> TypeReport executeValidationChain( ObjectBundle bundle, Class<T> klass,
@@ -155,8 +224,18 @@ public class ValidationFactory
                 try
                 {
                     ValidationCheck validationCheck = validator.newInstance();
-                    typeReport.merge( validationCheck.check( bundle, klass, persistedObjects, nonPersistedObjects,
-                        bundle.getImportMode(), ctx ) );
+
+                    if ( chunkExecutor != null && validationCheck instanceof ChunkableValidationCheck
+                        && persistedObjects.size() + nonPersistedObjects.size() > chunkSize )
+                    {
+                        typeReport.merge( checkInChunks( (ChunkableValidationCheck) validationCheck, bundle, klass,
+                            persistedObjects, nonPersistedObjects, ctx ) );
+                    }
+                    else
+                    {
+                        typeReport.merge( validationCheck.check( bundle, klass, persistedObjects,
+                            nonPersistedObjects, bundle.getImportMode(), ctx ) );
+                    }
                 }
                 catch ( InstantiationException | IllegalAccessException e )
                 {
@@ -165,5 +244,58 @@ public class ValidationFactory
             }
             return typeReport;
         }
+
+        /**
+         * Runs the check concurrently for chunks of the persisted and
+         * non-persisted objects, and merges the reports in chunk order so that
+         * the result does not depend on the order in which chunks complete.
+         */
+        private <T extends IdentifiableObject> TypeReport checkInChunks( ChunkableValidationCheck validationCheck,
+            ObjectBundle bundle, Class<T> klass, List<T> persistedObjects, List<T> nonPersistedObjects,
+            ValidationContext ctx )
+        {
+            List<Future<TypeReport>> chunks = new ArrayList<>();
+
+            for ( List<T> chunk : Lists.partition( persistedObjects, chunkSize ) )
+            {
+                chunks.add( chunkExecutor.submit( () -> validationCheck.check( bundle, klass, chunk, emptyList(),
+                    bundle.getImportMode(), ctx ) ) );
+            }
+
+            for ( List<T> chunk : Lists.partition( nonPersistedObjects, chunkSize ) )
+            {
+                chunks.add( chunkExecutor.submit( () -> validationCheck.check( bundle, klass, emptyList(), chunk,
+                    bundle.getImportMode(), ctx ) ) );
+            }
+
+            List<TypeReport> chunkReports = new ArrayList<>();
+
+            try
+            {
+                for ( Future<TypeReport> chunk : chunks )
+                {
+                    chunkReports.add( chunk.get() );
+                }
+            }
+            catch ( InterruptedException ex )
+            {
+                chunks.forEach( chunk -> chunk.cancel( true ) );
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException( "Metadata import validation was interrupted", ex );
+            }
+            catch ( ExecutionException ex )
+            {
+                chunks.forEach( chunk -> chunk.cancel( true ) );
+
+                if ( ex.getCause() instanceof RuntimeException )
+                {
+                    throw (RuntimeException) ex.getCause();
+                }
+
+                throw new IllegalStateException( ex.getCause() );
+            }
+
+            return validationCheck.mergeChunkReports( bundle, klass, chunkReports );
+        }
     }
 }
@@ -72,7 +72,7 @@ public class MetadataSyncPreProcessor
 
     private final DataSynchronizationWithPaging eventSync;
 
-    private final DataSynchronizationWithPaging dataValueSync;
+    private final DataValueSynchronization dataValueSync;
 
     private final DataSynchronizationWithoutPaging completeDataSetRegistrationSync;
 
@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.dxf2.sync;
+
+import java.util.Date;
+
+import org.hisp.dhis.dxf2.datavalueset.DataValueCursor;
+
+/**
+ * Persists the progress of data value synchronization per target instance, so
+ * that a failed synchronization resumes after the last page which was
+ * accepted by the target.
+ */
+public interface DataValueSyncCheckpointStore
+{
+    /**
+     * Returns the checkpoint for the given target, if one was saved for a
+     * synchronization of the same window.
+     *
+     * @param target the target instance URL.
+     * @param lastUpdatedAfter the start of the synchronization window.
+     * @return the cursor of the last synchronized data value, or null.
+     */
+    DataValueCursor getCheckpoint( String target, Date lastUpdatedAfter );
+
+    /**
+     * Saves the checkpoint for the given target, replacing any existing one.
+     *
+     * @param target the target instance URL.
+     * @param lastUpdatedAfter the start of the synchronization window.
+     * @param cursor the cursor of the last synchronized data value.
+     */
+    void saveCheckpoint( String target, Date lastUpdatedAfter, DataValueCursor cursor );
+
+    /**
+     * Removes the checkpoint for the given target.
+     *
+     * @param target the target instance URL.
+     */
+    void deleteCheckpoint( String target );
+}
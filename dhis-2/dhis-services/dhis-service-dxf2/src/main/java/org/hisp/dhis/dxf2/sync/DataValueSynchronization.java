@@ -29,13 +29,21 @@ package org.hisp.dhis.dxf2.sync;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import java.io.ByteArrayOutputStream;
 import java.util.Date;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
+import lombok.Value;
 import lombok.extern.slf4j.Slf4j;
 
 import org.hisp.dhis.common.IdSchemes;
 import org.hisp.dhis.datavalue.DataValueService;
+import org.hisp.dhis.dxf2.datavalueset.DataValueCursor;
 import org.hisp.dhis.dxf2.datavalueset.DataValueSetService;
+import org.hisp.dhis.dxf2.synch.SystemInstance;
 import org.hisp.dhis.setting.SettingKey;
 import org.hisp.dhis.setting.SystemSettingManager;
 import org.hisp.dhis.system.util.Clock;
@@ -46,11 +54,20 @@ import org.springframework.web.client.RequestCallback;
 import org.springframework.web.client.RestTemplate;
 
 /**
+ * Synchronizes data values changed since the last successful synchronization
+ * to the remote instance.
+ * <p>
+ * Data values are paged with a keyset cursor on last updated time and primary
+ * key. After each page accepted by the remote instance the cursor is saved as
+ * checkpoint for the instance, so that a failed synchronization resumes after
+ * the last accepted page instead of starting over. The export of the next
+ * page overlaps with the POST of the current page.
+ *
  * @author David Katuscak <katuscak.d@gmail.com>
  */
 @Slf4j
 @Component
-public class DataValueSynchronization extends DataSynchronizationWithPaging
+public class DataValueSynchronization
 {
     private final DataValueService dataValueService;
 
@@ -60,23 +77,25 @@ public class DataValueSynchronization extends DataSynchronizationWithPaging
 
     private final RestTemplate restTemplate;
 
-    private Date lastUpdatedAfter;
+    private final DataValueSyncCheckpointStore checkpointStore;
 
     public DataValueSynchronization( DataValueService dataValueService, DataValueSetService dataValueSetService,
-        SystemSettingManager systemSettingManager, RestTemplate restTemplate )
+        SystemSettingManager systemSettingManager, RestTemplate restTemplate,
+        DataValueSyncCheckpointStore checkpointStore )
     {
         checkNotNull( dataValueService );
         checkNotNull( dataValueSetService );
         checkNotNull( systemSettingManager );
         checkNotNull( restTemplate );
+        checkNotNull( checkpointStore );
 
         this.dataValueService = dataValueService;
         this.dataValueSetService = dataValueSetService;
         this.systemSettingManager = systemSettingManager;
         this.restTemplate = restTemplate;
+        this.checkpointStore = checkpointStore;
     }
 
-    @Override
     public SynchronizationResult synchronizeData( final int pageSize )
     {
         if ( !SyncUtils.testServerAvailability( systemSettingManager, restTemplate ).isAvailable() )
@@ -87,7 +106,18 @@ public class DataValueSynchronization extends DataSynchronizationWithPaging
 
         log.info( "Starting DataValueSynchronization job." );
 
-        initializeSyncVariables( pageSize );
+        final Clock clock = new Clock( log ).startClock().logTime( "Starting DataValueSynchronization job" );
+        final Date lastSuccessTime = SyncUtils.getLastSyncSuccess( systemSettingManager,
+            SettingKey.LAST_SUCCESSFUL_DATA_VALUE_SYNC );
+        final Date skipChangedBefore = systemSettingManager
+            .getDateSetting( SettingKey.SKIP_SYNCHRONIZATION_FOR_DATA_CHANGED_BEFORE );
+        final Date lastUpdatedAfter = lastSuccessTime.after( skipChangedBefore ) ? lastSuccessTime
+            : skipChangedBefore;
+
+        final int objectsToSynchronize = dataValueService.getDataValueCountLastUpdatedAfter( lastUpdatedAfter,
+            true );
+
+        log.info( "DataValues last changed before " + skipChangedBefore + " will not be synchronized." );
 
         if ( objectsToSynchronize == 0 )
         {
@@ -96,10 +126,17 @@ public class DataValueSynchronization extends DataSynchronizationWithPaging
                 .newSuccessResultWithMessage( "Skipping synchronization, no new or updated DataValues" );
         }
 
-        runSyncWithPaging( pageSize );
+        final SystemInstance instance = SyncUtils.getRemoteInstance( systemSettingManager,
+            SyncEndpoint.DATA_VALUE_SETS );
+
+        log.info( objectsToSynchronize + " DataValues to synchronize were found." );
+        log.info( "Remote server URL for DataValues POST sync: " + instance.getUrl() );
+        log.info( "DataValueSynchronization job has page size: " + pageSize );
 
-        if ( syncResult )
+        if ( runSyncWithCursor( instance, lastUpdatedAfter, pageSize ) )
         {
+            checkpointStore.deleteCheckpoint( instance.getUrl() );
+
             clock.logTime( "SUCCESS! DataValueSynchronization job is done. It took" );
             SyncUtils.setLastSyncSuccess( systemSettingManager, SettingKey.LAST_SUCCESSFUL_DATA_VALUE_SYNC,
                 new Date( clock.getStartTime() ) );
@@ -110,55 +147,109 @@ public class DataValueSynchronization extends DataSynchronizationWithPaging
         return SynchronizationResult.newFailureResultWithMessage( "DataValueSynchronization failed." );
     }
 
-    private void initializeSyncVariables( final int pageSize )
+    /**
+     * Sends all pages after the checkpoint of the given instance. The next
+     * page is exported while the current page is posted, and the checkpoint
+     * is advanced once the remote instance has accepted the current page.
+     *
+     * @return true if all pages were accepted, false otherwise.
+     */
+    private boolean runSyncWithCursor( SystemInstance instance, Date lastUpdatedAfter, int pageSize )
     {
-        clock = new Clock( log ).startClock().logTime( "Starting DataValueSynchronization job" );
-        final Date lastSuccessTime = SyncUtils.getLastSyncSuccess( systemSettingManager,
-            SettingKey.LAST_SUCCESSFUL_DATA_VALUE_SYNC );
-        final Date skipChangedBefore = systemSettingManager
-            .getDateSetting( SettingKey.SKIP_SYNCHRONIZATION_FOR_DATA_CHANGED_BEFORE );
-        lastUpdatedAfter = lastSuccessTime.after( skipChangedBefore ) ? lastSuccessTime : skipChangedBefore;
+        DataValueCursor checkpoint = checkpointStore.getCheckpoint( instance.getUrl(), lastUpdatedAfter );
 
-        objectsToSynchronize = dataValueService.getDataValueCountLastUpdatedAfter( lastUpdatedAfter, true );
+        if ( checkpoint != null )
+        {
+            log.info( "Resuming DataValueSynchronization after checkpoint: " + checkpoint );
+        }
 
-        log.info( "DataValues last changed before " + skipChangedBefore + " will not be synchronized." );
+        ExecutorService postExecutor = Executors.newSingleThreadExecutor( runnable -> {
+            Thread thread = new Thread( runnable, "data-value-sync-post" );
+            thread.setDaemon( true );
+            return thread;
+        } );
 
-        if ( objectsToSynchronize != 0 )
+        try
         {
-            instance = SyncUtils.getRemoteInstance( systemSettingManager, SyncEndpoint.DATA_VALUE_SETS );
+            Page page = exportPage( lastUpdatedAfter, checkpoint, pageSize );
+            int pageNumber = 1;
+
+            while ( page.getCursor() != null )
+            {
+                final Page current = page;
 
-            // Using this approach as (int) Match.ceil doesn't work until I cast
-            // int to double
-            pages = (objectsToSynchronize / pageSize) + ((objectsToSynchronize % pageSize == 0) ? 0 : 1);
+                log.info( String.format( "Synchronizing page %d with page size %d", pageNumber, pageSize ) );
 
-            log.info( objectsToSynchronize + " DataValues to synchronize were found." );
-            log.info( "Remote server URL for DataValues POST sync: " + instance.getUrl() );
-            log.info( "DataValueSynchronization job has " + pages + " pages to sync. With page size: " + pageSize );
+                Future<Boolean> post = postExecutor.submit( () -> sendSyncRequest( instance, current.getContent() ) );
+
+                page = exportPage( lastUpdatedAfter, current.getCursor(), pageSize );
+
+                if ( !awaitPost( post ) )
+                {
+                    log.error( String.format( "Synchronizing page %d failed, next run resumes after the last "
+                        + "accepted page", pageNumber ) );
+                    return false;
+                }
+
+                checkpointStore.saveCheckpoint( instance.getUrl(), lastUpdatedAfter, current.getCursor() );
+                pageNumber++;
+            }
+
+            return true;
+        }
+        finally
+        {
+            postExecutor.shutdownNow();
         }
     }
 
-    protected void synchronizePage( int page, int pageSize )
+    private Page exportPage( Date lastUpdatedAfter, DataValueCursor after, int pageSize )
     {
-        log.info( String.format( "Synchronizing page %d with page size %d", page, pageSize ) );
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        DataValueCursor cursor = dataValueSetService.writeDataValueSetJson( lastUpdatedAfter, after, out,
+            new IdSchemes(), pageSize );
+
+        return new Page( out.toByteArray(), cursor );
+    }
 
-        if ( !sendSyncRequest( pageSize, page ) )
+    private boolean awaitPost( Future<Boolean> post )
+    {
+        try
+        {
+            return post.get();
+        }
+        catch ( InterruptedException ex )
+        {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        catch ( ExecutionException ex )
         {
-            syncResult = false;
+            log.error( "DataValueSynchronization request failed", ex.getCause() );
+            return false;
         }
     }
 
-    private boolean sendSyncRequest( int syncPageSize, int page )
+    private boolean sendSyncRequest( SystemInstance instance, byte[] content )
     {
         final RequestCallback requestCallback = request -> {
             request.getHeaders().setContentType( MediaType.APPLICATION_JSON );
             request.getHeaders().add( SyncUtils.HEADER_AUTHORIZATION,
                 CodecUtils.getBasicAuthString( instance.getUsername(), instance.getPassword() ) );
 
-            dataValueSetService.writeDataValueSetJson( lastUpdatedAfter, request.getBody(), new IdSchemes(),
-                syncPageSize, page );
+            request.getBody().write( content );
         };
 
         return SyncUtils.sendSyncRequest( systemSettingManager, restTemplate, requestCallback, instance,
             SyncEndpoint.DATA_VALUE_SETS );
     }
+
+    @Value
+    private static class Page
+    {
+        byte[] content;
+
+        DataValueCursor cursor;
+    }
 }
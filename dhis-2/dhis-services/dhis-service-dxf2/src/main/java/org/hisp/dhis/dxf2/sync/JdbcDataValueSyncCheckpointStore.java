@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.dxf2.sync;
+
+import java.sql.Timestamp;
+import java.util.Date;
+import java.util.List;
+
+import lombok.RequiredArgsConstructor;
+
+import org.hisp.dhis.dxf2.datavalueset.DataValueCursor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Stores data value synchronization checkpoints in the
+ * {@code datavaluesynccheckpoint} table, one row per target instance.
+ */
+@Repository
+@RequiredArgsConstructor
+public class JdbcDataValueSyncCheckpointStore
+    implements DataValueSyncCheckpointStore
+{
+    private static final String SELECT_SQL = "select lastupdated, dataelementid, periodid, sourceid, "
+        + "categoryoptioncomboid, attributeoptioncomboid from datavaluesynccheckpoint "
+        + "where target = ? and lastupdatedafter = ?";
+
+    private static final String UPSERT_SQL = "insert into datavaluesynccheckpoint (target, lastupdatedafter, "
+        + "lastupdated, dataelementid, periodid, sourceid, categoryoptioncomboid, attributeoptioncomboid, updated) "
+        + "values (?, ?, ?, ?, ?, ?, ?, ?, now()) "
+        + "on conflict (target) do update set lastupdatedafter = excluded.lastupdatedafter, "
+        + "lastupdated = excluded.lastupdated, dataelementid = excluded.dataelementid, "
+        + "periodid = excluded.periodid, sourceid = excluded.sourceid, "
+        + "categoryoptioncomboid = excluded.categoryoptioncomboid, "
+        + "attributeoptioncomboid = excluded.attributeoptioncomboid, updated = excluded.updated";
+
+    private static final String DELETE_SQL = "delete from datavaluesynccheckpoint where target = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public DataValueCursor getCheckpoint( String target, Date lastUpdatedAfter )
+    {
+        List<DataValueCursor> cursors = jdbcTemplate.query( SELECT_SQL,
+            ( rs, rowNum ) -> new DataValueCursor( rs.getTimestamp( "lastupdated" ), rs.getLong( "dataelementid" ),
+                rs.getLong( "periodid" ), rs.getLong( "sourceid" ), rs.getLong( "categoryoptioncomboid" ),
+                rs.getLong( "attributeoptioncomboid" ) ),
+            target, new Timestamp( lastUpdatedAfter.getTime() ) );
+
+        return cursors.isEmpty() ? null : cursors.get( 0 );
+    }
+
+    @Override
+    public void saveCheckpoint( String target, Date lastUpdatedAfter, DataValueCursor cursor )
+    {
+        jdbcTemplate.update( UPSERT_SQL, target, new Timestamp( lastUpdatedAfter.getTime() ),
+            cursor.getLastUpdated(), cursor.getDataElementId(), cursor.getPeriodId(),
+            cursor.getSourceId(), cursor.getCategoryOptionComboId(), cursor.getAttributeOptionComboId() );
+    }
+
+    @Override
+    public void deleteCheckpoint( String target )
+    {
+        jdbcTemplate.update( DELETE_SQL, target );
+    }
+}
@@ -38,15 +38,21 @@ import static org.hisp.dhis.DhisConvenienceTest.createOrganisationUnit;
 import static org.hisp.dhis.DhisConvenienceTest.createPeriod;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.powermock.api.mockito.PowerMockito.whenNew;
 
 import java.io.ByteArrayInputStream;
-import java.util.Arrays;
+import java.io.InputStream;
+import java.util.Collection;
 import java.util.Collections;
-import java.util.stream.Collectors;
+import java.util.HashSet;
+import java.util.List;
 
 import org.hisp.dhis.cache.CacheBuilderProvider;
 import org.hisp.dhis.cache.DefaultCacheBuilderProvider;
@@ -68,13 +74,13 @@ import org.hisp.dhis.datavalue.DefaultAggregateAccessManager;
 import org.hisp.dhis.dxf2.common.ImportOptions;
 import org.hisp.dhis.dxf2.importsummary.ImportStatus;
 import org.hisp.dhis.dxf2.importsummary.ImportSummary;
+import org.hisp.dhis.importexport.ImportStrategy;
 import org.hisp.dhis.dxf2.util.InputUtils;
 import org.hisp.dhis.external.conf.ConfigurationKey;
 import org.hisp.dhis.external.conf.DhisConfigurationProvider;
 import org.hisp.dhis.feedback.ErrorCode;
 import org.hisp.dhis.i18n.I18n;
 import org.hisp.dhis.i18n.I18nManager;
-import org.hisp.dhis.jdbc.batchhandler.CompleteDataSetRegistrationBatchHandler;
 import org.hisp.dhis.message.MessageService;
 import org.hisp.dhis.organisationunit.OrganisationUnit;
 import org.hisp.dhis.organisationunit.OrganisationUnitService;
@@ -88,12 +94,11 @@ import org.hisp.dhis.system.notification.NotificationLevel;
 import org.hisp.dhis.system.notification.Notifier;
 import org.hisp.dhis.user.CurrentUserService;
 import org.hisp.dhis.user.User;
-import org.hisp.quick.BatchHandler;
-import org.hisp.quick.BatchHandlerFactory;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnit;
 import org.mockito.junit.MockitoRule;
@@ -128,9 +133,6 @@ public class DefaultCompleteDataSetRegistrationExchangeServiceTest
     @Mock
     private I18nManager i18nManager;
 
-    @Mock
-    private BatchHandlerFactory batchHandlerFactory;
-
     @Mock
     private SystemSettingManager systemSettingManager;
 
@@ -155,9 +157,6 @@ public class DefaultCompleteDataSetRegistrationExchangeServiceTest
     @Mock
     private I18n i18n;
 
-    @Mock
-    private BatchHandler<CompleteDataSetRegistration> batchHandler;
-
     @Mock
     private MetadataCaches metaDataCaches;
 
@@ -200,6 +199,20 @@ public class DefaultCompleteDataSetRegistrationExchangeServiceTest
 
     private CategoryOptionCombo DEFAULT_COC;
 
+    private OrganisationUnit organisationUnit;
+
+    private DataSet dataSetA;
+
+    private CategoryCombo categoryCombo;
+
+    private CategoryOption categoryOptionA;
+
+    private CategoryOption categoryOptionB;
+
+    private CategoryOptionCombo categoryOptionCombo;
+
+    private Period period;
+
     @Before
     public void setUp()
     {
@@ -218,32 +231,187 @@ public class DefaultCompleteDataSetRegistrationExchangeServiceTest
             cacheContext );
 
         subject = new DefaultCompleteDataSetRegistrationExchangeService( cdsrStore, idObjManager, orgUnitService,
-            notifier, i18nManager, batchHandlerFactory, systemSettingManager, categoryService, periodService,
+            notifier, i18nManager, systemSettingManager, categoryService, periodService,
             currentUserService, registrationService, inputUtils, aggregateAccessManager, notificationPublisher,
             messageService, JacksonObjectMapperConfig.staticJsonMapper() );
 
         DEFAULT_COC = new CategoryOptionCombo();
+
+        organisationUnit = createOrganisationUnit( 'A' );
+        dataSetA = createDataSet( 'A', new MonthlyPeriodType() );
+        categoryCombo = createCategoryCombo( 'A' );
+        categoryOptionA = createCategoryOption( 'A' );
+        categoryOptionB = createCategoryOption( 'B' );
+        categoryOptionCombo = createCategoryOptionCombo( categoryCombo, categoryOptionA, categoryOptionB );
+        period = createPeriod( "201907" );
     }
 
     @Test
     public void verifyUserHasNoWritePermissionOnCategoryOption()
         throws Exception
     {
-        OrganisationUnit organisationUnit = createOrganisationUnit( 'A' );
-        DataSet dataSetA = createDataSet( 'A', new MonthlyPeriodType() );
-        CategoryCombo categoryCombo = createCategoryCombo( 'A' );
-        CategoryOption categoryOptionA = createCategoryOption( 'A' );
-        CategoryOption categoryOptionB = createCategoryOption( 'B' );
-        CategoryOptionCombo categoryOptionCombo = createCategoryOptionCombo( categoryCombo, categoryOptionA,
-            categoryOptionB );
-        Period period = createPeriod( "201907" );
-
-        String payload = createPayload( period, organisationUnit, dataSetA, categoryCombo, categoryOptionA,
-            categoryOptionB );
+        mockImportDependencies();
+
+        // force error on access check for Category Option Combo
+        when( aclService.canDataWrite( user, dataSetA ) ).thenReturn( true );
+        when( aclService.canDataWrite( user, categoryOptionA ) ).thenReturn( false );
+        when( aclService.canDataWrite( user, categoryOptionB ) ).thenReturn( true );
+
+        // call method under test
+        ImportSummary summary = subject.saveCompleteDataSetRegistrationsJson( createPayload( 1 ),
+            new ImportOptions() );
+
+        assertThat( summary.getStatus(), is( ImportStatus.ERROR ) );
+        assertThat( summary.getImportCount().getIgnored(), is( 1 ) );
+        assertEquals( 1, summary.getConflictCount() );
+        assertThat( summary.getConflicts().iterator().next().getValue(),
+            is( "User has no data write access for CategoryOption: " + categoryOptionA.getUid() ) );
+        verify( cdsrStore, never() ).getExistingCompleteDataSetRegistrations( any() );
+    }
+
+    @Test
+    public void testImportNewRegistration()
+        throws Exception
+    {
+        mockImportDependencies();
+        when( aclService.canDataWrite( eq( user ), any() ) ).thenReturn( true );
+        when( cdsrStore.getExistingCompleteDataSetRegistrations( any() ) ).thenReturn( new HashSet<>() );
+
+        ImportSummary summary = subject.saveCompleteDataSetRegistrationsJson( createPayload( 1 ),
+            new ImportOptions() );
+
+        assertImportCount( summary, 1, 0, 0, 0 );
+        assertThat( summary.getStatus(), is( ImportStatus.SUCCESS ) );
+
+        CompleteDataSetRegistration registration = getSavedRegistrations().get( 0 );
+
+        assertEquals( dataSetA, registration.getDataSet() );
+        assertEquals( period, registration.getPeriod() );
+        assertEquals( categoryOptionCombo, registration.getAttributeOptionCombo() );
+        assertTrue( registration.getCompleted() );
+        assertTrue( getDeletedRegistrations().isEmpty() );
+        verify( notificationPublisher ).publishEvent( registration );
+    }
+
+    @Test
+    public void testImportExistingRegistrationIsUpdated()
+        throws Exception
+    {
+        mockImportDependencies();
+        when( aclService.canDataWrite( eq( user ), any() ) ).thenReturn( true );
+        mockAllRegistrationsExist();
+
+        ImportSummary summary = subject.saveCompleteDataSetRegistrationsJson( createPayload( 1 ),
+            new ImportOptions() );
+
+        assertImportCount( summary, 0, 1, 0, 0 );
+        assertEquals( 1, getSavedRegistrations().size() );
+        assertTrue( getDeletedRegistrations().isEmpty() );
+        verify( notificationPublisher, never() ).publishEvent( any() );
+    }
+
+    @Test
+    public void testImportExistingRegistrationIsDeleted()
+        throws Exception
+    {
+        mockImportDependencies();
+        when( aclService.canDataWrite( eq( user ), any() ) ).thenReturn( true );
+        mockAllRegistrationsExist();
+
+        ImportSummary summary = subject.saveCompleteDataSetRegistrationsJson( createPayload( 1 ),
+            new ImportOptions().setImportStrategy( ImportStrategy.DELETE ) );
+
+        assertImportCount( summary, 0, 0, 0, 1 );
+        assertTrue( getSavedRegistrations().isEmpty() );
+        assertEquals( 1, getDeletedRegistrations().size() );
+    }
+
+    @Test
+    public void testImportDeleteOfMissingRegistrationIsIgnored()
+        throws Exception
+    {
+        mockImportDependencies();
+        when( aclService.canDataWrite( eq( user ), any() ) ).thenReturn( true );
+        when( cdsrStore.getExistingCompleteDataSetRegistrations( any() ) ).thenReturn( new HashSet<>() );
+
+        ImportSummary summary = subject.saveCompleteDataSetRegistrationsJson( createPayload( 1 ),
+            new ImportOptions().setImportStrategy( ImportStrategy.DELETE ) );
+
+        assertImportCount( summary, 0, 0, 1, 0 );
+        assertThat( summary.getStatus(), is( ImportStatus.ERROR ) );
+        assertTrue( getSavedRegistrations().isEmpty() );
+        assertTrue( getDeletedRegistrations().isEmpty() );
+    }
+
+    @Test
+    @SuppressWarnings( "unchecked" )
+    public void testImportLooksUpExistingRegistrationsPerChunk()
+        throws Exception
+    {
+        mockImportDependencies();
+        when( aclService.canDataWrite( eq( user ), any() ) ).thenReturn( true );
+        when( cdsrStore.getExistingCompleteDataSetRegistrations( any() ) ).thenReturn( new HashSet<>() );
 
+        // the same registration repeated, so all but one per chunk are ignored
+
+        ImportSummary summary = subject.saveCompleteDataSetRegistrationsJson( createPayload( 1001 ),
+            new ImportOptions() );
+
+        ArgumentCaptor<Collection<CompleteDataSetRegistration>> lookups = ArgumentCaptor.forClass( Collection.class );
+
+        verify( cdsrStore, times( 2 ) ).getExistingCompleteDataSetRegistrations( lookups.capture() );
+
+        assertEquals( 1000, lookups.getAllValues().get( 0 ).size() );
+        assertEquals( 1, lookups.getAllValues().get( 1 ).size() );
+
+        ArgumentCaptor<List<CompleteDataSetRegistration>> saves = ArgumentCaptor.forClass( List.class );
+
+        verify( cdsrStore, times( 2 ) ).saveCompleteDataSetRegistrations( saves.capture() );
+
+        assertEquals( 1, saves.getAllValues().get( 0 ).size() );
+        assertEquals( 1, saves.getAllValues().get( 1 ).size() );
+
+        assertImportCount( summary, 2, 0, 999, 0 );
+    }
+
+    @Test
+    public void testImportDryRunDoesNotWrite()
+        throws Exception
+    {
+        mockImportDependencies();
+        when( aclService.canDataWrite( eq( user ), any() ) ).thenReturn( true );
+        when( cdsrStore.getExistingCompleteDataSetRegistrations( any() ) ).thenReturn( new HashSet<>() );
+
+        ImportSummary summary = subject.saveCompleteDataSetRegistrationsJson( createPayload( 2 ),
+            new ImportOptions().setDryRun( true ) );
+
+        assertImportCount( summary, 2, 0, 0, 0 );
+        verify( cdsrStore, never() ).saveCompleteDataSetRegistrations( any() );
+        verify( cdsrStore, never() ).deleteCompleteDataSetRegistrations( any() );
+        verify( notificationPublisher, never() ).publishEvent( any() );
+    }
+
+    @Test
+    public void testValidateAssertMissingDataSet()
+    {
+        ExportParams params = new ExportParams()
+            .setOrganisationUnits( Sets.newHashSet( new OrganisationUnit() ) )
+            .setPeriods( Sets.newHashSet( new Period() ) );
+
+        assertIllegalQueryEx(
+            assertThrows( IllegalQueryException.class, () -> subject.validate( params ) ),
+            ErrorCode.E2013 );
+    }
+
+    /**
+     * Stubs the meta-data lookups, caches and settings of an import of the
+     * registration created by {@link #createPayload(int)}.
+     */
+    private void mockImportDependencies()
+        throws Exception
+    {
         whenNew( MetadataCaches.class ).withNoArguments().thenReturn( metaDataCaches );
         when( currentUserService.getCurrentUser() ).thenReturn( user );
-        when( batchHandler.init() ).thenReturn( batchHandler );
         when( idObjManager.get( CategoryCombo.class, categoryCombo.getUid() ) ).thenReturn( categoryCombo );
         when( idObjManager.getObject( CategoryOption.class, IdScheme.UID, categoryOptionA.getUid() ) )
             .thenReturn( categoryOptionA );
@@ -255,7 +423,7 @@ public class DefaultCompleteDataSetRegistrationExchangeServiceTest
 
         when( datasetCache.get( eq( dataSetA.getUid() ), any() ) ).thenReturn( dataSetA );
         when( periodCache.get( eq( period.getIsoDate() ), any() ) ).thenReturn( period );
-        when( orgUnitCache.get( eq( organisationUnit.getUid() ), any() ) ).thenReturn( createOrganisationUnit( 'A' ) );
+        when( orgUnitCache.get( eq( organisationUnit.getUid() ), any() ) ).thenReturn( organisationUnit );
 
         when( orgUnitInHierarchyCache.get( eq( organisationUnit.getUid() ), any() ) ).thenReturn( Boolean.TRUE );
         when( attrOptComboOrgUnitCache.get( eq( categoryOptionCombo.getUid() + organisationUnit.getUid() ), any() ) )
@@ -263,11 +431,6 @@ public class DefaultCompleteDataSetRegistrationExchangeServiceTest
         when( categoryService.getCategoryOptionCombo( categoryOptionCombo.getUid() ) )
             .thenReturn( categoryOptionCombo );
 
-        // force error on access check for Category Option Combo
-        when( aclService.canDataWrite( user, dataSetA ) ).thenReturn( true );
-        when( aclService.canDataWrite( user, categoryOptionA ) ).thenReturn( false );
-        when( aclService.canDataWrite( user, categoryOptionB ) ).thenReturn( true );
-
         when( notifier.clear( null ) ).thenReturn( notifier );
         when( systemSettingManager.getBoolSetting( SettingKey.DATA_IMPORT_STRICT_PERIODS ) )
             .thenReturn( false );
@@ -283,8 +446,6 @@ public class DefaultCompleteDataSetRegistrationExchangeServiceTest
         when( i18nManager.getI18n() ).thenReturn( i18n );
 
         when( categoryService.getDefaultCategoryOptionCombo() ).thenReturn( DEFAULT_COC );
-        when( batchHandlerFactory.createBatchHandler( CompleteDataSetRegistrationBatchHandler.class ) )
-            .thenReturn( batchHandler );
 
         // caches
         when( metaDataCaches.getDataSets() ).thenReturn( datasetCache );
@@ -296,38 +457,60 @@ public class DefaultCompleteDataSetRegistrationExchangeServiceTest
         when( metaDataCaches.getAttrOptComboOrgUnitMap() ).thenReturn( attrOptComboOrgUnitCache );
 
         when( notifier.notify( null, NotificationLevel.INFO, "Import done", true ) ).thenReturn( notifier );
+    }
 
-        // call method under test
-        ImportSummary summary = subject.saveCompleteDataSetRegistrationsJson(
-            new ByteArrayInputStream( payload.getBytes() ), new ImportOptions() );
+    /**
+     * Makes the store report every looked up registration as existing.
+     */
+    private void mockAllRegistrationsExist()
+    {
+        when( cdsrStore.getExistingCompleteDataSetRegistrations( any() ) )
+            .thenAnswer( invocation -> new HashSet<>( invocation.getArgument( 0 ) ) );
+    }
 
-        assertThat( summary.getStatus(), is( ImportStatus.ERROR ) );
-        assertThat( summary.getImportCount().getIgnored(), is( 1 ) );
-        assertEquals( 1, summary.getConflictCount() );
-        assertThat( summary.getConflicts().iterator().next().getValue(),
-            is( "User has no data write access for CategoryOption: " + categoryOptionA.getUid() ) );
+    @SuppressWarnings( "unchecked" )
+    private List<CompleteDataSetRegistration> getSavedRegistrations()
+    {
+        ArgumentCaptor<List<CompleteDataSetRegistration>> captor = ArgumentCaptor.forClass( List.class );
+
+        verify( cdsrStore ).saveCompleteDataSetRegistrations( captor.capture() );
+
+        return captor.getValue();
     }
 
-    @Test
-    public void testValidateAssertMissingDataSet()
+    @SuppressWarnings( "unchecked" )
+    private List<CompleteDataSetRegistration> getDeletedRegistrations()
     {
-        ExportParams params = new ExportParams()
-            .setOrganisationUnits( Sets.newHashSet( new OrganisationUnit() ) )
-            .setPeriods( Sets.newHashSet( new Period() ) );
+        ArgumentCaptor<List<CompleteDataSetRegistration>> captor = ArgumentCaptor.forClass( List.class );
 
-        assertIllegalQueryEx(
-            assertThrows( IllegalQueryException.class, () -> subject.validate( params ) ),
-            ErrorCode.E2013 );
+        verify( cdsrStore ).deleteCompleteDataSetRegistrations( captor.capture() );
+
+        return captor.getValue();
     }
 
-    private String createPayload( Period period, OrganisationUnit organisationUnit, DataSet dataSet,
-        CategoryCombo categoryCombo, CategoryOption... categoryOptions )
+    private static void assertImportCount( ImportSummary summary, int imported, int updated, int ignored,
+        int deleted )
     {
-        return "{\"completeDataSetRegistrations\":[{\"cc\":\"" + categoryCombo.getUid() + "\","
-            + "\"cp\":\""
-            + Arrays.stream( categoryOptions ).map( CategoryOption::getUid ).collect( Collectors.joining( ";" ) )
-            + "\"," + "\"dataSet\":\"" + dataSet.getUid() + "\"," + "\"period\":\"" + period.getIsoDate() + "\","
-            + "\"organisationUnit\":\"" + organisationUnit.getUid() + "\"," + "\"completed\":true}]}";
+        assertEquals( imported, summary.getImportCount().getImported() );
+        assertEquals( updated, summary.getImportCount().getUpdated() );
+        assertEquals( ignored, summary.getImportCount().getIgnored() );
+        assertEquals( deleted, summary.getImportCount().getDeleted() );
     }
 
+    /**
+     * Creates a JSON payload with the given number of copies of the same
+     * registration.
+     */
+    private InputStream createPayload( int count )
+    {
+        String registration = "{\"cc\":\"" + categoryCombo.getUid() + "\","
+            + "\"cp\":\"" + categoryOptionA.getUid() + ";" + categoryOptionB.getUid() + "\","
+            + "\"dataSet\":\"" + dataSetA.getUid() + "\"," + "\"period\":\"" + period.getIsoDate() + "\","
+            + "\"organisationUnit\":\"" + organisationUnit.getUid() + "\"," + "\"completed\":true}";
+
+        String payload = "{\"completeDataSetRegistrations\":["
+            + String.join( ",", Collections.nCopies( count, registration ) ) + "]}";
+
+        return new ByteArrayInputStream( payload.getBytes() );
+    }
 }
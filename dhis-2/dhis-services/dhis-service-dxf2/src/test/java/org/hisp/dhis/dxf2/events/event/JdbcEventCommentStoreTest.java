@@ -55,8 +55,8 @@ public class JdbcEventCommentStoreTest
         JdbcTemplate jdbcTemplate = mock( JdbcTemplate.class );
         JdbcEventCommentStore jdbcEventCommentStore = new JdbcEventCommentStore( jdbcTemplate );
         this.jdbcEventCommentStore = Mockito.spy( jdbcEventCommentStore );
-        doReturn( 1L ).when( this.jdbcEventCommentStore ).saveComment( any() );
-        doNothing().when( this.jdbcEventCommentStore ).saveCommentToEvent( anyLong(), anyLong(), anyInt() );
+        doNothing().when( this.jdbcEventCommentStore ).saveComments( any() );
+        doNothing().when( this.jdbcEventCommentStore ).saveCommentsToEvents( any() );
     }
 
     @Test
@@ -64,7 +64,7 @@ public class JdbcEventCommentStoreTest
     {
         List<ProgramStageInstance> programStageInstanceList = getProgramStageList( false );
         jdbcEventCommentStore.saveAllComments( programStageInstanceList );
-        verify( jdbcEventCommentStore, never() ).getInitialSortOrder( any() );
+        verify( jdbcEventCommentStore, never() ).getInitialSortOrders( any() );
     }
 
     @Test
@@ -72,7 +72,7 @@ public class JdbcEventCommentStoreTest
     {
         List<ProgramStageInstance> programStageInstanceList = getProgramStageList( true, true );
         jdbcEventCommentStore.saveAllComments( programStageInstanceList );
-        verify( jdbcEventCommentStore, never() ).getInitialSortOrder( any() );
+        verify( jdbcEventCommentStore, never() ).getInitialSortOrders( any() );
     }
 
     @Test
@@ -80,7 +80,8 @@ public class JdbcEventCommentStoreTest
     {
         List<ProgramStageInstance> programStageInstanceList = getProgramStageList( true );
         jdbcEventCommentStore.saveAllComments( programStageInstanceList );
-        verify( jdbcEventCommentStore ).getInitialSortOrder( any() );
+        verify( jdbcEventCommentStore ).getInitialSortOrders( any() );
+        verify( jdbcEventCommentStore ).saveComments( any() );
     }
 
     private List<ProgramStageInstance> getProgramStageList( boolean withComments )
@@ -28,6 +28,8 @@
 package org.hisp.dhis.dxf2.events.event;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
 import static org.hamcrest.collection.IsCollectionWithSize.hasSize;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
@@ -37,14 +39,22 @@ import java.util.List;
 
 import javax.sql.DataSource;
 
+import org.hisp.dhis.common.AggregationType;
 import org.hisp.dhis.common.IdentifiableObjectManager;
+import org.hisp.dhis.common.QueryItem;
+import org.hisp.dhis.common.QueryOperator;
+import org.hisp.dhis.common.ValueType;
+import org.hisp.dhis.dataelement.DataElement;
 import org.hisp.dhis.dxf2.events.report.EventRow;
 import org.hisp.dhis.dxf2.events.trackedentity.store.EventStore;
 import org.hisp.dhis.jdbc.statementbuilder.PostgreSQLStatementBuilder;
 import org.hisp.dhis.user.CurrentUserService;
+import org.hisp.dhis.webapi.controller.event.mapper.OrderParam;
+import org.hisp.dhis.webapi.controller.event.mapper.OrderParam.SortDirection;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnit;
 import org.mockito.junit.MockitoRule;
@@ -53,6 +63,7 @@ import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.support.rowset.SqlRowSet;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.Lists;
 
 /**
  * @author Luciano Fiandesio
@@ -79,6 +90,9 @@ public class JdbcEventStoreTest
     @Mock
     private EventStore eventStore;
 
+    @Mock
+    private EventDataValueIndex dataValueIndex;
+
     @Rule
     public MockitoRule rule = MockitoJUnit.rule();
 
@@ -91,7 +105,7 @@ public class JdbcEventStoreTest
 
         ObjectMapper objectMapper = new ObjectMapper();
         subject = new JdbcEventStore( new PostgreSQLStatementBuilder(), jdbcTemplate, objectMapper, currentUserService,
-            manager, env, eventStore );
+            manager, env, eventStore, dataValueIndex );
     }
 
     @Test
@@ -105,6 +119,87 @@ public class JdbcEventStoreTest
         verify( rowSet, times( 4 ) ).getString( "psi_eventdatavalues" );
     }
 
+    @Test
+    public void verifyJsonDataValuesAreFilteredWhenIndexDisabled()
+    {
+        subject.getEventsGrid( getNumericFilterParams(), new ArrayList<>() );
+
+        String sql = captureQuery();
+
+        assertThat( sql, containsString( "psi.eventdatavalues #>> '{DataElUID01, value}'" ) );
+        assertThat( sql, not( containsString( "programstageinstancedatavalue" ) ) );
+    }
+
+    @Test
+    public void verifyTypedDataValuesAreFilteredWhenIndexEnabled()
+    {
+        when( dataValueIndex.isAvailable() ).thenReturn( true );
+
+        subject.getEventsGrid( getNumericFilterParams(), new ArrayList<>() );
+
+        String sql = captureQuery();
+
+        assertThat( sql, containsString( "left join programstageinstancedatavalue \"dv_DataElUID01\" "
+            + "on \"dv_DataElUID01\".programstageinstanceid = psi.programstageinstanceid "
+            + "and \"dv_DataElUID01\".dataelementuid = 'DataElUID01'" ) );
+        assertThat( sql, containsString( "\"dv_DataElUID01\".numericvalue > '10'" ) );
+    }
+
+    @Test
+    public void verifyGridIsOrderedByTypedDataValuesWhenIndexEnabled()
+    {
+        when( dataValueIndex.isAvailable() ).thenReturn( true );
+
+        subject.getEventsGrid( getNumericOrderParams(), new ArrayList<>() );
+
+        String sql = captureQuery();
+
+        assertThat( sql, containsString( "order by \"dv_DataElUID01\".numericvalue DESC" ) );
+    }
+
+    @Test
+    public void verifyGridIsOrderedByJsonDataValuesWhenIndexDisabled()
+    {
+        subject.getEventsGrid( getNumericOrderParams(), new ArrayList<>() );
+
+        String sql = captureQuery();
+
+        assertThat( sql, containsString( "order by DataElUID01 DESC" ) );
+    }
+
+    private EventSearchParams getNumericOrderParams()
+    {
+        EventSearchParams params = getNumericFilterParams();
+        params.getDataElements().add( params.getFilters().get( 0 ) );
+        params.setGridOrders( Lists.newArrayList( OrderParam.builder()
+            .field( "DataElUID01" )
+            .direction( SortDirection.DESC )
+            .build() ) );
+
+        return params;
+    }
+
+    private EventSearchParams getNumericFilterParams()
+    {
+        DataElement dataElement = new DataElement( "A" );
+        dataElement.setUid( "DataElUID01" );
+
+        EventSearchParams params = new EventSearchParams();
+        params.getFilters().add( new QueryItem( dataElement, QueryOperator.GT, "10", ValueType.INTEGER,
+            AggregationType.SUM, null ) );
+
+        return params;
+    }
+
+    private String captureQuery()
+    {
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass( String.class );
+
+        verify( jdbcTemplate ).queryForRowSet( sql.capture() );
+
+        return sql.getValue();
+    }
+
     private void mockRowSet()
     {
         // Simulate 3 rows
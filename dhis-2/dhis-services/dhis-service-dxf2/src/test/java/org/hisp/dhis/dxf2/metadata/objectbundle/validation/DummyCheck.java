@@ -42,7 +42,7 @@ import org.hisp.dhis.importexport.ImportStrategy;
 /**
  * @author Luciano Fiandesio
  */
-public class DummyCheck implements ObjectValidationCheck
+public class DummyCheck implements ObjectValidationCheck, ChunkableValidationCheck
 {
 
     @Override
@@ -31,6 +31,7 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
 import static org.hisp.dhis.importexport.ImportStrategy.CREATE_AND_UPDATE;
+import static org.mockito.Mockito.when;
 import static org.mockito.junit.MockitoJUnit.rule;
 
 import java.util.ArrayList;
@@ -38,6 +39,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 import org.hisp.dhis.attribute.Attribute;
 import org.hisp.dhis.common.IdentifiableObject;
@@ -45,6 +47,9 @@ import org.hisp.dhis.commons.collection.ListUtils;
 import org.hisp.dhis.dxf2.metadata.objectbundle.ObjectBundle;
 import org.hisp.dhis.dxf2.metadata.objectbundle.ObjectBundleHooks;
 import org.hisp.dhis.dxf2.metadata.objectbundle.ObjectBundleParams;
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
+import org.hisp.dhis.feedback.ObjectReport;
 import org.hisp.dhis.feedback.TypeReport;
 import org.hisp.dhis.preheat.Preheat;
 import org.hisp.dhis.preheat.PreheatIdentifier;
@@ -77,6 +82,9 @@ public class ValidationFactoryTest
     @Mock
     private UserService userService;
 
+    @Mock
+    private DhisConfigurationProvider dhisConfig;
+
     @Rule
     public MockitoRule mockitoRule = rule();
 
@@ -85,10 +93,17 @@ public class ValidationFactoryTest
     @Before
     public void setUp()
     {
+        when( dhisConfig.getProperty( ConfigurationKey.METADATA_IMPORT_VALIDATION_CHUNK_SIZE ) ).thenReturn( "1000" );
+
         // Create a validation factory with a dummy check
-        validationFactory = new ValidationFactory( schemaValidator, schemaService, aclService, userService,
+        validationFactory = createValidationFactory();
+    }
+
+    private ValidationFactory createValidationFactory()
+    {
+        return new ValidationFactory( schemaValidator, schemaService, aclService, userService,
             new ObjectBundleHooks( Collections.emptyList() ),
-            ImmutableMap.of( CREATE_AND_UPDATE, ListUtils.newList( DummyCheck.class ) ) );
+            ImmutableMap.of( CREATE_AND_UPDATE, ListUtils.newList( DummyCheck.class ) ), dhisConfig );
     }
 
     @Test
@@ -109,6 +124,60 @@ public class ValidationFactoryTest
         assertThat( typeReport.getObjectReportsCount(), is( 1 ) );
     }
 
+    @Test
+    public void verifyParallelValidationMatchesSequentialValidation()
+    {
+        ObjectBundle sequentialBundle = createObjectBundle( "u1", "a2", "u3", "u4", "a5" );
+
+        TypeReport sequentialReport = validationFactory.validateBundle( sequentialBundle, Attribute.class,
+            sequentialBundle.getObjects( Attribute.class, true ),
+            sequentialBundle.getObjects( Attribute.class, false ) );
+
+        when( dhisConfig.isEnabled( ConfigurationKey.METADATA_IMPORT_VALIDATION_PARALLEL_ENABLED ) )
+            .thenReturn( true );
+        when( dhisConfig.getProperty( ConfigurationKey.METADATA_IMPORT_VALIDATION_PARALLEL_WORKERS ) )
+            .thenReturn( "3" );
+        when( dhisConfig.getProperty( ConfigurationKey.METADATA_IMPORT_VALIDATION_CHUNK_SIZE ) ).thenReturn( "1" );
+
+        ValidationFactory parallelValidationFactory = createValidationFactory();
+
+        ObjectBundle parallelBundle = createObjectBundle( "u1", "a2", "u3", "u4", "a5" );
+
+        TypeReport parallelReport = parallelValidationFactory.validateBundle( parallelBundle, Attribute.class,
+            parallelBundle.getObjects( Attribute.class, true ), parallelBundle.getObjects( Attribute.class, false ) );
+
+        parallelValidationFactory.shutdown();
+
+        assertThat( parallelBundle.getObjects( Attribute.class, false ), hasSize( 2 ) );
+        assertThat( parallelReport.getStats().getIgnored(), is( sequentialReport.getStats().getIgnored() ) );
+        assertThat( parallelReport.getStats().getCreated(), is( sequentialReport.getStats().getCreated() ) );
+        assertThat( getObjectReportUids( parallelReport ), is( getObjectReportUids( sequentialReport ) ) );
+        assertThat( getObjectReportUids( parallelReport ), is( ListUtils.newList( "u1", "u3", "u4" ) ) );
+    }
+
+    private List<String> getObjectReportUids( TypeReport typeReport )
+    {
+        return typeReport.getObjectReports().stream().map( ObjectReport::getUid ).collect( Collectors.toList() );
+    }
+
+    private ObjectBundle createObjectBundle( String... uids )
+    {
+        ObjectBundleParams objectBundleParams = new ObjectBundleParams();
+        Preheat preheat = new Preheat();
+
+        final Map<Class<? extends IdentifiableObject>, List<IdentifiableObject>> objectMap = new HashMap<>();
+        objectMap.put( Attribute.class, new ArrayList<>() );
+
+        for ( String uid : uids )
+        {
+            Attribute attribute = new Attribute();
+            attribute.setUid( uid );
+            objectMap.get( Attribute.class ).add( attribute );
+        }
+
+        return new ObjectBundle( objectBundleParams, preheat, objectMap );
+    }
+
     private ObjectBundle createObjectBundle()
     {
 
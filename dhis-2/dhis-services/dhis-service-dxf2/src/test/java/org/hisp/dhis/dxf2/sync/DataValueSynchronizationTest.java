@@ -0,0 +1,249 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.dxf2.sync;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.io.IOUtils;
+import org.hisp.dhis.common.IdSchemes;
+import org.hisp.dhis.datavalue.DataValueService;
+import org.hisp.dhis.dxf2.datavalueset.DataValueCursor;
+import org.hisp.dhis.dxf2.datavalueset.DataValueSetService;
+import org.hisp.dhis.setting.SettingKey;
+import org.hisp.dhis.setting.SystemSettingManager;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.web.client.RestTemplate;
+
+import com.google.common.collect.Lists;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Tests data value synchronization against a local HTTP endpoint standing in
+ * for the remote instance.
+ */
+public class DataValueSynchronizationTest
+{
+    private static final int PAGE_SIZE = 2;
+
+    private static final List<DataValueCursor> CURSORS = Lists.newArrayList(
+        new DataValueCursor( new Timestamp( 1000L ), 1, 1, 1, 1, 1 ),
+        new DataValueCursor( new Timestamp( 2000L ), 1, 1, 1, 1, 1 ),
+        new DataValueCursor( new Timestamp( 2000L ), 2, 1, 1, 1, 1 ) );
+
+    private HttpServer server;
+
+    private final List<String> receivedPages = Collections.synchronizedList( new ArrayList<>() );
+
+    private volatile int failingRequest = -1;
+
+    private int requestCount;
+
+    private SystemSettingManager systemSettingManager;
+
+    private InMemoryCheckpointStore checkpointStore;
+
+    private DataValueSynchronization synchronization;
+
+    @Before
+    public void setUp()
+        throws IOException
+    {
+        server = HttpServer.create( new InetSocketAddress( "localhost", 0 ), 0 );
+        server.createContext( "/api/system/ping", exchange -> respond( exchange, "pong" ) );
+        server.createContext( SyncEndpoint.DATA_VALUE_SETS.getPath(), this::handleDataValueSets );
+        server.start();
+
+        systemSettingManager = mock( SystemSettingManager.class );
+        when( systemSettingManager.getStringSetting( SettingKey.REMOTE_INSTANCE_URL ) )
+            .thenReturn( "http://localhost:" + server.getAddress().getPort() );
+        when( systemSettingManager.getStringSetting( SettingKey.REMOTE_INSTANCE_USERNAME ) ).thenReturn( "admin" );
+        when( systemSettingManager.getStringSetting( SettingKey.REMOTE_INSTANCE_PASSWORD ) ).thenReturn( "district" );
+        when( systemSettingManager.getIntSetting( SettingKey.MAX_REMOTE_SERVER_AVAILABILITY_CHECK_ATTEMPTS ) )
+            .thenReturn( 1 );
+        when( systemSettingManager.getIntSetting( SettingKey.DELAY_BETWEEN_REMOTE_SERVER_AVAILABILITY_CHECK_ATTEMPTS ) )
+            .thenReturn( 0 );
+        when( systemSettingManager.getIntSetting( SettingKey.MAX_SYNC_ATTEMPTS ) ).thenReturn( 1 );
+        when( systemSettingManager.getDateSetting( SettingKey.LAST_SUCCESSFUL_DATA_VALUE_SYNC ) )
+            .thenReturn( new Date( 0 ) );
+        when( systemSettingManager.getDateSetting( SettingKey.SKIP_SYNCHRONIZATION_FOR_DATA_CHANGED_BEFORE ) )
+            .thenReturn( new Date( 0 ) );
+
+        DataValueService dataValueService = mock( DataValueService.class );
+        when( dataValueService.getDataValueCountLastUpdatedAfter( any(), eq( true ) ) ).thenReturn( CURSORS.size() );
+
+        DataValueSetService dataValueSetService = mock( DataValueSetService.class );
+        when( dataValueSetService.writeDataValueSetJson( any( Date.class ), any(), any( OutputStream.class ),
+            any( IdSchemes.class ), anyInt() ) ).thenAnswer( invocation -> writePage(
+                invocation.getArgument( 1 ), invocation.getArgument( 2 ), invocation.getArgument( 4 ) ) );
+
+        checkpointStore = new InMemoryCheckpointStore();
+
+        synchronization = new DataValueSynchronization( dataValueService, dataValueSetService,
+            systemSettingManager, new RestTemplate(), checkpointStore );
+    }
+
+    @After
+    public void tearDown()
+    {
+        server.stop( 0 );
+    }
+
+    @Test
+    public void testSynchronizeAllPages()
+    {
+        SynchronizationResult result = synchronization.synchronizeData( PAGE_SIZE );
+
+        assertEquals( SynchronizationStatus.SUCCESS, result.status );
+        assertEquals( Lists.newArrayList( "[0,1]", "[2]" ), receivedPages );
+        assertNull( checkpointStore.checkpoints.get( getTarget() ) );
+        verify( systemSettingManager ).saveSystemSetting( eq( SettingKey.LAST_SUCCESSFUL_DATA_VALUE_SYNC ),
+            any( Date.class ) );
+    }
+
+    @Test
+    public void testResumeAfterFailedPage()
+    {
+        failingRequest = 2;
+
+        SynchronizationResult failed = synchronization.synchronizeData( 1 );
+
+        assertEquals( SynchronizationStatus.FAILURE, failed.status );
+        assertEquals( Lists.newArrayList( "[0]", "[1]" ), receivedPages );
+        assertEquals( CURSORS.get( 0 ), checkpointStore.checkpoints.get( getTarget() ) );
+
+        failingRequest = -1;
+        receivedPages.clear();
+
+        SynchronizationResult resumed = synchronization.synchronizeData( 1 );
+
+        assertEquals( SynchronizationStatus.SUCCESS, resumed.status );
+        assertEquals( Lists.newArrayList( "[1]", "[2]" ), receivedPages );
+        assertNull( checkpointStore.checkpoints.get( getTarget() ) );
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    /**
+     * Writes the indexes of the data values after the given cursor as page
+     * content and returns the cursor of the last of them.
+     */
+    private DataValueCursor writePage( DataValueCursor after, OutputStream out, int pageSize )
+        throws IOException
+    {
+        int from = after == null ? 0 : CURSORS.indexOf( after ) + 1;
+        int to = Math.min( from + pageSize, CURSORS.size() );
+
+        List<String> indexes = new ArrayList<>();
+
+        for ( int i = from; i < to; i++ )
+        {
+            indexes.add( String.valueOf( i ) );
+        }
+
+        out.write( ("[" + String.join( ",", indexes ) + "]").getBytes( UTF_8 ) );
+
+        return from < to ? CURSORS.get( to - 1 ) : null;
+    }
+
+    private void handleDataValueSets( HttpExchange exchange )
+        throws IOException
+    {
+        receivedPages.add( new String( IOUtils.toByteArray( exchange.getRequestBody() ), UTF_8 ) );
+
+        String status = ++requestCount == failingRequest ? "ERROR" : "SUCCESS";
+
+        respond( exchange, "{\"status\":\"" + status + "\"}" );
+    }
+
+    private static void respond( HttpExchange exchange, String body )
+        throws IOException
+    {
+        byte[] bytes = body.getBytes( UTF_8 );
+
+        exchange.getResponseHeaders().add( "Content-Type", "application/json" );
+        exchange.sendResponseHeaders( 200, bytes.length );
+
+        try ( OutputStream out = exchange.getResponseBody() )
+        {
+            out.write( bytes );
+        }
+    }
+
+    private String getTarget()
+    {
+        return SyncUtils.getRemoteInstance( systemSettingManager, SyncEndpoint.DATA_VALUE_SETS ).getUrl();
+    }
+
+    private static class InMemoryCheckpointStore
+        implements DataValueSyncCheckpointStore
+    {
+        private final Map<String, DataValueCursor> checkpoints = new HashMap<>();
+
+        @Override
+        public DataValueCursor getCheckpoint( String target, Date lastUpdatedAfter )
+        {
+            return checkpoints.get( target );
+        }
+
+        @Override
+        public void saveCheckpoint( String target, Date lastUpdatedAfter, DataValueCursor cursor )
+        {
+            checkpoints.put( target, cursor );
+        }
+
+        @Override
+        public void deleteCheckpoint( String target )
+        {
+            checkpoints.remove( target );
+        }
+    }
+}
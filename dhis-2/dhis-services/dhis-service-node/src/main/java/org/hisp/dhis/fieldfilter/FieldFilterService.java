@@ -51,6 +51,15 @@ public interface FieldFilterService
      */
     CollectionNode toCollectionNode( Class<?> wrapper, FieldFilterParams params );
 
+    /**
+     * Perform inclusion/exclusion on a list of objects. The node of each
+     * object is built only when the returned collection node is serialized,
+     * and is not retained afterwards, so the node tree of the full list is
+     * never held in memory. The objects must remain loadable until the node
+     * has been serialized.
+     */
+    CollectionNode toStreamingCollectionNode( Class<?> wrapper, FieldFilterParams params );
+
     /**
      * This method will build and return a CollectionNode based on the given
      * parameters. This method works with POJO/DTO without nested objects. It's
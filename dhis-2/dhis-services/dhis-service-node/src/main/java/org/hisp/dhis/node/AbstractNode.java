@@ -133,6 +133,15 @@ public abstract class AbstractNode implements Node
         this.parent = parent;
     }
 
+    /**
+     * Sets this node as parent of the given node without adding it to the
+     * children of this node.
+     */
+    protected void adopt( Node child )
+    {
+        ((AbstractNode) child).setParent( this );
+    }
+
     @Override
     public boolean is( NodeType type )
     {
@@ -38,9 +38,11 @@ import javax.annotation.PostConstruct;
 import org.hisp.dhis.fieldfilter.FieldFilterParams;
 import org.hisp.dhis.fieldfilter.FieldFilterService;
 import org.hisp.dhis.hibernate.HibernateProxyUtils;
+import org.hisp.dhis.node.exception.NodeSerializationException;
 import org.hisp.dhis.node.types.CollectionNode;
 import org.hisp.dhis.node.types.ComplexNode;
 import org.hisp.dhis.node.types.RootNode;
+import org.hisp.dhis.node.types.StreamingRootNode;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.util.Assert;
@@ -114,7 +116,18 @@ public class DefaultNodeService implements NodeService
         }
         catch ( Exception e )
         {
-            e.printStackTrace();
+            // part of the output may have been written already, the failure
+            // is propagated so that the response is aborted rather than
+            // completed with a truncated body
+
+            throw new NodeSerializationException( e );
+        }
+        finally
+        {
+            if ( rootNode instanceof StreamingRootNode )
+            {
+                ((StreamingRootNode) rootNode).close();
+            }
         }
     }
 
@@ -56,6 +56,8 @@ public interface NodeService
      * @param rootNode RootNode to write
      * @param contentType NodeSerializer contentType
      * @param outputStream Write to this outputStream
+     * @throws org.hisp.dhis.node.exception.NodeSerializationException if the
+     *         serialization fails, output may have been written already
      */
     void serialize( RootNode rootNode, String contentType, OutputStream outputStream );
 
@@ -0,0 +1,248 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.node.types;
+
+import java.util.AbstractList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+
+import org.hisp.dhis.node.Node;
+
+import com.google.common.collect.Iterators;
+
+/**
+ * Collection node which builds the node of each of its objects only when the
+ * node is iterated, typically while being serialized. Nodes are not retained
+ * by the collection, so memory use while serializing is independent of the
+ * number of objects. Children added to this node are retained as usual and
+ * follow the nodes of the objects.
+ * <p>
+ * Checking whether the collection is empty builds nodes up to the first object
+ * which is not skipped. That node is kept until the next iteration, so a
+ * collection whose objects are all skipped is empty and can be omitted before
+ * anything of it has been written. The size of the collection is the number
+ * of nodes which are not skipped, so determining it builds the nodes of all
+ * objects once.
+ */
+public class StreamingCollectionNode extends CollectionNode
+{
+    private final List<?> objects;
+
+    private final Function<Object, ? extends Node> nodeBuilder;
+
+    /**
+     * Node of the first object which is not skipped, built when checking
+     * whether the collection is empty and handed out by the next iteration.
+     */
+    private Node first;
+
+    /**
+     * Index of the first object which is not skipped, the number of objects if
+     * all are skipped, or -1 if not yet determined.
+     */
+    private int firstIndex = -1;
+
+    /**
+     * Number of objects which are not skipped, or -1 if not yet determined.
+     */
+    private int builtSize = -1;
+
+    /**
+     * @param name the name of the collection.
+     * @param objects the objects of the collection.
+     * @param nodeBuilder builds the node of an object, may return null to
+     *        skip the object.
+     */
+    public StreamingCollectionNode( String name, List<?> objects, Function<Object, ? extends Node> nodeBuilder )
+    {
+        super( name );
+        this.objects = objects;
+        this.nodeBuilder = nodeBuilder;
+    }
+
+    @Override
+    public List<Node> getChildren()
+    {
+        return new NodeList();
+    }
+
+    @Override
+    public List<Node> getUnorderedChildren()
+    {
+        return new NodeList();
+    }
+
+    private Node build( Object object )
+    {
+        Node node = nodeBuilder.apply( object );
+
+        if ( node != null )
+        {
+            adopt( node );
+        }
+
+        return node;
+    }
+
+    private boolean probeEmpty()
+    {
+        if ( firstIndex < 0 )
+        {
+            firstIndex = 0;
+
+            for ( Object object : objects )
+            {
+                first = build( object );
+
+                if ( first != null )
+                {
+                    break;
+                }
+
+                firstIndex++;
+            }
+        }
+
+        return firstIndex >= objects.size();
+    }
+
+    /**
+     * Returns the number of objects which are not skipped. The nodes built to
+     * determine it are not retained.
+     */
+    private int getBuiltSize()
+    {
+        if ( builtSize < 0 )
+        {
+            int size = 0;
+
+            if ( !probeEmpty() )
+            {
+                // the first node was built by the probe
+
+                size++;
+
+                Iterator<?> source = objects.listIterator( firstIndex + 1 );
+
+                while ( source.hasNext() )
+                {
+                    if ( build( source.next() ) != null )
+                    {
+                        size++;
+                    }
+                }
+            }
+
+            builtSize = size;
+        }
+
+        return builtSize;
+    }
+
+    private List<Node> getAddedChildren()
+    {
+        return children == null ? Collections.emptyList() : children;
+    }
+
+    /**
+     * Read-only view of the nodes of the objects, followed by the added
+     * children. Skipped objects are left out. Access by index iterates up to
+     * the given index.
+     */
+    private class NodeList extends AbstractList<Node>
+    {
+        @Override
+        public Node get( int index )
+        {
+            return Iterators.get( iterator(), index );
+        }
+
+        @Override
+        public int size()
+        {
+            return getBuiltSize() + getAddedChildren().size();
+        }
+
+        @Override
+        public boolean isEmpty()
+        {
+            return getAddedChildren().isEmpty() && probeEmpty();
+        }
+
+        @Override
+        public Iterator<Node> iterator()
+        {
+            return Iterators.concat( builtIterator(), getAddedChildren().iterator() );
+        }
+
+        private Iterator<Node> builtIterator()
+        {
+            if ( firstIndex >= objects.size() )
+            {
+                return Collections.emptyIterator();
+            }
+
+            Node buffered = first;
+            first = null;
+
+            Iterator<?> source = buffered == null ? objects.iterator() : objects.listIterator( firstIndex + 1 );
+
+            return new Iterator<Node>()
+            {
+                private Node next = buffered;
+
+                @Override
+                public boolean hasNext()
+                {
+                    while ( next == null && source.hasNext() )
+                    {
+                        next = build( source.next() );
+                    }
+
+                    return next != null;
+                }
+
+                @Override
+                public Node next()
+                {
+                    if ( !hasNext() )
+                    {
+                        throw new NoSuchElementException();
+                    }
+
+                    Node node = next;
+                    next = null;
+                    return node;
+                }
+            };
+        }
+    }
+}
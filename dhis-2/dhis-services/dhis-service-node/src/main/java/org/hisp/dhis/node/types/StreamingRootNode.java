@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.node.types;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Supplier;
+
+import org.hisp.dhis.node.Node;
+
+/**
+ * Root node whose supplied children are obtained only when the node is
+ * iterated, typically while being serialized. Supplied children follow the
+ * regular children of the node and are not retained, so each can be written
+ * and released before the next one is obtained. Suppliers may return null to
+ * skip a child. The node is closed once it has been serialized, or when the
+ * serialization failed, which allows suppliers to release their resources.
+ */
+public class StreamingRootNode extends RootNode implements AutoCloseable
+{
+    private final List<Supplier<? extends Node>> childSuppliers = new ArrayList<>();
+
+    private final List<Runnable> closeListeners = new ArrayList<>();
+
+    public StreamingRootNode( String name )
+    {
+        super( name );
+    }
+
+    public void addChildSupplier( Supplier<? extends Node> childSupplier )
+    {
+        childSuppliers.add( childSupplier );
+    }
+
+    public void addCloseListener( Runnable closeListener )
+    {
+        closeListeners.add( closeListener );
+    }
+
+    @Override
+    public void close()
+    {
+        closeListeners.forEach( Runnable::run );
+        closeListeners.clear();
+    }
+
+    @Override
+    public List<Node> getChildren()
+    {
+        return new NodeList( super.getChildren() );
+    }
+
+    @Override
+    public List<Node> getUnorderedChildren()
+    {
+        return new NodeList( super.getUnorderedChildren() );
+    }
+
+    private Node supply( Supplier<? extends Node> childSupplier )
+    {
+        Node node = childSupplier.get();
+
+        if ( node != null )
+        {
+            adopt( node );
+        }
+
+        return node;
+    }
+
+    /**
+     * Read-only view of the regular children followed by the supplied
+     * children. Skipped children are left out when iterating, and are null
+     * when accessed by index.
+     */
+    private class NodeList extends AbstractList<Node>
+    {
+        private final List<Node> children;
+
+        NodeList( List<Node> children )
+        {
+            this.children = children;
+        }
+
+        @Override
+        public Node get( int index )
+        {
+            return index < children.size() ? children.get( index )
+                : supply( childSuppliers.get( index - children.size() ) );
+        }
+
+        @Override
+        public int size()
+        {
+            return children.size() + childSuppliers.size();
+        }
+
+        @Override
+        public Iterator<Node> iterator()
+        {
+            Iterator<Node> regular = children.iterator();
+            Iterator<Supplier<? extends Node>> supplied = childSuppliers.iterator();
+
+            return new Iterator<Node>()
+            {
+                private Node next;
+
+                @Override
+                public boolean hasNext()
+                {
+                    if ( next == null && regular.hasNext() )
+                    {
+                        next = regular.next();
+                    }
+
+                    while ( next == null && supplied.hasNext() )
+                    {
+                        next = supply( supplied.next() );
+                    }
+
+                    return next != null;
+                }
+
+                @Override
+                public Node next()
+                {
+                    if ( !hasNext() )
+                    {
+                        throw new NoSuchElementException();
+                    }
+
+                    Node node = next;
+                    next = null;
+                    return node;
+                }
+            };
+        }
+    }
+}
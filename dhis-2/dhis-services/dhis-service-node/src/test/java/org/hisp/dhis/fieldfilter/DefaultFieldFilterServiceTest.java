@@ -326,6 +326,33 @@ public class DefaultFieldFilterServiceTest
         assertThat( ouNames, Matchers.containsInAnyOrder( "Test 1", "Test 2" ) );
     }
 
+    @Test
+    public void streamingCollectionNode()
+    {
+        final OrganisationUnit ou1 = new OrganisationUnit();
+        ou1.setUid( "abc1" );
+        ou1.setName( "OU 1" );
+
+        final OrganisationUnit ou2 = new OrganisationUnit();
+        ou2.setUid( "abc2" );
+        ou2.setName( "OU 2" );
+
+        final FieldFilterParams params = new FieldFilterParams( Arrays.asList( ou1, ou2 ),
+            Arrays.asList( "id", "name" ) );
+
+        final CollectionNode expected = service.toCollectionNode( OrganisationUnit.class, params );
+        final CollectionNode streaming = service.toStreamingCollectionNode( OrganisationUnit.class, params );
+
+        Assert.assertEquals( expected.getName(), streaming.getName() );
+        Assert.assertEquals( expected.getNamespace(), streaming.getNamespace() );
+
+        final List<Node> children = new ArrayList<>();
+        streaming.getChildren().forEach( children::add );
+
+        Assert.assertEquals( expected.getChildren(), children );
+        Assert.assertSame( streaming, children.get( 0 ).getParent() );
+    }
+
     private Node getNamedNode( @Nonnull Collection<? extends Node> nodes, @Nonnull String name )
     {
         return nodes.stream().filter( n -> name.equals( n.getName() ) ).findFirst().orElse( null );
@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.node.types;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.hisp.dhis.node.Node;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link StreamingCollectionNode}.
+ */
+public class StreamingCollectionNodeTest
+{
+    @Test
+    public void getChildrenBuildsEachObjectOnce()
+    {
+        AtomicInteger built = new AtomicInteger();
+
+        StreamingCollectionNode collectionNode = new StreamingCollectionNode( "dataElements",
+            Arrays.asList( "a", null, "b" ), object -> {
+                built.incrementAndGet();
+                return object == null ? null : new SimpleNode( "id", object );
+            } );
+
+        assertFalse( collectionNode.getChildren().isEmpty() );
+        assertEquals( 1, built.get() );
+
+        List<Node> children = new ArrayList<>();
+        collectionNode.getChildren().forEach( children::add );
+
+        assertEquals( 3, built.get() );
+        assertEquals( 2, children.size() );
+        assertEquals( "a", ((SimpleNode) children.get( 0 )).getValue() );
+        assertEquals( "b", ((SimpleNode) children.get( 1 )).getValue() );
+    }
+
+    @Test
+    public void getChildrenIsEmptyWhenAllObjectsAreSkipped()
+    {
+        AtomicInteger built = new AtomicInteger();
+
+        StreamingCollectionNode collectionNode = new StreamingCollectionNode( "dataElements",
+            Arrays.asList( "a", "b" ), object -> {
+                built.incrementAndGet();
+                return null;
+            } );
+
+        assertTrue( collectionNode.getChildren().isEmpty() );
+        assertFalse( collectionNode.getChildren().iterator().hasNext() );
+        assertEquals( 2, built.get() );
+    }
+
+    @Test
+    public void sizeCountsOnlyObjectsWhichAreNotSkipped()
+    {
+        StreamingCollectionNode collectionNode = new StreamingCollectionNode( "dataElements",
+            Arrays.asList( null, "a", null, "b" ),
+            object -> object == null ? null : new SimpleNode( "id", object ) );
+
+        assertEquals( 2, collectionNode.getChildren().size() );
+        assertEquals( "b", ((SimpleNode) collectionNode.getChildren().get( 1 )).getValue() );
+    }
+
+    @Test
+    public void addChildFollowsObjectNodes()
+    {
+        StreamingCollectionNode collectionNode = new StreamingCollectionNode( "dataElements",
+            Arrays.asList( "a", null ), object -> object == null ? null : new SimpleNode( "id", object ) );
+
+        SimpleNode added = collectionNode.addChild( new SimpleNode( "id", "b" ) );
+
+        List<Node> children = new ArrayList<>();
+        collectionNode.getChildren().forEach( children::add );
+
+        assertEquals( 2, collectionNode.getChildren().size() );
+        assertEquals( 2, children.size() );
+        assertEquals( "a", ((SimpleNode) children.get( 0 )).getValue() );
+        assertSame( added, children.get( 1 ) );
+        assertSame( collectionNode, added.getParent() );
+    }
+
+    @Test
+    public void addChildMakesCollectionOfSkippedObjectsNonEmpty()
+    {
+        StreamingCollectionNode collectionNode = new StreamingCollectionNode( "dataElements",
+            Arrays.asList( "a", "b" ), object -> null );
+
+        collectionNode.addChild( new SimpleNode( "id", "c" ) );
+
+        assertFalse( collectionNode.getChildren().isEmpty() );
+        assertEquals( 1, collectionNode.getChildren().size() );
+    }
+}
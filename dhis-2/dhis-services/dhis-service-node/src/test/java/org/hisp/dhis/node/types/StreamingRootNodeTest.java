@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.node.types;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.hisp.dhis.node.Node;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link StreamingRootNode}.
+ */
+public class StreamingRootNodeTest
+{
+    @Test
+    public void getChildren()
+    {
+        AtomicInteger supplied = new AtomicInteger();
+
+        StreamingRootNode rootNode = new StreamingRootNode( "metadata" );
+        SimpleNode system = rootNode.addChild( new SimpleNode( "system", "test" ) );
+        rootNode.addChildSupplier( () -> {
+            supplied.incrementAndGet();
+            return new CollectionNode( "dataElements" );
+        } );
+        rootNode.addChildSupplier( () -> null );
+        rootNode.addChildSupplier( () -> {
+            supplied.incrementAndGet();
+            return new CollectionNode( "indicators" );
+        } );
+
+        assertEquals( 0, supplied.get() );
+
+        List<Node> children = new ArrayList<>();
+        rootNode.getChildren().forEach( children::add );
+
+        assertEquals( 2, supplied.get() );
+        assertEquals( 3, children.size() );
+        assertSame( system, children.get( 0 ) );
+        assertEquals( "dataElements", children.get( 1 ).getName() );
+        assertEquals( "indicators", children.get( 2 ).getName() );
+        assertSame( rootNode, children.get( 2 ).getParent() );
+    }
+
+    @Test
+    public void close()
+    {
+        AtomicInteger closed = new AtomicInteger();
+
+        StreamingRootNode rootNode = new StreamingRootNode( "metadata" );
+        rootNode.addCloseListener( closed::incrementAndGet );
+
+        rootNode.close();
+        rootNode.close();
+
+        assertEquals( 1, closed.get() );
+    }
+}
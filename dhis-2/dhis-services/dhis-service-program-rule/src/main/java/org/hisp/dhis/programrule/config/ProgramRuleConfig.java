@@ -27,7 +27,16 @@
  */
 package org.hisp.dhis.programrule.config;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
 import org.hisp.dhis.constant.ConstantService;
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
 import org.hisp.dhis.programrule.ProgramRuleVariableService;
 import org.hisp.dhis.programrule.engine.*;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -52,6 +61,41 @@ public class ProgramRuleConfig
     @Autowired
     private ConstantService constantService;
 
+    @Autowired
+    private ProgramRuleSetCache ruleSetCache;
+
+    @Autowired
+    private DhisConfigurationProvider dhisConfig;
+
+    private ExecutorService evaluationExecutor;
+
+    @PostConstruct
+    public void init()
+    {
+        if ( dhisConfig.isEnabled( ConfigurationKey.SYSTEM_PROGRAM_RULE_PARALLEL_ENABLED ) )
+        {
+            int workers = Math.max( 1, Integer.parseInt(
+                dhisConfig.getProperty( ConfigurationKey.SYSTEM_PROGRAM_RULE_PARALLEL_WORKERS ) ) );
+
+            AtomicInteger threadCount = new AtomicInteger();
+
+            evaluationExecutor = Executors.newFixedThreadPool( workers, runnable -> {
+                Thread thread = new Thread( runnable, "rule-engine-" + threadCount.incrementAndGet() );
+                thread.setDaemon( true );
+                return thread;
+            } );
+        }
+    }
+
+    @PreDestroy
+    public void shutdown()
+    {
+        if ( evaluationExecutor != null )
+        {
+            evaluationExecutor.shutdownNow();
+        }
+    }
+
     /**
      * This bean is used in the system when an event is intercepted by
      * {@link ProgramRuleEngineListener}. Only the notification rule actions are
@@ -62,7 +106,7 @@ public class ProgramRuleConfig
         NotificationImplementableRuleService notificationImplementableRuleService )
     {
         return new ProgramRuleEngine( programRuleEntityMapperService, programRuleVariableService, constantService,
-            notificationImplementableRuleService, supplementaryDataProvider );
+            notificationImplementableRuleService, supplementaryDataProvider, ruleSetCache, evaluationExecutor );
     }
 
     /**
@@ -74,6 +118,6 @@ public class ProgramRuleConfig
         ServerSideImplementableRuleService serverSideImplementableRuleService )
     {
         return new ProgramRuleEngine( programRuleEntityMapperService, programRuleVariableService, constantService,
-            serverSideImplementableRuleService, supplementaryDataProvider );
+            serverSideImplementableRuleService, supplementaryDataProvider, ruleSetCache, evaluationExecutor );
     }
 }
@@ -28,6 +28,10 @@
 package org.hisp.dhis.programrule.engine;
 
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
 import lombok.NonNull;
@@ -76,6 +80,20 @@ public class ProgramRuleEngine
     @NonNull
     private final SupplementaryDataProvider supplementaryDataProvider;
 
+    /**
+     * Mapped rules and rule variables per program and program stage. The
+     * cache is shared between engines and invalidated by
+     * {@link ProgramRuleSetCacheInvalidator}.
+     */
+    @NonNull
+    private final ProgramRuleSetCache ruleSetCache;
+
+    /**
+     * Evaluates the enrollments of a batch in parallel, null if batches are
+     * evaluated sequentially.
+     */
+    private final ExecutorService evaluationExecutor;
+
     public List<RuleEffect> evaluate( ProgramInstance enrollment, Set<ProgramStageInstance> events )
     {
         return evaluateProgramRules( enrollment, null, enrollment.getProgram(), Lists.newArrayList(),
@@ -102,6 +120,113 @@ public class ProgramRuleEngine
             Lists.newArrayList(), getRuleEvents( events, programStageInstance ) );
     }
 
+    /**
+     * Evaluates many enrollments with their events. The rule engine context of
+     * each program and program stage is built once for the whole batch.
+     * Tracker objects are mapped on the calling thread, while the rule engines
+     * are evaluated in parallel when enabled.
+     *
+     * @param evaluations the enrollments to evaluate.
+     * @return the rule effects of all enrollments and events, in the order of
+     *         the given enrollments.
+     */
+    public List<RuleEffects> evaluateEnrollmentsAndEvents( List<EnrollmentEvaluation> evaluations )
+    {
+        Map<String, RuleEngineContext> contexts = new HashMap<>();
+        Map<String, String> constantMap = null;
+
+        List<Callable<List<RuleEffects>>> ruleEngineCalls = new ArrayList<>();
+
+        for ( EnrollmentEvaluation evaluation : evaluations )
+        {
+            ProgramInstance enrollment = evaluation.getEnrollment();
+            ProgramStageInstance programStageInstance = evaluation.getEvents().stream().findAny().orElse( null );
+
+            try
+            {
+                Program program = enrollment.getProgram();
+                String programStageUid = getProgramStageUid( programStageInstance );
+                ProgramRuleSet ruleSet = getProgramRuleSet( program, programStageUid );
+
+                if ( ruleSet.isEmpty() )
+                {
+                    continue;
+                }
+
+                if ( constantMap == null )
+                {
+                    constantMap = getConstantMap();
+                }
+
+                final Map<String, String> constants = constantMap;
+
+                RuleEngineContext context = contexts.computeIfAbsent( getRuleSetKey( program, programStageUid ),
+                    key -> getRuleEngineContext( ruleSet, constants ) );
+
+                RuleEngine ruleEngine = buildRuleEngine( context,
+                    getRuleEnrollment( enrollment, evaluation.getTrackedEntityAttributeValues() ),
+                    getRuleEvents( evaluation.getEvents(), null ) );
+
+                ruleEngineCalls.add( ruleEngine.evaluate() );
+            }
+            catch ( Exception e )
+            {
+                log.error( DebugUtils.getStackTrace( e ) );
+            }
+        }
+
+        return evaluateRuleEngines( ruleEngineCalls );
+    }
+
+    private List<RuleEffects> evaluateRuleEngines( List<Callable<List<RuleEffects>>> ruleEngineCalls )
+    {
+        List<RuleEffects> ruleEffects = new ArrayList<>();
+
+        if ( evaluationExecutor == null || ruleEngineCalls.size() < 2 )
+        {
+            for ( Callable<List<RuleEffects>> ruleEngineCall : ruleEngineCalls )
+            {
+                try
+                {
+                    ruleEffects.addAll( ruleEngineCall.call() );
+                }
+                catch ( Exception e )
+                {
+                    log.error( DebugUtils.getStackTrace( e ) );
+                }
+            }
+
+            return ruleEffects;
+        }
+
+        List<Future<List<RuleEffects>>> futures = ruleEngineCalls.stream()
+            .map( evaluationExecutor::submit )
+            .collect( Collectors.toList() );
+
+        try
+        {
+            for ( Future<List<RuleEffects>> future : futures )
+            {
+                try
+                {
+                    ruleEffects.addAll( future.get() );
+                }
+                catch ( ExecutionException e )
+                {
+                    log.error( DebugUtils.getStackTrace( e.getCause() ) );
+                }
+            }
+        }
+        catch ( InterruptedException e )
+        {
+            futures.forEach( future -> future.cancel( true ) );
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException( "Program rule evaluation was interrupted", e );
+        }
+
+        return ruleEffects;
+    }
+
     private List<RuleEffect> evaluateProgramRules( ProgramInstance enrollment,
         ProgramStageInstance programStageInstance, Program program,
         List<TrackedEntityAttributeValue> trackedEntityAttributeValues, List<RuleEvent> ruleEvents )
@@ -152,23 +277,25 @@ public class ProgramRuleEngine
         List<TrackedEntityAttributeValue> trackedEntityAttributeValues,
         List<RuleEvent> ruleEvents )
     {
-        String programStageUid = Optional.ofNullable( programStageInstance ).map( p -> p.getProgramStage().getUid() )
-            .orElse( null );
-
-        List<ProgramRule> programRules = implementableRuleService.getProgramRules( program, programStageUid );
+        ProgramRuleSet ruleSet = getProgramRuleSet( program, getProgramStageUid( programStageInstance ) );
 
-        if ( programRules.isEmpty() )
+        if ( ruleSet.isEmpty() )
         {
             return null;
         }
 
         RuleEnrollment ruleEnrollment = getRuleEnrollment( enrollment, trackedEntityAttributeValues );
 
-        RuleEngine.Builder builder = getRuleEngineContext( program,
-            programRules )
-                .toEngineBuilder()
-                .triggerEnvironment( TriggerEnvironment.SERVER )
-                .events( ruleEvents );
+        return buildRuleEngine( getRuleEngineContext( ruleSet, getConstantMap() ), ruleEnrollment, ruleEvents );
+    }
+
+    private RuleEngine buildRuleEngine( RuleEngineContext context, RuleEnrollment ruleEnrollment,
+        List<RuleEvent> ruleEvents )
+    {
+        RuleEngine.Builder builder = context
+            .toEngineBuilder()
+            .triggerEnvironment( TriggerEnvironment.SERVER )
+            .events( ruleEvents );
 
         if ( ruleEnrollment != null )
         {
@@ -178,6 +305,45 @@ public class ProgramRuleEngine
         return builder.build();
     }
 
+    private String getProgramStageUid( ProgramStageInstance programStageInstance )
+    {
+        return Optional.ofNullable( programStageInstance ).map( p -> p.getProgramStage().getUid() )
+            .orElse( null );
+    }
+
+    /**
+     * Returns the mapped rules and rule variables of the given program and
+     * program stage, from the cache when present.
+     */
+    private ProgramRuleSet getProgramRuleSet( Program program, String programStageUid )
+    {
+        return ruleSetCache.get( getRuleSetKey( program, programStageUid ), key -> {
+            List<ProgramRule> programRules = implementableRuleService.getProgramRules( program, programStageUid );
+
+            if ( programRules.isEmpty() )
+            {
+                return new ProgramRuleSet( programRules, Collections.emptyList(), Collections.emptyList() );
+            }
+
+            List<ProgramRuleVariable> programRuleVariables = programRuleVariableService
+                .getProgramRuleVariable( program );
+
+            return new ProgramRuleSet( programRules,
+                programRuleEntityMapperService.toMappedProgramRules( programRules ),
+                programRuleEntityMapperService.toMappedProgramRuleVariables( programRuleVariables ) );
+        } );
+    }
+
+    /**
+     * The cache is shared by the notification and the server side engines,
+     * which select different rules, so the key includes the rule selection.
+     */
+    private String getRuleSetKey( Program program, String programStageUid )
+    {
+        return implementableRuleService.getClass().getSimpleName() + ":" + program.getUid() + ":"
+            + Objects.toString( programStageUid, "" );
+    }
+
     /**
      * To getDescription rule condition in order to fetch its description
      *
@@ -224,25 +390,30 @@ public class ProgramRuleEngine
             RuleEngineIntent.DESCRIPTION ).build();
     }
 
-    private RuleEngineContext getRuleEngineContext( Program program, List<ProgramRule> programRules )
+    /**
+     * Supplementary data depends on the current user and on org unit group
+     * memberships, so it is resolved for every context and never cached.
+     */
+    private RuleEngineContext getRuleEngineContext( ProgramRuleSet ruleSet, Map<String, String> constantMap )
     {
-        List<ProgramRuleVariable> programRuleVariables = programRuleVariableService
-            .getProgramRuleVariable( program );
-
-        Map<String, String> constantMap = constantService.getConstantMap().entrySet()
-            .stream()
-            .collect( Collectors.toMap( Map.Entry::getKey, v -> v.getValue().toString() ) );
-
-        Map<String, List<String>> supplementaryData = supplementaryDataProvider.getSupplementaryData( programRules );
+        Map<String, List<String>> supplementaryData = supplementaryDataProvider
+            .getSupplementaryData( ruleSet.getProgramRules() );
 
         return RuleEngineContext.builder()
             .supplementaryData( supplementaryData )
-            .rules( programRuleEntityMapperService.toMappedProgramRules( programRules ) )
-            .ruleVariables( programRuleEntityMapperService.toMappedProgramRuleVariables( programRuleVariables ) )
+            .rules( ruleSet.getRules() )
+            .ruleVariables( ruleSet.getRuleVariables() )
             .constantsValue( constantMap )
             .build();
     }
 
+    private Map<String, String> getConstantMap()
+    {
+        return constantService.getConstantMap().entrySet()
+            .stream()
+            .collect( Collectors.toMap( Map.Entry::getKey, v -> v.getValue().toString() ) );
+    }
+
     private RuleEngine.Builder ruleEngineBuilder( List<ProgramRule> programRules,
         List<ProgramRuleVariable> programRuleVariables, RuleEngineIntent intent )
     {
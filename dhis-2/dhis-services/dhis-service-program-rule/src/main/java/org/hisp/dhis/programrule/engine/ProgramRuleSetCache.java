@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.programrule.engine;
+
+import java.util.function.Function;
+
+import org.hisp.dhis.cache.Cache;
+import org.hisp.dhis.cache.CacheProvider;
+import org.hisp.dhis.common.CodeGenerator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Node local cache of the {@link ProgramRuleSet program rule sets}. The rule
+ * sets hold mapped rule engine models and are therefore kept in memory. The
+ * cache keys are prefixed with a version which is kept in a shared cache, so
+ * that an invalidation on one node of a cluster makes the other nodes load
+ * the rule sets again.
+ */
+@Component
+public class ProgramRuleSetCache
+{
+    private static final String VERSION_KEY = "version";
+
+    private final Cache<ProgramRuleSet> ruleSetCache;
+
+    private final Cache<String> versionCache;
+
+    public ProgramRuleSetCache( CacheProvider cacheProvider )
+    {
+        this.ruleSetCache = cacheProvider.createProgramRuleSetCache();
+        this.versionCache = cacheProvider.createProgramRuleSetVersionCache();
+    }
+
+    /**
+     * Returns the rule set of the given key of the current version, loading
+     * it when not present.
+     *
+     * @param key the rule set key.
+     * @param loader loads the rule set of the key.
+     * @return the rule set.
+     */
+    public ProgramRuleSet get( String key, Function<String, ProgramRuleSet> loader )
+    {
+        return ruleSetCache.get( getVersion() + ":" + key, versionedKey -> loader.apply( key ) )
+            .orElseThrow( () -> new IllegalStateException( "Program rule set not found: " + key ) );
+    }
+
+    /**
+     * Invalidates the rule sets on all nodes by replacing the shared version.
+     */
+    public void invalidate()
+    {
+        versionCache.put( VERSION_KEY, CodeGenerator.generateUid() );
+
+        ruleSetCache.invalidateAll();
+    }
+
+    private String getVersion()
+    {
+        return versionCache.get( VERSION_KEY, key -> CodeGenerator.generateUid() ).orElse( "" );
+    }
+}
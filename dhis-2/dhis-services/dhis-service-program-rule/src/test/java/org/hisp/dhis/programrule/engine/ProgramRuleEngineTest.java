@@ -332,6 +332,30 @@ public class ProgramRuleEngineTest extends DhisSpringTest
         assertEquals( "message_template", template.getMessageTemplate() );
     }
 
+    @Test
+    public void testBatchEvaluationMatchesSingleEvaluation()
+    {
+        setUpNotificationForD2HasValue();
+
+        ProgramInstance programInstance = programInstanceService.getProgramInstance( "UID-P2" );
+
+        List<RuleEffects> single = programRuleEngine
+            .evaluateEnrollmentAndEvents( programInstance, Sets.newHashSet(), Lists.newArrayList() );
+
+        List<RuleEffects> batch = programRuleEngine.evaluateEnrollmentsAndEvents( Lists.newArrayList(
+            new EnrollmentEvaluation( programInstance, Sets.newHashSet(), Lists.newArrayList() ),
+            new EnrollmentEvaluation( programInstance, Sets.newHashSet(), Lists.newArrayList() ) ) );
+
+        assertEquals( 1, single.size() );
+        assertEquals( 2, batch.size() );
+
+        for ( RuleEffects ruleEffects : batch )
+        {
+            assertEquals( "UID-P2", ruleEffects.getTrackerObjectUid() );
+            assertEquals( single.get( 0 ).getRuleEffects(), ruleEffects.getRuleEffects() );
+        }
+    }
+
     @Test
     public void testNotificationWhenUsingD2HasValueWithTEAForEnrollmentAndEvents()
     {
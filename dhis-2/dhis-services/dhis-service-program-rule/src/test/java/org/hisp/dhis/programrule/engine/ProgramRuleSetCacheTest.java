@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.programrule.engine;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.when;
+
+import java.util.Collections;
+
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hisp.dhis.DhisConvenienceTest;
+import org.hisp.dhis.cache.Cache;
+import org.hisp.dhis.cache.CacheProvider;
+import org.hisp.dhis.cache.SimpleCacheBuilder;
+import org.hisp.dhis.option.OptionSet;
+import org.hisp.dhis.organisationunit.OrganisationUnit;
+import org.hisp.dhis.programrule.ProgramRule;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+/**
+ * Caches are sized 0 in test runs, hence the rule set caches of this test are
+ * created explicitly. The two caches share the version cache like two nodes
+ * of a cluster.
+ */
+@RunWith( MockitoJUnitRunner.class )
+public class ProgramRuleSetCacheTest
+    extends DhisConvenienceTest
+{
+    private static final String KEY = "ServerSideImplementableRuleService:ProgramUid1:";
+
+    @Mock
+    private CacheProvider cacheProvider;
+
+    private ProgramRuleSetCache nodeA;
+
+    private ProgramRuleSetCache nodeB;
+
+    private ProgramRule programRule;
+
+    private int loads;
+
+    @Before
+    public void setUp()
+    {
+        Cache<String> versionCache = new SimpleCacheBuilder<String>().withMaximumSize( 10 ).build();
+
+        when( cacheProvider.<ProgramRuleSet> createProgramRuleSetCache() ).thenReturn(
+            new SimpleCacheBuilder<ProgramRuleSet>().withMaximumSize( 10 ).build(),
+            new SimpleCacheBuilder<ProgramRuleSet>().withMaximumSize( 10 ).build() );
+        when( cacheProvider.<String> createProgramRuleSetVersionCache() ).thenReturn( versionCache );
+
+        nodeA = new ProgramRuleSetCache( cacheProvider );
+        nodeB = new ProgramRuleSetCache( cacheProvider );
+
+        programRule = createProgramRule( 'A', createProgram( 'A' ) );
+    }
+
+    @Test
+    public void testRuleSetIsCached()
+    {
+        assertEquals( "ProgramRuleA", getRuleName( nodeA ) );
+
+        programRule = createProgramRule( 'B', createProgram( 'A' ) );
+
+        assertEquals( "ProgramRuleA", getRuleName( nodeA ) );
+        assertEquals( 1, loads );
+    }
+
+    @Test
+    public void testEditedRuleIsLoadedOnAllNodes()
+    {
+        assertEquals( "ProgramRuleA", getRuleName( nodeA ) );
+        assertEquals( "ProgramRuleA", getRuleName( nodeB ) );
+
+        programRule = createProgramRule( 'B', createProgram( 'A' ) );
+
+        new ProgramRuleSetCacheInvalidator( nodeB ).onPostUpdate( updateOf( programRule ) );
+
+        assertEquals( "ProgramRuleB", getRuleName( nodeA ) );
+        assertEquals( "ProgramRuleB", getRuleName( nodeB ) );
+        assertEquals( 4, loads );
+    }
+
+    @Test
+    public void testReferencedMetadataInvalidatesRuleSets()
+    {
+        getRuleName( nodeA );
+
+        new ProgramRuleSetCacheInvalidator( nodeA ).onPostUpdate( updateOf( new OptionSet() ) );
+
+        getRuleName( nodeA );
+
+        assertEquals( 2, loads );
+    }
+
+    @Test
+    public void testUnrelatedObjectDoesNotInvalidateRuleSets()
+    {
+        getRuleName( nodeA );
+
+        new ProgramRuleSetCacheInvalidator( nodeA ).onPostUpdate( updateOf( new OrganisationUnit() ) );
+
+        getRuleName( nodeA );
+
+        assertEquals( 1, loads );
+    }
+
+    private String getRuleName( ProgramRuleSetCache cache )
+    {
+        return cache.get( KEY, key -> {
+            loads++;
+            return new ProgramRuleSet( Collections.singletonList( programRule ), Collections.emptyList(),
+                Collections.emptyList() );
+        } ).getProgramRules().get( 0 ).getName();
+    }
+
+    private PostUpdateEvent updateOf( Object entity )
+    {
+        return new PostUpdateEvent( entity, 1L, null, null, null, null, null );
+    }
+}
@@ -51,6 +51,7 @@ import org.hisp.dhis.analytics.AnalyticsService;
 import org.hisp.dhis.analytics.event.EventAnalyticsService;
 import org.hisp.dhis.category.CategoryOptionCombo;
 import org.hisp.dhis.common.AnalyticsType;
+import org.hisp.dhis.common.BaseAnalyticalObject;
 import org.hisp.dhis.common.DimensionalObject;
 import org.hisp.dhis.common.DimensionalObjectUtils;
 import org.hisp.dhis.common.Grid;
@@ -70,10 +71,12 @@ import org.hisp.dhis.period.Period;
 import org.hisp.dhis.period.PeriodService;
 import org.hisp.dhis.period.RelativePeriods;
 import org.hisp.dhis.system.grid.GridUtils;
+import org.hisp.dhis.system.util.ChartUtils;
 import org.hisp.dhis.system.util.MathUtils;
 import org.hisp.dhis.user.CurrentUserService;
 import org.hisp.dhis.user.User;
 import org.hisp.dhis.visualization.ChartService;
+import org.hisp.dhis.visualization.ImageRenderService;
 import org.hisp.dhis.visualization.PlotData;
 import org.hisp.dhis.visualization.Visualization;
 import org.hisp.dhis.visualization.VisualizationType;
@@ -103,6 +106,7 @@ import org.jfree.chart.renderer.category.LineAndShapeRenderer;
 import org.jfree.chart.renderer.category.StackedAreaRenderer;
 import org.jfree.chart.renderer.category.StackedBarRenderer;
 import org.jfree.chart.title.TextTitle;
+import org.jfree.chart.title.Title;
 import org.jfree.chart.ui.RectangleInsets;
 import org.jfree.chart.util.TableOrder;
 import org.jfree.data.Range;
@@ -113,6 +117,9 @@ import org.jfree.data.general.ValueDataset;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
 /**
  * @author Lars Helge Overland
  */
@@ -156,10 +163,12 @@ public class DefaultChartService implements ChartService
 
     private final EventAnalyticsService eventAnalyticsService;
 
+    private final ImageRenderService imageRenderService;
+
     public DefaultChartService( PeriodService periodService, DataValueService dataValueService,
         MinMaxDataElementService minMaxDataElementService, CurrentUserService currentUserService,
         OrganisationUnitService organisationUnitService, AnalyticsService analyticsService,
-        EventAnalyticsService eventAnalyticsService )
+        EventAnalyticsService eventAnalyticsService, ImageRenderService imageRenderService )
     {
         checkNotNull( periodService );
         checkNotNull( dataValueService );
@@ -168,6 +177,7 @@ public class DefaultChartService implements ChartService
         checkNotNull( organisationUnitService );
         checkNotNull( analyticsService );
         checkNotNull( eventAnalyticsService );
+        checkNotNull( imageRenderService );
 
         this.periodService = periodService;
         this.dataValueService = dataValueService;
@@ -176,6 +186,7 @@ public class DefaultChartService implements ChartService
         this.organisationUnitService = organisationUnitService;
         this.analyticsService = analyticsService;
         this.eventAnalyticsService = eventAnalyticsService;
+        this.imageRenderService = imageRenderService;
     }
 
     // -------------------------------------------------------------------------
@@ -194,6 +205,37 @@ public class DefaultChartService implements ChartService
     @Transactional( readOnly = true )
     public JFreeChart getJFreeChart( PlotData plotData, Date date, OrganisationUnit organisationUnit, I18nFormat format,
         User currentUser )
+    {
+        initPlotData( plotData, date, organisationUnit, format, currentUser );
+
+        JFreeChart resultChart = getJFreeChart( plotData );
+
+        plotData.clearTransientState();
+
+        return resultChart;
+    }
+
+    @Override
+    @Transactional( readOnly = true )
+    public byte[] getChartImage( PlotData plotData, Date date, OrganisationUnit organisationUnit, I18nFormat format,
+        User currentUser, int width, int height )
+    {
+        initPlotData( plotData, date, organisationUnit, format, currentUser );
+
+        CategoryDataset[] dataSets = getCategoryDataSet( plotData );
+
+        JFreeChart chart = getJFreeChart( plotData, dataSets );
+
+        String key = getChartImageKey( plotData, chart, dataSets, width, height );
+
+        plotData.clearTransientState();
+
+        return imageRenderService.render( ImageRenderService.TYPE_CHART, key,
+            () -> ChartUtils.getChartAsPngByteArray( chart, width, height ) );
+    }
+
+    private void initPlotData( PlotData plotData, Date date, OrganisationUnit organisationUnit, I18nFormat format,
+        User currentUser )
     {
         User user = (currentUser != null ? currentUser : currentUserService.getCurrentUser());
 
@@ -218,12 +260,6 @@ public class DefaultChartService implements ChartService
         }
 
         plotData.init( user, date, organisationUnit, atLevels, inGroups, format );
-
-        JFreeChart resultChart = getJFreeChart( plotData );
-
-        plotData.clearTransientState();
-
-        return resultChart;
     }
 
     // -------------------------------------------------------------------------
@@ -504,7 +540,11 @@ public class DefaultChartService implements ChartService
      */
     private JFreeChart getJFreeChart( PlotData plotData )
     {
-        final CategoryDataset[] dataSets = getCategoryDataSet( plotData );
+        return getJFreeChart( plotData, getCategoryDataSet( plotData ) );
+    }
+
+    private JFreeChart getJFreeChart( PlotData plotData, final CategoryDataset[] dataSets )
+    {
         final CategoryDataset dataSet = dataSets[0];
 
         final BarRenderer barRenderer = getBarRenderer();
@@ -757,6 +797,64 @@ public class DefaultChartService implements ChartService
         return textTitle;
     }
 
+    /**
+     * Returns a key identifying the rendered image of the given chart. The key
+     * covers the visualization and its last update, the titles, the data set
+     * values and the image size, which together determine the image content.
+     */
+    private String getChartImageKey( PlotData plotData, JFreeChart chart, CategoryDataset[] dataSets, int width,
+        int height )
+    {
+        BaseAnalyticalObject object = plotData.isAggregate() ? plotData.getVisualization()
+            : plotData.getEventChart();
+
+        Hasher hasher = Hashing.sha256().newHasher()
+            .putUnencodedChars( String.valueOf( object.getUid() ) )
+            .putLong( object.getLastUpdated() != null ? object.getLastUpdated().getTime() : 0L )
+            .putUnencodedChars( String.valueOf( plotData.getType() ) )
+            .putInt( width )
+            .putInt( height );
+
+        if ( chart.getTitle() != null )
+        {
+            hasher.putUnencodedChars( String.valueOf( chart.getTitle().getText() ) );
+        }
+
+        for ( int i = 0; i < chart.getSubtitleCount(); i++ )
+        {
+            Title subtitle = chart.getSubtitle( i );
+
+            if ( subtitle instanceof TextTitle )
+            {
+                hasher.putChar( '|' ).putUnencodedChars( String.valueOf( ((TextTitle) subtitle).getText() ) );
+            }
+        }
+
+        for ( CategoryDataset dataSet : dataSets )
+        {
+            hasher.putChar( '#' );
+
+            for ( int row = 0; row < dataSet.getRowCount(); row++ )
+            {
+                hasher.putChar( '|' ).putUnencodedChars( String.valueOf( dataSet.getRowKey( row ) ) );
+            }
+
+            for ( int column = 0; column < dataSet.getColumnCount(); column++ )
+            {
+                hasher.putChar( '|' ).putUnencodedChars( String.valueOf( dataSet.getColumnKey( column ) ) );
+
+                for ( int row = 0; row < dataSet.getRowCount(); row++ )
+                {
+                    Number value = dataSet.getValue( row, column );
+
+                    hasher.putDouble( value != null ? value.doubleValue() : Double.NaN );
+                }
+            }
+        }
+
+        return hasher.hash().toString();
+    }
+
     private CategoryDataset[] getCategoryDataSet( PlotData plotData )
     {
         Map<String, Object> valueMap = new HashMap<>();
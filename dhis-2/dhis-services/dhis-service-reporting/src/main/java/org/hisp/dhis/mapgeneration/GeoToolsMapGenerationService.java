@@ -31,6 +31,9 @@ import static com.google.common.base.Preconditions.checkNotNull;
 
 import java.awt.*;
 import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -38,12 +41,15 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 
+import javax.imageio.ImageIO;
+
 import org.apache.commons.lang3.StringUtils;
 import org.hisp.dhis.analytics.AnalyticsFinancialYearStartKey;
 import org.hisp.dhis.analytics.AnalyticsService;
 import org.hisp.dhis.common.BaseAnalyticalObject;
 import org.hisp.dhis.common.Grid;
 import org.hisp.dhis.commons.filter.FilterUtils;
+import org.hisp.dhis.i18n.I18nFormat;
 import org.hisp.dhis.i18n.I18nManager;
 import org.hisp.dhis.mapping.Map;
 import org.hisp.dhis.mapping.MapView;
@@ -55,9 +61,14 @@ import org.hisp.dhis.setting.SystemSettingManager;
 import org.hisp.dhis.system.filter.OrganisationUnitWithCoordinatesFilter;
 import org.hisp.dhis.user.CurrentUserService;
 import org.hisp.dhis.user.User;
+import org.hisp.dhis.visualization.ImageRenderService;
+import org.locationtech.jts.geom.Envelope;
 import org.springframework.stereotype.Service;
 import org.springframework.util.Assert;
 
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
 /**
  * An implementation of MapGenerationService that uses GeoTools to generate
  * maps.
@@ -85,21 +96,25 @@ public class GeoToolsMapGenerationService
 
     private final I18nManager i18nManager;
 
+    private final ImageRenderService imageRenderService;
+
     public GeoToolsMapGenerationService( OrganisationUnitService organisationUnitService,
         AnalyticsService analyticsService, CurrentUserService currentUserService,
-        SystemSettingManager systemSettingManager, I18nManager i18nManager )
+        SystemSettingManager systemSettingManager, I18nManager i18nManager, ImageRenderService imageRenderService )
     {
         checkNotNull( organisationUnitService );
         checkNotNull( analyticsService );
         checkNotNull( currentUserService );
         checkNotNull( systemSettingManager );
         checkNotNull( i18nManager );
+        checkNotNull( imageRenderService );
 
         this.organisationUnitService = organisationUnitService;
         this.analyticsService = analyticsService;
         this.currentUserService = currentUserService;
         this.systemSettingManager = systemSettingManager;
         this.i18nManager = i18nManager;
+        this.imageRenderService = imageRenderService;
     }
 
     // -------------------------------------------------------------------------
@@ -139,6 +154,60 @@ public class GeoToolsMapGenerationService
             width = MapUtils.DEFAULT_MAP_WIDTH;
         }
 
+        InternalMap internalMap = getInternalMap( map, date, user );
+
+        if ( internalMap.getLayers().isEmpty() )
+        {
+            return null;
+        }
+
+        return renderMapImage( internalMap, map.getName(), i18nManager.getI18nFormat(), width, height );
+    }
+
+    @Override
+    public byte[] generateMapPngForUser( Map map, Date date, OrganisationUnit unit, Integer width, Integer height,
+        User user )
+    {
+        Assert.isTrue( map != null, "Map cannot be null" );
+
+        final Integer imageWidth = width == null && height == null ? MapUtils.DEFAULT_MAP_WIDTH : width;
+
+        InternalMap internalMap = getInternalMap( map, date, user );
+
+        if ( internalMap.getLayers().isEmpty() )
+        {
+            return null;
+        }
+
+        I18nFormat format = i18nManager.getI18nFormat();
+        String name = map.getName();
+        String key = getMapImageKey( map, internalMap, format, imageWidth, height );
+
+        return imageRenderService.render( ImageRenderService.TYPE_MAP, key,
+            () -> toPng( renderMapImage( internalMap, name, format, imageWidth, height ) ) );
+    }
+
+    // -------------------------------------------------------------------------
+    // Internal
+    // -------------------------------------------------------------------------
+
+    private static final String DEFAULT_COLOR_HIGH = "#ff0000";
+
+    private static final String DEFAULT_COLOR_LOW = "#ffff00";
+
+    private static final float DEFAULT_OPACITY = 0.75f;
+
+    private static final Integer DEFAULT_RADIUS_HIGH = 35;
+
+    private static final Integer DEFAULT_RADIUS_LOW = 15;
+
+    /**
+     * Builds the internal map with one layer per map view. The transient
+     * state of the map views is cleared once the layers are built, as the
+     * layers hold all state needed for rendering.
+     */
+    private InternalMap getInternalMap( Map map, Date date, User user )
+    {
         InternalMap internalMap = new InternalMap();
 
         List<MapView> mapViews = new ArrayList<>( map.getMapViews() );
@@ -154,46 +223,103 @@ public class GeoToolsMapGenerationService
             }
         }
 
-        if ( internalMap.getLayers().isEmpty() )
-        {
-            return null;
-        }
+        mapViews.forEach( BaseAnalyticalObject::clearTransientState );
+
+        return internalMap;
+    }
 
+    private BufferedImage renderMapImage( InternalMap internalMap, String name, I18nFormat format, Integer width,
+        Integer height )
+    {
         InternalMapLayer dataLayer = internalMap.getFirstDataLayer();
 
         BufferedImage mapImage = MapUtils.render( internalMap, width, height );
 
         if ( dataLayer == null )
         {
-            mapViews.forEach( BaseAnalyticalObject::clearTransientState );
             return mapImage;
         }
-        else
-        {
-            LegendSet legendSet = new LegendSet( dataLayer );
 
-            BufferedImage legendImage = legendSet.render( i18nManager.getI18nFormat() );
+        LegendSet legendSet = new LegendSet( dataLayer );
 
-            BufferedImage titleImage = MapUtils.renderTitle( map.getName(), getImageWidth( legendImage, mapImage ) );
+        BufferedImage legendImage = legendSet.render( format );
 
-            mapViews.forEach( BaseAnalyticalObject::clearTransientState );
-            return combineLegendAndMapImages( titleImage, legendImage, mapImage );
-        }
+        BufferedImage titleImage = MapUtils.renderTitle( name, getImageWidth( legendImage, mapImage ) );
+
+        return combineLegendAndMapImages( titleImage, legendImage, mapImage );
     }
 
-    // -------------------------------------------------------------------------
-    // Internal
-    // -------------------------------------------------------------------------
+    /**
+     * Returns a key identifying the rendered image of the given map, covering
+     * the map and its last update, the image size and the styled objects of
+     * each layer.
+     */
+    private String getMapImageKey( Map map, InternalMap internalMap, I18nFormat format, Integer width,
+        Integer height )
+    {
+        Hasher hasher = Hashing.sha256().newHasher()
+            .putUnencodedChars( String.valueOf( map.getUid() ) )
+            .putLong( map.getLastUpdated() != null ? map.getLastUpdated().getTime() : 0L )
+            .putUnencodedChars( String.valueOf( map.getName() ) )
+            .putInt( width != null ? width : -1 )
+            .putInt( height != null ? height : -1 );
+
+        for ( InternalMapLayer layer : internalMap.getLayers() )
+        {
+            hasher.putChar( '#' )
+                .putUnencodedChars( String.valueOf( layer.getName() ) )
+                .putUnencodedChars( layer.getPeriod() != null ? format.formatPeriod( layer.getPeriod() ) : "" )
+                .putFloat( layer.getOpacity() );
 
-    private static final String DEFAULT_COLOR_HIGH = "#ff0000";
+            if ( layer.getIntervalSet() != null )
+            {
+                for ( Interval interval : layer.getIntervalSet().getIntervals() )
+                {
+                    hasher.putDouble( interval.getValueLow() )
+                        .putDouble( interval.getValueHigh() )
+                        .putInt( interval.getColor() != null ? interval.getColor().getRGB() : 0 );
+                }
+            }
 
-    private static final String DEFAULT_COLOR_LOW = "#ffff00";
+            for ( InternalMapObject object : layer.getMapObjects() )
+            {
+                hasher.putChar( '|' )
+                    .putUnencodedChars( String.valueOf( object.getName() ) )
+                    .putDouble( object.getValue() )
+                    .putInt( object.getRadius() )
+                    .putInt( object.getFillColor() != null ? object.getFillColor().getRGB() : 0 );
 
-    private static final float DEFAULT_OPACITY = 0.75f;
+                if ( object.getGeometry() != null )
+                {
+                    Envelope envelope = object.getGeometry().getEnvelopeInternal();
 
-    private static final Integer DEFAULT_RADIUS_HIGH = 35;
+                    hasher.putInt( object.getGeometry().getNumPoints() )
+                        .putDouble( envelope.getMinX() )
+                        .putDouble( envelope.getMinY() )
+                        .putDouble( envelope.getMaxX() )
+                        .putDouble( envelope.getMaxY() );
+                }
+            }
+        }
 
-    private static final Integer DEFAULT_RADIUS_LOW = 15;
+        return hasher.hash().toString();
+    }
+
+    private static byte[] toPng( BufferedImage image )
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        try
+        {
+            ImageIO.write( image, "PNG", out );
+        }
+        catch ( IOException ex )
+        {
+            throw new UncheckedIOException( "Failed to encode map image", ex );
+        }
+
+        return out.toByteArray();
+    }
 
     private InternalMapLayer getSingleInternalMapLayer( MapView mapView, User user, Date date )
     {
@@ -31,26 +31,42 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import static org.apache.commons.lang3.StringUtils.EMPTY;
 import static org.hisp.dhis.visualization.VisualizationType.PIVOT_TABLE;
 
-import java.awt.image.BufferedImage;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.StringWriter;
+import java.io.UncheckedIOException;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.imageio.ImageIO;
 
 import lombok.extern.slf4j.Slf4j;
 
 import org.apache.velocity.VelocityContext;
+import org.hisp.dhis.common.IdentifiableObject;
 import org.hisp.dhis.common.IdentifiableObjectStore;
+import org.hisp.dhis.common.UserContext;
 import org.hisp.dhis.commons.util.Encoder;
 import org.hisp.dhis.dashboard.DashboardItem;
 import org.hisp.dhis.external.conf.ConfigurationKey;
@@ -65,6 +81,7 @@ import org.hisp.dhis.mapgeneration.MapGenerationService;
 import org.hisp.dhis.mapgeneration.MapUtils;
 import org.hisp.dhis.mapping.Map;
 import org.hisp.dhis.message.MessageSender;
+import org.hisp.dhis.organisationunit.OrganisationUnit;
 import org.hisp.dhis.outboundmessage.OutboundMessageResponse;
 import org.hisp.dhis.scheduling.JobConfiguration;
 import org.hisp.dhis.scheduling.JobType;
@@ -73,21 +90,29 @@ import org.hisp.dhis.setting.SystemSettingManager;
 import org.hisp.dhis.system.grid.GridUtils;
 import org.hisp.dhis.system.notification.NotificationLevel;
 import org.hisp.dhis.system.notification.Notifier;
-import org.hisp.dhis.system.util.ChartUtils;
 import org.hisp.dhis.system.velocity.VelocityManager;
 import org.hisp.dhis.user.CurrentUserService;
 import org.hisp.dhis.user.User;
+import org.hisp.dhis.user.UserCredentials;
 import org.hisp.dhis.user.UserGroup;
+import org.hisp.dhis.user.UserService;
+import org.hisp.dhis.user.UserSettingKey;
 import org.hisp.dhis.visualization.ChartService;
 import org.hisp.dhis.visualization.PlotData;
 import org.hisp.dhis.visualization.Visualization;
 import org.hisp.dhis.visualization.VisualizationGridService;
-import org.jfree.chart.JFreeChart;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.MimeTypeUtils;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Sets;
 import com.google.common.hash.Hashing;
 import com.google.common.io.ByteSource;
@@ -103,6 +128,16 @@ public class DefaultPushAnalysisService
 {
     private static final Encoder encoder = new Encoder();
 
+    /**
+     * Users which are granted access directly, rather than through a user
+     * group, to any of the objects whose data read sharing is enforced by
+     * analytics.
+     */
+    private static final String DIRECT_USER_SHARING_SQL = "select distinct jsonb_object_keys(sharing->'users') from ("
+        + "select sharing from dataset union all select sharing from program union all "
+        + "select sharing from programstage union all select sharing from dataelementcategoryoption) s "
+        + "where jsonb_typeof(sharing->'users') = 'object'";
+
     private final Notifier notifier;
 
     private final SystemSettingManager systemSettingManager;
@@ -127,13 +162,28 @@ public class DefaultPushAnalysisService
 
     private final IdentifiableObjectStore<PushAnalysis> pushAnalysisStore;
 
+    private final UserService userService;
+
+    private final PlatformTransactionManager transactionManager;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Renders the distinct reports of a push analysis in parallel, null if
+     * parallel rendering is disabled.
+     */
+    private ExecutorService renderExecutor;
+
+    private TransactionTemplate renderTransaction;
+
     public DefaultPushAnalysisService( Notifier notifier, SystemSettingManager systemSettingManager,
         DhisConfigurationProvider dhisConfigurationProvider, ExternalFileResourceService externalFileResourceService,
         FileResourceService fileResourceService, CurrentUserService currentUserService,
         MapGenerationService mapGenerationService, VisualizationGridService visualizationGridService,
         ChartService chartService, I18nManager i18nManager,
         @Qualifier( "emailMessageSender" ) MessageSender messageSender,
-        @Qualifier( "org.hisp.dhis.pushanalysis.PushAnalysisStore" ) IdentifiableObjectStore<PushAnalysis> pushAnalysisStore )
+        @Qualifier( "org.hisp.dhis.pushanalysis.PushAnalysisStore" ) IdentifiableObjectStore<PushAnalysis> pushAnalysisStore,
+        UserService userService, PlatformTransactionManager transactionManager, JdbcTemplate jdbcTemplate )
     {
         checkNotNull( notifier );
         checkNotNull( systemSettingManager );
@@ -147,6 +197,9 @@ public class DefaultPushAnalysisService
         checkNotNull( i18nManager );
         checkNotNull( messageSender );
         checkNotNull( pushAnalysisStore );
+        checkNotNull( userService );
+        checkNotNull( transactionManager );
+        checkNotNull( jdbcTemplate );
 
         this.notifier = notifier;
         this.systemSettingManager = systemSettingManager;
@@ -160,6 +213,38 @@ public class DefaultPushAnalysisService
         this.i18nManager = i18nManager;
         this.messageSender = messageSender;
         this.pushAnalysisStore = pushAnalysisStore;
+        this.userService = userService;
+        this.transactionManager = transactionManager;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void init()
+    {
+        if ( dhisConfigurationProvider.isEnabled( ConfigurationKey.PUSH_ANALYSIS_PARALLEL_ENABLED ) )
+        {
+            int workers = Math.max( 1, Integer.parseInt(
+                dhisConfigurationProvider.getProperty( ConfigurationKey.PUSH_ANALYSIS_PARALLEL_WORKERS ) ) );
+
+            AtomicInteger threadCount = new AtomicInteger();
+
+            renderExecutor = Executors.newFixedThreadPool( workers, runnable -> {
+                Thread thread = new Thread( runnable, "push-analysis-" + threadCount.incrementAndGet() );
+                thread.setDaemon( true );
+                return thread;
+            } );
+
+            renderTransaction = new TransactionTemplate( transactionManager );
+        }
+    }
+
+    @PreDestroy
+    public void shutdown()
+    {
+        if ( renderExecutor != null )
+        {
+            renderExecutor.shutdownNow();
+        }
     }
 
     // ----------------------------------------------------------------------
@@ -258,26 +343,76 @@ public class DefaultPushAnalysisService
 
         log( jobId, NotificationLevel.INFO, "Generating and sending reports", false, null );
 
-        for ( User user : receivingUsers )
+        // Users with the same data access receive the same report, which is
+        // therefore rendered once for the first user of each group
+
+        Set<String> directlySharedUsers = new HashSet<>(
+            jdbcTemplate.queryForList( DIRECT_USER_SHARING_SQL, String.class ) );
+
+        LinkedHashMap<List<Set<String>>, List<User>> recipientGroups = receivingUsers.stream()
+            .collect( Collectors.groupingBy( user -> getAccessSignature( user, directlySharedUsers ),
+                LinkedHashMap::new, Collectors.toList() ) );
+
+        log( jobId, NotificationLevel.INFO, "Rendering " + recipientGroups.size() + " distinct reports for "
+            + receivingUsers.size() + " users, " + (receivingUsers.size() - recipientGroups.size())
+            + " renders saved.", false, null );
+
+        List<Future<String>> reports = new ArrayList<>();
+
+        for ( List<User> members : recipientGroups.values() )
         {
-            try
-            {
-                String title = pushAnalysis.getTitle();
-                String html = generateHtmlReport( pushAnalysis, user, jobId );
+            reports.add( renderReport( pushAnalysis, members.get( 0 ), jobId ) );
+        }
+
+        Iterator<Future<String>> reportIterator = reports.iterator();
 
-                // TODO: Better handling of messageStatus; Might require
-                // refactoring of EmailMessageSender
-                @SuppressWarnings( "unused" )
-                Future<OutboundMessageResponse> status = messageSender
-                    .sendMessageAsync( title, html, "", null, Sets.newHashSet( user ), true );
+        for ( List<User> members : recipientGroups.values() )
+        {
+            String html;
 
+            try
+            {
+                html = reportIterator.next().get();
             }
-            catch ( Exception e )
+            catch ( InterruptedException e )
             {
+                Thread.currentThread().interrupt();
+                reports.forEach( report -> report.cancel( true ) );
                 log( jobId, NotificationLevel.ERROR,
-                    "Could not create or send report for PushAnalysis '" + pushAnalysis.getName() + "' and User '" +
-                        user.getUsername() + "': " + e.getMessage(),
-                    false, e );
+                    "PushAnalysis '" + pushAnalysis.getName() + "' was interrupted. Terminating PushAnalysis.",
+                    true, e );
+                return;
+            }
+            catch ( ExecutionException e )
+            {
+                for ( User user : members )
+                {
+                    log( jobId, NotificationLevel.ERROR,
+                        "Could not create report for PushAnalysis '" + pushAnalysis.getName() + "' and User '" +
+                            user.getUsername() + "': " + e.getCause().getMessage(),
+                        false, e.getCause() );
+                }
+
+                continue;
+            }
+
+            for ( User user : members )
+            {
+                try
+                {
+                    // TODO: Better handling of messageStatus; Might require
+                    // refactoring of EmailMessageSender
+                    @SuppressWarnings( "unused" )
+                    Future<OutboundMessageResponse> status = messageSender
+                        .sendMessageAsync( pushAnalysis.getTitle(), html, "", null, Sets.newHashSet( user ), true );
+                }
+                catch ( Exception e )
+                {
+                    log( jobId, NotificationLevel.ERROR,
+                        "Could not send report for PushAnalysis '" + pushAnalysis.getName() + "' and User '" +
+                            user.getUsername() + "': " + e.getMessage(),
+                        false, e );
+                }
             }
         }
     }
@@ -357,6 +492,107 @@ public class DefaultPushAnalysisService
     // Supportive methods
     // --------------------------------------------------------------------------
 
+    /**
+     * Returns the data access signature of the given user. Users with equal
+     * signatures see the same data in every dashboard item: the organisation
+     * units used as roots and for relative organisation units, the data view
+     * organisation units and their max level, the user groups used for
+     * sharing, the authorities and the dimension constraints. A user which is
+     * granted access directly to objects enforced by analytics gets a
+     * signature of its own.
+     *
+     * @param user the user.
+     * @param directlySharedUsers the uids of users with direct sharing grants.
+     * @return the data access signature.
+     */
+    static List<Set<String>> getAccessSignature( User user, Set<String> directlySharedUsers )
+    {
+        UserCredentials credentials = user.getUserCredentials();
+
+        OrganisationUnit organisationUnit = user.getOrganisationUnit();
+
+        Integer maxOrgUnitLevel = user.getDataViewMaxOrganisationUnitLevel();
+
+        return ImmutableList.of(
+            uids( user.getOrganisationUnits() ),
+            organisationUnit != null ? ImmutableSet.of( organisationUnit.getUid() ) : ImmutableSet.of(),
+            uids( user.getDataViewOrganisationUnitsWithFallback() ),
+            maxOrgUnitLevel != null ? ImmutableSet.of( maxOrgUnitLevel.toString() ) : ImmutableSet.of(),
+            uids( user.getGroups() ),
+            credentials != null ? new TreeSet<>( credentials.getAllAuthorities() ) : ImmutableSet.of(),
+            credentials != null ? uids( credentials.getDimensionConstraints() ) : ImmutableSet.of(),
+            directlySharedUsers.contains( user.getUid() ) ? ImmutableSet.of( user.getUid() ) : ImmutableSet.of() );
+    }
+
+    private static Set<String> uids( Collection<? extends IdentifiableObject> objects )
+    {
+        return objects != null
+            ? objects.stream().map( IdentifiableObject::getUid ).collect( Collectors.toCollection( TreeSet::new ) )
+            : ImmutableSet.of();
+    }
+
+    /**
+     * Renders the report of the given push analysis for the given user, on the
+     * render pool if parallel rendering is enabled and on the calling thread
+     * otherwise.
+     *
+     * @param pushAnalysis the push analysis.
+     * @param user the user to render the report for.
+     * @param jobId for logging.
+     * @return the rendered report.
+     */
+    private Future<String> renderReport( PushAnalysis pushAnalysis, User user, JobConfiguration jobId )
+    {
+        if ( renderExecutor != null )
+        {
+            String pushAnalysisUid = pushAnalysis.getUid();
+            String userUid = user.getUid();
+            SecurityContext securityContext = SecurityContextHolder.getContext();
+            User contextUser = UserContext.getUser();
+            Locale dbLocale = UserContext.getUserSetting( UserSettingKey.DB_LOCALE );
+
+            return renderExecutor.submit( () -> {
+                SecurityContextHolder.setContext( securityContext );
+                UserContext.setUser( contextUser );
+                UserContext.setUserSetting( UserSettingKey.DB_LOCALE, dbLocale );
+
+                try
+                {
+                    return renderTransaction.execute( status -> {
+                        // entities can not be shared between sessions, so the
+                        // push analysis and the user are loaded again
+
+                        try
+                        {
+                            return generateHtmlReport( pushAnalysisStore.getByUid( pushAnalysisUid ),
+                                userService.getUser( userUid ), jobId );
+                        }
+                        catch ( IOException e )
+                        {
+                            throw new UncheckedIOException( e );
+                        }
+                    } );
+                }
+                finally
+                {
+                    UserContext.reset();
+                    SecurityContextHolder.clearContext();
+                }
+            } );
+        }
+
+        try
+        {
+            return CompletableFuture.completedFuture( generateHtmlReport( pushAnalysis, user, jobId ) );
+        }
+        catch ( Exception e )
+        {
+            CompletableFuture<String> report = new CompletableFuture<>();
+            report.completeExceptionally( e );
+            return report;
+        }
+    }
+
     /**
      * Finds the dashboardItem's type and calls the associated method for
      * generating the resource (either URL or HTML)
@@ -432,18 +668,18 @@ public class DefaultPushAnalysisService
     private String generateMapHtml( Map map, User user )
         throws IOException
     {
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-
-        BufferedImage image = mapGenerationService.generateMapImageForUser( map, new Date(), null, 578, 440, user );
+        byte[] image = mapGenerationService.generateMapPngForUser( map, new Date(), null, 578, 440, user );
 
         if ( image == null )
         {
-            image = MapUtils.createErrorImage( "No data" );
-        }
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
 
-        ImageIO.write( image, "PNG", baos );
+            ImageIO.write( MapUtils.createErrorImage( "No data" ), "PNG", baos );
+
+            image = baos.toByteArray();
+        }
 
-        return uploadImage( map.getUid(), baos.toByteArray() );
+        return uploadImage( map.getUid(), image );
     }
 
     /**
@@ -475,10 +711,10 @@ public class DefaultPushAnalysisService
     private String generateChartHtml( final Visualization visualization, User user )
         throws IOException
     {
-        JFreeChart jFreechart = chartService
-            .getJFreeChart( new PlotData( visualization ), new Date(), null, i18nManager.getI18nFormat(), user );
+        byte[] image = chartService.getChartImage( new PlotData( visualization ), new Date(), null,
+            i18nManager.getI18nFormat(), user, 578, 440 );
 
-        return uploadImage( visualization.getUid(), ChartUtils.getChartAsPngByteArray( jFreechart, 578, 440 ) );
+        return uploadImage( visualization.getUid(), image );
     }
 
     /**
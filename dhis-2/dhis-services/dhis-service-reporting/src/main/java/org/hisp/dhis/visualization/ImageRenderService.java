@@ -0,0 +1,213 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.visualization;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import javax.annotation.PreDestroy;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.hisp.dhis.cache.Cache;
+import org.hisp.dhis.cache.CacheProvider;
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Renders chart and map images on a bounded pool of render threads and caches
+ * the encoded images by content key. The key must be derived from everything
+ * which affects the rendered output, typically the visualization, a hash of
+ * the analytics data and the image size, so that equal keys always produce
+ * equal images. Concurrent requests for a key which is being rendered wait
+ * for the ongoing render instead of starting another one.
+ * <p>
+ * The render callback runs on a pool thread and must hence not depend on the
+ * Hibernate session or security context of the caller, all data must be
+ * loaded before calling {@link #render(String, String, Supplier)}.
+ */
+@Slf4j
+@Service( "org.hisp.dhis.visualization.ImageRenderService" )
+public class ImageRenderService
+{
+    public static final String TYPE_CHART = "chart";
+
+    public static final String TYPE_MAP = "map";
+
+    private final Cache<byte[]> imageCache;
+
+    private final Map<String, CompletableFuture<byte[]>> inFlight = new ConcurrentHashMap<>();
+
+    private final ExecutorService renderExecutor;
+
+    private final MeterRegistry meterRegistry;
+
+    public ImageRenderService( CacheProvider cacheProvider, DhisConfigurationProvider dhisConfigurationProvider,
+        MeterRegistry meterRegistry )
+    {
+        checkNotNull( cacheProvider );
+        checkNotNull( dhisConfigurationProvider );
+        checkNotNull( meterRegistry );
+
+        this.imageCache = cacheProvider.createRenderedImageCache();
+        this.meterRegistry = meterRegistry;
+
+        int workers = Math.max( 1, Integer.parseInt(
+            dhisConfigurationProvider.getProperty( ConfigurationKey.VISUALIZATION_IMAGE_RENDER_WORKERS ) ) );
+
+        AtomicInteger threadCount = new AtomicInteger();
+
+        this.renderExecutor = Executors.newFixedThreadPool( workers, runnable -> {
+            Thread thread = new Thread( runnable, "image-render-" + threadCount.incrementAndGet() );
+            thread.setDaemon( true );
+            return thread;
+        } );
+
+        log.info( "Image rendering enabled with {} workers", workers );
+    }
+
+    @PreDestroy
+    public void shutdown()
+    {
+        renderExecutor.shutdownNow();
+    }
+
+    /**
+     * Returns the image for the given key, either from the cache, from an
+     * ongoing render of the same key, or by running the given renderer on the
+     * render pool.
+     *
+     * @param type the image type, used for metrics, e.g. {@link #TYPE_CHART}.
+     * @param key the content key of the image.
+     * @param renderer the function producing the encoded image.
+     * @return the encoded image.
+     */
+    public byte[] render( String type, String key, Supplier<byte[]> renderer )
+    {
+        String cacheKey = type + ":" + key;
+
+        Optional<byte[]> cached = imageCache.getIfPresent( cacheKey );
+
+        if ( cached.isPresent() )
+        {
+            count( type, "hit" );
+            return cached.get();
+        }
+
+        CompletableFuture<byte[]> future = new CompletableFuture<>();
+        CompletableFuture<byte[]> ongoing = inFlight.putIfAbsent( cacheKey, future );
+
+        if ( ongoing != null )
+        {
+            count( type, "coalesced" );
+            return await( ongoing );
+        }
+
+        count( type, "miss" );
+
+        Timer timer = Timer.builder( "image_render_duration" )
+            .description( "Time spent rendering chart and map images" )
+            .tag( "type", type )
+            .register( meterRegistry );
+
+        try
+        {
+            renderExecutor.execute( () -> {
+                try
+                {
+                    byte[] image = timer.record( renderer );
+
+                    imageCache.put( cacheKey, image );
+                    future.complete( image );
+                }
+                catch ( Throwable ex )
+                {
+                    future.completeExceptionally( ex );
+                }
+                finally
+                {
+                    inFlight.remove( cacheKey, future );
+                }
+            } );
+        }
+        catch ( RejectedExecutionException ex )
+        {
+            inFlight.remove( cacheKey, future );
+            future.completeExceptionally( ex );
+        }
+
+        return await( future );
+    }
+
+    private void count( String type, String result )
+    {
+        Counter.builder( "image_render_requests" )
+            .description( "Image render requests by cache result" )
+            .tag( "type", type )
+            .tag( "result", result )
+            .register( meterRegistry )
+            .increment();
+    }
+
+    private byte[] await( CompletableFuture<byte[]> future )
+    {
+        try
+        {
+            return future.get();
+        }
+        catch ( InterruptedException ex )
+        {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException( "Interrupted while waiting for image render", ex );
+        }
+        catch ( ExecutionException ex )
+        {
+            if ( ex.getCause() instanceof RuntimeException )
+            {
+                throw (RuntimeException) ex.getCause();
+            }
+
+            throw new IllegalStateException( "Image render failed", ex.getCause() );
+        }
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.pushanalysis;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import java.util.Set;
+
+import org.hisp.dhis.category.Category;
+import org.hisp.dhis.organisationunit.OrganisationUnit;
+import org.hisp.dhis.user.User;
+import org.hisp.dhis.user.UserAuthorityGroup;
+import org.hisp.dhis.user.UserCredentials;
+import org.hisp.dhis.user.UserGroup;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
+
+/**
+ * Unit tests for the grouping of push analysis recipients by data access.
+ */
+public class PushAnalysisAccessSignatureTest
+{
+    private static final Set<String> NO_DIRECT_SHARING = ImmutableSet.of();
+
+    private OrganisationUnit ouA;
+
+    private OrganisationUnit ouB;
+
+    private UserAuthorityGroup userRole;
+
+    private UserGroup userGroup;
+
+    @Before
+    public void setUp()
+    {
+        ouA = new OrganisationUnit( "A" );
+        ouA.setUid( "ouA" );
+        ouB = new OrganisationUnit( "B" );
+        ouB.setUid( "ouB" );
+
+        userRole = new UserAuthorityGroup();
+        userRole.setAuthorities( Sets.newHashSet( "F_A" ) );
+
+        userGroup = new UserGroup();
+        userGroup.setUid( "userGroupA" );
+    }
+
+    @Test
+    public void testEqualAccess()
+    {
+        assertEquals( DefaultPushAnalysisService.getAccessSignature( createUser( "userA", ouA ), NO_DIRECT_SHARING ),
+            DefaultPushAnalysisService.getAccessSignature( createUser( "userB", ouA ), NO_DIRECT_SHARING ) );
+    }
+
+    @Test
+    public void testDifferentOrganisationUnits()
+    {
+        assertNotEquals( DefaultPushAnalysisService.getAccessSignature( createUser( "userA", ouA ), NO_DIRECT_SHARING ),
+            DefaultPushAnalysisService.getAccessSignature( createUser( "userB", ouB ), NO_DIRECT_SHARING ) );
+    }
+
+    @Test
+    public void testDifferentDataViewOrganisationUnits()
+    {
+        User userB = createUser( "userB", ouA );
+        userB.setDataViewOrganisationUnits( Sets.newHashSet( ouB ) );
+
+        assertNotEquals( DefaultPushAnalysisService.getAccessSignature( createUser( "userA", ouA ), NO_DIRECT_SHARING ),
+            DefaultPushAnalysisService.getAccessSignature( userB, NO_DIRECT_SHARING ) );
+    }
+
+    @Test
+    public void testDifferentUserGroups()
+    {
+        User userB = createUser( "userB", ouA );
+        userB.setGroups( Sets.newHashSet() );
+
+        assertNotEquals( DefaultPushAnalysisService.getAccessSignature( createUser( "userA", ouA ), NO_DIRECT_SHARING ),
+            DefaultPushAnalysisService.getAccessSignature( userB, NO_DIRECT_SHARING ) );
+    }
+
+    @Test
+    public void testDifferentDimensionConstraints()
+    {
+        Category category = new Category();
+        category.setUid( "categoryA" );
+
+        User userB = createUser( "userB", ouA );
+        userB.getUserCredentials().setCatDimensionConstraints( Sets.newHashSet( category ) );
+
+        assertNotEquals( DefaultPushAnalysisService.getAccessSignature( createUser( "userA", ouA ), NO_DIRECT_SHARING ),
+            DefaultPushAnalysisService.getAccessSignature( userB, NO_DIRECT_SHARING ) );
+    }
+
+    @Test
+    public void testDifferentMaxOrganisationUnitLevel()
+    {
+        User userB = createUser( "userB", ouA );
+        userB.setDataViewMaxOrganisationUnitLevel( 2 );
+
+        assertNotEquals( DefaultPushAnalysisService.getAccessSignature( createUser( "userA", ouA ), NO_DIRECT_SHARING ),
+            DefaultPushAnalysisService.getAccessSignature( userB, NO_DIRECT_SHARING ) );
+    }
+
+    @Test
+    public void testDirectUserSharing()
+    {
+        Set<String> directSharing = ImmutableSet.of( "userB" );
+
+        assertNotEquals( DefaultPushAnalysisService.getAccessSignature( createUser( "userA", ouA ), directSharing ),
+            DefaultPushAnalysisService.getAccessSignature( createUser( "userB", ouA ), directSharing ) );
+    }
+
+    private User createUser( String uid, OrganisationUnit organisationUnit )
+    {
+        UserCredentials credentials = new UserCredentials();
+        credentials.setUsername( uid );
+        credentials.setUserAuthorityGroups( Sets.newHashSet( userRole ) );
+
+        User user = new User();
+        user.setUid( uid );
+        user.setUserCredentials( credentials );
+        user.setGroups( Sets.newHashSet( userGroup ) );
+        user.setOrganisationUnits( Sets.newHashSet( organisationUnit ) );
+
+        return user;
+    }
+}
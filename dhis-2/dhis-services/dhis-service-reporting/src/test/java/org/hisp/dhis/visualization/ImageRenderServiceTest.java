@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.visualization;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.hisp.dhis.cache.CacheProvider;
+import org.hisp.dhis.cache.SimpleCacheBuilder;
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Unit tests for the caching and coalescing of image renders.
+ */
+public class ImageRenderServiceTest
+{
+    private SimpleMeterRegistry meterRegistry;
+
+    private ImageRenderService imageRenderService;
+
+    @Before
+    public void setUp()
+    {
+        CacheProvider cacheProvider = mock( CacheProvider.class );
+        when( cacheProvider.createRenderedImageCache() )
+            .thenReturn( new SimpleCacheBuilder<byte[]>().withMaximumSize( 10 ).build() );
+
+        DhisConfigurationProvider config = mock( DhisConfigurationProvider.class );
+        when( config.getProperty( ConfigurationKey.VISUALIZATION_IMAGE_RENDER_WORKERS ) ).thenReturn( "2" );
+
+        meterRegistry = new SimpleMeterRegistry();
+
+        imageRenderService = new ImageRenderService( cacheProvider, config, meterRegistry );
+    }
+
+    @After
+    public void tearDown()
+    {
+        imageRenderService.shutdown();
+    }
+
+    @Test
+    public void testCachedRender()
+    {
+        AtomicInteger renders = new AtomicInteger();
+
+        byte[] first = imageRenderService.render( ImageRenderService.TYPE_CHART, "keyA",
+            () -> new byte[] { (byte) renders.incrementAndGet() } );
+        byte[] second = imageRenderService.render( ImageRenderService.TYPE_CHART, "keyA",
+            () -> new byte[] { (byte) renders.incrementAndGet() } );
+
+        assertArrayEquals( first, second );
+        assertEquals( 1, renders.get() );
+        assertEquals( 1.0, getCount( "hit" ), 0.0 );
+        assertEquals( 1.0, getCount( "miss" ), 0.0 );
+    }
+
+    @Test
+    public void testDifferentKeys()
+    {
+        AtomicInteger renders = new AtomicInteger();
+
+        imageRenderService.render( ImageRenderService.TYPE_CHART, "keyA", () -> new byte[] { 1 } );
+        imageRenderService.render( ImageRenderService.TYPE_CHART, "keyB", () -> new byte[] { 2 } );
+        imageRenderService.render( ImageRenderService.TYPE_MAP, "keyA",
+            () -> new byte[] { (byte) renders.incrementAndGet() } );
+
+        assertEquals( 1, renders.get() );
+        assertEquals( 0.0, getCount( "hit" ), 0.0 );
+    }
+
+    @Test
+    public void testCoalescedRender()
+        throws Exception
+    {
+        AtomicInteger renders = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch( 1 );
+        CountDownLatch release = new CountDownLatch( 1 );
+
+        CompletableFuture<byte[]> first = CompletableFuture
+            .supplyAsync( () -> imageRenderService.render( ImageRenderService.TYPE_MAP, "keyA", () -> {
+                renders.incrementAndGet();
+                started.countDown();
+                await( release );
+                return new byte[] { 1 };
+            } ) );
+
+        started.await( 10, TimeUnit.SECONDS );
+
+        CompletableFuture<byte[]> second = CompletableFuture
+            .supplyAsync( () -> imageRenderService.render( ImageRenderService.TYPE_MAP, "keyA", () -> {
+                renders.incrementAndGet();
+                return new byte[] { 2 };
+            } ) );
+
+        while ( getCount( "coalesced" ) == 0.0 && !second.isDone() )
+        {
+            Thread.sleep( 10 );
+        }
+
+        release.countDown();
+
+        assertArrayEquals( new byte[] { 1 }, first.get( 10, TimeUnit.SECONDS ) );
+        assertArrayEquals( new byte[] { 1 }, second.get( 10, TimeUnit.SECONDS ) );
+        assertEquals( 1, renders.get() );
+    }
+
+    @Test( expected = IllegalArgumentException.class )
+    public void testFailedRender()
+    {
+        imageRenderService.render( ImageRenderService.TYPE_CHART, "keyA", () -> {
+            throw new IllegalArgumentException( "Illegal or no chart type" );
+        } );
+    }
+
+    private double getCount( String result )
+    {
+        return meterRegistry.find( "image_render_requests" ).tag( "result", result ).counters().stream()
+            .mapToDouble( c -> c.count() ).sum();
+    }
+
+    private static void await( CountDownLatch latch )
+    {
+        try
+        {
+            latch.await( 10, TimeUnit.SECONDS );
+        }
+        catch ( InterruptedException ex )
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
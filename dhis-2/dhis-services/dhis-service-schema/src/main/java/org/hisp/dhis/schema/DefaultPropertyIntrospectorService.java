@@ -93,6 +93,7 @@ public class DefaultPropertyIntrospectorService implements PropertyIntrospectorS
         }
         Map<String, Property> properties = new HashMap<>();
         introspector.introspect( klass, properties );
+        PropertyAccessors.compileGetters( properties.values() );
         return unmodifiableMap( properties );
     }
 
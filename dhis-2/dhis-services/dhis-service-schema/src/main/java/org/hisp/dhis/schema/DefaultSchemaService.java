@@ -35,6 +35,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -207,7 +208,7 @@ public class DefaultSchemaService
 
     private final Map<String, Schema> pluralSchemaMap = new HashMap<>();
 
-    private final Map<Class<?>, Schema> dynamicClassSchemaMap = new HashMap<>();
+    private final Map<Class<?>, Schema> dynamicClassSchemaMap = new ConcurrentHashMap<>();
 
     private final PropertyIntrospectorService propertyIntrospectorService;
 
@@ -291,20 +292,25 @@ public class DefaultSchemaService
             return null;
         }
 
-        if ( klass.getName().contains( "Proxy" ) )
+        // look up known classes first, the class name check below is
+        // comparatively expensive on hot rendering paths
+
+        Schema schema = classSchemaMap.get( klass );
+
+        if ( schema == null )
         {
-            log.error( "Error, can't use Hibernate proxy class names!!!" );
-            throw new IllegalStateException( "Input class must not be Hibernate proxy class!!!" );
+            schema = dynamicClassSchemaMap.get( klass );
         }
 
-        if ( classSchemaMap.containsKey( klass ) )
+        if ( schema != null )
         {
-            return classSchemaMap.get( klass );
+            return schema;
         }
 
-        if ( dynamicClassSchemaMap.containsKey( klass ) )
+        if ( klass.getName().contains( "Proxy" ) )
         {
-            return dynamicClassSchemaMap.get( klass );
+            log.error( "Error, can't use Hibernate proxy class names!!!" );
+            throw new IllegalStateException( "Input class must not be Hibernate proxy class!!!" );
         }
 
         return null;
@@ -319,12 +325,6 @@ public class DefaultSchemaService
             return null;
         }
 
-        if ( klass.getName().contains( "Proxy" ) )
-        {
-            log.error( "Error, can't use Hibernate proxy class names!!!" );
-            throw new IllegalStateException( "Input class must not be Hibernate proxy class!!!" );
-        }
-
         Schema schema = getSchema( klass );
 
         if ( schema != null )
@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.schema;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.hisp.dhis.system.util.ReflectionUtils;
+
+/**
+ * Compiles getter methods of {@link Property} instances into {@link Function}
+ * accessors through {@link LambdaMetafactory}. A compiled accessor is invoked
+ * like a regular lambda and is considerably faster than
+ * {@link Method#invoke(Object, Object...)}.
+ *
+ * Methods which can not be compiled fall back to reflective invocation.
+ */
+@Slf4j
+public final class PropertyAccessors
+{
+    private static final MethodType FUNCTION_TYPE = MethodType.methodType( Function.class );
+
+    private static final MethodType APPLY_TYPE = MethodType.methodType( Object.class, Object.class );
+
+    /**
+     * Accessors by getter method, inherited getters are compiled once and
+     * shared by all classes declaring the property.
+     */
+    private static final Map<Method, Function<Object, Object>> GETTERS = new ConcurrentHashMap<>();
+
+    private PropertyAccessors()
+    {
+        throw new UnsupportedOperationException( "util" );
+    }
+
+    /**
+     * Sets a compiled getter on each of the given properties which has a
+     * getter method.
+     *
+     * @param properties the properties.
+     */
+    public static void compileGetters( Iterable<Property> properties )
+    {
+        for ( Property property : properties )
+        {
+            if ( property.getGetterMethod() != null )
+            {
+                property.setGetter( getGetter( property.getGetterMethod() ) );
+            }
+        }
+    }
+
+    /**
+     * Returns the value of the given property of the given object. Uses the
+     * compiled getter of the property if present.
+     *
+     * @param object the object.
+     * @param property the property.
+     * @return the property value, or null if the object is null.
+     */
+    public static <T> T getValue( Object object, Property property )
+    {
+        Function<Object, Object> getter = property.getGetter();
+
+        if ( object == null || getter == null )
+        {
+            return ReflectionUtils.invokeMethod( object, property.getGetterMethod() );
+        }
+
+        @SuppressWarnings( "unchecked" )
+        T value = (T) getter.apply( object );
+
+        return value;
+    }
+
+    /**
+     * Returns an accessor for the given getter method.
+     *
+     * @param method the getter method.
+     * @return a function invoking the method on its argument.
+     */
+    public static Function<Object, Object> getGetter( Method method )
+    {
+        return GETTERS.computeIfAbsent( method, PropertyAccessors::compileGetter );
+    }
+
+    @SuppressWarnings( "unchecked" )
+    private static Function<Object, Object> compileGetter( Method method )
+    {
+        if ( !Modifier.isPublic( method.getModifiers() )
+            || !Modifier.isPublic( method.getDeclaringClass().getModifiers() )
+            || method.getParameterCount() != 0 || method.getReturnType() == void.class )
+        {
+            return object -> ReflectionUtils.invokeMethod( object, method );
+        }
+
+        try
+        {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            MethodHandle handle = lookup.unreflect( method );
+
+            CallSite site = LambdaMetafactory.metafactory( lookup, "apply", FUNCTION_TYPE, APPLY_TYPE,
+                handle, handle.type().wrap() );
+
+            return (Function<Object, Object>) site.getTarget().invokeExact();
+        }
+        catch ( Throwable ex )
+        {
+            log.debug( String.format( "Getter '%s' could not be compiled, using reflection", method ), ex );
+
+            return object -> ReflectionUtils.invokeMethod( object, method );
+        }
+    }
+}
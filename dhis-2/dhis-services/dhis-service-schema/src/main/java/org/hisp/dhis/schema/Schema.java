@@ -256,6 +256,12 @@ public class Schema implements Ordered, Klass
      */
     private final Map<String, Property> analyticalObjectProperties = new TreeMap<>();
 
+    /**
+     * Map of all persisted owner properties referencing other objects, cached
+     * on first request.
+     */
+    private final Map<String, Property> ownerReferenceProperties = new TreeMap<>();
+
     /**
      * Map containing cached authorities by their type.
      */
@@ -690,6 +696,14 @@ public class Schema implements Ordered, Klass
         return analyticalObjectProperties;
     }
 
+    public Map<String, Property> getOwnerReferenceProperties()
+    {
+        initEmptyCache( ownerReferenceProperties, property -> property.isPersisted() && property.isOwner()
+            && (PropertyType.REFERENCE == property.getPropertyType()
+                || PropertyType.REFERENCE == property.getItemPropertyType()) );
+        return ownerReferenceProperties;
+    }
+
     private void initEmptyCache( Map<String, Property> map, Predicate<Property> filter )
     {
         if ( map.isEmpty() )
@@ -714,6 +728,7 @@ public class Schema implements Ordered, Klass
     {
         analyticalObjectProperties.clear();
         embeddedObjectProperties.clear();
+        ownerReferenceProperties.clear();
         readableProperties.clear();
         persistedProperties.clear();
         nonPersistedProperties.clear();
@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.schema;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.Arrays;
+import java.util.function.Function;
+
+import org.hisp.dhis.dataelement.DataElement;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link PropertyAccessors}.
+ */
+public class PropertyAccessorsTest
+{
+    @Test
+    public void testCompiledGetterReturnsValue()
+        throws Exception
+    {
+        DataElement dataElement = new DataElement( "DataElementA" );
+        dataElement.setZeroIsSignificant( true );
+
+        Property name = new Property( String.class, DataElement.class.getMethod( "getName" ), null );
+        Property zeroIsSignificant = new Property( boolean.class,
+            DataElement.class.getMethod( "isZeroIsSignificant" ), null );
+
+        PropertyAccessors.compileGetters( Arrays.asList( name, zeroIsSignificant ) );
+
+        assertNotNull( name.getGetter() );
+        assertEquals( "DataElementA", PropertyAccessors.getValue( dataElement, name ) );
+        assertEquals( Boolean.TRUE, PropertyAccessors.getValue( dataElement, zeroIsSignificant ) );
+    }
+
+    @Test
+    public void testGetterIsSharedForInheritedMethod()
+        throws Exception
+    {
+        Function<Object, Object> getter = PropertyAccessors.getGetter( DataElement.class.getMethod( "getUid" ) );
+
+        assertSame( getter, PropertyAccessors.getGetter( DataElement.class.getMethod( "getUid" ) ) );
+    }
+
+    @Test
+    public void testGetValueOfNullObject()
+        throws Exception
+    {
+        Property name = new Property( String.class, DataElement.class.getMethod( "getName" ), null );
+        PropertyAccessors.compileGetters( Arrays.asList( name ) );
+
+        assertNull( PropertyAccessors.getValue( null, name ) );
+    }
+
+    @Test
+    public void testSetGetterMethodResetsCompiledGetter()
+        throws Exception
+    {
+        Property name = new Property( String.class, DataElement.class.getMethod( "getName" ), null );
+        PropertyAccessors.compileGetters( Arrays.asList( name ) );
+
+        name.setGetterMethod( DataElement.class.getMethod( "getCode" ) );
+
+        assertNull( name.getGetter() );
+    }
+}
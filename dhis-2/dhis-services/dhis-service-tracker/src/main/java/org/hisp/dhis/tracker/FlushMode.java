@@ -41,4 +41,10 @@ public enum FlushMode
      * Let the importer decide the flushing.
      */
     AUTO,
+
+    /**
+     * Flush after every batch of objects, writing the objects of a batch with
+     * JDBC batched statements.
+     */
+    BATCH,
 }
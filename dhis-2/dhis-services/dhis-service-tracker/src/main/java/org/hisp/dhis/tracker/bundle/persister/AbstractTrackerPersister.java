@@ -64,6 +64,12 @@ import org.hisp.dhis.tracker.report.TrackerTypeReport;
 public abstract class AbstractTrackerPersister<T extends TrackerDto, V extends BaseIdentifiableObject>
     implements TrackerPersister<T, V>
 {
+    /**
+     * Number of objects written per JDBC batch and flushed together when the
+     * bundle uses {@link FlushMode#BATCH}.
+     */
+    static final int BATCH_SIZE = 500;
+
     protected final ReservedValueService reservedValueService;
 
     protected AbstractTrackerPersister( ReservedValueService reservedValueService )
@@ -94,6 +100,37 @@ public abstract class AbstractTrackerPersister<T extends TrackerDto, V extends B
         //
         List<T> dtos = getByType( getType(), bundle );
 
+        boolean batched = FlushMode.BATCH == bundle.getFlushMode();
+
+        Integer jdbcBatchSize = session.getJdbcBatchSize();
+
+        if ( batched )
+        {
+            session.setJdbcBatchSize( BATCH_SIZE );
+        }
+
+        try
+        {
+            persistAll( session, bundle, dtos, typeReport, sideEffectDataBundles );
+        }
+        finally
+        {
+            if ( batched )
+            {
+                session.setJdbcBatchSize( jdbcBatchSize );
+            }
+        }
+
+        typeReport.getSideEffectDataBundles().addAll( sideEffectDataBundles );
+
+        return typeReport;
+    }
+
+    private void persistAll( Session session, TrackerBundle bundle, List<T> dtos, TrackerTypeReport typeReport,
+        List<TrackerSideEffectDataBundle> sideEffectDataBundles )
+    {
+        boolean batched = FlushMode.BATCH == bundle.getFlushMode();
+
         for ( int idx = 0; idx < dtos.size(); idx++ )
         {
             //
@@ -181,11 +218,29 @@ public abstract class AbstractTrackerPersister<T extends TrackerDto, V extends B
                     typeReport.getStats().incIgnored();
                 }
             }
-        }
 
-        typeReport.getSideEffectDataBundles().addAll( sideEffectDataBundles );
+            if ( batched && ((idx + 1) % BATCH_SIZE == 0 || idx == dtos.size() - 1) )
+            {
+                flushBatch( session );
+            }
+        }
+    }
 
-        return typeReport;
+    /**
+     * Flushes the pending writes of a batch. A failing batch cannot be
+     * attributed to a single entity, hence fails the whole import.
+     */
+    private void flushBatch( Session session )
+    {
+        try
+        {
+            session.flush();
+        }
+        catch ( Exception e )
+        {
+            throw new PersistenceException(
+                "A batch of Tracker Entities of type '" + getType().getName() + "' failed to persist.", e );
+        }
     }
 
     // // // // // // // //
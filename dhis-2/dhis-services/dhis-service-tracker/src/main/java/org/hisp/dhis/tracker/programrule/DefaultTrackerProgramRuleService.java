@@ -41,6 +41,7 @@ import org.apache.commons.lang3.StringUtils;
 import org.hisp.dhis.program.Program;
 import org.hisp.dhis.program.ProgramInstance;
 import org.hisp.dhis.program.ProgramStageInstance;
+import org.hisp.dhis.programrule.engine.EnrollmentEvaluation;
 import org.hisp.dhis.programrule.engine.ProgramRuleEngine;
 import org.hisp.dhis.rules.models.RuleEffects;
 import org.hisp.dhis.trackedentity.TrackedEntityInstance;
@@ -95,21 +96,20 @@ public class DefaultTrackerProgramRuleService
     @Transactional( readOnly = true )
     public List<RuleEffects> calculateRuleEffects( TrackerBundle bundle )
     {
-        Stream<RuleEffects> enrollmentStream = bundle.getEnrollments()
+        List<EnrollmentEvaluation> enrollmentEvaluations = bundle.getEnrollments()
             .stream()
-            .flatMap( e -> {
+            .map( e -> {
                 ProgramInstance enrollment = enrollmentTrackerConverterService.fromForRuleEngine( bundle.getPreheat(),
                     e );
 
-                return programRuleEngine
-                    .evaluateEnrollmentAndEvents( enrollment,
-                        getEventsFromEnrollment( enrollment.getUid(), bundle ),
-                        getAttributes( e, bundle ) )
-                    .stream();
-            } );
+                return new EnrollmentEvaluation( enrollment,
+                    getEventsFromEnrollment( enrollment.getUid(), bundle ),
+                    getAttributes( e, bundle ) );
+            } )
+            .collect( Collectors.toList() );
 
         return Stream.concat(
-            enrollmentStream,
+            programRuleEngine.evaluateEnrollmentsAndEvents( enrollmentEvaluations ).stream(),
             calculateEventRuleEffects( bundle ).stream() )
             .collect( Collectors.toList() );
     }
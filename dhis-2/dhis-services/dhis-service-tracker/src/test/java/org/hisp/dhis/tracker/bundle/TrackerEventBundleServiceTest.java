@@ -29,11 +29,17 @@ package org.hisp.dhis.tracker.bundle;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import org.hibernate.BaseSessionEventListener;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.hisp.dhis.common.IdentifiableObject;
 import org.hisp.dhis.dxf2.metadata.objectbundle.ObjectBundle;
 import org.hisp.dhis.dxf2.metadata.objectbundle.ObjectBundleMode;
@@ -45,6 +51,7 @@ import org.hisp.dhis.importexport.ImportStrategy;
 import org.hisp.dhis.program.ProgramStageInstance;
 import org.hisp.dhis.program.ProgramStageInstanceStore;
 import org.hisp.dhis.render.RenderFormat;
+import org.hisp.dhis.tracker.FlushMode;
 import org.hisp.dhis.tracker.TrackerImportParams;
 import org.hisp.dhis.tracker.TrackerImportStrategy;
 import org.hisp.dhis.tracker.TrackerTest;
@@ -69,6 +76,9 @@ public class TrackerEventBundleServiceTest extends TrackerTest
     @Autowired
     private ProgramStageInstanceStore programStageInstanceStore;
 
+    @Autowired
+    private SessionFactory sessionFactory;
+
     @Override
     protected void initTest()
         throws IOException
@@ -105,6 +115,56 @@ public class TrackerEventBundleServiceTest extends TrackerTest
         assertEquals( 8, programStageInstances.size() );
     }
 
+    @Test
+    public void testCreateSingleEventDataInBatches()
+        throws IOException
+    {
+        TrackerImportParams trackerImportParams = fromJson( "tracker/event_events_and_enrollment.json" );
+        trackerImportParams.setFlushMode( FlushMode.BATCH );
+
+        TrackerBundle trackerBundle = trackerBundleService.create( trackerImportParams );
+
+        Statistics statistics = sessionFactory.getStatistics();
+        statistics.setStatisticsEnabled( true );
+        statistics.clear();
+
+        AtomicInteger executedBatches = new AtomicInteger();
+        sessionFactory.getCurrentSession().addEventListeners( new BaseSessionEventListener()
+        {
+            @Override
+            public void jdbcExecuteBatchStart()
+            {
+                executedBatches.incrementAndGet();
+            }
+        } );
+
+        try
+        {
+            trackerBundleService.commit( trackerBundle );
+
+            // the events are written by the batch flush of the persister, not
+            // on a later flush of the surrounding transaction
+
+            assertEquals( 8, statistics.getEntityStatistics( ProgramStageInstance.class.getName() ).getInsertCount() );
+            assertTrue( statistics.getFlushCount() > 0 );
+            assertTrue( statistics.getFlushCount() < 8 );
+
+            // the inserts are sent as JDBC batches, hence fewer batches are
+            // executed than rows are inserted
+
+            assertTrue( executedBatches.get() > 0 );
+            assertTrue( executedBatches.get() < statistics.getEntityInsertCount() );
+            assertNull( sessionFactory.getCurrentSession().getJdbcBatchSize() );
+        }
+        finally
+        {
+            statistics.setStatisticsEnabled( false );
+        }
+
+        List<ProgramStageInstance> programStageInstances = programStageInstanceStore.getAll();
+        assertEquals( 8, programStageInstances.size() );
+    }
+
     @Test
     public void testUpdateSingleEventData()
         throws IOException
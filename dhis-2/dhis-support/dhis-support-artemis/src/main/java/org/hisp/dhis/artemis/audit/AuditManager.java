@@ -31,8 +31,15 @@ import static com.google.common.base.Preconditions.checkNotNull;
 
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.annotation.PreDestroy;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -76,6 +83,16 @@ public class AuditManager
      */
     private static final Map<String, Map<Field, Method>> cachedAuditAttributeFields = new ConcurrentHashMap<>();
 
+    /**
+     * Publishes batches of audits off the calling thread when the in-memory
+     * queue is not used.
+     */
+    private final ExecutorService batchPublisher = Executors.newSingleThreadExecutor( runnable -> {
+        Thread thread = new Thread( runnable, "audit-batch-publisher" );
+        thread.setDaemon( true );
+        return thread;
+    } );
+
     public AuditManager(
         AuditProducerSupplier auditProducerSupplier,
         AuditScheduler auditScheduler,
@@ -99,11 +116,82 @@ public class AuditManager
     }
 
     public void send( Audit audit )
+    {
+        if ( !prepare( audit ) )
+        {
+            return;
+        }
+
+        if ( config.isUseQueue() )
+        {
+            auditScheduler.addAuditItem( audit );
+        }
+        else
+        {
+            auditProducerSupplier.publish( audit );
+        }
+    }
+
+    /**
+     * Sends the given audits as a batch. The audit data is created on the
+     * calling thread, while publishing happens asynchronously, either through
+     * the in-memory queue when enabled or on a dedicated publisher thread.
+     *
+     * @param audits the audits to send.
+     */
+    public void send( Collection<Audit> audits )
+    {
+        List<Audit> prepared = new ArrayList<>( audits.size() );
+
+        for ( Audit audit : audits )
+        {
+            if ( prepare( audit ) )
+            {
+                prepared.add( audit );
+            }
+        }
+
+        if ( prepared.isEmpty() )
+        {
+            return;
+        }
+
+        if ( config.isUseQueue() )
+        {
+            prepared.forEach( auditScheduler::addAuditItem );
+        }
+        else
+        {
+            batchPublisher.execute( () -> {
+                try
+                {
+                    auditProducerSupplier.publish( prepared );
+                }
+                catch ( Exception ex )
+                {
+                    log.error( String.format( "Failed to publish %d audit messages", prepared.size() ), ex );
+                }
+            } );
+        }
+    }
+
+    @PreDestroy
+    public void shutdown()
+    {
+        batchPublisher.shutdown();
+    }
+
+    /**
+     * Sets the creator and data of the given audit.
+     *
+     * @return false if the audit is ignored.
+     */
+    private boolean prepare( Audit audit )
     {
         if ( !auditMatrix.isEnabled( audit ) || audit.getAuditableEntity() == null )
         {
             log.debug( "Audit message ignored:\n" + audit.toLog() );
-            return;
+            return false;
         }
 
         if ( StringUtils.isEmpty( audit.getCreatedBy() ) )
@@ -120,14 +208,7 @@ public class AuditManager
                 audit.getCreatedBy() ) );
         }
 
-        if ( config.isUseQueue() )
-        {
-            auditScheduler.addAuditItem( audit );
-        }
-        else
-        {
-            auditProducerSupplier.publish( audit );
-        }
+        return true;
     }
 
     public Map<Field, Method> getAuditAttributeFields( Class<?> auditClass )
@@ -27,6 +27,10 @@
  */
 package org.hisp.dhis.artemis.audit;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import lombok.extern.slf4j.Slf4j;
@@ -75,6 +79,42 @@ public class AuditProducerSupplier
         }
     }
 
+    /**
+     * Publishes the given audits, sending all audits of the same scope as a
+     * single batch.
+     *
+     * @param audits the audits to publish.
+     */
+    public void publish( Collection<Audit> audits )
+    {
+        Map<AuditScope, List<Audit>> auditsByScope = new HashMap<>();
+
+        for ( Audit audit : audits )
+        {
+            auditsByScope.computeIfAbsent( audit.getAuditScope(), scope -> new ArrayList<>() ).add( audit );
+        }
+
+        for ( Map.Entry<AuditScope, List<Audit>> entry : auditsByScope.entrySet() )
+        {
+            String topic = auditScopeDestinationMap.get( entry.getKey() );
+
+            if ( !Strings.isNullOrEmpty( topic ) )
+            {
+                if ( log.isDebugEnabled() )
+                {
+                    log.debug( String.format( "sending %d auditing messages to topic: [%s]",
+                        entry.getValue().size(), topic ) );
+                }
+                this.messageManager.send( topic, entry.getValue() );
+            }
+            else
+            {
+                log.error( String.format( "Unable to map AuditScope [%s] to a topic name. Sending aborted",
+                    entry.getKey() ) );
+            }
+        }
+    }
+
     private String getTopicName( Audit audit )
     {
         return auditScopeDestinationMap.get( audit.getAuditScope() );
@@ -28,26 +28,41 @@
 package org.hisp.dhis.artemis.audit;
 
 import java.util.ArrayList;
-import java.util.Collection;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.DelayQueue;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 
 import lombok.extern.slf4j.Slf4j;
 
-import org.springframework.scheduling.annotation.Scheduled;
+import org.hisp.dhis.artemis.AuditProducerConfiguration;
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
 import org.springframework.stereotype.Component;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
 /**
  * Buffers Audit messages prior to sending them to the Audit queue. This
  * scheduler is disabled by default (config key: audit.inmemory-queue.enabled)
  * and should be used only in very high-traffic environments. Note that upon a
  * JVM crash, the Audit messages in this queue will be lost.
  *
- * The buffer is based on a {@link DelayQueue} where messages are buffered for 5
- * seconds, before being de-queued to the Artemis broker.
+ * Messages are buffered for 5 seconds (audit.in_memory_queue.delay) before
+ * being sent to the Artemis broker by a dedicated publisher thread. A message
+ * which is equal to a buffered message is discarded, any other message is
+ * buffered, including further messages for the same entity.
  *
- * To avoid excessive memory pressure, max 200 messages can stay in the queue:
- * in-excess messages are processed immediately.
+ * As soon as 200 messages (audit.in_memory_queue.batch_size) are buffered,
+ * they are sent regardless of the delay. To avoid excessive memory pressure,
+ * max 10000 messages (audit.in_memory_queue.max_size) can stay in the queue:
+ * in-excess messages are dropped.
  *
  * @author Luciano Fiandesio
  */
@@ -55,17 +70,93 @@ import org.springframework.stereotype.Component;
 @Component
 public class AuditScheduler
 {
-    private final static long DELAY = 5_000; // 5 seconds
+    private final AuditProducerSupplier auditProducerSupplier;
 
-    private final static int MAX_SIZE = 200;
+    private final AuditProducerConfiguration config;
 
-    private final AuditProducerSupplier auditProducerSupplier;
+    private final long delay;
+
+    private final int batchSize;
+
+    private final int maxSize;
+
+    /**
+     * Buffered audits in the order they were queued, which is also the order
+     * in which they expire. Guarded by its own monitor.
+     */
+    private final Map<Audit, QueuedAudit> delayed = new LinkedHashMap<>();
+
+    private final Counter deduplicatedCounter;
+
+    private final Counter droppedCounter;
+
+    private volatile boolean running;
 
-    private final BlockingQueue<QueuedAudit> delayed = new DelayQueue<>();
+    private Thread publisher;
 
-    public AuditScheduler( AuditProducerSupplier auditProducerSupplier )
+    public AuditScheduler( AuditProducerSupplier auditProducerSupplier, AuditProducerConfiguration config,
+        DhisConfigurationProvider dhisConfig, MeterRegistry meterRegistry )
     {
         this.auditProducerSupplier = auditProducerSupplier;
+        this.config = config;
+        this.delay = Long.parseLong( dhisConfig.getProperty( ConfigurationKey.AUDIT_IN_MEMORY_QUEUE_DELAY ) );
+        this.batchSize = Math.max( 1,
+            Integer.parseInt( dhisConfig.getProperty( ConfigurationKey.AUDIT_IN_MEMORY_QUEUE_BATCH_SIZE ) ) );
+        this.maxSize = Math.max( batchSize,
+            Integer.parseInt( dhisConfig.getProperty( ConfigurationKey.AUDIT_IN_MEMORY_QUEUE_MAX_SIZE ) ) );
+
+        Gauge.builder( "audit_queue_size", this, AuditScheduler::size )
+            .description( "Number of audit messages buffered in the in-memory queue" )
+            .register( meterRegistry );
+
+        this.deduplicatedCounter = Counter.builder( "audit_queue_deduplicated" )
+            .description( "Number of audit messages discarded as equal to a buffered message" )
+            .register( meterRegistry );
+
+        this.droppedCounter = Counter.builder( "audit_queue_dropped" )
+            .description( "Number of audit messages dropped because the in-memory queue was full" )
+            .register( meterRegistry );
+    }
+
+    @PostConstruct
+    public void start()
+    {
+        if ( !config.isUseQueue() )
+        {
+            return;
+        }
+
+        running = true;
+        publisher = new Thread( this::publish, "audit-scheduler" );
+        publisher.setDaemon( true );
+        publisher.start();
+    }
+
+    @PreDestroy
+    public void stop()
+        throws InterruptedException
+    {
+        if ( publisher == null )
+        {
+            return;
+        }
+
+        synchronized ( delayed )
+        {
+            running = false;
+            delayed.notifyAll();
+        }
+
+        publisher.join( TimeUnit.SECONDS.toMillis( 10 ) );
+
+        List<Audit> remaining;
+
+        synchronized ( delayed )
+        {
+            remaining = drain( delayed.size(), false );
+        }
+
+        send( remaining );
     }
 
     public void addAuditItem( final Audit auditItem )
@@ -75,28 +166,134 @@ public class AuditScheduler
             log.debug( String.format( "add Audit object with content %s to delayed queue", auditItem.toLog() ) );
         }
 
-        final QueuedAudit postponed = new QueuedAudit( auditItem, DELAY );
+        synchronized ( delayed )
+        {
+            if ( delayed.containsKey( auditItem ) )
+            {
+                deduplicatedCounter.increment();
+                return;
+            }
+
+            if ( delayed.size() >= maxSize )
+            {
+                droppedCounter.increment();
+                log.warn( String.format( "Audit queue is full, dropping Audit object with content %s",
+                    auditItem.toLog() ) );
+                return;
+            }
+
+            delayed.put( auditItem, new QueuedAudit( auditItem, delay ) );
+
+            if ( delayed.size() == 1 || delayed.size() >= batchSize )
+            {
+                delayed.notifyAll();
+            }
+        }
+    }
+
+    public int size()
+    {
+        synchronized ( delayed )
+        {
+            return delayed.size();
+        }
+    }
 
-        if ( delayed.size() >= MAX_SIZE )
+    /**
+     * Publisher loop, sends a batch whenever the batch size is reached or the
+     * oldest buffered audit has expired.
+     */
+    private void publish()
+    {
+        while ( running )
         {
-            auditProducerSupplier.publish( auditItem );
+            try
+            {
+                send( nextBatch() );
+            }
+            catch ( InterruptedException e )
+            {
+                Thread.currentThread().interrupt();
+                return;
+            }
         }
-        else
+    }
+
+    private List<Audit> nextBatch()
+        throws InterruptedException
+    {
+        synchronized ( delayed )
         {
-            if ( !delayed.contains( postponed ) )
+            while ( running )
             {
-                delayed.offer( postponed );
+                if ( delayed.size() >= batchSize )
+                {
+                    return drain( batchSize, false );
+                }
+
+                if ( delayed.isEmpty() )
+                {
+                    delayed.wait();
+                    continue;
+                }
+
+                long wait = delayed.values().iterator().next().getDelay( TimeUnit.MILLISECONDS );
+
+                if ( wait <= 0 )
+                {
+                    return drain( batchSize, true );
+                }
+
+                delayed.wait( wait );
             }
+
+            return new ArrayList<>();
         }
     }
 
-    @Scheduled( fixedDelay = 5_000 )
-    public void process()
+    /**
+     * Removes the oldest buffered audits. Must be called while holding the
+     * monitor of the buffer.
+     *
+     * @param max the max number of audits to remove.
+     * @param expiredOnly whether to remove expired audits only.
+     */
+    private List<Audit> drain( int max, boolean expiredOnly )
     {
-        final Collection<QueuedAudit> expired = new ArrayList<>();
+        List<Audit> batch = new ArrayList<>();
+
+        Iterator<QueuedAudit> iterator = delayed.values().iterator();
+
+        while ( iterator.hasNext() && batch.size() < max )
+        {
+            QueuedAudit queued = iterator.next();
+
+            if ( expiredOnly && queued.getDelay( TimeUnit.MILLISECONDS ) > 0 )
+            {
+                break;
+            }
+
+            batch.add( queued.getAuditItem() );
+            iterator.remove();
+        }
+
+        return batch;
+    }
 
-        delayed.drainTo( expired );
+    private void send( List<Audit> batch )
+    {
+        if ( batch.isEmpty() )
+        {
+            return;
+        }
 
-        expired.stream().map( QueuedAudit::getAuditItem ).forEach( auditProducerSupplier::publish );
+        try
+        {
+            auditProducerSupplier.publish( batch );
+        }
+        catch ( Exception e )
+        {
+            log.error( String.format( "An error occurred publishing %d Audit messages", batch.size() ), e );
+        }
     }
 }
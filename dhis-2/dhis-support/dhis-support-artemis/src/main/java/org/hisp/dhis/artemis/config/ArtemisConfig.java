@@ -38,6 +38,7 @@ import javax.jms.JMSException;
 
 import org.apache.activemq.artemis.api.core.RoutingType;
 import org.apache.activemq.artemis.api.core.SimpleString;
+import org.apache.activemq.artemis.api.jms.ActiveMQJMSConstants;
 import org.apache.activemq.artemis.core.config.CoreAddressConfiguration;
 import org.apache.activemq.artemis.core.config.CoreQueueConfiguration;
 import org.apache.activemq.artemis.core.config.impl.ConfigurationImpl;
@@ -147,6 +148,36 @@ public class ArtemisConfig
         return factory;
     }
 
+    @Bean // configured for the audit topics
+    public DefaultJmsListenerContainerFactory jmsAuditListenerContainerFactory( ConnectionFactory connectionFactory,
+        NameDestinationResolver nameDestinationResolver )
+    {
+        DefaultJmsListenerContainerFactory factory = new DefaultJmsListenerContainerFactory();
+        factory.setConnectionFactory( connectionFactory );
+        factory.setDestinationResolver( nameDestinationResolver );
+        factory.setPubSubDomain( true );
+        factory.setConcurrency( "1" );
+
+        if ( isAuditBatchEnabled( dhisConfig ) )
+        {
+            // audits are persisted in batches, each message is acknowledged
+            // by the AuditBatchProcessor once its audit has been persisted
+            factory.setSessionAcknowledgeMode( ActiveMQJMSConstants.INDIVIDUAL_ACKNOWLEDGE );
+        }
+
+        return factory;
+    }
+
+    /**
+     * Indicates whether audits are persisted in batches by the audit consumers,
+     * in which case the audit listeners acknowledge messages individually.
+     */
+    public static boolean isAuditBatchEnabled( DhisConfigurationProvider dhisConfig )
+    {
+        return dhisConfig.isEnabled( ConfigurationKey.AUDIT_CONSUMER_BATCH_ENABLED )
+            && dhisConfig.isEnabled( ConfigurationKey.AUDIT_DATABASE );
+    }
+
     @Bean // configured for queues
     public DefaultJmsListenerContainerFactory jmsQueueListenerContainerFactory( ConnectionFactory connectionFactory,
         NameDestinationResolver nameDestinationResolver )
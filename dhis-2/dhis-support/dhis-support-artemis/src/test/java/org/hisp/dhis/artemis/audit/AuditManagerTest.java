@@ -29,7 +29,14 @@ package org.hisp.dhis.artemis.audit;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -38,6 +45,8 @@ import org.hisp.dhis.artemis.audit.configuration.AuditMatrix;
 import org.hisp.dhis.artemis.audit.legacy.AuditObjectFactory;
 import org.hisp.dhis.artemis.config.UsernameSupplier;
 import org.hisp.dhis.audit.AuditAttributes;
+import org.hisp.dhis.audit.AuditScope;
+import org.hisp.dhis.audit.AuditType;
 import org.hisp.dhis.dataelement.DataElement;
 import org.junit.Before;
 import org.junit.Rule;
@@ -97,4 +106,46 @@ public class AuditManagerTest
         assertEquals( dataElement.getUid(), attributes.get( "uid" ) );
         assertEquals( "CODEA", attributes.get( "code" ) );
     }
+
+    @Test
+    public void testSendBatchPublishesEnabledAudits()
+    {
+        Audit enabled = createAudit( "DataElementA" );
+        Audit disabled = createAudit( "DataElementB" );
+
+        when( auditMatrix.isEnabled( enabled ) ).thenReturn( true );
+
+        auditManager.send( Arrays.asList( enabled, disabled ) );
+
+        verify( auditProducerSupplier, timeout( 5000 ) ).publish( Collections.singletonList( enabled ) );
+        verify( auditProducerSupplier, never() ).publish( any( Audit.class ) );
+    }
+
+    @Test
+    public void testSendBatchUsesQueue()
+    {
+        auditManager = new AuditManager( auditProducerSupplier, auditScheduler,
+            AuditProducerConfiguration.builder().useQueue( true ).build(),
+            auditMatrix, auditObjectFactory, usernameSupplier );
+
+        Audit audit = createAudit( "DataElementA" );
+
+        when( auditMatrix.isEnabled( audit ) ).thenReturn( true );
+
+        auditManager.send( Collections.singletonList( audit ) );
+
+        verify( auditScheduler ).addAuditItem( audit );
+    }
+
+    private Audit createAudit( String name )
+    {
+        DataElement dataElement = new DataElement();
+        dataElement.setName( name );
+
+        return Audit.builder()
+            .auditType( AuditType.CREATE )
+            .auditScope( AuditScope.METADATA )
+            .auditableEntity( new AuditableEntity( DataElement.class, dataElement ) )
+            .build();
+    }
 }
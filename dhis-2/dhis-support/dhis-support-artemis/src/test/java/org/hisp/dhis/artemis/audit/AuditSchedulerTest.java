@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.artemis.audit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Collection;
+
+import org.hisp.dhis.artemis.AuditProducerConfiguration;
+import org.hisp.dhis.audit.AuditScope;
+import org.hisp.dhis.audit.AuditType;
+import org.hisp.dhis.dataelement.DataElement;
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class AuditSchedulerTest
+{
+    private AuditScheduler auditScheduler;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @Mock
+    private AuditProducerSupplier auditProducerSupplier;
+
+    @Mock
+    private DhisConfigurationProvider dhisConfig;
+
+    @Captor
+    private ArgumentCaptor<Collection<Audit>> auditsCaptor;
+
+    @Rule
+    public MockitoRule rule = MockitoJUnit.rule();
+
+    @Before
+    public void setUp()
+    {
+        when( dhisConfig.getProperty( ConfigurationKey.AUDIT_IN_MEMORY_QUEUE_DELAY ) ).thenReturn( "60000" );
+        when( dhisConfig.getProperty( ConfigurationKey.AUDIT_IN_MEMORY_QUEUE_BATCH_SIZE ) ).thenReturn( "2" );
+        when( dhisConfig.getProperty( ConfigurationKey.AUDIT_IN_MEMORY_QUEUE_MAX_SIZE ) ).thenReturn( "2" );
+
+        meterRegistry = new SimpleMeterRegistry();
+
+        auditScheduler = new AuditScheduler( auditProducerSupplier,
+            AuditProducerConfiguration.builder().useQueue( true ).build(), dhisConfig, meterRegistry );
+    }
+
+    @After
+    public void tearDown()
+        throws InterruptedException
+    {
+        auditScheduler.stop();
+    }
+
+    @Test
+    public void testDifferentAuditOfSameEntityIsQueued()
+    {
+        Audit first = createAudit( "DataElemenA", "first" );
+        Audit second = createAudit( "DataElemenA", "second" );
+
+        auditScheduler.addAuditItem( first );
+        auditScheduler.addAuditItem( second );
+
+        assertEquals( 2, auditScheduler.size() );
+        assertEquals( 0d, meterRegistry.get( "audit_queue_deduplicated" ).counter().count(), 0d );
+    }
+
+    @Test
+    public void testEqualAuditIsDeduplicated()
+    {
+        Audit audit = createAudit( "DataElemenA", "first" );
+
+        auditScheduler.addAuditItem( audit );
+        auditScheduler.addAuditItem( audit );
+
+        assertEquals( 1, auditScheduler.size() );
+        assertEquals( 1d, meterRegistry.get( "audit_queue_deduplicated" ).counter().count(), 0d );
+    }
+
+    @Test
+    public void testBatchIsPublishedWhenBatchSizeIsReached()
+    {
+        Audit auditA = createAudit( "DataElemenA", "a" );
+        Audit auditB = createAudit( "DataElemenB", "b" );
+
+        auditScheduler.start();
+        auditScheduler.addAuditItem( auditA );
+        auditScheduler.addAuditItem( auditB );
+
+        verify( auditProducerSupplier, timeout( 5_000 ) ).publish( auditsCaptor.capture() );
+        assertThat( auditsCaptor.getValue(), contains( auditA, auditB ) );
+    }
+
+    @Test
+    public void testAuditIsDroppedWhenQueueIsFull()
+    {
+        auditScheduler.addAuditItem( createAudit( "DataElemenA", "a" ) );
+        auditScheduler.addAuditItem( createAudit( "DataElemenB", "b" ) );
+        auditScheduler.addAuditItem( createAudit( "DataElemenC", "c" ) );
+
+        assertEquals( 2, auditScheduler.size() );
+        assertEquals( 1d, meterRegistry.get( "audit_queue_dropped" ).counter().count(), 0d );
+    }
+
+    private Audit createAudit( String uid, String data )
+    {
+        DataElement dataElement = new DataElement();
+        dataElement.setUid( uid );
+
+        return Audit.builder()
+            .auditType( AuditType.UPDATE )
+            .auditScope( AuditScope.METADATA )
+            .object( dataElement )
+            .data( data )
+            .build();
+    }
+}
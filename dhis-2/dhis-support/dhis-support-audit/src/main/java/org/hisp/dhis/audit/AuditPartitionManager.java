@@ -0,0 +1,434 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.audit;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Manages monthly range partitions of the audit table on PostgreSQL. The
+ * unpartitioned table is converted once: it is kept as the partition
+ * {@code audit_legacy} which covers all rows up to the end of the current
+ * month. Partitions are created ahead of time and partitions which are older
+ * than the retention period are dropped. Expired rows of {@code audit_legacy}
+ * are deleted in batches until the whole partition has expired, at which
+ * point it is dropped. Rows outside of any monthly partition are stored in
+ * {@code audit_default}.
+ * <p>
+ * The conversion is performed online. The range check constraint and the
+ * unique index required by the partitioned table are validated and built
+ * without blocking writes to the audit table. Only the final rename and
+ * attach, which use the validated constraint and the existing index and
+ * therefore do not scan the table, run in a short transaction holding an
+ * exclusive lock. The first maintenance run is delayed so that the
+ * conversion does not compete with startup.
+ */
+@Slf4j
+@Component
+public class AuditPartitionManager
+{
+    static final String LEGACY_PARTITION = "audit_legacy";
+
+    static final String DEFAULT_PARTITION = "audit_default";
+
+    static final String LEGACY_INDEX = LEGACY_PARTITION + "_auditid_createdat_key";
+
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern( "yyyy_MM" );
+
+    private static final Pattern MONTHLY_PARTITION = Pattern.compile( "audit_(\\d{4})_(\\d{2})" );
+
+    private static final Pattern UPPER_BOUND = Pattern.compile( "TO \\('(\\d{4}-\\d{2}-\\d{2})" );
+
+    private static final String LEGACY_CHECK = LEGACY_PARTITION + "_createdat_check";
+
+    private static final long INITIAL_DELAY_MINUTES = 15;
+
+    private static final int LEGACY_DELETE_BATCH_SIZE = 10_000;
+
+    /**
+     * Serializes partition maintenance between the nodes of a cluster.
+     */
+    private static final long MAINTENANCE_LOCK = 7_389_211_904L;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final DhisConfigurationProvider dhisConfig;
+
+    private ScheduledExecutorService scheduler;
+
+    public AuditPartitionManager( JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+        DhisConfigurationProvider dhisConfig )
+    {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.dhisConfig = dhisConfig;
+    }
+
+    @PostConstruct
+    public void init()
+    {
+        if ( !dhisConfig.isEnabled( ConfigurationKey.AUDIT_PARTITIONING_ENABLED ) )
+        {
+            return;
+        }
+
+        scheduler = Executors.newSingleThreadScheduledExecutor( runnable -> {
+            Thread thread = new Thread( runnable, "audit-partition-maintenance" );
+            thread.setDaemon( true );
+            return thread;
+        } );
+
+        scheduler.scheduleWithFixedDelay( this::maintainPartitions, TimeUnit.MINUTES.toMillis( INITIAL_DELAY_MINUTES ),
+            TimeUnit.DAYS.toMillis( 1 ), TimeUnit.MILLISECONDS );
+
+        log.info( "Scheduled audit partition maintenance" );
+    }
+
+    @PreDestroy
+    public void shutdown()
+    {
+        if ( scheduler != null )
+        {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * Partitions the audit table if not yet partitioned, creates the
+     * partitions of the coming months, drops the expired partitions and
+     * deletes the expired audits of the legacy partition.
+     */
+    public void maintainPartitions()
+    {
+        int monthsAhead = Math.max( 1,
+            Integer.parseInt( dhisConfig.getProperty( ConfigurationKey.AUDIT_PARTITIONING_MONTHS_AHEAD ) ) );
+        int retentionMonths = Math.max( 0,
+            Integer.parseInt( dhisConfig.getProperty( ConfigurationKey.AUDIT_PARTITIONING_RETENTION_MONTHS ) ) );
+
+        try
+        {
+            maintainPartitions( YearMonth.now(), monthsAhead, retentionMonths );
+        }
+        catch ( DataAccessException ex )
+        {
+            log.error( "Audit partition maintenance failed", ex );
+        }
+    }
+
+    void maintainPartitions( YearMonth currentMonth, int monthsAhead, int retentionMonths )
+    {
+        if ( !isPartitioned() )
+        {
+            jdbcTemplate.execute( (ConnectionCallback<Void>) connection -> {
+                partitionAuditTable( connection, currentMonth );
+                return null;
+            } );
+        }
+
+        LocalDate cutoff = currentMonth.minusMonths( retentionMonths ).atDay( 1 );
+
+        transactionTemplate.executeWithoutResult( status -> {
+            jdbcTemplate.execute( "select pg_advisory_xact_lock(" + MAINTENANCE_LOCK + ")" );
+
+            createPartitions( currentMonth, monthsAhead );
+
+            if ( retentionMonths > 0 )
+            {
+                dropPartitions( cutoff );
+            }
+        } );
+
+        if ( retentionMonths > 0 )
+        {
+            deleteExpiredLegacyAudits( cutoff );
+        }
+    }
+
+    /**
+     * Returns the names of the partitions of the audit table.
+     */
+    public List<String> getPartitions()
+    {
+        return jdbcTemplate.queryForList( "select c.relname from pg_inherits i " +
+            "inner join pg_class c on c.oid = i.inhrelid " +
+            "where i.inhparent = 'audit'::regclass order by c.relname", String.class );
+    }
+
+    private boolean isPartitioned()
+    {
+        String kind = jdbcTemplate.queryForObject(
+            "select c.relkind::text from pg_class c where c.oid = 'audit'::regclass", String.class );
+
+        return "p".equals( kind );
+    }
+
+    /**
+     * Converts the audit table into a partitioned table on a single
+     * connection in auto-commit mode, holding a session level advisory lock.
+     * The statements which scan the table do not block writes, and the final
+     * transaction only renames and attaches the table.
+     */
+    private void partitionAuditTable( Connection connection, YearMonth currentMonth )
+        throws SQLException
+    {
+        LocalDate legacyEnd = currentMonth.plusMonths( 1 ).atDay( 1 );
+
+        execute( connection, "select pg_advisory_lock(" + MAINTENANCE_LOCK + ")" );
+
+        try
+        {
+            if ( queryForBoolean( connection, "select c.relkind::text = 'p' from pg_class c " +
+                "where c.oid = 'audit'::regclass" ) )
+            {
+                return;
+            }
+
+            log.info( String.format( "Partitioning audit table, existing audits are kept in %s", LEGACY_PARTITION ) );
+
+            // validating the constraint takes a lock which does not block
+            // writes and lets the attach below skip the scan of the table
+
+            execute( connection, "alter table audit drop constraint if exists " + LEGACY_CHECK );
+            execute( connection, "alter table audit add constraint " + LEGACY_CHECK +
+                " check (createdat < '" + legacyEnd + "') not valid" );
+            execute( connection, "alter table audit validate constraint " + LEGACY_CHECK );
+
+            // an index left invalid by an interrupted concurrent build must be
+            // dropped before it can be built again
+
+            if ( queryForBoolean( connection, "select exists (select 1 from pg_index i " +
+                "inner join pg_class c on c.oid = i.indexrelid " +
+                "where c.relname = '" + LEGACY_INDEX + "' and not i.indisvalid)" ) )
+            {
+                execute( connection, "drop index concurrently " + LEGACY_INDEX );
+            }
+
+            execute( connection, "create unique index concurrently if not exists " + LEGACY_INDEX +
+                " on audit (auditid, createdat)" );
+
+            connection.setAutoCommit( false );
+
+            try
+            {
+                execute( connection, "alter table audit rename to " + LEGACY_PARTITION );
+                execute( connection, "alter table " + LEGACY_PARTITION + " rename constraint audit_pkey to "
+                    + LEGACY_PARTITION + "_pkey" );
+                execute( connection, "create table audit (like " + LEGACY_PARTITION + " including defaults) " +
+                    "partition by range (createdat)" );
+                execute( connection, "alter table audit add constraint audit_pkey primary key (auditid, createdat)" );
+                execute( connection, "alter sequence audit_auditid_seq owned by audit.auditid" );
+                execute( connection, "alter table audit attach partition " + LEGACY_PARTITION +
+                    " for values from (minvalue) to ('" + legacyEnd + "')" );
+                execute( connection, "alter table " + LEGACY_PARTITION + " drop constraint " + LEGACY_CHECK );
+                execute( connection, "create table " + DEFAULT_PARTITION + " partition of audit default" );
+
+                connection.commit();
+            }
+            catch ( SQLException ex )
+            {
+                connection.rollback();
+                throw ex;
+            }
+            finally
+            {
+                connection.setAutoCommit( true );
+            }
+
+            log.info( "Audit table partitioned" );
+        }
+        finally
+        {
+            execute( connection, "select pg_advisory_unlock(" + MAINTENANCE_LOCK + ")" );
+        }
+    }
+
+    private void createPartitions( YearMonth currentMonth, int monthsAhead )
+    {
+        List<String> partitions = getPartitions();
+        LocalDate legacyEnd = getLegacyUpperBound();
+
+        for ( int i = 0; i <= monthsAhead; i++ )
+        {
+            YearMonth month = currentMonth.plusMonths( i );
+            String partition = "audit_" + month.format( PARTITION_SUFFIX );
+            LocalDate start = month.atDay( 1 );
+            LocalDate end = month.plusMonths( 1 ).atDay( 1 );
+
+            if ( partitions.contains( partition ) || (legacyEnd != null && start.isBefore( legacyEnd )) )
+            {
+                continue;
+            }
+
+            Boolean defaultHasRows = jdbcTemplate.queryForObject( "select exists (select 1 from "
+                + DEFAULT_PARTITION + " where createdat >= ? and createdat < ?)", Boolean.class,
+                Date.valueOf( start ), Date.valueOf( end ) );
+
+            if ( Boolean.TRUE.equals( defaultHasRows ) )
+            {
+                log.warn( String.format( "Skipping audit partition %s, %s has audits in its range", partition,
+                    DEFAULT_PARTITION ) );
+                continue;
+            }
+
+            jdbcTemplate.execute( "create table " + partition + " partition of audit for values from ('" + start
+                + "') to ('" + end + "')" );
+
+            log.info( String.format( "Created audit partition %s", partition ) );
+        }
+    }
+
+    private void dropPartitions( LocalDate cutoff )
+    {
+        for ( String partition : getPartitions() )
+        {
+            if ( LEGACY_PARTITION.equals( partition ) )
+            {
+                LocalDate legacyEnd = getLegacyUpperBound();
+
+                if ( legacyEnd != null && !legacyEnd.isAfter( cutoff ) )
+                {
+                    jdbcTemplate.execute( "drop table " + LEGACY_PARTITION );
+
+                    log.info( String.format( "Dropped expired audit partition %s", LEGACY_PARTITION ) );
+                }
+
+                continue;
+            }
+
+            Matcher matcher = MONTHLY_PARTITION.matcher( partition );
+
+            if ( !matcher.matches() )
+            {
+                continue;
+            }
+
+            YearMonth month = YearMonth.of( Integer.parseInt( matcher.group( 1 ) ),
+                Integer.parseInt( matcher.group( 2 ) ) );
+
+            if ( !month.plusMonths( 1 ).atDay( 1 ).isAfter( cutoff ) )
+            {
+                jdbcTemplate.execute( "drop table " + partition );
+
+                log.info( String.format( "Dropped expired audit partition %s", partition ) );
+            }
+        }
+    }
+
+    /**
+     * Deletes the audits of the legacy partition which are older than the
+     * cutoff. Every batch is committed on its own to keep locks and
+     * transactions short.
+     */
+    private void deleteExpiredLegacyAudits( LocalDate cutoff )
+    {
+        if ( getLegacyUpperBound() == null )
+        {
+            return;
+        }
+
+        int deleted;
+        int total = 0;
+
+        do
+        {
+            deleted = jdbcTemplate.update( "delete from " + LEGACY_PARTITION + " where ctid = any(array(" +
+                "select ctid from " + LEGACY_PARTITION + " where createdat < ? limit ?))",
+                Date.valueOf( cutoff ), LEGACY_DELETE_BATCH_SIZE );
+
+            total += deleted;
+        }
+        while ( deleted == LEGACY_DELETE_BATCH_SIZE );
+
+        if ( total > 0 )
+        {
+            log.info( String.format( "Deleted %d expired audits from %s", total, LEGACY_PARTITION ) );
+        }
+    }
+
+    private static void execute( Connection connection, String sql )
+        throws SQLException
+    {
+        try ( Statement statement = connection.createStatement() )
+        {
+            statement.execute( sql );
+        }
+    }
+
+    private static boolean queryForBoolean( Connection connection, String sql )
+        throws SQLException
+    {
+        try ( PreparedStatement statement = connection.prepareStatement( sql );
+            ResultSet resultSet = statement.executeQuery() )
+        {
+            return resultSet.next() && resultSet.getBoolean( 1 );
+        }
+    }
+
+    private LocalDate getLegacyUpperBound()
+    {
+        List<String> bounds = jdbcTemplate.queryForList( "select pg_get_expr(c.relpartbound, c.oid) " +
+            "from pg_class c where c.relname = ?", String.class, LEGACY_PARTITION );
+
+        if ( bounds.isEmpty() || bounds.get( 0 ) == null )
+        {
+            return null;
+        }
+
+        Matcher matcher = UPPER_BOUND.matcher( bounds.get( 0 ) );
+
+        return matcher.find() ? LocalDate.parse( matcher.group( 1 ) ) : null;
+    }
+}
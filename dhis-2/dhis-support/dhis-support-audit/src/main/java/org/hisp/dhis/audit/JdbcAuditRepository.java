@@ -94,7 +94,18 @@ public class JdbcAuditRepository implements AuditRepository
     @Override
     public void delete( Audit audit )
     {
-        jdbcTemplate.update( "DELETE FROM audit WHERE auditId=?", audit.getId() );
+        if ( audit.getCreatedAt() == null )
+        {
+            jdbcTemplate.update( "DELETE FROM audit WHERE auditId=?", audit.getId() );
+            return;
+        }
+
+        // the creation time restricts the delete to a single partition of a
+        // partitioned audit table, the range absorbs timestamp rounding
+
+        jdbcTemplate.update( "DELETE FROM audit WHERE auditId=? AND createdAt BETWEEN ? AND ?", audit.getId(),
+            Timestamp.valueOf( audit.getCreatedAt().minusSeconds( 1 ) ),
+            Timestamp.valueOf( audit.getCreatedAt().plusSeconds( 1 ) ) );
     }
 
     @Override
@@ -0,0 +1,190 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.audit;
+
+import static org.junit.Assert.*;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+
+import org.hisp.dhis.IntegrationTestBase;
+import org.hisp.dhis.common.CodeGenerator;
+import org.hisp.dhis.dataelement.DataElement;
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Not transactional as the audit table is converted with concurrent index
+ * builds, the unpartitioned audit table is restored after each test.
+ */
+public class AuditPartitionManagerTest
+    extends IntegrationTestBase
+{
+    @Autowired
+    private AuditPartitionManager auditPartitionManager;
+
+    @Autowired
+    private AuditRepository auditRepository;
+
+    @After
+    public void restoreAuditTable()
+    {
+        String kind = jdbcTemplate.queryForObject(
+            "select c.relkind::text from pg_class c where c.oid = 'audit'::regclass", String.class );
+
+        if ( "p".equals( kind ) )
+        {
+            jdbcTemplate.execute( "alter sequence audit_auditid_seq owned by none" );
+            jdbcTemplate.execute( "create table audit_unpartitioned (like audit including defaults)" );
+            jdbcTemplate.execute( "drop table audit" );
+            jdbcTemplate.execute( "alter table audit_unpartitioned rename to audit" );
+            jdbcTemplate.execute( "alter table audit add constraint audit_pkey primary key (auditid)" );
+            jdbcTemplate.execute( "alter sequence audit_auditid_seq owned by audit.auditid" );
+        }
+        else
+        {
+            jdbcTemplate.execute( "delete from audit" );
+        }
+    }
+
+    @Test
+    public void testPartitionAuditTable()
+    {
+        auditRepository.save( createAudit( LocalDateTime.of( 2019, 12, 24, 10, 0 ) ) );
+
+        auditPartitionManager.maintainPartitions( YearMonth.of( 2020, 1 ), 3, 0 );
+
+        assertEquals( Lists.newArrayList( "audit_2020_02", "audit_2020_03", "audit_2020_04",
+            AuditPartitionManager.DEFAULT_PARTITION, AuditPartitionManager.LEGACY_PARTITION ),
+            auditPartitionManager.getPartitions() );
+
+        auditRepository.save( createAudit( LocalDateTime.of( 2020, 2, 10, 10, 0 ) ) );
+        auditRepository.save( createAudit( LocalDateTime.of( 2020, 3, 10, 10, 0 ) ) );
+
+        assertEquals( 3, auditRepository.count( AuditQuery.builder().build() ) );
+        assertEquals( 1, jdbcTemplate.queryForObject( "select count(*) from audit_2020_03", Integer.class ) );
+        assertEquals( 1, jdbcTemplate.queryForObject( "select count(*) from audit_legacy", Integer.class ) );
+
+        // the conversion attaches the concurrently built index and drops the
+        // check constraint which let the attach skip the table scan
+
+        assertEquals( 1, jdbcTemplate.queryForObject( "select count(*) from pg_class where relname = ?",
+            Integer.class, AuditPartitionManager.LEGACY_INDEX ) );
+        assertEquals( 0, jdbcTemplate.queryForObject( "select count(*) from pg_constraint c " +
+            "where c.conrelid = 'audit_legacy'::regclass and c.contype = 'c'", Integer.class ) );
+    }
+
+    @Test
+    public void testRangeQueryScansMatchingPartitionOnly()
+    {
+        auditPartitionManager.maintainPartitions( YearMonth.of( 2020, 1 ), 3, 0 );
+
+        auditRepository.save( createAudit( LocalDateTime.of( 2020, 2, 10, 10, 0 ) ) );
+        auditRepository.save( createAudit( LocalDateTime.of( 2020, 3, 10, 10, 0 ) ) );
+
+        List<Audit> audits = auditRepository.query( AuditQuery.builder()
+            .range( AuditQuery.range( LocalDateTime.of( 2020, 3, 1, 0, 0 ), LocalDateTime.of( 2020, 4, 1, 0, 0 ) ) )
+            .build() );
+
+        assertEquals( 1, audits.size() );
+
+        String plan = String.join( "\n", jdbcTemplate.queryForList( "explain select * from audit " +
+            "where createdAt >= '2020-03-01T00:00' and createdAt < '2020-04-01T00:00'", String.class ) );
+
+        assertTrue( plan.contains( "audit_2020_03" ) );
+        assertFalse( plan.contains( "audit_2020_02" ) );
+        assertFalse( plan.contains( AuditPartitionManager.LEGACY_PARTITION ) );
+        assertFalse( plan.contains( AuditPartitionManager.DEFAULT_PARTITION ) );
+    }
+
+    @Test
+    public void testDropExpiredPartitions()
+    {
+        auditPartitionManager.maintainPartitions( YearMonth.of( 2020, 1 ), 3, 0 );
+
+        auditRepository.save( createAudit( LocalDateTime.of( 2020, 2, 10, 10, 0 ) ) );
+        auditRepository.save( createAudit( LocalDateTime.of( 2020, 4, 10, 10, 0 ) ) );
+
+        auditPartitionManager.maintainPartitions( YearMonth.of( 2020, 5 ), 1, 2 );
+
+        assertEquals( Lists.newArrayList( "audit_2020_03", "audit_2020_04", "audit_2020_05", "audit_2020_06",
+            AuditPartitionManager.DEFAULT_PARTITION ),
+            auditPartitionManager.getPartitions() );
+
+        assertEquals( 1, auditRepository.count( AuditQuery.builder().build() ) );
+    }
+
+    @Test
+    public void testDeleteExpiredLegacyAudits()
+    {
+        auditRepository.save( createAudit( LocalDateTime.of( 2019, 6, 10, 10, 0 ) ) );
+        auditRepository.save( createAudit( LocalDateTime.of( 2019, 12, 10, 10, 0 ) ) );
+
+        auditPartitionManager.maintainPartitions( YearMonth.of( 2020, 1 ), 1, 0 );
+        auditPartitionManager.maintainPartitions( YearMonth.of( 2020, 5 ), 1, 10 );
+
+        assertTrue( auditPartitionManager.getPartitions().contains( AuditPartitionManager.LEGACY_PARTITION ) );
+        assertEquals( 1, jdbcTemplate.queryForObject( "select count(*) from audit_legacy", Integer.class ) );
+
+        auditPartitionManager.maintainPartitions( YearMonth.of( 2020, 5 ), 1, 3 );
+
+        assertFalse( auditPartitionManager.getPartitions().contains( AuditPartitionManager.LEGACY_PARTITION ) );
+        assertEquals( 0, auditRepository.count( AuditQuery.builder().build() ) );
+    }
+
+    @Test
+    public void testDeleteAuditInPartition()
+    {
+        auditPartitionManager.maintainPartitions( YearMonth.of( 2020, 1 ), 3, 0 );
+
+        Audit audit = createAudit( LocalDateTime.of( 2020, 3, 10, 10, 0 ) );
+        audit.setId( auditRepository.save( audit ) );
+
+        auditRepository.delete( audit );
+
+        assertTrue( auditRepository.query( AuditQuery.builder().build() ).isEmpty() );
+    }
+
+    private Audit createAudit( LocalDateTime createdAt )
+    {
+        return Audit.builder()
+            .auditType( AuditType.CREATE )
+            .auditScope( AuditScope.AGGREGATE )
+            .createdAt( createdAt )
+            .createdBy( "test-user" )
+            .klass( DataElement.class.getName() )
+            .uid( CodeGenerator.generateUid() )
+            .code( CodeGenerator.generateUid() )
+            .data( "{}" )
+            .build();
+    }
+}
@@ -0,0 +1,17 @@
+-- Denormalised search table for tracked entity attribute values, one row per
+-- tracked entity instance and attribute. The table is maintained by the
+-- tracker importer when tracker.search.index.enabled is switched on in dhis.conf.
+
+create table if not exists trackedentityattributesearch (
+    trackedentityinstanceid bigint not null,
+    trackedentitytypeid bigint not null,
+    trackedentityattributeid bigint not null,
+    value character varying(1200),
+    lowervalue character varying(1200),
+    constraint trackedentityattributesearch_pkey primary key (trackedentityinstanceid, trackedentityattributeid),
+    constraint fk_trackedentityattributesearch_trackedentityinstanceid foreign key (trackedentityinstanceid)
+        references trackedentityinstance(trackedentityinstanceid) on delete cascade
+);
+
+create index if not exists in_trackedentityattributesearch_lowervalue
+    on trackedentityattributesearch using btree (trackedentitytypeid, trackedentityattributeid, lowervalue text_pattern_ops);
@@ -0,0 +1,17 @@
+-- Progress of data value synchronization per target instance. The cursor
+-- columns hold the position of the last data value accepted by the target in
+-- the (lastupdated, primary key) order used for paging, so that a failed
+-- synchronization of the same window resumes after it.
+
+create table if not exists datavaluesynccheckpoint (
+    target text not null,
+    lastupdatedafter timestamp without time zone not null,
+    lastupdated timestamp without time zone not null,
+    dataelementid bigint not null,
+    periodid bigint not null,
+    sourceid bigint not null,
+    categoryoptioncomboid bigint not null,
+    attributeoptioncomboid bigint not null,
+    updated timestamp without time zone not null,
+    constraint datavaluesynccheckpoint_pkey primary key (target)
+);
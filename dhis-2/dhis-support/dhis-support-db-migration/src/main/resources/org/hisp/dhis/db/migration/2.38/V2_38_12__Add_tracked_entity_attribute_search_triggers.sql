@@ -0,0 +1,81 @@
+-- Functions keeping trackedentityattributesearch in sync with the attribute values.
+-- The triggers calling them are only installed when tracker.search.index.enabled
+-- is switched on in dhis.conf, so that every write path, including deletes and
+-- soft deletes of tracked entity instances, maintains the search table.
+
+-- Removes all rows of a tracked entity instance and indexes its current values
+-- unless the instance is soft deleted.
+create or replace function index_trackedentityattributesearch(teiid bigint) returns void as $$
+    begin
+        delete from trackedentityattributesearch where trackedentityinstanceid = teiid;
+
+        insert into trackedentityattributesearch
+            (trackedentityinstanceid, trackedentitytypeid, trackedentityattributeid, value, lowervalue)
+        select teav.trackedentityinstanceid, tei.trackedentitytypeid, teav.trackedentityattributeid,
+            teav.value, lower(teav.value)
+        from trackedentityattributevalue teav
+        inner join trackedentityinstance tei on teav.trackedentityinstanceid = tei.trackedentityinstanceid
+        inner join trackedentityattribute tea on teav.trackedentityattributeid = tea.trackedentityattributeid
+        where teav.trackedentityinstanceid = teiid
+        and teav.value is not null
+        and tea.confidential is not true
+        and tei.deleted is false;
+    end;
+$$ language plpgsql;
+
+-- Replaces the row of a single attribute value.
+create or replace function refresh_trackedentityattributesearch() returns trigger as $$
+    begin
+        if tg_op in ('UPDATE', 'DELETE') then
+            delete from trackedentityattributesearch
+            where trackedentityinstanceid = old.trackedentityinstanceid
+            and trackedentityattributeid = old.trackedentityattributeid;
+        end if;
+
+        if tg_op in ('INSERT', 'UPDATE') and new.value is not null then
+            insert into trackedentityattributesearch
+                (trackedentityinstanceid, trackedentitytypeid, trackedentityattributeid, value, lowervalue)
+            select new.trackedentityinstanceid, tei.trackedentitytypeid, new.trackedentityattributeid,
+                new.value, lower(new.value)
+            from trackedentityinstance tei
+            inner join trackedentityattribute tea on tea.trackedentityattributeid = new.trackedentityattributeid
+            where tei.trackedentityinstanceid = new.trackedentityinstanceid
+            and tea.confidential is not true
+            and tei.deleted is false;
+        end if;
+
+        return null;
+    end;
+$$ language plpgsql;
+
+-- Re-indexes a tracked entity instance when it is soft deleted, restored or
+-- changes tracked entity type.
+create or replace function refresh_trackedentityattributesearch_instance() returns trigger as $$
+    begin
+        perform index_trackedentityattributesearch(new.trackedentityinstanceid);
+
+        return null;
+    end;
+$$ language plpgsql;
+
+-- Removes or adds the rows of an attribute when it becomes confidential or
+-- stops being confidential.
+create or replace function refresh_trackedentityattributesearch_attribute() returns trigger as $$
+    begin
+        delete from trackedentityattributesearch where trackedentityattributeid = new.trackedentityattributeid;
+
+        if new.confidential is not true then
+            insert into trackedentityattributesearch
+                (trackedentityinstanceid, trackedentitytypeid, trackedentityattributeid, value, lowervalue)
+            select teav.trackedentityinstanceid, tei.trackedentitytypeid, teav.trackedentityattributeid,
+                teav.value, lower(teav.value)
+            from trackedentityattributevalue teav
+            inner join trackedentityinstance tei on teav.trackedentityinstanceid = tei.trackedentityinstanceid
+            where teav.trackedentityattributeid = new.trackedentityattributeid
+            and teav.value is not null
+            and tei.deleted is false;
+        end if;
+
+        return null;
+    end;
+$$ language plpgsql;
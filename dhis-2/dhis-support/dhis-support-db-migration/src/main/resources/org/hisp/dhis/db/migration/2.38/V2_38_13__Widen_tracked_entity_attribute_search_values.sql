@@ -0,0 +1,82 @@
+-- Stores the full attribute values in the search table, which are limited to
+-- 50000 characters in trackedentityattributevalue.
+
+alter table trackedentityattributesearch alter column value type text;
+alter table trackedentityattributesearch alter column lowervalue type text;
+
+-- The search table is populated in batches while the triggers are installed,
+-- so the triggers overwrite rows which were already inserted by a batch.
+
+create or replace function index_trackedentityattributesearch(teiid bigint) returns void as $$
+    begin
+        delete from trackedentityattributesearch where trackedentityinstanceid = teiid;
+
+        insert into trackedentityattributesearch
+            (trackedentityinstanceid, trackedentitytypeid, trackedentityattributeid, value, lowervalue)
+        select teav.trackedentityinstanceid, tei.trackedentitytypeid, teav.trackedentityattributeid,
+            teav.value, lower(teav.value)
+        from trackedentityattributevalue teav
+        inner join trackedentityinstance tei on teav.trackedentityinstanceid = tei.trackedentityinstanceid
+        inner join trackedentityattribute tea on teav.trackedentityattributeid = tea.trackedentityattributeid
+        where teav.trackedentityinstanceid = teiid
+        and teav.value is not null
+        and tea.confidential is not true
+        and tei.deleted is false
+        on conflict (trackedentityinstanceid, trackedentityattributeid) do update set
+            trackedentitytypeid = excluded.trackedentitytypeid,
+            value = excluded.value,
+            lowervalue = excluded.lowervalue;
+    end;
+$$ language plpgsql;
+
+create or replace function refresh_trackedentityattributesearch() returns trigger as $$
+    begin
+        if tg_op in ('UPDATE', 'DELETE') then
+            delete from trackedentityattributesearch
+            where trackedentityinstanceid = old.trackedentityinstanceid
+            and trackedentityattributeid = old.trackedentityattributeid;
+        end if;
+
+        if tg_op in ('INSERT', 'UPDATE') and new.value is not null then
+            insert into trackedentityattributesearch
+                (trackedentityinstanceid, trackedentitytypeid, trackedentityattributeid, value, lowervalue)
+            select new.trackedentityinstanceid, tei.trackedentitytypeid, new.trackedentityattributeid,
+                new.value, lower(new.value)
+            from trackedentityinstance tei
+            inner join trackedentityattribute tea on tea.trackedentityattributeid = new.trackedentityattributeid
+            where tei.trackedentityinstanceid = new.trackedentityinstanceid
+            and tea.confidential is not true
+            and tei.deleted is false
+            on conflict (trackedentityinstanceid, trackedentityattributeid) do update set
+                trackedentitytypeid = excluded.trackedentitytypeid,
+                value = excluded.value,
+                lowervalue = excluded.lowervalue;
+        end if;
+
+        return null;
+    end;
+$$ language plpgsql;
+
+create or replace function refresh_trackedentityattributesearch_attribute() returns trigger as $$
+    begin
+        delete from trackedentityattributesearch where trackedentityattributeid = new.trackedentityattributeid;
+
+        if new.confidential is not true then
+            insert into trackedentityattributesearch
+                (trackedentityinstanceid, trackedentitytypeid, trackedentityattributeid, value, lowervalue)
+            select teav.trackedentityinstanceid, tei.trackedentitytypeid, teav.trackedentityattributeid,
+                teav.value, lower(teav.value)
+            from trackedentityattributevalue teav
+            inner join trackedentityinstance tei on teav.trackedentityinstanceid = tei.trackedentityinstanceid
+            where teav.trackedentityattributeid = new.trackedentityattributeid
+            and teav.value is not null
+            and tei.deleted is false
+            on conflict (trackedentityinstanceid, trackedentityattributeid) do update set
+                trackedentitytypeid = excluded.trackedentitytypeid,
+                value = excluded.value,
+                lowervalue = excluded.lowervalue;
+        end if;
+
+        return null;
+    end;
+$$ language plpgsql;
@@ -0,0 +1,23 @@
+-- The event data value table is backfilled in batches while the trigger is
+-- installed, so the trigger overwrites rows which were already inserted by a
+-- batch.
+
+create or replace function refresh_programstageinstancedatavalue() returns trigger as $$
+    begin
+        if tg_op = 'UPDATE' then
+            delete from programstageinstancedatavalue where programstageinstanceid = new.programstageinstanceid;
+        end if;
+
+        insert into programstageinstancedatavalue (programstageinstanceid, dataelementuid, textvalue, numericvalue, datevalue)
+        select new.programstageinstanceid, dv.key, lower(dv.value ->> 'value'),
+            eventdatavalue_to_numeric(dv.value ->> 'value'), eventdatavalue_to_timestamp(dv.value ->> 'value')
+        from jsonb_each(coalesce(new.eventdatavalues, '{}'::jsonb)) dv
+        where char_length(dv.key) = 11
+        on conflict (programstageinstanceid, dataelementuid) do update set
+            textvalue = excluded.textvalue,
+            numericvalue = excluded.numericvalue,
+            datevalue = excluded.datevalue;
+
+        return new;
+    end;
+$$ language plpgsql;
@@ -0,0 +1,60 @@
+-- Typed projection of programstageinstance.eventdatavalues, one row per event and data element.
+-- The table is kept in sync by a trigger which is only installed when
+-- tracker.event.datavalue.index.enabled is switched on in dhis.conf.
+
+create table if not exists programstageinstancedatavalue (
+    programstageinstanceid bigint not null,
+    dataelementuid character varying(11) not null,
+    textvalue text,
+    numericvalue double precision,
+    datevalue timestamp without time zone,
+    constraint programstageinstancedatavalue_pkey primary key (programstageinstanceid, dataelementuid),
+    constraint fk_programstageinstancedatavalue_programstageinstanceid foreign key (programstageinstanceid)
+        references programstageinstance(programstageinstanceid) on delete cascade
+);
+
+create index if not exists in_programstageinstancedatavalue_numericvalue
+    on programstageinstancedatavalue using btree (dataelementuid, numericvalue);
+create index if not exists in_programstageinstancedatavalue_datevalue
+    on programstageinstancedatavalue using btree (dataelementuid, datevalue);
+create index if not exists in_programstageinstancedatavalue_textvalue
+    on programstageinstancedatavalue using btree (dataelementuid, textvalue text_pattern_ops);
+
+create or replace function eventdatavalue_to_numeric(value text) returns double precision as $$
+    begin
+        if value ~ '^\s*[-+]?([0-9]+\.?[0-9]*|\.[0-9]+)([eE][-+]?[0-9]+)?\s*$' then
+            return cast(value as double precision);
+        end if;
+        return null;
+    exception when others then
+        return null;
+    end;
+$$ language plpgsql immutable;
+
+create or replace function eventdatavalue_to_timestamp(value text) returns timestamp without time zone as $$
+    begin
+        if value ~ '^\d{4}-\d{2}-\d{2}' then
+            return cast(value as timestamp without time zone);
+        end if;
+        return null;
+    exception when others then
+        return null;
+    end;
+$$ language plpgsql immutable;
+
+-- Replaces the typed rows of a single event from its eventdatavalues column.
+create or replace function refresh_programstageinstancedatavalue() returns trigger as $$
+    begin
+        if tg_op = 'UPDATE' then
+            delete from programstageinstancedatavalue where programstageinstanceid = new.programstageinstanceid;
+        end if;
+
+        insert into programstageinstancedatavalue (programstageinstanceid, dataelementuid, textvalue, numericvalue, datevalue)
+        select new.programstageinstanceid, dv.key, lower(dv.value ->> 'value'),
+            eventdatavalue_to_numeric(dv.value ->> 'value'), eventdatavalue_to_timestamp(dv.value ->> 'value')
+        from jsonb_each(coalesce(new.eventdatavalues, '{}'::jsonb)) dv
+        where char_length(dv.key) = 11;
+
+        return new;
+    end;
+$$ language plpgsql;
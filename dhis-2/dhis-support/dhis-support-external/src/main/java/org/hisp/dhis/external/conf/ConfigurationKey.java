@@ -123,11 +123,22 @@ public enum ConfigurationKey
     CHANGELOG_TRACKER( "changelog.tracker", Constants.ON ),
     AUDIT_USE_INMEMORY_QUEUE_ENABLED( "audit.inmemory-queue.enabled", Constants.OFF ),
     AUDIT_USE_IN_MEMORY_QUEUE_ENABLED( "audit.in_memory_queue.enabled", Constants.OFF ),
+    AUDIT_IN_MEMORY_QUEUE_DELAY( "audit.in_memory_queue.delay", "5000", false ),
+    AUDIT_IN_MEMORY_QUEUE_BATCH_SIZE( "audit.in_memory_queue.batch_size", "200", false ),
+    AUDIT_IN_MEMORY_QUEUE_MAX_SIZE( "audit.in_memory_queue.max_size", "10000", false ),
     AUDIT_LOGGER( "audit.logger", Constants.ON, false ),
     AUDIT_DATABASE( "audit.database", Constants.ON, false ),
     AUDIT_METADATA_MATRIX( "audit.metadata", "", false ),
     AUDIT_TRACKER_MATRIX( "audit.tracker", "", false ),
     AUDIT_AGGREGATE_MATRIX( "audit.aggregate", "", false ),
+    AUDIT_CONSUMER_BATCH_ENABLED( "audit.consumer.batch.enabled", Constants.OFF, false ),
+    AUDIT_CONSUMER_BATCH_SIZE( "audit.consumer.batch.size", "500", false ),
+    AUDIT_CONSUMER_BATCH_FLUSH_INTERVAL( "audit.consumer.batch.flush_interval", "2000", false ),
+    AUDIT_CONSUMER_BATCH_WORKERS( "audit.consumer.batch.workers", "2", false ),
+    AUDIT_CONSUMER_BATCH_MAX_PENDING( "audit.consumer.batch.max_pending", "10000", false ),
+    AUDIT_PARTITIONING_ENABLED( "audit.partitioning.enabled", Constants.OFF, false ),
+    AUDIT_PARTITIONING_MONTHS_AHEAD( "audit.partitioning.months_ahead", "3", false ),
+    AUDIT_PARTITIONING_RETENTION_MONTHS( "audit.partitioning.retention_months", "0", false ),
     OIDC_OAUTH2_LOGIN_ENABLED( "oidc.oauth2.login.enabled", Constants.OFF, false ),
     OIDC_LOGOUT_REDIRECT_URL( "oidc.logout.redirect_url", "", false ),
     OIDC_PROVIDER_GOOGLE_CLIENT_ID( "oidc.provider.google.client_id", "", true ),
@@ -150,6 +161,19 @@ public enum ConfigurationKey
     ACTIVE_READ_REPLICAS( "active.read.replicas", "0", false ),
     AUDIT_ENABLED( "system.audit.enabled", Constants.TRUE, false ),
     TRACKER_IMPORT_PREHEAT_CACHE_ENABLED( "tracker.import.preheat.cache.enabled", Constants.ON, false ),
+    TRACKER_EVENT_DATAVALUE_INDEX_ENABLED( "tracker.event.datavalue.index.enabled", Constants.OFF, false ),
+    TRACKER_SEARCH_INDEX_ENABLED( "tracker.search.index.enabled", Constants.OFF, false ),
+    METADATA_ETAG_ENABLED( "metadata.etag.enabled", Constants.OFF, false ),
+    METADATA_EXPORT_PARALLEL_ENABLED( "metadata.export.parallel.enabled", Constants.OFF, false ),
+    METADATA_EXPORT_PARALLEL_WORKERS( "metadata.export.parallel.workers", "4", false ),
+    METADATA_IMPORT_VALIDATION_PARALLEL_ENABLED( "metadata.import.validation.parallel.enabled", Constants.OFF, false ),
+    METADATA_IMPORT_VALIDATION_PARALLEL_WORKERS( "metadata.import.validation.parallel.workers", "4", false ),
+    METADATA_IMPORT_VALIDATION_CHUNK_SIZE( "metadata.import.validation.chunk.size", "1000", false ),
+    PUSH_ANALYSIS_PARALLEL_ENABLED( "push_analysis.parallel.enabled", Constants.OFF, false ),
+    PUSH_ANALYSIS_PARALLEL_WORKERS( "push_analysis.parallel.workers", "4", false ),
+    VISUALIZATION_IMAGE_RENDER_WORKERS( "visualization.image.render.workers", "4", false ),
+    SYSTEM_PROGRAM_RULE_PARALLEL_ENABLED( "system.program_rule.parallel.enabled", Constants.OFF, false ),
+    SYSTEM_PROGRAM_RULE_PARALLEL_WORKERS( "system.program_rule.parallel.workers", "4", false ),
     ENABLE_OAUTH2_AUTHORIZATION_SERVER( "oauth2.authorization.server.enabled", Constants.ON, false ),
     ENABLE_JWT_OIDC_TOKEN_AUTHENTICATION( "oidc.jwt.token.authentication.enabled", Constants.OFF, false ),
     DEBEZIUM_ENABLED( "debezium.enabled", Constants.OFF, false ),
@@ -46,18 +46,16 @@ public interface CacheProvider
 {
     <V> Cache<V> createAnalyticsResponseCache( Duration initialExpirationTime );
 
+    <V> Cache<V> createAnalyticsQueryFragmentCache( Duration initialExpirationTime );
+
+    <V> Cache<V> createAnalyticsTableVersionCache();
+
     <V> Cache<V> createDefaultObjectCache();
 
     <V> Cache<V> createIsDataApprovedCache();
 
     <V> Cache<V> createAllConstantsCache();
 
-    <V> Cache<V> createInUserOrgUnitHierarchyCache();
-
-    <V> Cache<V> createInUserViewOrgUnitHierarchyCache();
-
-    <V> Cache<V> createInUserSearchOrgUnitHierarchyCache();
-
     <V> Cache<V> createUserCaptureOrgUnitThresholdCache();
 
     <V> Cache<V> createPeriodIdCache();
@@ -72,7 +70,9 @@ public interface CacheProvider
 
     <V> Cache<V> createUserIdCache();
 
-    <V> Cache<V> createCurrentUserGroupInfoCache();
+    <V> Cache<V> createUserAccessContextCache();
+
+    <V> Cache<V> createUserAccessContextVersionCache();
 
     <V> Cache<V> createUserSettingCache();
 
@@ -98,6 +98,10 @@ public interface CacheProvider
 
     <V> Cache<V> createProgramRuleVariablesCache();
 
+    <V> Cache<V> createProgramRuleSetCache();
+
+    <V> Cache<V> createProgramRuleSetVersionCache();
+
     <V> Cache<V> createUserGroupNameCache();
 
     <V> Cache<V> createUserDisplayNameCache();
@@ -113,4 +117,6 @@ public interface CacheProvider
     <V> Cache<V> createCatOptOrgUnitAssociationCache();
 
     <V> Cache<V> createApiKeyCache();
+
+    <V> Cache<V> createRenderedImageCache();
 }
@@ -63,6 +63,8 @@ public class DefaultCacheProvider
 
     private static final long SIZE_10K = 10_000;
 
+    private static final long SIZE_100K = 100_000;
+
     private final double cacheFactor;
 
     private final CacheBuilderProvider cacheBuilderProvider;
@@ -86,12 +88,11 @@ public class DefaultCacheProvider
     private enum Region
     {
         analyticsResponse,
+        analyticsQueryFragment,
+        analyticsTableVersion,
         defaultObjectCache,
         isDataApproved,
         allConstantsCache,
-        inUserOuHierarchy,
-        isUserViewOuHierHierarchy,
-        inUserSearchOuHierarchy,
         userCaptureOuCountThreshold,
         periodIdCache,
         userAccountRecoverAttempt,
@@ -99,7 +100,8 @@ public class DefaultCacheProvider
         programOwner,
         programTempOwner,
         userIdCache,
-        currentUserGroupInfoCache,
+        userAccessContextCache,
+        userAccessContextVersion,
         userSetting,
         attrOptionComboIdCache,
         systemSetting,
@@ -112,13 +114,16 @@ public class DefaultCacheProvider
         propertyTransformerCache,
         programHasRulesCache,
         programRuleVariablesCache,
+        programRuleSetCache,
+        programRuleSetVersion,
         userGroupNameCache,
         userDisplayNameCache,
         programWebHookNotificationTemplateCache,
         programStageWebHookNotificationTemplateCache,
         pgmOrgUnitAssocCache,
         catOptOrgUnitAssocCache,
-        apiTokensCache
+        apiTokensCache,
+        renderedImageCache
     }
 
     private final Map<String, Cache<?>> allCaches = new ConcurrentHashMap<>();
@@ -160,6 +165,29 @@ public class DefaultCacheProvider
             .withMaximumSize( orZeroInTestRun( getActualSize( SIZE_10K ) ) ) );
     }
 
+    @Override
+    public <V> Cache<V> createAnalyticsQueryFragmentCache( Duration initialExpirationTime )
+    {
+        return registerCache( this.<V> newBuilder()
+            .forRegion( Region.analyticsQueryFragment.name() )
+            .expireAfterWrite( initialExpirationTime.toMillis(), MILLISECONDS )
+            .withMaximumSize( orZeroInTestRun( getActualSize( SIZE_10K ) ) ) );
+    }
+
+    /**
+     * Cache for the versions of analytics tables which are part of the keys
+     * of the analytics query fragment cache. Shared between the nodes of a
+     * cluster when Redis is enabled, like the fragment cache.
+     */
+    @Override
+    public <V> Cache<V> createAnalyticsTableVersionCache()
+    {
+        return registerCache( this.<V> newBuilder()
+            .forRegion( Region.analyticsTableVersion.name() )
+            .expireAfterAccess( 7, TimeUnit.DAYS )
+            .withMaximumSize( orZeroInTestRun( getActualSize( SIZE_10K ) ) ) );
+    }
+
     /**
      * Cache for default objects such as default category combination and
      * default category option combination which are permanent and will never
@@ -196,39 +224,6 @@ public class DefaultCacheProvider
             .withMaximumSize( orZeroInTestRun( getActualSize( SIZE_1 ) ) ) );
     }
 
-    @Override
-    public <V> Cache<V> createInUserOrgUnitHierarchyCache()
-    {
-        return registerCache( this.<V> newBuilder()
-            .forRegion( Region.inUserOuHierarchy.name() )
-            .expireAfterWrite( 1, TimeUnit.HOURS )
-            .withInitialCapacity( (int) getActualSize( SIZE_1K ) )
-            .forceInMemory()
-            .withMaximumSize( orZeroInTestRun( getActualSize( SIZE_10K ) ) ) );
-    }
-
-    @Override
-    public <V> Cache<V> createInUserViewOrgUnitHierarchyCache()
-    {
-        return registerCache( this.<V> newBuilder()
-            .forRegion( Region.isUserViewOuHierHierarchy.name() )
-            .expireAfterWrite( 3, TimeUnit.HOURS )
-            .withInitialCapacity( (int) getActualSize( SIZE_1K ) )
-            .forceInMemory()
-            .withMaximumSize( orZeroInTestRun( getActualSize( SIZE_10K ) ) ) );
-    }
-
-    @Override
-    public <V> Cache<V> createInUserSearchOrgUnitHierarchyCache()
-    {
-        return registerCache( this.<V> newBuilder()
-            .forRegion( Region.inUserSearchOuHierarchy.name() )
-            .expireAfterWrite( 1, TimeUnit.HOURS )
-            .withInitialCapacity( (int) getActualSize( SIZE_1K ) )
-            .forceInMemory()
-            .withMaximumSize( orZeroInTestRun( getActualSize( SIZE_10K ) ) ) );
-    }
-
     @Override
     public <V> Cache<V> createUserCaptureOrgUnitThresholdCache()
     {
@@ -299,15 +294,27 @@ public class DefaultCacheProvider
     }
 
     @Override
-    public <V> Cache<V> createCurrentUserGroupInfoCache()
+    public <V> Cache<V> createUserAccessContextCache()
     {
         return registerCache( this.<V> newBuilder()
-            .forRegion( Region.currentUserGroupInfoCache.name() )
+            .forRegion( Region.userAccessContextCache.name() )
             .expireAfterWrite( 1, TimeUnit.HOURS )
-            .forceInMemory()
             .withMaximumSize( orZeroInTestRun( getActualSize( SIZE_10K ) ) ) );
     }
 
+    /**
+     * Versions must outlive the snapshots of the
+     * {@link #createUserAccessContextCache()} which they guard.
+     */
+    @Override
+    public <V> Cache<V> createUserAccessContextVersionCache()
+    {
+        return registerCache( this.<V> newBuilder()
+            .forRegion( Region.userAccessContextVersion.name() )
+            .expireAfterWrite( 2, TimeUnit.HOURS )
+            .withMaximumSize( orZeroInTestRun( getActualSize( SIZE_100K ) ) ) );
+    }
+
     @Override
     public <V> Cache<V> createUserSettingCache()
     {
@@ -437,6 +444,26 @@ public class DefaultCacheProvider
             .withMaximumSize( orZeroInTestRun( getActualSize( SIZE_1K ) ) ) );
     }
 
+    @Override
+    public <V> Cache<V> createProgramRuleSetCache()
+    {
+        return registerCache( this.<V> newBuilder()
+            .forRegion( Region.programRuleSetCache.name() )
+            .expireAfterWrite( 3, TimeUnit.HOURS )
+            .withInitialCapacity( (int) getActualSize( 20 ) )
+            .forceInMemory()
+            .withMaximumSize( orZeroInTestRun( getActualSize( SIZE_1K ) ) ) );
+    }
+
+    @Override
+    public <V> Cache<V> createProgramRuleSetVersionCache()
+    {
+        return registerCache( this.<V> newBuilder()
+            .forRegion( Region.programRuleSetVersion.name() )
+            .expireAfterWrite( 12, TimeUnit.HOURS )
+            .withMaximumSize( orZeroInTestRun( SIZE_1 ) ) );
+    }
+
     @Override
     public <V> Cache<V> createUserGroupNameCache()
     {
@@ -511,4 +538,14 @@ public class DefaultCacheProvider
             .forceInMemory()
             .withMaximumSize( orZeroInTestRun( getActualSize( SIZE_10K ) ) ) );
     }
+
+    @Override
+    public <V> Cache<V> createRenderedImageCache()
+    {
+        return registerCache( this.<V> newBuilder()
+            .forRegion( Region.renderedImageCache.name() )
+            .expireAfterWrite( 1, TimeUnit.HOURS )
+            .forceInMemory()
+            .withMaximumSize( orZeroInTestRun( getActualSize( SIZE_500 ) ) ) );
+    }
 }
@@ -36,6 +36,7 @@ import org.hisp.dhis.organisationunit.OrganisationUnit;
 import org.hisp.dhis.user.CurrentUserGroupInfo;
 import org.hisp.dhis.user.CurrentUserService;
 import org.hisp.dhis.user.User;
+import org.hisp.dhis.user.UserAccessContext;
 import org.hisp.dhis.user.UserAuthorityGroup;
 import org.hisp.dhis.user.UserCredentials;
 import org.hisp.dhis.user.UserInfo;
@@ -144,10 +145,27 @@ public class MockCurrentUserService
     }
 
     @Override
-    public void invalidateUserGroupCache( String username )
+    public void invalidateUserAccessContext( String username )
     {
     }
 
+    @Override
+    public void invalidateAllUserAccessContexts()
+    {
+    }
+
+    @Override
+    public UserAccessContext getCurrentUserAccessContext()
+    {
+        return getUserAccessContext( currentUser );
+    }
+
+    @Override
+    public UserAccessContext getUserAccessContext( User user )
+    {
+        return UserAccessContext.of( user, 0 );
+    }
+
     @Override
     public CurrentUserGroupInfo getCurrentUserGroupsInfo( UserInfo userInfo )
     {
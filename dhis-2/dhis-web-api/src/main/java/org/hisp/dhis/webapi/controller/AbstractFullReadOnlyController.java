@@ -31,6 +31,7 @@ import static java.util.stream.Collectors.toList;
 import static org.hisp.dhis.dxf2.webmessage.WebMessageUtils.notFound;
 import static org.springframework.http.CacheControl.noCache;
 
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -41,9 +42,11 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import org.hisp.dhis.attribute.AttributeService;
+import org.hisp.dhis.common.ChangeVersionService;
 import org.hisp.dhis.common.DhisApiVersion;
 import org.hisp.dhis.common.IdentifiableObject;
 import org.hisp.dhis.common.IdentifiableObjectManager;
+import org.hisp.dhis.common.MetadataObject;
 import org.hisp.dhis.common.Pager;
 import org.hisp.dhis.common.UserContext;
 import org.hisp.dhis.dxf2.common.OrderParams;
@@ -81,6 +84,7 @@ import org.hisp.dhis.webapi.utils.PaginationUtils;
 import org.hisp.dhis.webapi.webdomain.WebMetadata;
 import org.hisp.dhis.webapi.webdomain.WebOptions;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestParam;
@@ -90,6 +94,7 @@ import com.google.common.base.Enums;
 import com.google.common.base.Joiner;
 import com.google.common.base.Optional;
 import com.google.common.collect.Lists;
+import com.google.common.hash.Hashing;
 
 /**
  * Base controller for APIs that only want to offer read only access through
@@ -132,6 +137,9 @@ public abstract class AbstractFullReadOnlyController<T extends IdentifiableObjec
     @Autowired
     protected AttributeService attributeService;
 
+    @Autowired
+    protected ChangeVersionService changeVersionService;
+
     // --------------------------------------------------------------------------
     // Hooks
     // --------------------------------------------------------------------------
@@ -160,7 +168,7 @@ public abstract class AbstractFullReadOnlyController<T extends IdentifiableObjec
     @GetMapping
     public @ResponseBody RootNode getObjectList(
         @RequestParam Map<String, String> rpParameters, OrderParams orderParams,
-        HttpServletResponse response, User currentUser )
+        HttpServletRequest request, HttpServletResponse response, User currentUser )
         throws QueryParserException
     {
         List<String> fields = Lists.newArrayList( contextService.getParameterValues( "fields" ) );
@@ -181,6 +189,11 @@ public abstract class AbstractFullReadOnlyController<T extends IdentifiableObjec
                 "You don't have the proper permissions to read objects of this type." );
         }
 
+        if ( isNotModified( request, response, currentUser ) )
+        {
+            return null;
+        }
+
         List<T> entities = getEntityList( metadata, options, filters, orders );
 
         Pager pager = metadata.getPager();
@@ -223,7 +236,7 @@ public abstract class AbstractFullReadOnlyController<T extends IdentifiableObjec
             rootNode.addChild( NodeUtils.createPager( pager ) );
         }
 
-        rootNode.addChild( fieldFilterService.toCollectionNode( getEntityClass(),
+        rootNode.addChild( fieldFilterService.toStreamingCollectionNode( getEntityClass(),
             new FieldFilterParams( entities, fields, Defaults.valueOf( options.get( "defaults", DEFAULTS ) ) ) ) );
 
         cachePrivate( response );
@@ -449,6 +462,36 @@ public abstract class AbstractFullReadOnlyController<T extends IdentifiableObjec
         return queryService.count( query );
     }
 
+    /**
+     * Sets an ETag derived from the change versions of the entity class and
+     * indicates whether the client copy of the list is still current, which
+     * allows answering conditional requests without loading any objects.
+     */
+    private boolean isNotModified( HttpServletRequest request, HttpServletResponse response, User currentUser )
+    {
+        if ( !changeVersionService.isEnabled() || !MetadataObject.class.isAssignableFrom( getEntityClass() ) )
+        {
+            return false;
+        }
+
+        String tag = Hashing.sha256().hashString( Joiner.on( '|' ).useForNull( "" ).join(
+            changeVersionService.getVersionTag( getEntityClass() ),
+            currentUser != null ? currentUser.getUid() : null,
+            request.getRequestURI(),
+            request.getQueryString(),
+            request.getHeader( HttpHeaders.ACCEPT ),
+            UserContext.getUserSetting( UserSettingKey.DB_LOCALE ) ), StandardCharsets.UTF_8 ).toString();
+
+        if ( ContextUtils.isNotModified( request, response, tag ) )
+        {
+            cachePrivate( response );
+
+            return true;
+        }
+
+        return false;
+    }
+
     private void cachePrivate( HttpServletResponse response )
     {
         response.setHeader( ContextUtils.HEADER_CACHE_CONTROL,
@@ -225,8 +225,8 @@ public class VisualizationDataController
         {
             OrganisationUnit unit = ou != null ? organisationUnitService.getOrganisationUnit( ou ) : null;
 
-            JFreeChart jFreeChart = chartService.getJFreeChart( new PlotData( visualization ), date, unit,
-                i18nManager.getI18nFormat(), currentUserService.getCurrentUser() );
+            byte[] image = chartService.getChartImage( new PlotData( visualization ), date, unit,
+                i18nManager.getI18nFormat(), currentUserService.getCurrentUser(), width, height );
 
             String filename = CodecUtils.filenameEncode( visualization.getName() ) + ".png";
 
@@ -234,7 +234,7 @@ public class VisualizationDataController
                 CacheStrategy.RESPECT_SYSTEM_SETTING,
                 filename, attachment );
 
-            ChartUtils.writeChartAsPNG( response.getOutputStream(), jFreeChart, width, height );
+            response.getOutputStream().write( image );
         }
         else
         {
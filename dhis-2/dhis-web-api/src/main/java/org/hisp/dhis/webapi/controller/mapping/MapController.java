@@ -32,12 +32,10 @@ import static org.hisp.dhis.dxf2.webmessage.WebMessageUtils.conflict;
 import static org.hisp.dhis.dxf2.webmessage.WebMessageUtils.notFound;
 import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
 
-import java.awt.image.BufferedImage;
 import java.io.IOException;
 import java.util.Date;
 import java.util.Set;
 
-import javax.imageio.ImageIO;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
@@ -305,14 +303,15 @@ public class MapController
         boolean attachment, HttpServletResponse response )
         throws Exception
     {
-        BufferedImage image = mapGenerationService.generateMapImage( map, date, unit, width, height );
+        byte[] image = mapGenerationService.generateMapPngForUser( map, date, unit, width, height,
+            currentUserService.getCurrentUser() );
 
         if ( image != null )
         {
             contextUtils.configureResponse( response, ContextUtils.CONTENT_TYPE_PNG,
                 CacheStrategy.RESPECT_SYSTEM_SETTING, "map.png", attachment );
 
-            ImageIO.write( image, "PNG", response.getOutputStream() );
+            response.getOutputStream().write( image );
         }
         else
         {
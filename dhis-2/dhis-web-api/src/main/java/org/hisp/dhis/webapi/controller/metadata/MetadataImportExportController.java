@@ -227,6 +227,7 @@ public class MetadataImportExportController
 
         MetadataExportParams params = metadataExportService.getParamsFromMap( contextService.getParameterValuesMap() );
         metadataExportService.validate( params );
+        params.setStreaming( true );
 
         RootNode rootNode = metadataExportService.getMetadataAsNode( params );
 